@@ -52,6 +52,8 @@ public class ReplayPacketCleaner {
     public static final String RECORDING_TMCPR_FILE_NAME = "recording.tmcpr";
     public static final String RECORDING_TMCPR_CRC32_FILE_NAME = RECORDING_TMCPR_FILE_NAME + ".crc32";
     public static final String METADATA_FILE_NAME = "metaData.json";
+    public static final String MARKERS_FILE_NAME = "markers.json";
+    public static final String TIMELINES_FILE_NAME = "timelines.json";
 
     /**
      * The file name for the profile json file saved within the replays exported by this application.
@@ -273,7 +275,8 @@ public class ReplayPacketCleaner {
                 replay.getExportDirectory(),
                 this.protocolDirectory,
                 this.asyncReads,
-                this.asyncWrites);
+                this.asyncWrites,
+                this.executorService);
 
         this.jobs.put(job.getUUID(), job);
         this.jobPreprocessingQueue.add(job);
@@ -298,7 +301,8 @@ public class ReplayPacketCleaner {
                 replay.getExportDirectory(),
                 this.protocolDirectory,
                 this.asyncReads,
-                this.asyncWrites);
+                this.asyncWrites,
+                this.executorService);
 
         this.jobs.put(job.getUUID(), job);
         this.jobPreprocessingQueue.add(job);
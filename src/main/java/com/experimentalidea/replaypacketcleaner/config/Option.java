@@ -29,16 +29,297 @@ public enum Option implements ConfigurationKey {
             new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.BOOLEAN},
             Boolean.FALSE),
 
+    BLOCK_UPDATE_COALESCE(
+            new String[]{"profile", "block_update", "coalesce"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.BOOLEAN},
+            Boolean.FALSE),
+
+    /// The time window (in milliseconds) in which block changes are coalesced.
+    BLOCK_UPDATE_COALESCE_WINDOW(
+            new String[]{"profile", "block_update", "coalesce_window"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.INTEGER},
+            Integer.valueOf(250)),
+
+    /// Plan the profile around a budget. The replay is read twice, once to collect statistics, then once to process it with the listeners picked to meet the budget.
+    /// Listeners already enabled are left as configured. The planned profile is the one saved within the exported replay.
+    BUDGET(
+            new String[]{"profile", "budget", "enabled"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.BOOLEAN},
+            Boolean.FALSE),
+
+    /// The max number of packets per second, averaged over any 10 second stretch of the replay. 0 for no limit.
+    BUDGET_MAX_PACKET_RATE(
+            new String[]{"profile", "budget", "max_packet_rate"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.INTEGER},
+            Integer.valueOf(0)),
+
+    /// The max size (in megabytes) of the exported replay archive. 0 for no limit.
+    BUDGET_MAX_SIZE(
+            new String[]{"profile", "budget", "max_size"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.INTEGER},
+            Integer.valueOf(0)),
+
+    /// Cull chunks and entities the camera path (set up within the ReplayMod editor) never comes near. For replays that are only rendered out along that path.
+    CAMERA_CULL(
+            new String[]{"profile", "camera_cull", "enabled"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.BOOLEAN},
+            Boolean.FALSE),
+
+    /// The distance (in blocks) from the camera path within which chunks and entities are kept.
+    CAMERA_CULL_DISTANCE(
+            new String[]{"profile", "camera_cull", "distance"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.INTEGER},
+            Integer.valueOf(128)),
+
+    CHUNK_DEDUPE_RESENDS(
+            new String[]{"profile", "chunk", "dedupe_resends"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.BOOLEAN},
+            Boolean.FALSE),
+
+    /// The memory budget (in megabytes) for the cache of chunks used by chunk resend deduplication.
+    CHUNK_DEDUPE_CACHE_BUDGET(
+            new String[]{"profile", "chunk", "dedupe_cache_budget"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.INTEGER},
+            Integer.valueOf(16)),
+
+    /// How long (in seconds) an unloaded chunk may be kept loaded while waiting for it to be re-sent.
+    CHUNK_DEDUPE_MAX_HOLD(
+            new String[]{"profile", "chunk", "dedupe_max_hold"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.INTEGER},
+            Integer.valueOf(60)),
+
+    /// Strip the chunk sections outside a range of heights. (protocol 757+ / MC 1.18+)
+    CHUNK_Y_RANGE(
+            new String[]{"profile", "chunk", "y_range"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.BOOLEAN},
+            Boolean.FALSE),
+
+    /// The lowest block y kept by the chunk y range. Sections entirely below it are stripped.
+    CHUNK_Y_RANGE_MIN(
+            new String[]{"profile", "chunk", "y_range_min"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.INTEGER},
+            Integer.valueOf(0)),
+
+    /// The highest block y kept by the chunk y range. Sections entirely above it are stripped.
+    CHUNK_Y_RANGE_MAX(
+            new String[]{"profile", "chunk", "y_range_max"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.INTEGER},
+            Integer.valueOf(319)),
+
+    /// Remove the effects of combat and damage, while keeping the entities themselves.
+    COMBAT_NOISE_REMOVE(
+            new String[]{"profile", "combat_noise", "remove"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.BOOLEAN},
+            Boolean.FALSE),
+
+    /// Remove critical hit animations.
+    COMBAT_NOISE_CRITICALS(
+            new String[]{"profile", "combat_noise", "criticals"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.BOOLEAN},
+            Boolean.TRUE),
+
+    /// Remove damage events.
+    COMBAT_NOISE_DAMAGE_EVENTS(
+            new String[]{"profile", "combat_noise", "damage_events"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.BOOLEAN},
+            Boolean.TRUE),
+
+    /// Remove hurt animations, including the hurt statuses of entity events.
+    COMBAT_NOISE_HURT_ANIMATIONS(
+            new String[]{"profile", "combat_noise", "hurt_animations"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.BOOLEAN},
+            Boolean.TRUE),
+
+    /// Remove the potion effects of non-player entities.
+    COMBAT_NOISE_MOB_EFFECTS(
+            new String[]{"profile", "combat_noise", "mob_effects"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.BOOLEAN},
+            Boolean.TRUE),
+
+    /// Remove arm swing animations.
+    COMBAT_NOISE_SWINGS(
+            new String[]{"profile", "combat_noise", "swings"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.BOOLEAN},
+            Boolean.FALSE),
+
+    /// Cap the number of live entities of each type within a region of chunks.
+    ENTITIES_CAP(
+            new String[]{"profile", "entities", "cap"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.BOOLEAN},
+            Boolean.FALSE),
+
+    /// The max number of live entities of the same type within a region.
+    ENTITIES_CAP_MAX(
+            new String[]{"profile", "entities", "cap_max"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.INTEGER},
+            Integer.valueOf(16)),
+
+    /// Spawn a suppressed entity in place of a capped entity that was removed.
+    ENTITIES_CAP_PROMOTE(
+            new String[]{"profile", "entities", "cap_promote"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.BOOLEAN},
+            Boolean.TRUE),
+
+    /// The width of a region (in chunks) used by the entity cap.
+    ENTITIES_CAP_REGION_SIZE(
+            new String[]{"profile", "entities", "cap_region_size"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.INTEGER},
+            Integer.valueOf(1)),
+
+    /// Remove entities that are removed again shortly after being spawned.
+    ENTITIES_PRUNE_SHORT_LIVED(
+            new String[]{"profile", "entities", "prune_short_lived"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.BOOLEAN},
+            Boolean.FALSE),
+
+    /// The memory budget (in megabytes) for the buffer of packets read ahead while looking for short-lived entities.
+    ENTITIES_PRUNE_BUFFER_BUDGET(
+            new String[]{"profile", "entities", "prune_buffer_budget"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.INTEGER},
+            Integer.valueOf(4)),
+
+    /// The max lifetime (in milliseconds) of an entity for it to be considered short-lived.
+    ENTITIES_PRUNE_MAX_LIFETIME(
+            new String[]{"profile", "entities", "prune_max_lifetime"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.INTEGER},
+            Integer.valueOf(250)),
+
     ENTITIES_REMOVE_ALL(
             new String[]{"profile", "entities", "remove_all"},
             new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.BOOLEAN},
             Boolean.FALSE),
 
+    /// Also remove display entities (block, item and text displays) when removing hidden entities.
+    ENTITIES_REMOVE_DISPLAYS(
+            new String[]{"profile", "entities", "remove_displays"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.BOOLEAN},
+            Boolean.FALSE),
+
+    /// Remove markers, interaction entities and invisible armor stands.
+    ENTITIES_REMOVE_HIDDEN(
+            new String[]{"profile", "entities", "remove_hidden"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.BOOLEAN},
+            Boolean.FALSE),
+
+    /// Shrink idle gaps (afk stretches, menu pauses, loading screens, etc.) by shifting all later timestamps back.
+    GAP_COMPACT(
+            new String[]{"profile", "gap", "compact"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.BOOLEAN},
+            Boolean.FALSE),
+
+    /// The memory budget (in megabytes) for the buffer of packets read ahead while looking for idle gaps.
+    GAP_COMPACT_BUFFER_BUDGET(
+            new String[]{"profile", "gap", "compact_buffer_budget"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.INTEGER},
+            Integer.valueOf(4)),
+
+    /// The length (in milliseconds) an idle gap is shrunk down to.
+    GAP_COMPACT_LENGTH(
+            new String[]{"profile", "gap", "compact_length"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.INTEGER},
+            Integer.valueOf(1000)),
+
+    /// A second with fewer packets than this is idle, unless it has too many visual packets.
+    GAP_COMPACT_MAX_PACKETS(
+            new String[]{"profile", "gap", "compact_max_packets"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.INTEGER},
+            Integer.valueOf(20)),
+
+    /// A second with fewer visual packets (entity movement, block changes, particles, etc.) than this is idle.
+    GAP_COMPACT_MAX_VISUAL_PACKETS(
+            new String[]{"profile", "gap", "compact_max_visual_packets"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.INTEGER},
+            Integer.valueOf(3)),
+
+    /// How long (in milliseconds) the replay must stay idle for it to be considered a gap.
+    GAP_COMPACT_MIN_GAP(
+            new String[]{"profile", "gap", "compact_min_gap"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.INTEGER},
+            Integer.valueOf(10000)),
+
+    /// Re-encode entity movement in the smallest packet that leaves the client in the same state, dropping movement that changes nothing.
+    MOVEMENT_MINIMIZE(
+            new String[]{"profile", "movement", "minimize"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.BOOLEAN},
+            Boolean.FALSE),
+
+    /// Drop entire packet types, chosen by presets and allow/deny lists.
+    PACKET_FILTER(
+            new String[]{"profile", "packet", "filter"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.BOOLEAN},
+            Boolean.FALSE),
+
+    /// The names of the packet types (see {@link com.experimentalidea.replaypacketcleaner.protocol.PacketType.Play}) that are never dropped, even if part of a preset.
+    PACKET_FILTER_ALLOW(
+            new String[]{"profile", "packet", "filter_allow"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.ARRAY_STRING},
+            new String[]{}),
+
+    /// The names of the packet types (see {@link com.experimentalidea.replaypacketcleaner.protocol.PacketType.Play}) that are dropped on top of the presets.
+    PACKET_FILTER_DENY(
+            new String[]{"profile", "packet", "filter_deny"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.ARRAY_STRING},
+            new String[]{}),
+
+    /// The names of the presets (see {@link com.experimentalidea.replaypacketcleaner.job.listener.PacketTypeFilter.Preset}) whose packet types are dropped.
+    PACKET_FILTER_PRESETS(
+            new String[]{"profile", "packet", "filter_presets"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.ARRAY_STRING},
+            new String[]{"DEBUG_NETWORK"}),
+
     PARTICLE_REMOVE_ALL(
             new String[]{"profile", "particle", "remove_all"},
             new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.BOOLEAN},
             Boolean.FALSE),
 
+    /// Throttle particles by type, count and density.
+    PARTICLE_THROTTLE(
+            new String[]{"profile", "particle", "throttle"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.BOOLEAN},
+            Boolean.FALSE),
+
+    /// The names of the particle types (see {@link com.experimentalidea.replaypacketcleaner.protocol.ParticleType}) that are never throttled.
+    PARTICLE_THROTTLE_ALLOW(
+            new String[]{"profile", "particle", "throttle_allow"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.ARRAY_STRING},
+            new String[]{}),
+
+    /// The names of the particle types (see {@link com.experimentalidea.replaypacketcleaner.protocol.ParticleType}) that are always removed when throttling.
+    PARTICLE_THROTTLE_DENY(
+            new String[]{"profile", "particle", "throttle_deny"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.ARRAY_STRING},
+            new String[]{}),
+
+    /// The max number of particles a single particle packet may spawn. Larger bursts are scaled down to this.
+    PARTICLE_THROTTLE_MAX_COUNT(
+            new String[]{"profile", "particle", "throttle_max_count"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.INTEGER},
+            Integer.valueOf(32)),
+
+    /// The max number of particle packets of the same type within a chunk per tick.
+    PARTICLE_THROTTLE_MAX_PER_CHUNK(
+            new String[]{"profile", "particle", "throttle_max_per_chunk"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.INTEGER},
+            Integer.valueOf(4)),
+
+    /// Remove the latency and display name updates of players within the tab list.
+    PLAYER_INFO_COMPACT(
+            new String[]{"profile", "player_info", "compact"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.BOOLEAN},
+            Boolean.FALSE),
+
+    /// Keep only the selected players (and the recording player), removing all other players.
+    PLAYER_SELECT(
+            new String[]{"profile", "player", "select"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.BOOLEAN},
+            Boolean.FALSE),
+
+    /// The uuids and/or names of the players that are kept when selecting players.
+    PLAYER_SELECT_LIST(
+            new String[]{"profile", "player", "select_list"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.ARRAY_STRING},
+            new String[]{}),
+
     PROFILE_METADATA_APP_VERSION(
             new String[]{"profile", "metadata", "app_version"},
             new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.STRING},
@@ -66,11 +347,78 @@ public enum Option implements ConfigurationKey {
             new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.STRING},
             "default"),
 
+    /// Collapse identical sounds and cap the number of sounds playing at once within an area.
+    SOUND_LIMIT(
+            new String[]{"profile", "sound", "limit"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.BOOLEAN},
+            Boolean.FALSE),
+
+    /// The max number of sounds playing at once within an area of 16x16x16 blocks.
+    SOUND_LIMIT_MAX_PER_AREA(
+            new String[]{"profile", "sound", "limit_max_per_area"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.INTEGER},
+            Integer.valueOf(8)),
+
+    /// Identical sounds within this many milliseconds of each other are collapsed into one.
+    SOUND_LIMIT_WINDOW(
+            new String[]{"profile", "sound", "limit_window"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.INTEGER},
+            Integer.valueOf(100)),
+
     SOUND_REMOVE_ALL(
             new String[]{"profile", "sound", "remove_all"},
             new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.BOOLEAN},
             Boolean.FALSE),
 
+    /// Split the replay into multiple replays of a fixed length, processed alongside each other.
+    SPLIT(
+            new String[]{"profile", "split", "enabled"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.BOOLEAN},
+            Boolean.FALSE),
+
+    /// The length of each part of a split replay in minutes.
+    SPLIT_MINUTES(
+            new String[]{"profile", "split", "minutes"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.INTEGER},
+            Integer.valueOf(10)),
+
+    STATE_DEDUPE(
+            new String[]{"profile", "state", "dedupe"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.BOOLEAN},
+            Boolean.FALSE),
+
+    /// The names of the packet types (see {@link com.experimentalidea.replaypacketcleaner.protocol.PacketType.Play}) that state deduplication applies to.
+    STATE_DEDUPE_PACKET_TYPES(
+            new String[]{"profile", "state", "dedupe_packet_types"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.ARRAY_STRING},
+            new String[]{"BLOCK_ENTITY_DATA", "DISPLAY_OBJECTIVE", "INITIALIZE_WORLD_BORDER", "MAP_DATA", "SET_BORDER_CENTER", "SET_BORDER_SIZE",
+                    "SET_BORDER_WARNING_DELAY", "SET_BORDER_WARNING_DISTANCE", "SET_ENTITY_METADATA", "SET_EQUIPMENT", "UPDATE_ATTRIBUTES",
+                    "UPDATE_OBJECTIVES", "UPDATE_SCORE", "UPDATE_TEAMS", "UPDATE_TIME"}),
+
+    /// For a replay that's still being recorded, how long (in seconds) the recording can go without growing before it's treated as ended. 0 to wait until ReplayMod has saved the replay.
+    TAIL_IDLE_TIMEOUT(
+            new String[]{"profile", "tail", "idle_timeout"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.INTEGER},
+            Integer.valueOf(600)),
+
+    /// Turn the replay into a timelapse that plays back at normal speed. Also collapses block updates and removes particles and sounds.
+    TIMELAPSE(
+            new String[]{"profile", "timelapse", "enabled"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.BOOLEAN},
+            Boolean.FALSE),
+
+    /// The length of a frame (in milliseconds) of the timelapse. Entity movement and block changes within a frame are merged.
+    TIMELAPSE_FRAME(
+            new String[]{"profile", "timelapse", "frame"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.INTEGER},
+            Integer.valueOf(50)),
+
+    /// The speed-up factor of the timelapse.
+    TIMELAPSE_SPEED(
+            new String[]{"profile", "timelapse", "speed"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.INTEGER},
+            Integer.valueOf(10)),
+
     TIME_OVERRIDE(
             new String[]{"profile", "time", "override"},
             new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.BOOLEAN},
@@ -81,6 +429,36 @@ public enum Option implements ConfigurationKey {
             new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.LONG},
             Long.valueOf(0L)),
 
+    /// Trim the replay down to a range of time. Everything ahead of the start is folded into a snapshot of the world state at the new beginning.
+    TRIM(
+            new String[]{"profile", "trim", "enabled"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.BOOLEAN},
+            Boolean.FALSE),
+
+    /// The timestamp (in milliseconds) the trimmed replay ends at. -1 to keep the end as is.
+    TRIM_END(
+            new String[]{"profile", "trim", "end"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.INTEGER},
+            Integer.valueOf(-1)),
+
+    /// The name of the ReplayMod marker the trimmed replay ends at. Takes the place of the end timestamp if set.
+    TRIM_END_MARKER(
+            new String[]{"profile", "trim", "end_marker"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.STRING},
+            ""),
+
+    /// The timestamp (in milliseconds) the trimmed replay starts at.
+    TRIM_START(
+            new String[]{"profile", "trim", "start"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.INTEGER},
+            Integer.valueOf(0)),
+
+    /// The name of the ReplayMod marker the trimmed replay starts at. Takes the place of the start timestamp if set.
+    TRIM_START_MARKER(
+            new String[]{"profile", "trim", "start_marker"},
+            new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.STRING},
+            ""),
+
     WEATHER_OVERRIDE(
             new String[]{"profile", "weather", "override"},
             new ValueType[]{ValueType.JSON_OBJECT, ValueType.JSON_OBJECT, ValueType.BOOLEAN},
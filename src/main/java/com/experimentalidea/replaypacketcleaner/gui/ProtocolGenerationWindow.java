@@ -368,6 +368,18 @@ public class ProtocolGenerationWindow {
                         referenceResources.clear();
                         referenceUnsupportedTypes.clear();
 
+                        // registries - particle type
+                        log.append("========\nRegistries Particle Types:\n");
+                        for (ParticleType type : ParticleType.values()) {
+                            referenceResources.put(type, referenceProtocol.getParticleTypeResourceName(type));
+                            if (referenceProtocol.getParticleTypeID(type) == -1) {
+                                referenceUnsupportedTypes.add(type);
+                            }
+                        }
+                        populateJSON(rootProtocolJSON, undefinedProtocolResourcesJSON, registriesJSON, referenceResources, referenceUnsupportedTypes, ParticleType.values(), log, "minecraft:particle_type", "entries");
+                        referenceResources.clear();
+                        referenceUnsupportedTypes.clear();
+
 
                         // At the end. output the file and show the log.
                         saveJSON(rootProtocolJSON, new File(fileChooser.getSelectedFile(), "protocol_" + protocolVersion + ".json"));
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2025 ExperimentalIdea
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+package com.experimentalidea.replaypacketcleaner.job;
+
+import com.experimentalidea.replaypacketcleaner.config.Configuration;
+import com.experimentalidea.replaypacketcleaner.config.Option;
+import com.experimentalidea.replaypacketcleaner.job.ReplayStatistics.Category;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+
+/// Picks the listeners (and their thresholds) that bring a replay within a size and/or packet rate budget, based on the statistics of the replay.
+/// <br>
+/// <br> The listeners are tried in a fixed order, from the ones that change the least about how the replay looks to the ones that change the most.
+/// Each step is expected to keep a rough share of the packets of the categories it works on. The first steps that together are expected to meet the budget are picked.
+/// Steps whose listener is already enabled by the profile are left as configured (their share is counted up front), and steps with nothing to work on within the replay are skipped.
+/// <br> The estimates are rough, the statistics are of the source replay, and only account for what the profile already does through the listeners of the steps.
+class BudgetPlanner {
+
+    /**
+     * @param statistics       The statistics of the source replay.
+     * @param maxBytes         The max size of the exported replay archive in bytes. 0 for no limit.
+     * @param maxPacketRate    The max number of packets per second, averaged over {@link #RATE_WINDOW_SECONDS}. 0 for no limit.
+     * @param compressionRatio The compressed size of the source recording divided by its uncompressed size.
+     * @param otherEntryBytes  The compressed size of the entries of the archive other than the recording.
+     * @param hasCameraPath    If the replay has a camera path set up, which camera path culling works off of.
+     */
+    BudgetPlanner(ReplayStatistics statistics, long maxBytes, int maxPacketRate, double compressionRatio, long otherEntryBytes, boolean hasCameraPath) {
+        this.statistics = statistics;
+        this.maxBytes = Math.max(0, maxBytes);
+        this.maxPacketRate = Math.max(0, maxPacketRate);
+        this.compressionRatio = compressionRatio;
+        this.otherEntryBytes = otherEntryBytes;
+        this.hasCameraPath = hasCameraPath;
+    }
+
+    /// The packet rate is averaged over this many seconds. Bursts (like the chunks loaded in on login) don't count against the budget on their own.
+    static final int RATE_WINDOW_SECONDS = 10;
+
+    /**
+     * A step of the plan.
+     *
+     * @param name           Used for logging.
+     * @param option         The option enabling the listener. The step is skipped if the profile already enables it.
+     * @param threshold      The option for the threshold of the listener, null if none.
+     * @param thresholdValue The value the threshold is set to.
+     * @param kept           The share of the packets (and bytes) of each category expected to be kept. Relative to the steps before it.
+     * @param needsCameraPath If the step only works with a camera path.
+     */
+    private record Step(String name, Option option, Option threshold, Object thresholdValue, Map<Category, Double> kept, boolean needsCameraPath) {
+
+        private Step(String name, Option option, Map<Category, Double> kept) {
+            this(name, option, null, null, kept, false);
+        }
+
+    }
+
+    private static final Step[] STEPS = {
+            // Nothing visible is lost.
+            new Step("movement minimizing", Option.MOVEMENT_MINIMIZE, Map.of(Category.MOVEMENT, 0.85)),
+            new Step("chunk resend deduplication", Option.CHUNK_DEDUPE_RESENDS, Map.of(Category.CHUNKS, 0.85)),
+            new Step("player info compaction", Option.PLAYER_INFO_COMPACT, Map.of(Category.PLAYER_INFO, 0.2)),
+            // Thins out what's there, keeping the overall look.
+            new Step("block update coalescing", Option.BLOCK_UPDATE_COALESCE, Map.of(Category.BLOCKS, 0.6)),
+            new Step("sound limiting", Option.SOUND_LIMIT, Map.of(Category.SOUNDS, 0.5)),
+            new Step("particle throttling (4 per chunk per tick)", Option.PARTICLE_THROTTLE, Option.PARTICLE_THROTTLE_MAX_PER_CHUNK, 4, Map.of(Category.PARTICLES, 0.5), false),
+            new Step("combat noise removal", Option.COMBAT_NOISE_REMOVE, Map.of(Category.COMBAT, 0.3)),
+            new Step("particle throttling (1 per chunk per tick)", Option.PARTICLE_THROTTLE, Option.PARTICLE_THROTTLE_MAX_PER_CHUNK, 1, Map.of(Category.PARTICLES, 0.5), false),
+            new Step("camera path culling (192 blocks)", Option.CAMERA_CULL, Option.CAMERA_CULL_DISTANCE, 192,
+                    Map.of(Category.CHUNKS, 0.7, Category.MOVEMENT, 0.7, Category.ENTITIES, 0.7, Category.BLOCKS, 0.7), true),
+            new Step("entity cap (16 per region)", Option.ENTITIES_CAP, Option.ENTITIES_CAP_MAX, 16, Map.of(Category.MOVEMENT, 0.7, Category.ENTITIES, 0.7), false),
+            // Removes entire categories.
+            new Step("particle removal", Option.PARTICLE_REMOVE_ALL, Map.of(Category.PARTICLES, 0.0)),
+            new Step("sound removal", Option.SOUND_REMOVE_ALL, Map.of(Category.SOUNDS, 0.0)),
+            new Step("camera path culling (64 blocks)", Option.CAMERA_CULL, Option.CAMERA_CULL_DISTANCE, 64,
+                    Map.of(Category.CHUNKS, 0.6, Category.MOVEMENT, 0.6, Category.ENTITIES, 0.6, Category.BLOCKS, 0.6), true),
+            new Step("entity cap (4 per region)", Option.ENTITIES_CAP, Option.ENTITIES_CAP_MAX, 4, Map.of(Category.MOVEMENT, 0.5, Category.ENTITIES, 0.5), false),
+    };
+
+    private final ReplayStatistics statistics;
+    private final long maxBytes;
+    private final int maxPacketRate;
+    private final double compressionRatio;
+    private final long otherEntryBytes;
+    private final boolean hasCameraPath;
+
+    private final List<String> pickedSteps = new ArrayList<String>();
+    private long estimatedBytes = 0;
+    private int estimatedPacketRate = 0;
+
+
+    /**
+     * Plan the profile that meets the budget. If no plan is expected to, every step is picked.
+     *
+     * @param configuration The profile to start from. Left as-is.
+     * @return A copy of the profile with the picked steps applied, and budget mode turned off, so the profile can be used again as-is.
+     */
+    Configuration<Option> plan(Configuration<Option> configuration) {
+        Configuration<Option> plannedConfiguration = configuration.copy();
+        plannedConfiguration.set(Option.BUDGET, Boolean.FALSE);
+
+        double[] kept = new double[Category.values().length];
+        Arrays.fill(kept, 1.0);
+        // The listeners the profile already enables keep (roughly) the share of their mildest step.
+        EnumSet<Option> enabledOptions = EnumSet.noneOf(Option.class);
+        for (Step step : BudgetPlanner.STEPS) {
+            if (configuration.getBoolean(step.option()) && !(step.needsCameraPath() && !this.hasCameraPath) && enabledOptions.add(step.option())) {
+                BudgetPlanner.applyKept(step, kept);
+            }
+        }
+        this.estimate(kept);
+
+        for (Step step : BudgetPlanner.STEPS) {
+            if (this.meetsBudget()) {
+                break;
+            }
+            if (configuration.getBoolean(step.option()) || (step.needsCameraPath() && !this.hasCameraPath) || !this.hasPacketsFor(step)) {
+                continue;
+            }
+            plannedConfiguration.set(step.option(), Boolean.TRUE);
+            if (step.threshold() != null) {
+                plannedConfiguration.set(step.threshold(), step.thresholdValue());
+            }
+            BudgetPlanner.applyKept(step, kept);
+            this.pickedSteps.add(step.name());
+            this.estimate(kept);
+        }
+        return plannedConfiguration;
+    }
+
+    private static void applyKept(Step step, double[] kept) {
+        for (Map.Entry<Category, Double> entry : step.kept().entrySet()) {
+            kept[entry.getKey().ordinal()] *= entry.getValue();
+        }
+    }
+
+    /// If the replay has any packets the step works on. A step that has nothing to work on isn't worth picking.
+    private boolean hasPacketsFor(Step step) {
+        for (Category category : step.kept().keySet()) {
+            if (this.statistics.getByteCount(category) > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void estimate(double[] kept) {
+        double recordingBytes = this.statistics.getOtherBytes();
+        for (Category category : Category.values()) {
+            recordingBytes += this.statistics.getByteCount(category) * kept[category.ordinal()];
+        }
+        this.estimatedBytes = (long) (recordingBytes * this.compressionRatio) + this.otherEntryBytes;
+
+        // The busiest stretch of the replay.
+        int seconds = this.statistics.getSeconds();
+        double[] packetsPerSecond = new double[seconds];
+        for (int second = 0; second < seconds; second++) {
+            for (Category category : Category.values()) {
+                packetsPerSecond[second] += this.statistics.getPacketCount(category, second) * kept[category.ordinal()];
+            }
+        }
+        double windowPackets = 0;
+        double maxWindowPackets = 0;
+        for (int second = 0; second < seconds; second++) {
+            windowPackets += packetsPerSecond[second];
+            if (second >= BudgetPlanner.RATE_WINDOW_SECONDS) {
+                windowPackets -= packetsPerSecond[second - BudgetPlanner.RATE_WINDOW_SECONDS];
+            }
+            maxWindowPackets = Math.max(maxWindowPackets, windowPackets);
+        }
+        this.estimatedPacketRate = (int) Math.ceil(maxWindowPackets / Math.max(1, Math.min(seconds, BudgetPlanner.RATE_WINDOW_SECONDS)));
+    }
+
+    boolean meetsBudget() {
+        return (this.maxBytes == 0 || this.estimatedBytes <= this.maxBytes)
+                && (this.maxPacketRate == 0 || this.estimatedPacketRate <= this.maxPacketRate);
+    }
+
+    /// The names of the steps picked, in order.
+    List<String> getPickedSteps() {
+        return this.pickedSteps;
+    }
+
+    /// The expected size of the exported replay archive in bytes, with the picked steps.
+    long getEstimatedBytes() {
+        return this.estimatedBytes;
+    }
+
+    /// The expected max packets per second (averaged over {@link #RATE_WINDOW_SECONDS}), with the picked steps.
+    int getEstimatedPacketRate() {
+        return this.estimatedPacketRate;
+    }
+
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2025 ExperimentalIdea
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+package com.experimentalidea.replaypacketcleaner.job;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/// The path of the camera as set up within the ReplayMod editor (timelines.json), sampled into positions along the replay's timestamps.
+/// <br>
+/// <br> A timeline is made of paths of keyframes, each keyframe placed at a point in time of the rendered video.
+/// Keyframes of the time path map the video time to a timestamp within the replay, keyframes of the position path place the camera.
+/// Both are interpolated linearly between keyframes. (ReplayMod may use splines instead, which can curve slightly off the straight line)
+/// <br> Keyframes of the position path may instead have the camera spectate an entity, in which case where the camera is can't be known from the timeline alone.
+/// See {@link #isSpectating()}.
+public class CameraPath {
+
+    private CameraPath(int[] timestamps, double[] x, double[] y, double[] z, boolean spectating) {
+        this.timestamps = timestamps;
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.spectating = spectating;
+    }
+
+    /**
+     * Key of the property within a keyframe for the timestamp within the replay.
+     */
+    public static final String PROPERTY_TIMESTAMP = "timestamp";
+
+    /**
+     * Key of the property within a keyframe for the position of the camera. Value is an array of x, y, z.
+     */
+    public static final String PROPERTY_CAMERA_POSITION = "camera:position";
+
+    // The max length of video time between samples in milliseconds, and the max distance in blocks the camera moves between samples.
+    private static final int SAMPLE_MILLISECONDS = 100;
+    private static final double SAMPLE_DISTANCE = 8.0;
+
+    private final int[] timestamps;
+    private final double[] x;
+    private final double[] y;
+    private final double[] z;
+    private final boolean spectating;
+
+
+    /**
+     * Sample the camera path of a timeline within a timelines.json file. The default timeline (named "") is used if there is one, otherwise the first timeline.
+     *
+     * @param timelinesJson The contents of the timelines.json file. A timeline name mapped to an array of paths.
+     * @return The camera path, or null if there is no timeline with both timestamp and camera position (or spectator) keyframes.
+     */
+    public static CameraPath fromTimelinesJson(JSONObject timelinesJson) {
+        JSONArray paths = timelinesJson.optJSONArray("");
+        if (paths == null) {
+            for (String name : timelinesJson.keySet()) {
+                paths = timelinesJson.optJSONArray(name);
+                if (paths != null) {
+                    break;
+                }
+            }
+        }
+        if (paths == null) {
+            return null;
+        }
+
+        // Video time -> replay timestamp, and video time -> camera position.
+        List<double[]> timeKeyframes = new ArrayList<double[]>();
+        List<double[]> positionKeyframes = new ArrayList<double[]>();
+        boolean spectating = false;
+        for (int i = 0; i < paths.length(); i++) {
+            JSONArray keyframes = paths.optJSONObject(i) != null ? paths.getJSONObject(i).optJSONArray("keyframes") : null;
+            if (keyframes == null) {
+                continue;
+            }
+            for (int j = 0; j < keyframes.length(); j++) {
+                JSONObject keyframe = keyframes.optJSONObject(j);
+                JSONObject properties = keyframe != null ? keyframe.optJSONObject("properties") : null;
+                if (properties == null) {
+                    continue;
+                }
+                double time = keyframe.optDouble("time", 0);
+                if (properties.has(CameraPath.PROPERTY_TIMESTAMP)) {
+                    timeKeyframes.add(new double[]{time, properties.optDouble(CameraPath.PROPERTY_TIMESTAMP, 0)});
+                }
+                JSONArray position = properties.optJSONArray(CameraPath.PROPERTY_CAMERA_POSITION);
+                if (position != null && position.length() >= 3) {
+                    positionKeyframes.add(new double[]{time, position.optDouble(0, 0), position.optDouble(1, 0), position.optDouble(2, 0)});
+                } else if (!properties.has(CameraPath.PROPERTY_TIMESTAMP)) {
+                    // A keyframe of the position path without a position has the camera spectate an entity.
+                    spectating = true;
+                }
+            }
+        }
+        if (timeKeyframes.isEmpty()) {
+            return null;
+        }
+        if (spectating) {
+            return new CameraPath(new int[0], new double[0], new double[0], new double[0], true);
+        }
+        if (positionKeyframes.isEmpty()) {
+            return null;
+        }
+        timeKeyframes.sort((a, b) -> Double.compare(a[0], b[0]));
+        positionKeyframes.sort((a, b) -> Double.compare(a[0], b[0]));
+
+        // Within the video times of the keyframes, both the timestamp and the position are linear.
+        double[] keyframeTimes = new double[timeKeyframes.size() + positionKeyframes.size()];
+        for (int i = 0; i < timeKeyframes.size(); i++) {
+            keyframeTimes[i] = timeKeyframes.get(i)[0];
+        }
+        for (int i = 0; i < positionKeyframes.size(); i++) {
+            keyframeTimes[timeKeyframes.size() + i] = positionKeyframes.get(i)[0];
+        }
+        Arrays.sort(keyframeTimes);
+
+        int count = 0;
+        int[] timestamps = new int[64];
+        double[] x = new double[64];
+        double[] y = new double[64];
+        double[] z = new double[64];
+        for (int i = 0; i < keyframeTimes.length; i++) {
+            double startTime = keyframeTimes[i];
+            double endTime = i + 1 < keyframeTimes.length ? keyframeTimes[i + 1] : startTime;
+            double[] start = CameraPath.interpolate(positionKeyframes, startTime);
+            double[] end = CameraPath.interpolate(positionKeyframes, endTime);
+            double distance = Math.sqrt((end[1] - start[1]) * (end[1] - start[1]) + (end[2] - start[2]) * (end[2] - start[2]) + (end[3] - start[3]) * (end[3] - start[3]));
+            int steps = (int) Math.max(1, Math.max(Math.ceil((endTime - startTime) / CameraPath.SAMPLE_MILLISECONDS), Math.ceil(distance / CameraPath.SAMPLE_DISTANCE)));
+            // The end of this interval is sampled as the start of the next one. Except for the last.
+            int sampleCount = i + 1 < keyframeTimes.length ? steps : 1;
+
+            if (count + sampleCount > timestamps.length) {
+                int capacity = Math.max(timestamps.length * 2, count + sampleCount);
+                timestamps = Arrays.copyOf(timestamps, capacity);
+                x = Arrays.copyOf(x, capacity);
+                y = Arrays.copyOf(y, capacity);
+                z = Arrays.copyOf(z, capacity);
+            }
+            for (int step = 0; step < sampleCount; step++) {
+                double fraction = (double) step / steps;
+                timestamps[count] = (int) Math.round(CameraPath.interpolate(timeKeyframes, startTime + (endTime - startTime) * fraction)[1]);
+                x[count] = start[1] + (end[1] - start[1]) * fraction;
+                y[count] = start[2] + (end[2] - start[2]) * fraction;
+                z[count] = start[3] + (end[3] - start[3]) * fraction;
+                count++;
+            }
+        }
+
+        return new CameraPath(Arrays.copyOf(timestamps, count), Arrays.copyOf(x, count), Arrays.copyOf(y, count), Arrays.copyOf(z, count), false);
+    }
+
+    /// Linearly interpolate between keyframes (sorted by time, the time at index 0) at a point in time. Values are held before the first and after the last keyframe.
+    private static double[] interpolate(List<double[]> keyframes, double time) {
+        double[] first = keyframes.getFirst();
+        if (time <= first[0]) {
+            return first;
+        }
+        for (int i = 1; i < keyframes.size(); i++) {
+            double[] next = keyframes.get(i);
+            if (time > next[0]) {
+                continue;
+            }
+            double[] previous = keyframes.get(i - 1);
+            double fraction = next[0] == previous[0] ? 1 : (time - previous[0]) / (next[0] - previous[0]);
+            double[] values = new double[previous.length];
+            for (int j = 0; j < values.length; j++) {
+                values[j] = previous[j] + (next[j] - previous[j]) * fraction;
+            }
+            return values;
+        }
+        return keyframes.getLast();
+    }
+
+
+    /**
+     * If (part of) the camera path spectates an entity. Where the camera is, isn't known then, so the path has no samples.
+     */
+    public boolean isSpectating() {
+        return this.spectating;
+    }
+
+    /**
+     * The number of samples along the camera path.
+     */
+    public int getSampleCount() {
+        return this.timestamps.length;
+    }
+
+    /**
+     * The timestamp within the replay of a sample.
+     */
+    public int getTimestamp(int sample) {
+        return this.timestamps[sample];
+    }
+
+    public double getX(int sample) {
+        return this.x[sample];
+    }
+
+    public double getY(int sample) {
+        return this.y[sample];
+    }
+
+    public double getZ(int sample) {
+        return this.z[sample];
+    }
+
+}
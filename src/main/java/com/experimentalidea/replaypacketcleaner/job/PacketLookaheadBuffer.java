@@ -0,0 +1,258 @@
+/*
+ * Copyright 2025 ExperimentalIdea
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+package com.experimentalidea.replaypacketcleaner.job;
+
+import com.experimentalidea.replaypacketcleaner.packet.RawPacket;
+import com.experimentalidea.replaypacketcleaner.packet.listener.LookaheadPacketCounter;
+import com.experimentalidea.replaypacketcleaner.packet.listener.LookaheadPacketListener;
+import com.experimentalidea.replaypacketcleaner.protocol.PacketType;
+import com.experimentalidea.replaypacketcleaner.protocol.Protocol;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+
+/// Reads packets ahead of the {@link ReplayManipulationTask} into a ring buffer, for {@link LookaheadPacketListener}s to see ahead of time.
+/// The bytes are served back out in their original order, so everything reading from this stream is none the wiser.
+/// <br>
+/// <br> The buffer is allocated once and reused for the entire replay. Once it is full, or a packet doesn't fit within it at all,
+/// packets are streamed through directly from the source replay until there's room again.
+class PacketLookaheadBuffer extends InputStream {
+
+    /**
+     * @param source                The reader of the source replay, positioned at the start of a packet.
+     * @param sourceReplaySizeBytes The size of the source replay in bytes. -1 while the replay is still being recorded.
+     * @param recordingTail         The recording being read from, if the replay is still being recorded. null otherwise.
+     * @param protocol              The protocol of the replay.
+     * @param windowMilliseconds    How far ahead to read.
+     * @param budgetBytes           The size of the buffer in bytes.
+     * @param listeners             The listeners by the packet types they want to see ahead of time.
+     * @param counters              The listeners told about the type and timestamp of every packet.
+     */
+    PacketLookaheadBuffer(ReplayReader source, long sourceReplaySizeBytes, RecordingTail recordingTail, Protocol protocol, int windowMilliseconds, int budgetBytes,
+                          Map<PacketType.Play, List<LookaheadPacketListener>> listeners, List<LookaheadPacketCounter> counters) {
+        this.source = source;
+        this.sourceReplaySizeBytes = sourceReplaySizeBytes;
+        this.recordingTail = recordingTail;
+        this.protocol = protocol;
+        this.windowMilliseconds = windowMilliseconds;
+        this.buffer = new byte[Math.max(budgetBytes, 64)];
+        this.listeners = listeners;
+        this.counters = counters.toArray(new LookaheadPacketCounter[0]);
+    }
+
+    private final ReplayReader source;
+    private final long sourceReplaySizeBytes;
+    private final RecordingTail recordingTail;
+    private final Protocol protocol;
+    private final int windowMilliseconds;
+    private final Map<PacketType.Play, List<LookaheadPacketListener>> listeners;
+    private final LookaheadPacketCounter[] counters;
+
+    // Ring buffer of the bytes read ahead.
+    private final byte[] buffer;
+    private int bufferHead = 0;
+    private int bufferCount = 0;
+
+    // Ring of the timestamps and end positions (in bytes served) of the packets within the buffer.
+    private int[] packetTimestamps = new int[256];
+    private long[] packetEnds = new long[256];
+    private int packetHead = 0;
+    private int packetCount = 0;
+
+    private long bytesServed = 0;
+
+    // A packet header that was read ahead, but whose packet didn't fit into the buffer yet.
+    private boolean pendingHeader = false;
+    private int pendingTimestamp;
+    private int pendingPacketSize;
+    private int pendingHeaderBytesServed;
+    // Bytes of a packet too large for the buffer, streamed directly from the source.
+    private int directBytesRemaining = 0;
+
+    // Don't read past a Start Configuration packet, as the configuration packets that follow don't use play packet ids.
+    private boolean blocked = false;
+
+
+    /// Read ahead until the buffer covers the window, is full, or a packet that changes the state of the connection is hit.
+    /// Must only be called in between packets.
+    void fill() throws IOException {
+        if (this.blocked) {
+            if (this.bufferCount != 0) {
+                return;
+            }
+            this.blocked = false;
+        }
+
+        while (this.directBytesRemaining == 0) {
+            if (this.packetCount != 0 && this.packetTimestamps[(this.packetHead + this.packetCount - 1) & (this.packetTimestamps.length - 1)]
+                    - this.packetTimestamps[this.packetHead] > this.windowMilliseconds) {
+                return;
+            }
+
+            if (!this.pendingHeader) {
+                // Leave an incomplete packet at the end of the replay to the task.
+                long sourceRemaining = this.sourceSizeBytes() - this.source.bytesRead();
+                if (sourceRemaining < 9) {
+                    return;
+                }
+                this.pendingTimestamp = this.source.readInt();
+                this.pendingPacketSize = this.source.readInt();
+                this.pendingHeaderBytesServed = 0;
+                this.pendingHeader = true;
+                if (sourceRemaining - 8 < this.pendingPacketSize || this.pendingPacketSize < 1) {
+                    // Stream the rest through as-is.
+                    this.directBytesRemaining = (int) Math.min(Integer.MAX_VALUE, sourceRemaining - 8);
+                    return;
+                }
+            }
+
+            int totalSize = 8 + this.pendingPacketSize;
+            if (totalSize > this.buffer.length) {
+                // Will never fit. Stream it through once the buffer has been drained.
+                this.directBytesRemaining = this.pendingPacketSize;
+                return;
+            }
+            if (totalSize > this.buffer.length - this.bufferCount) {
+                return;
+            }
+
+            int start = (this.bufferHead + this.bufferCount) % this.buffer.length;
+            this.putInt(this.pendingTimestamp);
+            this.putInt(this.pendingPacketSize);
+            for (int i = 0; i < this.pendingPacketSize; i++) {
+                this.buffer[(this.bufferHead + this.bufferCount++) % this.buffer.length] = (byte) this.source.readByte();
+            }
+            this.pendingHeader = false;
+            this.addPacket(this.pendingTimestamp, this.bytesServed + this.bufferCount);
+
+            PacketType.Play packetType = this.notifyListeners(start, this.pendingTimestamp, this.pendingPacketSize);
+            if (packetType == PacketType.Play.START_CONFIGURATION) {
+                this.blocked = true;
+                return;
+            }
+        }
+    }
+
+    private void putInt(int value) {
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            this.buffer[(this.bufferHead + this.bufferCount++) % this.buffer.length] = (byte) (value >>> shift);
+        }
+    }
+
+    private void addPacket(int timestamp, long end) {
+        if (this.packetCount == this.packetTimestamps.length) {
+            int[] timestamps = new int[this.packetTimestamps.length << 1];
+            long[] ends = new long[timestamps.length];
+            for (int i = 0; i < this.packetCount; i++) {
+                int slot = (this.packetHead + i) & (this.packetTimestamps.length - 1);
+                timestamps[i] = this.packetTimestamps[slot];
+                ends[i] = this.packetEnds[slot];
+            }
+            this.packetTimestamps = timestamps;
+            this.packetEnds = ends;
+            this.packetHead = 0;
+        }
+        int slot = (this.packetHead + this.packetCount++) & (this.packetTimestamps.length - 1);
+        this.packetTimestamps[slot] = timestamp;
+        this.packetEnds[slot] = end;
+    }
+
+    /// Decode the packet id of a buffered packet, passing a copy of the packet to any listeners wanting it. Counters only get the packet type.
+    private PacketType.Play notifyListeners(int start, int timestamp, int packetSize) {
+        int position = start + 8;
+        int packetID = 0;
+        int idSize = 0;
+        while (idSize < 5 && idSize < packetSize) {
+            int currentByte = this.buffer[position++ % this.buffer.length];
+            packetID |= (currentByte & 0x7F) << (7 * idSize++);
+            if ((currentByte & 0x80) == 0) {
+                break;
+            }
+        }
+        PacketType.Play packetType = this.protocol.getPlayPacketType(packetID);
+        for (LookaheadPacketCounter counter : this.counters) {
+            counter.onLookaheadPacketType(packetType, timestamp);
+        }
+
+        List<LookaheadPacketListener> packetListeners = this.listeners.get(packetType);
+        if (packetListeners == null) {
+            return packetType;
+        }
+        int[] rawDataBytes = new int[packetSize - idSize];
+        for (int i = 0; i < rawDataBytes.length; i++) {
+            rawDataBytes[i] = this.buffer[position++ % this.buffer.length] & 0xFF;
+        }
+        for (LookaheadPacketListener listener : packetListeners) {
+            listener.onLookaheadPacket(new RawPacket(0, timestamp, packetType, rawDataBytes.clone()));
+        }
+        return packetType;
+    }
+
+
+    @Override
+    public int read() throws IOException {
+        if (this.bufferCount != 0) {
+            int value = this.buffer[this.bufferHead] & 0xFF;
+            this.bufferHead = (this.bufferHead + 1) % this.buffer.length;
+            this.bufferCount--;
+            this.bytesServed++;
+            while (this.packetCount != 0 && this.packetEnds[this.packetHead] <= this.bytesServed) {
+                this.packetHead = (this.packetHead + 1) & (this.packetTimestamps.length - 1);
+                this.packetCount--;
+            }
+            return value;
+        }
+
+        // The buffer has been drained. Serve the header that was read ahead, followed by the rest of the packet from the source.
+        if (this.pendingHeader) {
+            int value = this.pendingHeaderBytesServed < 4 ? this.pendingTimestamp : this.pendingPacketSize;
+            value = (value >>> (24 - 8 * (this.pendingHeaderBytesServed & 3))) & 0xFF;
+            if (++this.pendingHeaderBytesServed == 8) {
+                this.pendingHeader = false;
+                if (this.directBytesRemaining == 0) {
+                    this.directBytesRemaining = this.pendingPacketSize;
+                }
+            }
+            this.bytesServed++;
+            return value;
+        }
+
+        if (this.directBytesRemaining > 0) {
+            this.directBytesRemaining--;
+        }
+        if (this.source.bytesRead() >= this.sourceSizeBytes()) {
+            return -1;
+        }
+        this.bytesServed++;
+        return this.source.readByte();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.source.close();
+    }
+
+    /// The size of the source replay. See {@link ReplayManipulationTask} for a replay that's still being recorded.
+    private long sourceSizeBytes() throws IOException {
+        if (this.recordingTail == null) {
+            return this.sourceReplaySizeBytes;
+        }
+        return this.recordingTail.awaitFramedBytes(this.source.bytesRead());
+    }
+
+}
@@ -0,0 +1,299 @@
+/*
+ * Copyright 2025 ExperimentalIdea
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+package com.experimentalidea.replaypacketcleaner.job;
+
+import com.experimentalidea.replaypacketcleaner.Log;
+import com.experimentalidea.replaypacketcleaner.ReplayPacketCleaner;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/// Reads the recording of a replay while ReplayMod is still writing it, from the working folder ReplayMod records into.
+/// Only whole packets are read, waiting on the recording to grow as needed. The end of the stream is reached once the recording has ended,
+/// either by ReplayMod removing the recording (once it's saved the replay), or by the recording not growing for a while (ReplayMod crashed, etc.).
+/// <br>
+/// <br> The other files within the working folder (metaData.json, markers.json, etc.) change as the recording goes on, and may be gone along with the recording.
+/// Copies of their latest versions are kept within a snapshot folder.
+class RecordingTail extends InputStream {
+
+    /**
+     * @param job                     The job the recording is read for. Reading stops once the job is canceled.
+     * @param recordingFolder         The working folder ReplayMod records into.
+     * @param snapshotFolder          The folder to keep copies of the other files within the working folder in. Created if it doesn't exist.
+     * @param idleTimeoutMilliseconds How long the recording can go without growing before it's treated as ended. 0 or less to only end once ReplayMod removes the recording.
+     * @throws NoSuchFileException If the working folder doesn't contain a recording.
+     */
+    RecordingTail(Job job, Path recordingFolder, Path snapshotFolder, long idleTimeoutMilliseconds) throws IOException {
+        Objects.requireNonNull(job, "job cannot be null");
+        this.job = job;
+        this.recordingFolder = recordingFolder;
+        this.snapshotFolder = snapshotFolder;
+        this.idleTimeoutMilliseconds = idleTimeoutMilliseconds;
+
+        Files.createDirectories(snapshotFolder);
+        // Registered before anything is read, so that no change made in between is missed.
+        this.watchService = recordingFolder.getFileSystem().newWatchService();
+        try {
+            recordingFolder.register(this.watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            this.channel = FileChannel.open(recordingFolder.resolve(ReplayPacketCleaner.RECORDING_TMCPR_FILE_NAME), StandardOpenOption.READ);
+        } catch (IOException exception) {
+            this.watchService.close();
+            throw exception;
+        }
+        this.lastGrowthMilliseconds = System.currentTimeMillis();
+        this.snapshot();
+        this.frame();
+    }
+
+    /// How long to wait on the working folder to change before checking on the recording anyway. Some file systems are slow to report changes, if at all.
+    private static final long POLL_MILLISECONDS = 1000;
+    // The size of a packet header. (timestamp, packet size)
+    private static final int HEADER_SIZE = 8;
+
+    private final Job job;
+    private final Path recordingFolder;
+    private final Path snapshotFolder;
+    private final long idleTimeoutMilliseconds;
+    private final WatchService watchService;
+    private final FileChannel channel;
+
+    private final ByteBuffer header = ByteBuffer.allocate(RecordingTail.HEADER_SIZE);
+    private final byte[] singleByte = new byte[1];
+
+    // The bytes of the recording made up of whole packets, and the bytes of it read so far.
+    private long framedBytes = 0;
+    private long position = 0;
+    private long recordingSize = 0;
+    private long lastGrowthMilliseconds;
+    private boolean ended = false;
+
+    // The files copied into the snapshot folder, by the time they were last modified when copied.
+    private final Map<Path, FileTime> snapshotTimes = new HashMap<Path, FileTime>();
+
+
+    /**
+     * Wait until the recording has whole packets past the given number of bytes, or the recording has ended.
+     *
+     * @param bytesRead The number of bytes of the recording read so far.
+     * @return The number of bytes of the recording made up of whole packets. If it's no more than bytesRead, the recording has ended.
+     */
+    long awaitFramedBytes(long bytesRead) throws IOException {
+        while (this.framedBytes <= bytesRead && !this.ended) {
+            this.await();
+        }
+        return this.framedBytes;
+    }
+
+    /**
+     * Wait until a file shows up within the working folder, or the recording has ended.
+     *
+     * @param fileName The name of the file.
+     * @return The copy of the file within the snapshot folder, or null if the recording ended without it.
+     */
+    File awaitSnapshot(String fileName) throws IOException {
+        Path snapshot = this.snapshotFolder.resolve(fileName);
+        while (!Files.exists(snapshot) && !this.ended) {
+            this.await();
+        }
+        return Files.exists(snapshot) ? snapshot.toFile() : null;
+    }
+
+    /// Wait for the recording to end, then bring the snapshots up to date. Packets recorded from here on are left unread.
+    void awaitEnd() throws IOException {
+        while (!this.ended) {
+            this.await();
+        }
+        this.snapshot();
+    }
+
+
+    @Override
+    public int read() throws IOException {
+        return this.read(this.singleByte, 0, 1) == -1 ? -1 : this.singleByte[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        Objects.checkFromIndexSize(offset, length, bytes.length);
+        if (length == 0) {
+            return 0;
+        }
+        while (this.position == this.framedBytes) {
+            if (this.ended) {
+                return -1;
+            }
+            this.await();
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, (int) Math.min(length, this.framedBytes - this.position));
+        int count = this.channel.read(buffer, this.position);
+        if (count <= 0) {
+            throw new EOFException("The recording is shorter than it was a moment ago.");
+        }
+        this.position += count;
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return (int) Math.min(Integer.MAX_VALUE, this.framedBytes - this.position);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            this.channel.close();
+        } finally {
+            this.watchService.close();
+        }
+    }
+
+
+    /// Wait for the working folder to change (or a moment to pass), then catch up on the changes.
+    private void await() throws IOException {
+        if (this.job.isCanceled()) {
+            this.ended = true;
+            return;
+        }
+
+        WatchKey watchKey;
+        try {
+            watchKey = this.watchService.poll(RecordingTail.POLL_MILLISECONDS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException exception) {
+            throw new IOException("Interrupted while waiting on the recording.", exception);
+        }
+
+        boolean recordingRemoved = false;
+        boolean filesChanged = false;
+        if (watchKey != null) {
+            for (WatchEvent<?> event : watchKey.pollEvents()) {
+                if (event.context() instanceof Path name && name.toString().equals(ReplayPacketCleaner.RECORDING_TMCPR_FILE_NAME)) {
+                    recordingRemoved |= event.kind() == StandardWatchEventKinds.ENTRY_DELETE;
+                } else {
+                    filesChanged = true; // Also covers OVERFLOW, where the changes are unknown.
+                }
+            }
+            // No longer valid once the working folder itself is gone.
+            if (!watchKey.reset()) {
+                recordingRemoved = true;
+            }
+        }
+        if (filesChanged) {
+            this.snapshot();
+        }
+
+        // The recording is checked every time, not only when it's reported as modified. Some file systems report changes late, or lump them together.
+        this.frame();
+
+        if (recordingRemoved) {
+            this.end();
+        } else if (this.idleTimeoutMilliseconds > 0 && System.currentTimeMillis() - this.lastGrowthMilliseconds >= this.idleTimeoutMilliseconds) {
+            Log.warning("Job #" + this.job.getJobNumber() + ": The recording hasn't grown for " + (this.idleTimeoutMilliseconds / 1000) + " second(s). Treating it as ended.");
+            this.end();
+        }
+    }
+
+    /// Extend the whole packets of the recording by whatever has been written since.
+    private void frame() throws IOException {
+        long size = this.channel.size();
+        if (size > this.recordingSize) {
+            this.recordingSize = size;
+            this.lastGrowthMilliseconds = System.currentTimeMillis();
+        }
+        while (size - this.framedBytes >= RecordingTail.HEADER_SIZE) {
+            int packetSize = this.readPacketSize(this.framedBytes);
+            if (packetSize < 0 || size - this.framedBytes - RecordingTail.HEADER_SIZE < packetSize) {
+                break;
+            }
+            this.framedBytes += RecordingTail.HEADER_SIZE + packetSize;
+        }
+    }
+
+    private void end() throws IOException {
+        this.ended = true;
+        // The removed recording stays readable for as long as it's open. Pick up the last of it.
+        this.frame();
+
+        // It's possible that if a recording crashed, that the last packet may not be fully written.
+        // In such case, the incomplete packet data should be disregarded. (Same as ReplayManipulationTask does for a source replay)
+        long remaining = this.recordingSize - this.framedBytes;
+        if (remaining > 0) {
+            if (remaining < RecordingTail.HEADER_SIZE + 1) {
+                Log.warning("Job #" + this.job.getJobNumber() + ": Last packet is missing data. Expected at least another 9 bytes, only " + remaining + " bytes remain. Disregarding the last packet.");
+            } else {
+                Log.warning("Job #" + this.job.getJobNumber() + ": Last packet is missing data. Expected another " + this.readPacketSize(this.framedBytes) + " bytes, only "
+                        + (remaining - RecordingTail.HEADER_SIZE) + " bytes remain. Disregarding the last packet.");
+            }
+        }
+    }
+
+    /// Read the packet size from the header of the packet at the given position.
+    private int readPacketSize(long packetPosition) throws IOException {
+        this.header.clear();
+        while (this.header.hasRemaining()) {
+            if (this.channel.read(this.header, packetPosition + this.header.position()) <= 0) {
+                throw new EOFException("The recording is shorter than it was a moment ago.");
+            }
+        }
+        return this.header.getInt(4);
+    }
+
+    /// Copy the files within the working folder (other than the recording) that have changed since they were last copied.
+    private void snapshot() throws IOException {
+        if (!Files.isDirectory(this.recordingFolder)) {
+            return;
+        }
+        List<Path> files;
+        try (Stream<Path> stream = Files.walk(this.recordingFolder)) {
+            files = stream.filter(Files::isRegularFile).toList();
+        } catch (NoSuchFileException | UncheckedIOException exception) {
+            // The working folder is being removed.
+            return;
+        }
+        for (Path file : files) {
+            Path relativePath = this.recordingFolder.relativize(file);
+            String name = relativePath.toString();
+            if (name.equals(ReplayPacketCleaner.RECORDING_TMCPR_FILE_NAME) || name.equals(ReplayPacketCleaner.RECORDING_TMCPR_CRC32_FILE_NAME)) {
+                continue;
+            }
+            try {
+                FileTime lastModified = Files.getLastModifiedTime(file);
+                if (lastModified.equals(this.snapshotTimes.get(relativePath))) {
+                    continue;
+                }
+                Path snapshot = this.snapshotFolder.resolve(relativePath);
+                Files.createDirectories(snapshot.getParent());
+                Files.copy(file, snapshot, StandardCopyOption.REPLACE_EXISTING);
+                this.snapshotTimes.put(relativePath, lastModified);
+            } catch (NoSuchFileException ignored) {
+                // Removed in the meantime. The last copy (if any) is kept.
+            }
+        }
+    }
+
+}
@@ -20,6 +20,9 @@ import com.experimentalidea.replaypacketcleaner.config.Configuration;
 import com.experimentalidea.replaypacketcleaner.config.Option;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
 import java.util.UUID;
 
@@ -67,16 +70,50 @@ public class Replay {
         this.uuid = UUID.randomUUID();
         this.name = sourceFile.getName().replaceAll(ReplayPacketCleaner.DOT_MCPR_EXTENSION, "");
         this.sourceFile = sourceFile;
+        this.recordingInProgress = false;
 
     }
 
+    private Replay(UUID uuid, String name, File sourceFile, boolean recordingInProgress) {
+        this.uuid = uuid;
+        this.name = name;
+        this.sourceFile = sourceFile;
+        this.recordingInProgress = recordingInProgress;
+    }
+
+    /**
+     * Represent a replay that's still being recorded by ReplayMod, that can be submitted for editing.
+     * The replay is edited as it's recorded, and exported shortly after the recording ends.
+     * Before submitting this replay for editing, the Export Directory and Configuration must be set via the corresponding set methods.
+     *
+     * @param recordingFolder The working folder ReplayMod records into. (e.g. ".minecraft/replay_recordings/2025_01_01_12_00_00.mcpr.tmp")
+     * @throws NullPointerException If recordingFolder is null.
+     */
+    public static Replay ofRecordingInProgress(File recordingFolder) {
+        Objects.requireNonNull(recordingFolder, "recordingFolder cannot be null");
+        String name = recordingFolder.getName();
+        if (name.endsWith(Replay.DOT_TMP_EXTENSION)) {
+            name = name.substring(0, name.length() - Replay.DOT_TMP_EXTENSION.length());
+        }
+        if (name.toLowerCase().endsWith(ReplayPacketCleaner.DOT_MCPR_EXTENSION)) {
+            name = name.substring(0, name.length() - ReplayPacketCleaner.DOT_MCPR_EXTENSION.length());
+        }
+        return new Replay(UUID.randomUUID(), name, recordingFolder, true);
+    }
+
+
+    // The extension of the working folder ReplayMod records into.
+    private static final String DOT_TMP_EXTENSION = ".tmp";
+
 
     private final UUID uuid;
     private final File sourceFile;
     private final String name;
+    private final boolean recordingInProgress;
 
     private File exportDirectory = null;
     private Configuration<Option> configuration = null;
+    private final List<Configuration<Option>> additionalConfigurations = new ArrayList<Configuration<Option>>();
 
     /**
      * Get the UUID associated with this Replay object.
@@ -89,9 +126,9 @@ public class Replay {
     }
 
     /**
-     * Get the Name associated with this Replay object.
+     * Get the source file associated with this Replay object.
      *
-     * @return The name. (Source File name without the .mcpr extension)
+     * @return The source replay .mcpr archive file. Or the working folder ReplayMod records into, if the replay is still being recorded.
      */
     public File getSourceFile() {
         return this.sourceFile;
@@ -106,6 +143,15 @@ public class Replay {
         return this.name;
     }
 
+    /**
+     * Check if this replay is still being recorded by ReplayMod.
+     *
+     * @return True if the source file is the working folder ReplayMod records into, rather than a replay archive.
+     */
+    public boolean isRecordingInProgress() {
+        return this.recordingInProgress;
+    }
+
     /**
      * Get the Export Directory set for with this replay.
      *
@@ -144,4 +190,25 @@ public class Replay {
         this.configuration = configuration;
     }
 
+    /**
+     * Get the additional Configuration profiles set for with this replay.
+     *
+     * @return An unmodifiable view of the additional configuration profiles. Empty if none have been added.
+     */
+    public List<Configuration<Option>> getAdditionalConfigurations() {
+        return Collections.unmodifiableList(this.additionalConfigurations);
+    }
+
+    /**
+     * Add a Configuration profile to export this replay with, on top of the one set via {@link #setConfiguration(Configuration)}.
+     * The replay is exported once per profile, all from a single read of the source replay.
+     *
+     * @param configuration The configuration detailing how this additional edited version of this replay should be edited.
+     * @throws NullPointerException If configuration is null.
+     */
+    public void addAdditionalConfiguration(Configuration<Option> configuration) {
+        Objects.requireNonNull(configuration, "configuration cannot be null");
+        this.additionalConfigurations.add(configuration);
+    }
+
 }
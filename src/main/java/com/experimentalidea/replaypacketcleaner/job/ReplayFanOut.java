@@ -0,0 +1,169 @@
+/*
+ * Copyright 2025 ExperimentalIdea
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+package com.experimentalidea.replaypacketcleaner.job;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/// Reads a stream once, handing the same bytes to several branches. Each branch is an {@link InputStream} of its own, read at its own pace on its own thread.
+/// <br> The source is read ahead of the slowest branch by at most a few blocks. A branch that's closed early (the end of a trimmed replay, a failure, etc.) is dropped,
+/// and no longer holds back the others.
+class ReplayFanOut {
+
+    /**
+     * @param source      The stream to read. Closed once read through.
+     * @param branchCount The number of branches.
+     */
+    ReplayFanOut(InputStream source, int branchCount) {
+        Objects.requireNonNull(source, "source cannot be null");
+        this.source = source;
+        this.branches = new Branch[branchCount];
+        for (int i = 0; i < branchCount; i++) {
+            this.branches[i] = new Branch();
+        }
+    }
+
+    private static final int BLOCK_SIZE = 65536;
+    /// The number of blocks a branch can fall behind before the source is held back.
+    private static final int BLOCKS_AHEAD = 8;
+    /// How often (in milliseconds) a held back source checks if the branch holding it back has been closed.
+    private static final long CLOSE_CHECK_MILLISECONDS = 100;
+
+    // Handed to every branch once the source has been read through.
+    private static final byte[] END_OF_STREAM = new byte[0];
+
+    private final InputStream source;
+    private final Branch[] branches;
+
+
+    InputStream getBranch(int index) {
+        return this.branches[index];
+    }
+
+    /**
+     * Read the source through to the end, handing each block to every branch that's still open. Returns once every block has been handed off, or every branch has been closed.
+     * If the source fails to be read, every branch fails along with it.
+     */
+    void pump() throws IOException {
+        try (this.source) {
+            while (true) {
+                byte[] block = this.source.readNBytes(ReplayFanOut.BLOCK_SIZE);
+                if (block.length == 0) {
+                    break;
+                }
+                if (!this.handOff(block)) {
+                    return;
+                }
+            }
+            this.handOff(ReplayFanOut.END_OF_STREAM);
+        } catch (IOException | InterruptedException exception) {
+            IOException ioException = exception instanceof IOException cause ? cause : new IOException("Interrupted while reading the source.", exception);
+            for (Branch branch : this.branches) {
+                branch.failure = ioException;
+                // The queue is usually full. What's left within it won't be read anyway, so make room for the end of the stream.
+                branch.queue.clear();
+                branch.queue.offer(ReplayFanOut.END_OF_STREAM);
+            }
+            throw ioException;
+        }
+    }
+
+    /// Returns false if every branch has been closed.
+    private boolean handOff(byte[] block) throws InterruptedException {
+        boolean anyOpen = false;
+        for (Branch branch : this.branches) {
+            while (!branch.closed) {
+                if (branch.queue.offer(block, ReplayFanOut.CLOSE_CHECK_MILLISECONDS, TimeUnit.MILLISECONDS)) {
+                    anyOpen = true;
+                    break;
+                }
+            }
+        }
+        return anyOpen;
+    }
+
+
+    private static class Branch extends InputStream {
+
+        private final ArrayBlockingQueue<byte[]> queue = new ArrayBlockingQueue<byte[]>(ReplayFanOut.BLOCKS_AHEAD);
+        private volatile boolean closed = false;
+        private volatile IOException failure = null;
+
+        private byte[] block = new byte[0];
+        private int position = 0;
+
+        @Override
+        public int read() throws IOException {
+            if (!this.nextBlock()) {
+                return -1;
+            }
+            return this.block[this.position++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            Objects.checkFromIndexSize(offset, length, bytes.length);
+            if (length == 0) {
+                return 0;
+            }
+            if (!this.nextBlock()) {
+                return -1;
+            }
+            int count = Math.min(length, this.block.length - this.position);
+            System.arraycopy(this.block, this.position, bytes, offset, count);
+            this.position += count;
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return this.block.length - this.position;
+        }
+
+        @Override
+        public void close() {
+            this.closed = true;
+            this.queue.clear();
+        }
+
+        /// Make sure there's something left to read within the current block. Returns false at the end of the stream.
+        private boolean nextBlock() throws IOException {
+            if (this.closed) {
+                throw new IOException("Input Stream is closed.");
+            }
+            while (this.position == this.block.length) {
+                if (this.failure != null) {
+                    throw new IOException("The source failed to be read.", this.failure);
+                }
+                if (this.block == ReplayFanOut.END_OF_STREAM) {
+                    return false;
+                }
+                try {
+                    this.block = this.queue.take();
+                } catch (InterruptedException exception) {
+                    throw new IOException("Interrupted while waiting on the source.", exception);
+                }
+                this.position = 0;
+            }
+            return true;
+        }
+
+    }
+
+}
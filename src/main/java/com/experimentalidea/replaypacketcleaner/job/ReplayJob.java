@@ -20,12 +20,28 @@ import com.experimentalidea.replaypacketcleaner.config.Configuration;
 import com.experimentalidea.replaypacketcleaner.config.Option;
 import com.experimentalidea.replaypacketcleaner.job.listener.*;
 import com.experimentalidea.replaypacketcleaner.packet.listener.PacketListener;
+import com.experimentalidea.replaypacketcleaner.protocol.PacketType;
+import com.experimentalidea.replaypacketcleaner.protocol.ParticleType;
+import com.experimentalidea.replaypacketcleaner.protocol.Protocol;
 import com.experimentalidea.replaypacketcleaner.protocol.ProtocolDirectory;
+import com.experimentalidea.replaypacketcleaner.protocol.ProtocolMapper;
+import com.experimentalidea.replaypacketcleaner.protocol.Version;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
 
 import java.io.*;
 import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.Stream;
 import java.util.zip.*;
 
 public class ReplayJob extends Job implements Runnable, Closeable {
@@ -36,7 +52,7 @@ public class ReplayJob extends Job implements Runnable, Closeable {
      * workingDir should be an uuid, as a collision is effectively impossible.
      * workingDir is deleted when the task completes
      */
-    public ReplayJob(int jobNumber, Replay replay, File workingTmpDir, File exportDir, ProtocolDirectory protocolDirectory, boolean asyncReads, boolean asyncWrites) {
+    public ReplayJob(int jobNumber, Replay replay, File workingTmpDir, File exportDir, ProtocolDirectory protocolDirectory, boolean asyncReads, boolean asyncWrites, Executor executor) {
         super(jobNumber, replay);
 
         this.sourceFile = replay.getSourceFile();
@@ -45,32 +61,55 @@ public class ReplayJob extends Job implements Runnable, Closeable {
 
         this.configuration = replay.getConfiguration();
         Objects.requireNonNull(this.configuration, "configuration within Replay object cannot be null");
+        this.additionalConfigurations = List.copyOf(replay.getAdditionalConfigurations());
+
+        this.recordingInProgress = replay.isRecordingInProgress();
 
         this.workingTmpDir = workingTmpDir;
-        this.targetExportFile = new File(this.exportDir, this.sourceFile.getName().replaceAll(ReplayPacketCleaner.DOT_MCPR_EXTENSION, "") + " (RPC)" + ReplayPacketCleaner.DOT_MCPR_EXTENSION);
+        this.targetExportFile = new File(this.exportDir, replay.getName() + " (RPC)" + ReplayPacketCleaner.DOT_MCPR_EXTENSION);
 
         this.protocolDirectory = protocolDirectory;
         this.asyncReads = asyncReads;
         this.asyncWrites = asyncWrites;
+        this.executor = executor;
     }
 
 
     private static final Object TARGET_FILE_MOVE_LOCK = new Object();
 
+    // The job progress once a replay that's being split has been cut into segments. Processing the segments makes up the rest.
+    private static final int SPLIT_FRAMING_PROGRESS = Job.MAX_PROGRESS_VALUE / 4;
+    // The job progress once the statistics for planning a budget have been collected. Processing the replay makes up the rest.
+    private static final int BUDGET_STATISTICS_PROGRESS = Job.MAX_PROGRESS_VALUE / 4;
+
+    // The keys of a marker within the markers.json file written by ReplayMod. ({"realTimestamp": ..., "value": {"name": ...}})
+    private static final String MARKER_KEY_TIMESTAMP = "realTimestamp";
+    private static final String MARKER_KEY_VALUE = "value";
+    private static final String MARKER_KEY_NAME = "name";
+
     private File sourceFile;
+    // If true, the source file is the working folder ReplayMod is recording into, rather than a replay archive.
+    private final boolean recordingInProgress;
     private final File exportDir;
     private final File workingTmpDir;
     private final File targetExportFile;
     private final ProtocolDirectory protocolDirectory;
-    private final Configuration<Option> configuration;
+    // Replaced by the planned profile in budget mode.
+    private Configuration<Option> configuration;
+    // Each is exported as a replay of its own, alongside the one for the configuration above.
+    private final List<Configuration<Option>> additionalConfigurations;
     private final boolean asyncReads;
     private final boolean asyncWrites;
+    // Used for processing the segments of a split replay alongside each other. If null, the segments are processed one after another.
+    private final Executor executor;
 
     private volatile boolean prepared = false;
     private volatile boolean started = false;
     private final AtomicBoolean cancelFlag = new AtomicBoolean(false);
 
     private ReplayMetadata metadata = null;
+    // Collected the first time they're needed (planning a budget, camera path culling), then shared between the profiles.
+    private ReplayStatistics statistics = null;
     private ZipFile sourceZipFile = null;
     private long sourceReplaySizeBytes = 0;
 
@@ -97,6 +136,9 @@ public class ReplayJob extends Job implements Runnable, Closeable {
             if (!Files.isReadable(this.sourceFile.toPath())) {
                 throw new AccessDeniedException(this.sourceFile.toString(), null, "Permission denied - Cannot read source replay file " + this.sourceFile.toString());
             }
+            if (this.recordingInProgress && !this.sourceFile.isDirectory()) {
+                throw new Exception("Source recording folder " + this.sourceFile.getPath() + " is not a directory", new NotDirectoryException(this.sourceFile.toString()));
+            }
 
             // Export directory checks.
             if (!this.exportDir.exists()) {
@@ -116,18 +158,21 @@ public class ReplayJob extends Job implements Runnable, Closeable {
             // But just in case of some unforeseen issue, we'll mark it for deletion on exit.
             this.workingTmpDir.deleteOnExit();
 
-            File sourceCopy = new File(this.workingTmpDir, this.sourceFile.getName().replaceAll(ReplayPacketCleaner.DOT_MCPR_EXTENSION, "") + " (copy)" + ReplayPacketCleaner.DOT_MCPR_EXTENSION);
+            // A recording in progress is read where it is, as ReplayMod is still writing to it.
+            if (!this.recordingInProgress) {
+                File sourceCopy = new File(this.workingTmpDir, this.sourceFile.getName().replaceAll(ReplayPacketCleaner.DOT_MCPR_EXTENSION, "") + " (copy)" + ReplayPacketCleaner.DOT_MCPR_EXTENSION);
 
-            try {
-                Files.copy(this.sourceFile.toPath(), sourceCopy.toPath(), StandardCopyOption.REPLACE_EXISTING);
-            } catch (IOException ioException) {
-                throw new IOException("Could not copy source replay to working temp directory", ioException);
-            }
+                try {
+                    Files.copy(this.sourceFile.toPath(), sourceCopy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                } catch (IOException ioException) {
+                    throw new IOException("Could not copy source replay to working temp directory", ioException);
+                }
 
-            // Same as above with workingTmpDir. Mark for deletion on exit.
-            sourceCopy.deleteOnExit();
+                // Same as above with workingTmpDir. Mark for deletion on exit.
+                sourceCopy.deleteOnExit();
 
-            this.sourceFile = sourceCopy;
+                this.sourceFile = sourceCopy;
+            }
 
             this.setStatus(Status.WAITING);
 
@@ -160,6 +205,13 @@ public class ReplayJob extends Job implements Runnable, Closeable {
             this.setStatus(Status.IN_PROGRESS);
             this.setProgress(Job.MIN_PROGRESS_VALUE + 1);
 
+            // Edit the replay as it's being recorded, then save it once the recording ends.
+            if (this.recordingInProgress) {
+                File targetTmpFile = this.processRecordingInProgress();
+                this.finish(taskStartingMilliseconds, targetTmpFile, ", following the recording.");
+                return;
+            }
+
             // Task Initialization
 
             this.sourceZipFile = new ZipFile(this.sourceFile);
@@ -181,6 +233,38 @@ public class ReplayJob extends Job implements Runnable, Closeable {
                 throw new RuntimeException("Cannot determine the uncompressed size of \"" + ReplayPacketCleaner.RECORDING_TMCPR_FILE_NAME + "\" with the archive at \"" + this.sourceFile.getPath() + "\": -1");
             }
 
+            Protocol protocol = this.protocolDirectory.getProtocol(this.metadata.getMetadataJson().getInt(ReplayMetadata.KEY_PROTOCOL));
+
+            // Camera path culling needs to know when the player changes worlds, which takes a pass over the replay.
+            boolean cameraCull = this.configuration.getBoolean(Option.CAMERA_CULL);
+            for (Configuration<Option> additionalConfiguration : this.additionalConfigurations) {
+                cameraCull |= additionalConfiguration.getBoolean(Option.CAMERA_CULL);
+            }
+            if (cameraCull && this.readCameraPath() != null) {
+                this.collectStatistics(protocol, Job.MIN_PROGRESS_VALUE + 1);
+            }
+
+            // Export the replay once per profile, all from a single read of the source.
+            if (!this.additionalConfigurations.isEmpty()) {
+                List<File> exportedFiles = this.processProfiles(protocol, sourceRecordingEntry);
+                this.finish(taskStartingMilliseconds, null, ". Replay exported with " + exportedFiles.size() + " profile(s), saved to " + this.exportDir.toString());
+                return;
+            }
+
+            // Plan the profile around a budget, off the statistics of a first pass over the replay.
+            Job processingJob = this;
+            if (this.configuration.getBoolean(Option.BUDGET)) {
+                this.configuration = this.planBudget(protocol, sourceRecordingEntry, this.configuration);
+                processingJob = new StageJob(ReplayJob.BUDGET_STATISTICS_PROGRESS);
+            }
+
+            // Split the replay into segments, each processed (and saved) as a replay of its own.
+            if (this.configuration.getBoolean(Option.SPLIT)) {
+                List<File> exportedFiles = this.processSegments(protocol, sourceRecordingEntry);
+                this.finish(taskStartingMilliseconds, null, ". Replay split into " + exportedFiles.size() + " part(s), saved to " + this.exportDir.toString());
+                return;
+            }
+
             // Create the ZipOutputStream that will be used to write-out to the target replay archive.
             File targetTmpFile = new File(this.workingTmpDir, this.targetExportFile.getName());
             if (!targetTmpFile.createNewFile()) {
@@ -195,39 +279,41 @@ public class ReplayJob extends Job implements Runnable, Closeable {
             this.targetZipOutputStream.putNextEntry(targetRecordingEntry);
 
             // Create the listeners for manipulating replay packets
-            List<PacketListener> packetListenerList = new ArrayList<PacketListener>();
-            // TODO: Add & configure more packet listeners base on the provided configuration
-            if (this.configuration.getBoolean(Option.BLOCK_ANIMATION_REMOVE)) {
-                packetListenerList.add(new BlockActionRemover());
-            }
-            if (this.configuration.getBoolean(Option.ENTITIES_REMOVE_ALL)) {
-                packetListenerList.add(new EntityRemover());
-            }
-            if (this.configuration.getBoolean(Option.PARTICLE_REMOVE_ALL)) {
-                packetListenerList.add(new ParticleRemover());
-            }
-            if (this.configuration.getBoolean(Option.SOUND_REMOVE_ALL)) {
-                packetListenerList.add(new SoundRemover());
-            }
-            if (this.configuration.getBoolean(Option.TIME_OVERRIDE)) {
-                packetListenerList.add(new TimeChanger(this.configuration.getLong(Option.TIME_SET)));
-            }
-            if (this.configuration.getBoolean(Option.WEATHER_OVERRIDE)) {
-                packetListenerList.add(new WeatherChanger(this.configuration.getBoolean(Option.WEATHER_IS_RAINING), this.configuration.getFloat(Option.WEATHER_RAIN_LEVEL), this.configuration.getFloat(Option.WEATHER_THUNDER_LEVEL), this.configuration.getBoolean(Option.WEATHER_REMOVE_LIGHTING_STRIKES)));
+            List<PacketListener> packetListenerList = this.createPacketListeners(protocol, this.configuration);
+
+            // Trim down to a range of time, given either as timestamps or by the names of markers set within ReplayMod.
+            boolean trim = this.configuration.getBoolean(Option.TRIM);
+            // Markers move along with the packets, whenever the timestamps are changed.
+            boolean timestampsChanged = trim || this.configuration.getBoolean(Option.GAP_COMPACT) || this.configuration.getBoolean(Option.TIMELAPSE);
+            JSONArray markers = timestampsChanged ? this.readMarkers() : null;
+            int trimStart = 0;
+            int trimEnd = -1;
+            if (trim) {
+                int[] trimRange = this.findTrimRange(this.configuration, markers);
+                trimStart = trimRange[0];
+                trimEnd = trimRange[1];
+                packetListenerList.add(new TimeRangeTrimmer(trimStart, trimEnd));
             }
 
             // Replay editing stage
             ReplayManipulationTask replayManipulationTask =
                     new ReplayManipulationTask(
-                            this,
+                            processingJob,
                             new ReplayReader(this.sourceZipFile.getInputStream(sourceRecordingEntry), this.asyncReads, true),
                             this.sourceReplaySizeBytes,
                             new ReplayWriter(this.targetZipOutputStream, this.asyncWrites, false),
-                            this.protocolDirectory.getProtocol(this.metadata.getMetadataJson().getInt(ReplayMetadata.KEY_PROTOCOL)),
+                            protocol,
                             packetListenerList.toArray(new PacketListener[0]));
 
             replayManipulationTask.run();
 
+            // The timestamps were changed, so was the duration.
+            if (timestampsChanged) {
+                this.metadata.getMetadataJson().put(ReplayMetadata.KEY_DURATION, replayManipulationTask.getLastTimestampWritten());
+            }
+
+            this.logListenerStats(packetListenerList);
+
             this.targetZipOutputStream.closeEntry();
 
             // Check (again) if this job has been canceled. Cleanup this replay job if so.
@@ -242,96 +328,835 @@ public class ReplayJob extends Job implements Runnable, Closeable {
             }
 
             // Copy over other replay archive data from the source.
-            // Write out the metaData.json file.
-            this.targetZipOutputStream.putNextEntry(new ZipEntry(ReplayPacketCleaner.METADATA_FILE_NAME));
-            this.targetZipOutputStream.write(this.metadata.getMetadataJson().toString().getBytes());
-            this.targetZipOutputStream.closeEntry();
+            this.writeArchiveEntries(this.targetZipOutputStream, this.configuration, this.metadata.getMetadataJson(), markers == null ? null : ReplayJob.mapMarkers(markers, replayManipulationTask, trimStart, trimEnd));
+
+            this.finish(taskStartingMilliseconds, targetTmpFile, ".");
 
-            // Write out the ReplayPackerCleaner profile that represents the settings used for this replay.
-            String rpcFileName = ReplayPacketCleaner.ARCHIVE_PROFILE_JSON_FILE_NAME;
-            int rpcTries = 0;
-            // Ensure that if RPC has been run on the source file before, the new profile is given a unique file name. (as we don't want to go the route of overwriting old profile file(s))
-            while (this.sourceZipFile.getEntry(rpcFileName) != null) {
-                rpcTries++;
-                rpcFileName = ReplayPacketCleaner.ARCHIVE_PROFILE_JSON_FILE_NAME.replaceAll(ReplayPacketCleaner.DOT_JSON_EXTENSION, "") + "(" + rpcTries + ")" + ReplayPacketCleaner.DOT_JSON_EXTENSION;
+        } catch (Exception exception) {
+            try {
+                this.close();
+            } catch (IOException ioException) {
+                exception.addSuppressed(ioException);
             }
-            this.targetZipOutputStream.putNextEntry(new ZipEntry(rpcFileName));
-            this.targetZipOutputStream.write(this.configuration.toJSONObject().toString(2).getBytes());
-            this.targetZipOutputStream.closeEntry();
 
-            // Copy over all other data from the source replay
-            Enumeration<? extends ZipEntry> entries = this.sourceZipFile.entries();
-            while (entries.hasMoreElements()) {
-                ZipEntry zipEntry = entries.nextElement();
-                String entryName = zipEntry.getName();
-                if (!entryName.equals(ReplayPacketCleaner.RECORDING_TMCPR_FILE_NAME)
-                        && !entryName.equals(ReplayPacketCleaner.RECORDING_TMCPR_CRC32_FILE_NAME)
-                        && !entryName.equals(ReplayPacketCleaner.METADATA_FILE_NAME)) {
-
-                    this.targetZipOutputStream.putNextEntry(new ZipEntry(zipEntry));
-                    InputStream sourceEntryStream = this.sourceZipFile.getInputStream(zipEntry);
-
-                    int readBuffer = sourceEntryStream.read();
-                    while (readBuffer != -1) {
-                        this.targetZipOutputStream.write(readBuffer);
-                        readBuffer = sourceEntryStream.read();
-                    }
+            try {
+                ReplayPacketCleaner.deleteFilesRecursively(this.workingTmpDir);
+            } catch (IOException ioException) {
+                exception.addSuppressed(ioException);
+            }
 
-                    sourceEntryStream.close();
-                    this.targetZipOutputStream.closeEntry();
-                }
+            if (this.isCanceled()) {
+                this.setStatus(Status.CANCELED);
+            } else {
+                this.setStatus(Status.FAILED);
+                Log.severe("A problem occurred during processing of Job #" + this.getJobNumber() + " (" + this.getUUID().toString() + ") for \"" + this.getName() + "\":", exception);
             }
+        }
+    }
 
 
-            // Close everything
-            this.close();
+    /**
+     * Finish up the job. Close everything, move the new replay archive out of the working directory, clean up and log how long the job took.
+     * If the job was canceled in the meantime, it's only cleaned up.
+     *
+     * @param targetTmpFile The new replay archive within the working directory. null if the replay archives were already moved to the export directory.
+     * @param summary       Logged right after how long the job took. Where the replay archive was saved to is added after it.
+     */
+    private void finish(long taskStartingMilliseconds, File targetTmpFile, String summary) throws IOException {
+        this.close();
+        if (this.isCanceled()) {
+            ReplayPacketCleaner.deleteFilesRecursively(this.workingTmpDir);
+            this.setStatus(Status.CANCELED);
+            return;
+        }
+        if (targetTmpFile != null) {
+            File finalTargetFile = ReplayJob.moveToExportDirectory(targetTmpFile, this.targetExportFile);
+            summary += " Replay saved to " + finalTargetFile.toString();
+        }
+        ReplayPacketCleaner.deleteFilesRecursively(this.workingTmpDir);
 
-            // Move the new replay archive out of the working directory.
-            // Synchronized on a static object to prevent unexpected conflicts with other replay jobs.
-            File finalTargetFile = this.targetExportFile;
-            synchronized (ReplayJob.TARGET_FILE_MOVE_LOCK) {
-                int targetTries = 0;
-                while (finalTargetFile.exists()) {
-                    targetTries++;
-                    finalTargetFile = new File(this.targetExportFile.getParent(), this.targetExportFile.getName().replaceAll(ReplayPacketCleaner.DOT_MCPR_EXTENSION, "") + " (" + targetTries + ")" + ReplayPacketCleaner.DOT_MCPR_EXTENSION);
-                }
+        this.setProgress(Job.MAX_PROGRESS_VALUE);
+        this.setStatus(Status.COMPLETED);
+
+        long finishTimeSeconds = (System.currentTimeMillis() - taskStartingMilliseconds) / 1000;
+        Log.info("Job #" + this.getJobNumber() + " for \"" + this.getName() + "\" finished in " + (finishTimeSeconds / 60) + " minute(s), " + (finishTimeSeconds % 60) + " second(s)" + summary);
+    }
+
+
+    /// Create the listeners for manipulating replay packets, as configured by the given profile. Trimming isn't included, as it depends on how the replay is processed.
+    private List<PacketListener> createPacketListeners(Protocol protocol, Configuration<Option> configuration) throws IOException {
+        List<PacketListener> packetListenerList = new ArrayList<PacketListener>();
+        // TODO: Add & configure more packet listeners base on the provided configuration
+        if (configuration.getBoolean(Option.BLOCK_ANIMATION_REMOVE)) {
+            packetListenerList.add(new BlockActionRemover());
+        }
+        if (configuration.getBoolean(Option.CAMERA_CULL)) {
+            CameraPath cameraPath = this.readCameraPath();
+            if (cameraPath == null) {
+                Log.warning("Job #" + this.getJobNumber() + ": Skipping camera path culling, the replay doesn't have a camera path set up within the ReplayMod editor.");
+            } else if (cameraPath.isSpectating()) {
+                Log.warning("Job #" + this.getJobNumber() + ": Skipping camera path culling, the camera path spectates an entity, so where the camera goes isn't known.");
+            } else {
+                // The world the camera is in follows the player. When they change worlds is taken from the statistics, if they were collected.
+                packetListenerList.add(new CameraPathCuller(cameraPath, configuration.getInteger(Option.CAMERA_CULL_DISTANCE),
+                        this.statistics == null ? null : this.statistics.getWorldChangeTimestamps()));
+            }
+        }
+        if (configuration.getBoolean(Option.CHUNK_Y_RANGE)) {
+            int minY = configuration.getInteger(Option.CHUNK_Y_RANGE_MIN);
+            int maxY = configuration.getInteger(Option.CHUNK_Y_RANGE_MAX);
+            if (protocol.getProtocolVersion() < Version.MC_1_18_0) {
+                Log.warning("Job #" + this.getJobNumber() + ": Skipping the chunk y range, it's only supported for protocol " + Version.MC_1_18_0 + " (MC 1.18) and newer.");
+            } else if (maxY < minY) {
+                Log.warning("Job #" + this.getJobNumber() + ": Skipping the chunk y range, the max y (" + maxY + ") is below the min y (" + minY + ").");
+            } else {
+                packetListenerList.add(new ChunkSectionStripper(protocol.getProtocolVersion(), minY, maxY));
+            }
+        }
+        if (configuration.getBoolean(Option.CHUNK_DEDUPE_RESENDS)) {
+            packetListenerList.add(new ChunkResendDeduplicator(protocol, configuration.getInteger(Option.CHUNK_DEDUPE_CACHE_BUDGET) * 1024L * 1024L, configuration.getInteger(Option.CHUNK_DEDUPE_MAX_HOLD)));
+        }
+        if (configuration.getBoolean(Option.COMBAT_NOISE_REMOVE)) {
+            packetListenerList.add(new CombatNoiseRemover(configuration.getBoolean(Option.COMBAT_NOISE_DAMAGE_EVENTS),
+                    configuration.getBoolean(Option.COMBAT_NOISE_HURT_ANIMATIONS), configuration.getBoolean(Option.COMBAT_NOISE_SWINGS),
+                    configuration.getBoolean(Option.COMBAT_NOISE_CRITICALS), configuration.getBoolean(Option.COMBAT_NOISE_MOB_EFFECTS)));
+        }
+        if (configuration.getBoolean(Option.ENTITIES_REMOVE_ALL)) {
+            packetListenerList.add(new EntityRemover());
+        }
+        if (configuration.getBoolean(Option.ENTITIES_REMOVE_HIDDEN)) {
+            packetListenerList.add(new HiddenEntityRemover(protocol, configuration.getBoolean(Option.ENTITIES_REMOVE_DISPLAYS)));
+        }
+        if (configuration.getBoolean(Option.ENTITIES_CAP)) {
+            packetListenerList.add(new EntityCountLimiter(configuration.getInteger(Option.ENTITIES_CAP_MAX),
+                    configuration.getInteger(Option.ENTITIES_CAP_REGION_SIZE), configuration.getBoolean(Option.ENTITIES_CAP_PROMOTE)));
+        }
+        if (configuration.getBoolean(Option.ENTITIES_PRUNE_SHORT_LIVED)) {
+            packetListenerList.add(new ShortLivedEntityPruner(protocol.getProtocolVersion(), configuration.getInteger(Option.ENTITIES_PRUNE_MAX_LIFETIME),
+                    configuration.getInteger(Option.ENTITIES_PRUNE_BUFFER_BUDGET) * 1024 * 1024));
+        }
+        if (configuration.getBoolean(Option.PACKET_FILTER)) {
+            List<PacketTypeFilter.Preset> presets = new ArrayList<PacketTypeFilter.Preset>();
+            for (String presetName : configuration.getStringArray(Option.PACKET_FILTER_PRESETS)) {
                 try {
-                    Files.move(targetTmpFile.toPath(), finalTargetFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
-                } catch (AtomicMoveNotSupportedException exception) {
-                    // It's possible an Atomic Move operation may not be supported. Try copying instead.
-                    Files.copy(targetTmpFile.toPath(), finalTargetFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                    presets.add(PacketTypeFilter.Preset.valueOf(presetName));
+                } catch (IllegalArgumentException e) {
+                    Log.warning("Job #" + this.getJobNumber() + ": Ignoring unknown preset \"" + presetName + "\" for the packet filter.");
                 }
             }
+            packetListenerList.add(new PacketTypeFilter(presets.toArray(new PacketTypeFilter.Preset[0]),
+                    this.parsePacketTypes(configuration.getStringArray(Option.PACKET_FILTER_ALLOW), "the packet filter"),
+                    this.parsePacketTypes(configuration.getStringArray(Option.PACKET_FILTER_DENY), "the packet filter")));
+        }
+        if (configuration.getBoolean(Option.PARTICLE_REMOVE_ALL)) {
+            packetListenerList.add(new ParticleRemover());
+        }
+        if (configuration.getBoolean(Option.PARTICLE_THROTTLE)) {
+            packetListenerList.add(new ParticleThrottler(protocol, configuration.getInteger(Option.PARTICLE_THROTTLE_MAX_PER_CHUNK), configuration.getInteger(Option.PARTICLE_THROTTLE_MAX_COUNT),
+                    this.parseParticleTypes(protocol, configuration.getStringArray(Option.PARTICLE_THROTTLE_ALLOW)),
+                    this.parseParticleTypes(protocol, configuration.getStringArray(Option.PARTICLE_THROTTLE_DENY))));
+        }
+        if (configuration.getBoolean(Option.PLAYER_INFO_COMPACT)) {
+            packetListenerList.add(new PlayerInfoCompactor());
+        }
+        if (configuration.getBoolean(Option.PLAYER_SELECT)) {
+            packetListenerList.add(new PlayerSelector(configuration.getStringArray(Option.PLAYER_SELECT_LIST), this.metadata.getMetadataJson().optInt(ReplayMetadata.KEY_SELF_ID, -1)));
+        }
+        if (configuration.getBoolean(Option.SOUND_LIMIT)) {
+            packetListenerList.add(new SoundLimiter(configuration.getInteger(Option.SOUND_LIMIT_WINDOW), configuration.getInteger(Option.SOUND_LIMIT_MAX_PER_AREA)));
+        }
+        if (configuration.getBoolean(Option.SOUND_REMOVE_ALL)) {
+            packetListenerList.add(new SoundRemover());
+        }
+        if (configuration.getBoolean(Option.TIME_OVERRIDE)) {
+            packetListenerList.add(new TimeChanger(configuration.getLong(Option.TIME_SET)));
+        }
+        // After the listeners changing packet values, so that only the final values are compared.
+        if (configuration.getBoolean(Option.STATE_DEDUPE)) {
+            packetListenerList.add(new StateDeduplicator(protocol, this.parsePacketTypes(configuration.getStringArray(Option.STATE_DEDUPE_PACKET_TYPES), "state deduplication")));
+        }
+        if (configuration.getBoolean(Option.WEATHER_OVERRIDE)) {
+            packetListenerList.add(new WeatherChanger(configuration.getBoolean(Option.WEATHER_IS_RAINING), configuration.getFloat(Option.WEATHER_RAIN_LEVEL), configuration.getFloat(Option.WEATHER_THUNDER_LEVEL), configuration.getBoolean(Option.WEATHER_REMOVE_LIGHTING_STRIKES)));
+        }
 
-            // Clean up
-            ReplayPacketCleaner.deleteFilesRecursively(this.workingTmpDir);
+        // After every listener filtering block changes, as the coalesced changes are written out without passing through any later listener.
+        // A timelapse coalesces block changes over each frame, unless configured otherwise.
+        if (configuration.getBoolean(Option.BLOCK_UPDATE_COALESCE)) {
+            packetListenerList.add(new BlockUpdateCoalescer(protocol, configuration.getInteger(Option.BLOCK_UPDATE_COALESCE_WINDOW)));
+        } else if (configuration.getBoolean(Option.TIMELAPSE)) {
+            packetListenerList.add(new BlockUpdateCoalescer(protocol, Math.max(1, configuration.getInteger(Option.TIMELAPSE_FRAME)) * Math.max(1, configuration.getInteger(Option.TIMELAPSE_SPEED))));
+        }
 
-            this.setProgress(Job.MAX_PROGRESS_VALUE);
-            this.setStatus(Status.COMPLETED);
+        // After the listeners changing packet values, so that the time picked up from after a gap is the final one.
+        if (configuration.getBoolean(Option.GAP_COMPACT)) {
+            packetListenerList.add(new IdleGapCompactor(configuration.getInteger(Option.GAP_COMPACT_MIN_GAP), configuration.getInteger(Option.GAP_COMPACT_LENGTH),
+                    configuration.getInteger(Option.GAP_COMPACT_MAX_PACKETS), configuration.getInteger(Option.GAP_COMPACT_MAX_VISUAL_PACKETS),
+                    configuration.getInteger(Option.GAP_COMPACT_BUFFER_BUDGET) * 1024 * 1024));
+        }
+        // Last, so that only the movement left by the other listeners is merged.
+        if (configuration.getBoolean(Option.TIMELAPSE)) {
+            int speed = Math.max(1, configuration.getInteger(Option.TIMELAPSE_SPEED));
+            int frameMilliseconds = Math.max(1, configuration.getInteger(Option.TIMELAPSE_FRAME));
+            if (!configuration.getBoolean(Option.PARTICLE_REMOVE_ALL)) {
+                packetListenerList.add(new ParticleRemover());
+            }
+            if (!configuration.getBoolean(Option.SOUND_REMOVE_ALL)) {
+                packetListenerList.add(new SoundRemover());
+            }
+            packetListenerList.add(new Timelapse(speed, frameMilliseconds));
+        }
+        // After everything else, so that only the movement written out as-is is tracked. Movement canceled by other listeners is left alone.
+        if (configuration.getBoolean(Option.MOVEMENT_MINIMIZE)) {
+            packetListenerList.add(new MovementMinimizer());
+        }
+        return packetListenerList;
+    }
 
-            long finishTimeSeconds = (System.currentTimeMillis() - taskStartingMilliseconds) / 1000;
-            Log.info("Job #" + this.getJobNumber() + " for \"" + this.getName() + "\" finished in " + (finishTimeSeconds / 60) + " minute(s), " + (finishTimeSeconds % 60) + " second(s). Replay saved to " + finalTargetFile.toString());
+    private void logListenerStats(List<PacketListener> packetListeners) {
+        for (PacketListener packetListener : packetListeners) {
+            if (packetListener instanceof ChunkResendDeduplicator chunkResendDeduplicator) {
+                Log.info("Job #" + this.getJobNumber() + ": Chunk resend deduplication saved " + chunkResendDeduplicator.getBytesSaved() + " bytes.");
+            }
+            if (packetListener instanceof MovementMinimizer movementMinimizer) {
+                Log.info("Job #" + this.getJobNumber() + ": Movement minimizing dropped " + movementMinimizer.getPacketsDropped() + " and shrunk " + movementMinimizer.getPacketsShrunk() + " packets.");
+            }
+            if (packetListener instanceof ChunkSectionStripper chunkSectionStripper && chunkSectionStripper.getChunksSkipped() > 0) {
+                Log.warning("Job #" + this.getJobNumber() + ": " + chunkSectionStripper.getChunksSkipped() + " chunk(s) of a world of unknown height (not 16 or 24 sections) weren't stripped to the chunk y range.");
+            }
+        }
+    }
 
-        } catch (Exception exception) {
+    /**
+     * Plan the profile that meets the budget it sets, off the statistics of the replay. The statistics are collected (by reading through the replay) the first time they're needed.
+     *
+     * @return The planned profile, or the profile as-is if there's no budget set (or the job was canceled).
+     */
+    private Configuration<Option> planBudget(Protocol protocol, ZipEntry sourceRecordingEntry, Configuration<Option> configuration) throws IOException {
+        long maxBytes = configuration.getInteger(Option.BUDGET_MAX_SIZE) * 1024L * 1024L;
+        int maxPacketRate = configuration.getInteger(Option.BUDGET_MAX_PACKET_RATE);
+        if (maxBytes <= 0 && maxPacketRate <= 0) {
+            Log.warning("Job #" + this.getJobNumber() + ": Skipping the budget, neither a max size nor a max packet rate is set.");
+            return configuration;
+        }
+
+        ReplayStatistics statistics = this.collectStatistics(protocol, ReplayJob.BUDGET_STATISTICS_PROGRESS);
+        if (statistics == null) {
+            return configuration;
+        }
+
+        // The new recording is expected to compress about as well as the source did. Everything else is copied over as-is.
+        double compressionRatio = sourceRecordingEntry.getCompressedSize() > 0 && this.sourceReplaySizeBytes > 0
+                ? (double) sourceRecordingEntry.getCompressedSize() / this.sourceReplaySizeBytes : 1.0;
+        long otherEntryBytes = 0;
+        Enumeration<? extends ZipEntry> entries = this.sourceZipFile.entries();
+        while (entries.hasMoreElements()) {
+            ZipEntry zipEntry = entries.nextElement();
+            if (!zipEntry.getName().equals(ReplayPacketCleaner.RECORDING_TMCPR_FILE_NAME)) {
+                otherEntryBytes += Math.max(0, zipEntry.getCompressedSize());
+            }
+        }
+
+        CameraPath cameraPath = this.readCameraPath();
+        BudgetPlanner budgetPlanner = new BudgetPlanner(statistics, maxBytes, maxPacketRate, compressionRatio, otherEntryBytes, cameraPath != null && !cameraPath.isSpectating());
+        Configuration<Option> plannedConfiguration = budgetPlanner.plan(configuration);
+        Log.info("Job #" + this.getJobNumber() + ": Budget plan: " + (budgetPlanner.getPickedSteps().isEmpty() ? "nothing needed" : String.join(", ", budgetPlanner.getPickedSteps()))
+                + ". Expecting about " + (budgetPlanner.getEstimatedBytes() / (1024 * 1024)) + " MB, and at most " + budgetPlanner.getEstimatedPacketRate() + " packets per second.");
+        if (!budgetPlanner.meetsBudget()) {
+            Log.warning("Job #" + this.getJobNumber() + ": The replay isn't expected to meet the budget, even with every listener the budget can pick.");
+        }
+        return plannedConfiguration;
+    }
+
+    /**
+     * Collect the statistics of the source replay (by reading through it) the first time they're needed.
+     *
+     * @param maxProgress The job progress once the whole replay has been read.
+     * @return The statistics, or null if the job was canceled (or the replay is still being recorded).
+     */
+    private synchronized ReplayStatistics collectStatistics(Protocol protocol, int maxProgress) throws IOException {
+        if (this.statistics == null && !this.recordingInProgress) {
+            ReplayStatistics statistics = new ReplayStatistics(this, protocol);
+            ZipEntry sourceRecordingEntry = this.sourceZipFile.getEntry(ReplayPacketCleaner.RECORDING_TMCPR_FILE_NAME);
+            try (ReplayReader reader = new ReplayReader(this.sourceZipFile.getInputStream(sourceRecordingEntry), this.asyncReads, true)) {
+                if (!statistics.collect(reader, this.sourceReplaySizeBytes, maxProgress)) {
+                    return null;
+                }
+            }
+            this.statistics = statistics;
+        }
+        return this.statistics;
+    }
+
+    /**
+     * Process the replay once per profile (the profile of the replay, then its additional profiles), with the source read through only once.
+     * Each profile is processed on a thread of its own, handed the same bytes as they're read. Splitting isn't supported along with multiple profiles.
+     *
+     * @return The replay archives that were exported. Empty if the job was canceled.
+     */
+    private List<File> processProfiles(Protocol protocol, ZipEntry sourceRecordingEntry) throws Exception {
+        List<Configuration<Option>> configurations = new ArrayList<Configuration<Option>>(1 + this.additionalConfigurations.size());
+        configurations.add(this.configuration);
+        configurations.addAll(this.additionalConfigurations);
+
+        // Plan the profiles around their budgets first. The statistics are collected once, and shared between the profiles.
+        boolean budget = false;
+        for (int i = 0; i < configurations.size(); i++) {
+            Configuration<Option> configuration = configurations.get(i);
+            if (configuration.getBoolean(Option.SPLIT)) {
+                Log.warning("Job #" + this.getJobNumber() + ": Ignoring the split settings of profile " + (i + 1) + ", splitting isn't supported along with multiple profiles.");
+            }
+            if (configuration.getBoolean(Option.BUDGET)) {
+                configurations.set(i, this.planBudget(protocol, sourceRecordingEntry, configuration));
+                budget = true;
+            }
+        }
+        if (this.isCanceled()) {
+            return new ArrayList<File>();
+        }
+
+        JSONArray markers = this.readMarkers();
+        int startingProgress = budget ? ReplayJob.BUDGET_STATISTICS_PROGRESS : Job.MIN_PROGRESS_VALUE + 1;
+        AtomicIntegerArray profileProgress = new AtomicIntegerArray(configurations.size());
+        ReplayFanOut fanOut = new ReplayFanOut(this.sourceZipFile.getInputStream(sourceRecordingEntry), configurations.size());
+        List<FutureTask<File>> tasks = new ArrayList<FutureTask<File>>(configurations.size());
+        for (int i = 0; i < configurations.size(); i++) {
+            Configuration<Option> configuration = configurations.get(i);
+            InputStream branch = fanOut.getBranch(i);
+            Job profileJob = new SubJob(" profile " + (i + 1), i, profileProgress, startingProgress);
+            int profile = i + 1;
+            tasks.add(new FutureTask<File>(() -> this.processProfile(protocol, configuration, profile, branch, markers, profileJob)));
+        }
+
+        // Every profile has to keep up with the single read of the source, so each gets a thread of its own rather than waiting on the executor (which may be busy, possibly with this very job).
+        for (FutureTask<File> task : tasks) {
+            Thread.startVirtualThread(task);
+        }
+        Exception exception = null;
+        try {
+            fanOut.pump();
+        } catch (IOException ioException) {
+            // Every profile fails along with the source. Reported through the profiles.
+            exception = ioException;
+        }
+
+        List<File> exportedFiles = new ArrayList<File>(tasks.size());
+        Exception profileException = null;
+        for (FutureTask<File> task : tasks) {
             try {
-                this.close();
-            } catch (IOException ioException) {
-                exception.addSuppressed(ioException);
+                File exportedFile = task.get();
+                if (exportedFile != null) {
+                    exportedFiles.add(exportedFile);
+                }
+            } catch (ExecutionException executionException) {
+                if (profileException == null) {
+                    profileException = executionException.getCause() instanceof Exception cause ? cause : executionException;
+                } else {
+                    profileException.addSuppressed(executionException.getCause());
+                }
+            }
+        }
+        if (profileException != null) {
+            throw profileException;
+        }
+        if (exception != null) {
+            throw exception;
+        }
+        return exportedFiles;
+    }
+
+    /**
+     * Process the replay with a single profile, and move the resulting replay archive to the export directory.
+     *
+     * @param profile The number of the profile, used when the profile doesn't have a name.
+     * @param source  The recording to read. Closed once done, even if processing fails.
+     * @return The exported replay archive, or null if the job was canceled.
+     */
+    private File processProfile(Protocol protocol, Configuration<Option> configuration, int profile, InputStream source, JSONArray markers, Job profileJob) throws Exception {
+        String profileName;
+        File profileTmpFile = new File(this.workingTmpDir, "profile " + profile + ReplayPacketCleaner.DOT_MCPR_EXTENSION);
+        try (source) {
+            if (this.isCanceled()) {
+                return null;
+            }
+            profileName = configuration.getString(Option.PROFILE_METADATA_PROFILE_NAME).replaceAll("[\\\\/:*?\"<>|]", "_").trim();
+            if (profileName.isEmpty()) {
+                profileName = "profile " + profile;
+            }
+            if (!profileTmpFile.createNewFile()) {
+                throw new FileAlreadyExistsException("The file for the target output replay at \"" + profileTmpFile.getPath() + "\" already exists!");
+            }
+            profileTmpFile.deleteOnExit();
+
+            List<PacketListener> packetListenerList = this.createPacketListeners(protocol, configuration);
+            boolean trim = configuration.getBoolean(Option.TRIM);
+            int[] trimRange = null;
+            if (trim) {
+                trimRange = this.findTrimRange(configuration, markers);
+                packetListenerList.add(new TimeRangeTrimmer(trimRange[0], trimRange[1]));
+            }
+
+            try (ZipOutputStream zipOutputStream = new ZipOutputStream(new FileOutputStream(profileTmpFile))) {
+                zipOutputStream.putNextEntry(new ZipEntry(ReplayPacketCleaner.RECORDING_TMCPR_FILE_NAME));
+                ReplayManipulationTask replayManipulationTask =
+                        new ReplayManipulationTask(
+                                profileJob,
+                                new ReplayReader(source, false, true),
+                                this.sourceReplaySizeBytes,
+                                new ReplayWriter(zipOutputStream, this.asyncWrites, false),
+                                protocol,
+                                packetListenerList.toArray(new PacketListener[0]));
+                replayManipulationTask.run();
+                zipOutputStream.closeEntry();
+                if (this.isCanceled()) {
+                    return null;
+                }
+                this.logListenerStats(packetListenerList);
+
+                JSONObject metadataJson = new JSONObject(this.metadata.getMetadataJson().toString());
+                JSONArray mappedMarkers = null;
+                if (trim || configuration.getBoolean(Option.GAP_COMPACT) || configuration.getBoolean(Option.TIMELAPSE)) {
+                    metadataJson.put(ReplayMetadata.KEY_DURATION, replayManipulationTask.getLastTimestampWritten());
+                    if (markers != null) {
+                        mappedMarkers = trimRange == null ? ReplayJob.mapMarkers(markers, replayManipulationTask, 0, -1)
+                                : ReplayJob.mapMarkers(markers, replayManipulationTask, trimRange[0], trimRange[1]);
+                    }
+                }
+                this.writeArchiveEntries(zipOutputStream, configuration, metadataJson, mappedMarkers);
             }
+        }
+
+        String exportName = this.targetExportFile.getName().replaceAll(ReplayPacketCleaner.DOT_MCPR_EXTENSION, "") + " " + profileName + ReplayPacketCleaner.DOT_MCPR_EXTENSION;
+        File exportedFile = ReplayJob.moveToExportDirectory(profileTmpFile, new File(this.exportDir, exportName));
+        Log.info("Job #" + this.getJobNumber() + ": Profile \"" + profileName + "\" saved to " + exportedFile.toString());
+        return exportedFile;
+    }
+
+    /**
+     * Process the replay as ReplayMod records it, until the recording ends. Listeners and the new recording carry on across everything recorded,
+     * so the new replay archive is ready shortly after the recording ends. The rest of the archive is written out from the latest versions of the other files ReplayMod wrote.
+     * Splitting, trimming, budgets and additional profiles aren't supported, as they need the entire replay up front.
+     *
+     * @return The new replay archive within the working directory. Incomplete if the job was canceled.
+     */
+    private File processRecordingInProgress() throws Exception {
+        if (this.configuration.getBoolean(Option.BUDGET) || this.configuration.getBoolean(Option.SPLIT) || this.configuration.getBoolean(Option.TRIM) || !this.additionalConfigurations.isEmpty()) {
+            Log.warning("Job #" + this.getJobNumber() + ": Ignoring the budget, split, trim and additional profile settings, they aren't supported for a replay that's still being recorded.");
+        }
+
+        File snapshotFolder = new File(this.workingTmpDir, "recording");
+        File targetTmpFile = new File(this.workingTmpDir, this.targetExportFile.getName());
+        ReplayManipulationTask replayManipulationTask;
+        try (RecordingTail recordingTail = new RecordingTail(this, this.sourceFile.toPath(), snapshotFolder.toPath(), this.configuration.getInteger(Option.TAIL_IDLE_TIMEOUT) * 1000L)) {
+            File metadataFile = recordingTail.awaitSnapshot(ReplayPacketCleaner.METADATA_FILE_NAME);
+            if (metadataFile == null) {
+                throw new RuntimeException(new FileNotFoundException("The recording at \"" + this.sourceFile + "\" ended without a \"" + ReplayPacketCleaner.METADATA_FILE_NAME + "\" file"));
+            }
+            this.metadata = ReplayMetadata.fromInputSteam(new FileInputStream(metadataFile));
+            Protocol protocol = this.protocolDirectory.getProtocol(this.metadata.getMetadataJson().getInt(ReplayMetadata.KEY_PROTOCOL));
+            Log.info("Job #" + this.getJobNumber() + ": Following the recording at " + this.sourceFile.toString());
+
+            if (!targetTmpFile.createNewFile()) {
+                throw new FileAlreadyExistsException("The file for the target output replay at \"" + targetTmpFile.getPath() + "\" already exists!");
+            }
+            targetTmpFile.deleteOnExit();
+            this.targetZipOutputStream = new ZipOutputStream(new FileOutputStream(targetTmpFile));
+            this.targetZipOutputStream.putNextEntry(new ZipEntry(ReplayPacketCleaner.RECORDING_TMCPR_FILE_NAME));
+
+            List<PacketListener> packetListenerList = this.createPacketListeners(protocol, this.configuration);
+            replayManipulationTask =
+                    new ReplayManipulationTask(
+                            this,
+                            recordingTail,
+                            new ReplayWriter(this.targetZipOutputStream, this.asyncWrites, false),
+                            protocol,
+                            packetListenerList.toArray(new PacketListener[0]));
+            replayManipulationTask.run();
+            this.targetZipOutputStream.closeEntry();
+            if (this.isCanceled()) {
+                return targetTmpFile;
+            }
+            this.logListenerStats(packetListenerList);
+
+            recordingTail.awaitEnd();
+        }
+
+        // The metadata ReplayMod wrote last. Its duration is out of date if the recording didn't end cleanly.
+        this.metadata = ReplayMetadata.fromInputSteam(new FileInputStream(new File(snapshotFolder, ReplayPacketCleaner.METADATA_FILE_NAME)));
+        this.metadata.getMetadataJson().put(ReplayMetadata.KEY_DURATION, replayManipulationTask.getLastTimestampWritten());
+
+        // Pack the other files into an archive, so that they're copied over the same way as from a source replay.
+        File snapshotArchive = new File(this.workingTmpDir, snapshotFolder.getName() + ReplayPacketCleaner.DOT_MCPR_EXTENSION);
+        try (ZipOutputStream zipOutputStream = new ZipOutputStream(new FileOutputStream(snapshotArchive));
+             Stream<Path> files = Files.walk(snapshotFolder.toPath())) {
+            for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                zipOutputStream.putNextEntry(new ZipEntry(snapshotFolder.toPath().relativize(file).toString().replace(File.separatorChar, '/')));
+                Files.copy(file, zipOutputStream);
+                zipOutputStream.closeEntry();
+            }
+        }
+        this.sourceZipFile = new ZipFile(snapshotArchive);
+        JSONArray markers = null;
+        if (this.configuration.getBoolean(Option.GAP_COMPACT) || this.configuration.getBoolean(Option.TIMELAPSE)) {
+            markers = this.readMarkers();
+        }
+        this.writeArchiveEntries(this.targetZipOutputStream, this.configuration, this.metadata.getMetadataJson(), markers == null ? null : ReplayJob.mapMarkers(markers, replayManipulationTask, 0, -1));
+        return targetTmpFile;
+    }
+
+    /**
+     * Split the replay into segments of the configured length, then process each segment as a replay of its own.
+     * The segments are processed alongside each other, on the executor (if any) as well as on the thread of this job.
+     *
+     * @return The replay archives that were exported. Empty if the job was canceled.
+     */
+    private List<File> processSegments(Protocol protocol, ZipEntry sourceRecordingEntry) throws Exception {
+        if (this.configuration.getBoolean(Option.TRIM)) {
+            Log.warning("Job #" + this.getJobNumber() + ": Ignoring the trim settings, they aren't supported along with splitting.");
+        }
+
+        // Framing pass. Cuts the replay into segment recordings within the working directory.
+        int segmentMilliseconds = Math.max(1, this.configuration.getInteger(Option.SPLIT_MINUTES)) * 60 * 1000;
+        List<ReplaySegmenter.Segment> segments;
+        try (ReplayReader reader = new ReplayReader(this.sourceZipFile.getInputStream(sourceRecordingEntry), this.asyncReads, true)) {
+            segments = new ReplaySegmenter(this, protocol, segmentMilliseconds, this.workingTmpDir)
+                    .split(reader, this.sourceReplaySizeBytes, ReplayJob.SPLIT_FRAMING_PROGRESS);
+        }
+        if (this.isCanceled()) {
+            return new ArrayList<File>();
+        }
+        Log.info("Job #" + this.getJobNumber() + ": Split the replay into " + segments.size() + " segment(s).");
+
+        JSONArray markers = this.readMarkers();
+        AtomicIntegerArray segmentProgress = new AtomicIntegerArray(segments.size());
+        List<FutureTask<File>> tasks = new ArrayList<FutureTask<File>>(segments.size());
+        for (int i = 0; i < segments.size(); i++) {
+            ReplaySegmenter.Segment segment = segments.get(i);
+            int part = i + 1;
+            // Markers up until the start of the next segment belong to this one.
+            int segmentEnd = part < segments.size() ? segments.get(part).startTimestamp() - 1 : -1;
+            tasks.add(new FutureTask<File>(() -> this.processSegment(protocol, segment, part, segmentEnd, markers, segmentProgress)));
+        }
 
+        // Tasks are also ran from this thread, so that the segments still get processed if every thread of the executor is busy (possibly with this very job).
+        // Running a task that's already been started (or is done) does nothing.
+        if (this.executor != null) {
+            for (FutureTask<File> task : tasks) {
+                this.executor.execute(task);
+            }
+        }
+        List<File> exportedFiles = new ArrayList<File>(tasks.size());
+        Exception exception = null;
+        for (FutureTask<File> task : tasks) {
+            if (exception != null) {
+                // Something went wrong with an earlier segment. Don't bother starting the rest.
+                task.cancel(false);
+            }
+            task.run();
             try {
-                ReplayPacketCleaner.deleteFilesRecursively(this.workingTmpDir);
-            } catch (IOException ioException) {
-                exception.addSuppressed(ioException);
+                File exportedFile = task.get();
+                if (exportedFile != null) {
+                    exportedFiles.add(exportedFile);
+                }
+            } catch (ExecutionException executionException) {
+                if (exception == null) {
+                    exception = executionException.getCause() instanceof Exception cause ? cause : executionException;
+                } else {
+                    exception.addSuppressed(executionException.getCause());
+                }
+            } catch (CancellationException ignored) {
             }
+        }
+        if (exception != null) {
+            throw exception;
+        }
+        return exportedFiles;
+    }
+
+    /**
+     * Process a single segment of a split replay, and move the resulting replay archive to the export directory.
+     *
+     * @param segmentEnd The timestamp (within the source replay) the segment ends at, -1 for the last segment. Markers past it are left out.
+     * @return The exported replay archive, or null if the job was canceled.
+     */
+    private File processSegment(Protocol protocol, ReplaySegmenter.Segment segment, int part, int segmentEnd, JSONArray markers, AtomicIntegerArray segmentProgress) throws Exception {
+        if (this.isCanceled()) {
+            return null;
+        }
+        String partName = this.targetExportFile.getName().replaceAll(ReplayPacketCleaner.DOT_MCPR_EXTENSION, "") + " part " + part + ReplayPacketCleaner.DOT_MCPR_EXTENSION;
+        File partTmpFile = new File(this.workingTmpDir, partName);
+        if (!partTmpFile.createNewFile()) {
+            throw new FileAlreadyExistsException("The file for the target output replay at \"" + partTmpFile.getPath() + "\" already exists!");
+        }
+        partTmpFile.deleteOnExit();
+
+        // Each segment starts with a snapshot of the world, timestamped right ahead of the segment. Trimming folds it into the start of the new replay.
+        List<PacketListener> packetListenerList = this.createPacketListeners(protocol, this.configuration);
+        if (segment.startTimestamp() > 0) {
+            packetListenerList.add(new TimeRangeTrimmer(segment.startTimestamp(), -1));
+        }
 
+        try (ZipOutputStream zipOutputStream = new ZipOutputStream(new FileOutputStream(partTmpFile))) {
+            zipOutputStream.putNextEntry(new ZipEntry(ReplayPacketCleaner.RECORDING_TMCPR_FILE_NAME));
+            ReplayManipulationTask replayManipulationTask =
+                    new ReplayManipulationTask(
+                            new SubJob(" part " + part, part - 1, segmentProgress, ReplayJob.SPLIT_FRAMING_PROGRESS),
+                            new ReplayReader(new FileInputStream(segment.file()), this.asyncReads, true),
+                            segment.file().length(),
+                            new ReplayWriter(zipOutputStream, this.asyncWrites, false),
+                            protocol,
+                            packetListenerList.toArray(new PacketListener[0]));
+            replayManipulationTask.run();
+            zipOutputStream.closeEntry();
+            segment.file().delete();
             if (this.isCanceled()) {
-                this.setStatus(Status.CANCELED);
-            } else {
-                this.setStatus(Status.FAILED);
-                Log.severe("A problem occurred during processing of Job #" + this.getJobNumber() + " (" + this.getUUID().toString() + ") for \"" + this.getName() + "\":", exception);
+                return null;
             }
+            this.logListenerStats(packetListenerList);
+
+            JSONObject metadataJson = new JSONObject(this.metadata.getMetadataJson().toString());
+            metadataJson.put(ReplayMetadata.KEY_DURATION, replayManipulationTask.getLastTimestampWritten());
+            this.writeArchiveEntries(zipOutputStream, this.configuration, metadataJson, markers == null ? null : ReplayJob.mapMarkers(markers, replayManipulationTask, segment.startTimestamp(), segmentEnd));
         }
+
+        File exportedFile = ReplayJob.moveToExportDirectory(partTmpFile, new File(this.exportDir, partName));
+        Log.info("Job #" + this.getJobNumber() + ": Part " + part + " saved to " + exportedFile.toString());
+        return exportedFile;
+    }
+
+    /**
+     * Write out the entries of the target replay archive other than the recording. The metadata, the profile used and everything else from the source replay archive.
+     *
+     * @param configuration The profile used, written out along with the replay.
+     * @param metadataJson  The metadata to write out.
+     * @param markers       The markers to write out in place of the markers of the source replay. If null, the markers (if any) are copied over as they are.
+     */
+    private void writeArchiveEntries(ZipOutputStream zipOutputStream, Configuration<Option> configuration, JSONObject metadataJson, JSONArray markers) throws IOException {
+        // Write out the metaData.json file.
+        zipOutputStream.putNextEntry(new ZipEntry(ReplayPacketCleaner.METADATA_FILE_NAME));
+        zipOutputStream.write(metadataJson.toString().getBytes());
+        zipOutputStream.closeEntry();
+
+        // Write out the ReplayPackerCleaner profile that represents the settings used for this replay.
+        String rpcFileName = ReplayPacketCleaner.ARCHIVE_PROFILE_JSON_FILE_NAME;
+        int rpcTries = 0;
+        // Ensure that if RPC has been run on the source file before, the new profile is given a unique file name. (as we don't want to go the route of overwriting old profile file(s))
+        while (this.sourceZipFile.getEntry(rpcFileName) != null) {
+            rpcTries++;
+            rpcFileName = ReplayPacketCleaner.ARCHIVE_PROFILE_JSON_FILE_NAME.replaceAll(ReplayPacketCleaner.DOT_JSON_EXTENSION, "") + "(" + rpcTries + ")" + ReplayPacketCleaner.DOT_JSON_EXTENSION;
+        }
+        zipOutputStream.putNextEntry(new ZipEntry(rpcFileName));
+        zipOutputStream.write(configuration.toJSONObject().toString(2).getBytes());
+        zipOutputStream.closeEntry();
+
+        if (markers != null) {
+            zipOutputStream.putNextEntry(new ZipEntry(ReplayPacketCleaner.MARKERS_FILE_NAME));
+            zipOutputStream.write(markers.toString().getBytes());
+            zipOutputStream.closeEntry();
+        }
+
+        // Copy over all other data from the source replay
+        Enumeration<? extends ZipEntry> entries = this.sourceZipFile.entries();
+        while (entries.hasMoreElements()) {
+            ZipEntry zipEntry = entries.nextElement();
+            String entryName = zipEntry.getName();
+            if (!entryName.equals(ReplayPacketCleaner.RECORDING_TMCPR_FILE_NAME)
+                    && !entryName.equals(ReplayPacketCleaner.RECORDING_TMCPR_CRC32_FILE_NAME)
+                    && !entryName.equals(ReplayPacketCleaner.METADATA_FILE_NAME)
+                    && !(markers != null && entryName.equals(ReplayPacketCleaner.MARKERS_FILE_NAME))) {
+
+                zipOutputStream.putNextEntry(new ZipEntry(zipEntry));
+                InputStream sourceEntryStream = this.sourceZipFile.getInputStream(zipEntry);
+
+                int readBuffer = sourceEntryStream.read();
+                while (readBuffer != -1) {
+                    zipOutputStream.write(readBuffer);
+                    readBuffer = sourceEntryStream.read();
+                }
+
+                sourceEntryStream.close();
+                zipOutputStream.closeEntry();
+            }
+        }
+    }
+
+    /**
+     * Move markers along with the packets of the new replay, through every change the task made to the timestamps (trimming, gap compaction, timelapse).
+     * Those outside the range are left out.
+     *
+     * @param task  The task that wrote out the new replay. Must be done.
+     * @param start The timestamp (within the source replay) that became the start of the replay.
+     * @param end   The timestamp (within the source replay) of the end of the replay, -1 if the end is kept.
+     * @return A copy of the markers within the range.
+     */
+    private static JSONArray mapMarkers(JSONArray markers, ReplayManipulationTask task, int start, int end) {
+        JSONArray mappedMarkers = new JSONArray();
+        for (int i = 0; i < markers.length(); i++) {
+            JSONObject marker = markers.optJSONObject(i);
+            if (marker == null) {
+                continue;
+            }
+            int timestamp = marker.optInt(ReplayJob.MARKER_KEY_TIMESTAMP, -1);
+            if (timestamp < start || (end >= 0 && timestamp > end)) {
+                continue;
+            }
+            JSONObject mappedMarker = new JSONObject(marker.toString());
+            mappedMarker.put(ReplayJob.MARKER_KEY_TIMESTAMP, task.mapTimestamp(timestamp));
+            mappedMarkers.put(mappedMarker);
+        }
+        return mappedMarkers;
+    }
+
+    /**
+     * Move a replay archive out of the working directory. If the target file already exists, a number is added to the name.
+     * Synchronized on a static object to prevent unexpected conflicts with other replay jobs.
+     *
+     * @return The file the replay archive was moved to.
+     */
+    private static File moveToExportDirectory(File tmpFile, File targetFile) throws IOException {
+        File finalTargetFile = targetFile;
+        synchronized (ReplayJob.TARGET_FILE_MOVE_LOCK) {
+            int targetTries = 0;
+            while (finalTargetFile.exists()) {
+                targetTries++;
+                finalTargetFile = new File(targetFile.getParent(), targetFile.getName().replaceAll(ReplayPacketCleaner.DOT_MCPR_EXTENSION, "") + " (" + targetTries + ")" + ReplayPacketCleaner.DOT_MCPR_EXTENSION);
+            }
+            try {
+                Files.move(tmpFile.toPath(), finalTargetFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException exception) {
+                // It's possible an Atomic Move operation may not be supported. Try copying instead.
+                Files.copy(tmpFile.toPath(), finalTargetFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        return finalTargetFile;
+    }
+
+    /// Read the markers set within ReplayMod. null if the replay doesn't have any (or they couldn't be read).
+    private JSONArray readMarkers() throws IOException {
+        ZipEntry markersEntry = this.sourceZipFile.getEntry(ReplayPacketCleaner.MARKERS_FILE_NAME);
+        if (markersEntry == null) {
+            return null;
+        }
+        try (InputStream inputStream = this.sourceZipFile.getInputStream(markersEntry)) {
+            return new JSONArray(new JSONTokener(inputStream));
+        } catch (JSONException exception) {
+            Log.warning("Job #" + this.getJobNumber() + ": Ignoring the markers of the replay, \"" + ReplayPacketCleaner.MARKERS_FILE_NAME + "\" couldn't be read: " + exception.getMessage());
+            return null;
+        }
+    }
+
+    /// Read the camera path set up within the ReplayMod editor. null if the replay doesn't have one (or it couldn't be read).
+    private CameraPath readCameraPath() throws IOException {
+        // A replay still being recorded hasn't been opened within the editor yet.
+        if (this.sourceZipFile == null) {
+            return null;
+        }
+        ZipEntry timelinesEntry = this.sourceZipFile.getEntry(ReplayPacketCleaner.TIMELINES_FILE_NAME);
+        if (timelinesEntry == null) {
+            return null;
+        }
+        try (InputStream inputStream = this.sourceZipFile.getInputStream(timelinesEntry)) {
+            return CameraPath.fromTimelinesJson(new JSONObject(new JSONTokener(inputStream)));
+        } catch (JSONException exception) {
+            Log.warning("Job #" + this.getJobNumber() + ": \"" + ReplayPacketCleaner.TIMELINES_FILE_NAME + "\" couldn't be read: " + exception.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Find the timestamp of a marker by its name. If there are multiple markers by the name, the earliest one is picked.
+     *
+     * @param markers    The markers, as read by {@link #readMarkers()}.
+     * @param markerName The name of the marker. If empty, the fallback is returned.
+     * @param notBefore  Markers before this timestamp are skipped.
+     * @param fallback   Returned if there's no such marker.
+     */
+    private int findMarkerTimestamp(JSONArray markers, String markerName, int notBefore, int fallback) {
+        if (markerName.isEmpty()) {
+            return fallback;
+        }
+        int timestamp = -1;
+        if (markers != null) {
+            for (int i = 0; i < markers.length(); i++) {
+                JSONObject marker = markers.optJSONObject(i);
+                if (marker == null || marker.optJSONObject(ReplayJob.MARKER_KEY_VALUE) == null
+                        || !markerName.equals(marker.optJSONObject(ReplayJob.MARKER_KEY_VALUE).optString(ReplayJob.MARKER_KEY_NAME))) {
+                    continue;
+                }
+                int markerTimestamp = marker.optInt(ReplayJob.MARKER_KEY_TIMESTAMP, -1);
+                if (markerTimestamp >= notBefore && (timestamp == -1 || markerTimestamp < timestamp)) {
+                    timestamp = markerTimestamp;
+                }
+            }
+        }
+        if (timestamp == -1) {
+            Log.warning("Job #" + this.getJobNumber() + ": No marker named \"" + markerName + "\" was found. Using " + fallback + " ms instead.");
+            return fallback;
+        }
+        return timestamp;
+    }
+
+    /**
+     * Find the range of time to trim the replay down to, as configured by the given profile.
+     *
+     * @param markers The markers, as read by {@link #readMarkers()}.
+     * @return The start and end timestamps of the range. The end is -1 if the end of the replay is kept.
+     */
+    private int[] findTrimRange(Configuration<Option> configuration, JSONArray markers) {
+        int trimStart = Math.max(0, this.findMarkerTimestamp(markers, configuration.getString(Option.TRIM_START_MARKER), 0, configuration.getInteger(Option.TRIM_START)));
+        int trimEnd = this.findMarkerTimestamp(markers, configuration.getString(Option.TRIM_END_MARKER), trimStart, configuration.getInteger(Option.TRIM_END));
+        if (trimEnd >= 0 && trimEnd < trimStart) {
+            Log.warning("Job #" + this.getJobNumber() + ": Ignoring the trim end (" + trimEnd + " ms), it's before the trim start (" + trimStart + " ms).");
+            trimEnd = -1;
+        }
+        return new int[]{trimStart, trimEnd};
+    }
+
+    /// Parse the names of packet types, logging a warning for (and skipping) any unknown names.
+    private PacketType.Play[] parsePacketTypes(String[] packetTypeNames, String usedFor) {
+        List<PacketType.Play> packetTypes = new ArrayList<PacketType.Play>(packetTypeNames.length);
+        for (String packetTypeName : packetTypeNames) {
+            try {
+                packetTypes.add(PacketType.Play.valueOf(packetTypeName));
+            } catch (IllegalArgumentException e) {
+                Log.warning("Job #" + this.getJobNumber() + ": Ignoring unknown packet type \"" + packetTypeName + "\" for " + usedFor + ".");
+            }
+        }
+        return packetTypes.toArray(new PacketType.Play[0]);
+    }
+
+    /// Look up the particle types by name, skipping (and warning about) any that aren't recognized or supported by the protocol.
+    private ParticleType[] parseParticleTypes(Protocol protocol, String[] particleTypeNames) {
+        List<ParticleType> particleTypes = new ArrayList<ParticleType>(particleTypeNames.length);
+        if (particleTypeNames.length == 0) {
+            return new ParticleType[0];
+        }
+        // The particle type registry isn't available for every protocol yet. Without it, no particle type can be told apart from another.
+        boolean hasRegistry = false;
+        for (ParticleType particleType : ParticleType.values()) {
+            if (particleType != ParticleType.UNDEFINED && protocol.getParticleTypeID(particleType) != ProtocolMapper.UNDEFINED_ID) {
+                hasRegistry = true;
+                break;
+            }
+        }
+        if (!hasRegistry) {
+            Log.warning("Job #" + this.getJobNumber() + ": Ignoring the particle throttle allow and deny lists, there's no particle type registry for protocol " + protocol.getProtocolVersion() + ".");
+            return new ParticleType[0];
+        }
+        for (String particleTypeName : particleTypeNames) {
+            ParticleType particleType;
+            try {
+                particleType = ParticleType.valueOf(particleTypeName);
+            } catch (IllegalArgumentException e) {
+                Log.warning("Job #" + this.getJobNumber() + ": Ignoring unknown particle type \"" + particleTypeName + "\".");
+                continue;
+            }
+            if (protocol.getParticleTypeID(particleType) == ProtocolMapper.UNDEFINED_ID) {
+                Log.warning("Job #" + this.getJobNumber() + ": Ignoring particle type \"" + particleTypeName + "\", it's not supported by protocol " + protocol.getProtocolVersion() + ".");
+                continue;
+            }
+            particleTypes.add(particleType);
+        }
+        return particleTypes.toArray(new ParticleType[0]);
     }
 
 
@@ -375,4 +1200,80 @@ public class ReplayJob extends Job implements Runnable, Closeable {
     }
 
 
+    /// Stands in for this job while processing the replay after an earlier pass over it. Shares the cancel state of this job, and reports the progress of processing as the rest of the progress of this job.
+    private class StageJob extends Job {
+
+        private StageJob(int startingProgress) {
+            super(ReplayJob.this.getJobNumber(), ReplayJob.this.getUUID(), ReplayJob.this.getName());
+            this.startingProgress = startingProgress;
+        }
+
+        private final int startingProgress;
+
+        @Override
+        protected void setProgress(int newValue) {
+            super.setProgress(newValue);
+            int remaining = Job.MAX_PROGRESS_VALUE - this.startingProgress;
+            ReplayJob.this.setProgress(this.startingProgress + (int) (((long) this.getProgress() * remaining) / Job.MAX_PROGRESS_VALUE));
+        }
+
+        @Override
+        public void cancel() {
+            ReplayJob.this.cancel();
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return ReplayJob.this.isCanceled();
+        }
+
+    }
+
+    /// Stands in for this job while processing one of several replays processed alongside each other (the segments of a split replay, or the profiles of a replay).
+    /// Shares the cancel state of this job, and reports its progress as part of the progress of this job.
+    private class SubJob extends Job {
+
+        /**
+         * @param nameSuffix       Added to the name of this job.
+         * @param index            The index of this sub job within the progress of all sub jobs.
+         * @param progress         The progress of all sub jobs, shared between them.
+         * @param startingProgress The progress of this job once all sub jobs have been set up. Processing the sub jobs makes up the rest.
+         */
+        private SubJob(String nameSuffix, int index, AtomicIntegerArray progress, int startingProgress) {
+            super(ReplayJob.this.getJobNumber(), ReplayJob.this.getUUID(), ReplayJob.this.getName() + nameSuffix);
+            this.index = index;
+            this.progress = progress;
+            this.startingProgress = startingProgress;
+        }
+
+        private final int index;
+        private final AtomicIntegerArray progress;
+        private final int startingProgress;
+
+        @Override
+        protected void setProgress(int newValue) {
+            super.setProgress(newValue);
+            this.progress.set(this.index, this.getProgress());
+
+            long total = 0;
+            for (int i = 0; i < this.progress.length(); i++) {
+                total += this.progress.get(i);
+            }
+            int remaining = Job.MAX_PROGRESS_VALUE - 1 - this.startingProgress;
+            ReplayJob.this.setProgress(this.startingProgress + (int) ((total * remaining) / ((long) Job.MAX_PROGRESS_VALUE * this.progress.length())));
+        }
+
+        @Override
+        public void cancel() {
+            ReplayJob.this.cancel();
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return ReplayJob.this.isCanceled();
+        }
+
+    }
+
+
 }
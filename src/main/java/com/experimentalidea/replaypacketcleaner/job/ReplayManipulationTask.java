@@ -22,10 +22,15 @@ import com.experimentalidea.replaypacketcleaner.protocol.EntityType;
 import com.experimentalidea.replaypacketcleaner.protocol.PacketType;
 import com.experimentalidea.replaypacketcleaner.protocol.Protocol;
 import com.experimentalidea.replaypacketcleaner.protocol.Version;
+import com.experimentalidea.replaypacketcleaner.util.LongIntHashMap;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
 
@@ -33,6 +38,18 @@ public class ReplayManipulationTask implements Runnable {
 
 
     public ReplayManipulationTask(Job job, ReplayReader replayReader, long sourceReplaySizeBytes, ReplayWriter replayWriter, Protocol protocol, PacketListener... packetListeners) {
+        this(job, replayReader, sourceReplaySizeBytes, null, replayWriter, protocol, packetListeners);
+    }
+
+    /**
+     * Create a task that processes a replay while it's still being recorded. Packets are processed as they're recorded, until the recording ends.
+     * The listeners (and the output) carry on across everything recorded, the same as for a replay read all at once.
+     */
+    ReplayManipulationTask(Job job, RecordingTail recordingTail, ReplayWriter replayWriter, Protocol protocol, PacketListener... packetListeners) {
+        this(job, new ReplayReader(recordingTail, false, true), -1, recordingTail, replayWriter, protocol, packetListeners);
+    }
+
+    private ReplayManipulationTask(Job job, ReplayReader replayReader, long sourceReplaySizeBytes, RecordingTail recordingTail, ReplayWriter replayWriter, Protocol protocol, PacketListener... packetListeners) {
         Objects.requireNonNull(job, "job cannot be null");
         Objects.requireNonNull(replayReader, "replayReader cannot be null");
         Objects.requireNonNull(replayWriter, "replayWriter cannot be null");
@@ -42,12 +59,18 @@ public class ReplayManipulationTask implements Runnable {
         this.job = job;
         this.reader = replayReader;
         this.sourceReplaySizeBytes = sourceReplaySizeBytes;
+        this.recordingTail = recordingTail;
         this.writer = replayWriter;
         this.protocol = protocol;
         this.protocolVersion = this.protocol.getProtocolVersion();
 
         List<StartOfReplayPacketInserter> startOfReplayPacketInserterList = new ArrayList<StartOfReplayPacketInserter>(packetListeners.length);
+        List<PacketInserter> packetInserterList = new ArrayList<PacketInserter>(packetListeners.length);
+        List<TimestampTransformer> timestampTransformerList = new ArrayList<TimestampTransformer>(packetListeners.length);
         List<BlockActionPacketListener> blockActionPacketListenerList = new ArrayList<BlockActionPacketListener>(packetListeners.length);
+        List<BlockEntityDataPacketListener> blockEntityDataPacketListenerList = new ArrayList<BlockEntityDataPacketListener>(packetListeners.length);
+        List<BlockUpdatePacketListener> blockUpdatePacketListenerList = new ArrayList<BlockUpdatePacketListener>(packetListeners.length);
+        List<ChunkDataPacketListener> chunkDataPacketListenerList = new ArrayList<ChunkDataPacketListener>(packetListeners.length);
         List<CustomSoundEffectPacketListener> customSoundEffectPacketListenerList = new ArrayList<CustomSoundEffectPacketListener>(packetListeners.length);
         List<DamageEventPacketListener> damageEventPacketListenerList = new ArrayList<DamageEventPacketListener>(packetListeners.length);
         List<EntityAnimationPacketListener> entityAnimationPacketListenerList = new ArrayList<EntityAnimationPacketListener>(packetListeners.length);
@@ -55,15 +78,18 @@ public class ReplayManipulationTask implements Runnable {
         List<EntityEventPacketListener> entityEventPacketListenerList = new ArrayList<EntityEventPacketListener>(packetListeners.length);
         List<EntityMovementPacketListener> entityMovementPacketListeners = new ArrayList<EntityMovementPacketListener>(packetListeners.length);
         List<EntitySoundEffectPacketListener> entitySoundEffectPacketListenerList = new ArrayList<EntitySoundEffectPacketListener>(packetListeners.length);
+        List<ExplosionPacketListener> explosionPacketListenerList = new ArrayList<ExplosionPacketListener>(packetListeners.length);
         List<GameEventPacketListener> gameEventPacketListenerList = new ArrayList<GameEventPacketListener>(packetListeners.length);
         List<HurtAnimationPacketListener> hurtAnimationPacketListenerList = new ArrayList<HurtAnimationPacketListener>(packetListeners.length);
         List<LinkEntitiesPacketListener> linkEntitiesPacketListenerList = new ArrayList<LinkEntitiesPacketListener>(packetListeners.length);
         List<MoveMinecartAlongTrackPacketListener> moveMinecartAlongTrackPacketListenerList = new ArrayList<MoveMinecartAlongTrackPacketListener>(packetListeners.length);
         List<ParticlePacketListener> particlePacketListenerList = new ArrayList<ParticlePacketListener>(packetListeners.length);
         List<PickupItemPacketListener> pickupItemPacketListenerList = new ArrayList<PickupItemPacketListener>(packetListeners.length);
+        List<PlayerInfoUpdatePacketListener> playerInfoUpdatePacketListenerList = new ArrayList<PlayerInfoUpdatePacketListener>(packetListeners.length);
         List<ProjectilePowerPacketListener> projectilePowerPacketListenerList = new ArrayList<ProjectilePowerPacketListener>(packetListeners.length);
         List<RemoveEntitiesPacketListener> removeEntitiesPacketListenerList = new ArrayList<RemoveEntitiesPacketListener>(packetListeners.length);
         List<RemoveEntityEffectPacketListener> removeEntityEffectPacketListenerList = new ArrayList<RemoveEntityEffectPacketListener>(packetListeners.length);
+        List<SetCenterChunkPacketListener> setCenterChunkPacketListenerList = new ArrayList<SetCenterChunkPacketListener>(packetListeners.length);
         List<SetEntityMetadataPacketListener> setEntityMetadataPacketListenerList = new ArrayList<SetEntityMetadataPacketListener>(packetListeners.length);
         List<SetEntityVelocityPacketListener> setEntityVelocityPacketListenerList = new ArrayList<SetEntityVelocityPacketListener>(packetListeners.length);
         List<SetEquipmentPacketListener> setEquipmentPacketListenerList = new ArrayList<SetEquipmentPacketListener>(packetListeners.length);
@@ -77,10 +103,13 @@ public class ReplayManipulationTask implements Runnable {
         List<SpawnPlayerPacketListener> spawnPlayerPacketListenerList = new ArrayList<SpawnPlayerPacketListener>(packetListeners.length);
         List<SynchronizeVehiclePositionPacketListener> synchronizeVehiclePositionPacketListenerList = new ArrayList<SynchronizeVehiclePositionPacketListener>(packetListeners.length);
         List<TeleportEntityPacketListener> teleportEntityPacketListenerList = new ArrayList<TeleportEntityPacketListener>(packetListeners.length);
+        List<UnloadChunkPacketListener> unloadChunkPacketListenerList = new ArrayList<UnloadChunkPacketListener>(packetListeners.length);
         List<UpdateAttributesPacketListener> updateAttributesPacketListenerList = new ArrayList<UpdateAttributesPacketListener>(packetListeners.length);
         List<UpdateEntityPositionPacketListener> updateEntityPositionPacketListenerList = new ArrayList<UpdateEntityPositionPacketListener>(packetListeners.length);
         List<UpdateEntityPositionAndRotationPacketListener> updateEntityPositionAndRotationPacketListenerList = new ArrayList<UpdateEntityPositionAndRotationPacketListener>(packetListeners.length);
         List<UpdateEntityRotationPacketListener> updateEntityRotationPacketListenerList = new ArrayList<UpdateEntityRotationPacketListener>(packetListeners.length);
+        List<UpdateLightPacketListener> updateLightPacketListenerList = new ArrayList<UpdateLightPacketListener>(packetListeners.length);
+        List<UpdateSectionBlocksPacketListener> updateSectionBlocksPacketListenerList = new ArrayList<UpdateSectionBlocksPacketListener>(packetListeners.length);
         List<UpdateTimePacketListener> updateTimePacketListenerList = new ArrayList<UpdateTimePacketListener>(packetListeners.length);
         List<WorldEventPacketListener> worldEventPacketListenerList = new ArrayList<WorldEventPacketListener>(packetListeners.length);
 
@@ -88,9 +117,24 @@ public class ReplayManipulationTask implements Runnable {
             if (listener instanceof StartOfReplayPacketInserter) {
                 startOfReplayPacketInserterList.add((StartOfReplayPacketInserter) listener);
             }
+            if (listener instanceof PacketInserter) {
+                packetInserterList.add((PacketInserter) listener);
+            }
+            if (listener instanceof TimestampTransformer) {
+                timestampTransformerList.add((TimestampTransformer) listener);
+            }
             if (listener instanceof BlockActionPacketListener) {
                 blockActionPacketListenerList.add((BlockActionPacketListener) listener);
             }
+            if (listener instanceof BlockEntityDataPacketListener) {
+                blockEntityDataPacketListenerList.add((BlockEntityDataPacketListener) listener);
+            }
+            if (listener instanceof BlockUpdatePacketListener) {
+                blockUpdatePacketListenerList.add((BlockUpdatePacketListener) listener);
+            }
+            if (listener instanceof ChunkDataPacketListener) {
+                chunkDataPacketListenerList.add((ChunkDataPacketListener) listener);
+            }
             if (listener instanceof CustomSoundEffectPacketListener) {
                 customSoundEffectPacketListenerList.add((CustomSoundEffectPacketListener) listener);
             }
@@ -106,12 +150,15 @@ public class ReplayManipulationTask implements Runnable {
             if (listener instanceof EntityEventPacketListener) {
                 entityEventPacketListenerList.add((EntityEventPacketListener) listener);
             }
-            if (listener instanceof EntitySoundEffectPacket) {
+            if (listener instanceof EntitySoundEffectPacketListener) {
                 entitySoundEffectPacketListenerList.add((EntitySoundEffectPacketListener) listener);
             }
             if (listener instanceof EntityMovementPacketListener) {
                 entityMovementPacketListeners.add((EntityMovementPacketListener) listener);
             }
+            if (listener instanceof ExplosionPacketListener) {
+                explosionPacketListenerList.add((ExplosionPacketListener) listener);
+            }
             if (listener instanceof GameEventPacketListener) {
                 gameEventPacketListenerList.add((GameEventPacketListener) listener);
             }
@@ -130,6 +177,9 @@ public class ReplayManipulationTask implements Runnable {
             if (listener instanceof PickupItemPacketListener) {
                 pickupItemPacketListenerList.add((PickupItemPacketListener) listener);
             }
+            if (listener instanceof PlayerInfoUpdatePacketListener) {
+                playerInfoUpdatePacketListenerList.add((PlayerInfoUpdatePacketListener) listener);
+            }
             if (listener instanceof ProjectilePowerPacketListener) {
                 projectilePowerPacketListenerList.add((ProjectilePowerPacketListener) listener);
             }
@@ -139,6 +189,9 @@ public class ReplayManipulationTask implements Runnable {
             if (listener instanceof RemoveEntityEffectPacketListener) {
                 removeEntityEffectPacketListenerList.add((RemoveEntityEffectPacketListener) listener);
             }
+            if (listener instanceof SetCenterChunkPacketListener) {
+                setCenterChunkPacketListenerList.add((SetCenterChunkPacketListener) listener);
+            }
             if (listener instanceof SetEntityMetadataPacketListener) {
                 setEntityMetadataPacketListenerList.add((SetEntityMetadataPacketListener) listener);
             }
@@ -178,6 +231,9 @@ public class ReplayManipulationTask implements Runnable {
             if (listener instanceof TeleportEntityPacketListener) {
                 teleportEntityPacketListenerList.add((TeleportEntityPacketListener) listener);
             }
+            if (listener instanceof UnloadChunkPacketListener) {
+                unloadChunkPacketListenerList.add((UnloadChunkPacketListener) listener);
+            }
             if (listener instanceof UpdateAttributesPacketListener) {
                 updateAttributesPacketListenerList.add((UpdateAttributesPacketListener) listener);
             }
@@ -190,6 +246,12 @@ public class ReplayManipulationTask implements Runnable {
             if (listener instanceof UpdateEntityRotationPacketListener) {
                 updateEntityRotationPacketListenerList.add((UpdateEntityRotationPacketListener) listener);
             }
+            if (listener instanceof UpdateLightPacketListener) {
+                updateLightPacketListenerList.add((UpdateLightPacketListener) listener);
+            }
+            if (listener instanceof UpdateSectionBlocksPacketListener) {
+                updateSectionBlocksPacketListenerList.add((UpdateSectionBlocksPacketListener) listener);
+            }
             if (listener instanceof UpdateTimePacketListener) {
                 updateTimePacketListenerList.add((UpdateTimePacketListener) listener);
             }
@@ -198,8 +260,72 @@ public class ReplayManipulationTask implements Runnable {
             }
         }
 
+        // Raw packet listeners are grouped by the packet types they want to receive.
+        Map<PacketType.Play, List<RawPacketListener>> rawPacketListenerLists = new EnumMap<PacketType.Play, List<RawPacketListener>>(PacketType.Play.class);
+        for (PacketListener listener : packetListeners) {
+            if (listener instanceof RawPacketListener) {
+                for (PacketType.Play packetType : ((RawPacketListener) listener).getRawPacketTypes()) {
+                    rawPacketListenerLists.computeIfAbsent(packetType, key -> new ArrayList<RawPacketListener>(packetListeners.length)).add((RawPacketListener) listener);
+                }
+            }
+        }
+        this.rawPacketListeners = new EnumMap<PacketType.Play, RawPacketListener[]>(PacketType.Play.class);
+        for (Map.Entry<PacketType.Play, List<RawPacketListener>> entry : rawPacketListenerLists.entrySet()) {
+            this.rawPacketListeners.put(entry.getKey(), entry.getValue().toArray(new RawPacketListener[0]));
+        }
+
+        // Packet types dropped by any filter, indexed by the ordinal of the packet type.
+        this.droppedPacketTypes = new boolean[PacketType.Play.values().length];
+        for (PacketListener listener : packetListeners) {
+            if (listener instanceof PacketTypeFilterListener) {
+                for (PacketType.Play packetType : ((PacketTypeFilterListener) listener).getDroppedPacketTypes()) {
+                    this.droppedPacketTypes[packetType.ordinal()] = true;
+                }
+            }
+        }
+
+        // Lookahead listeners share a single buffer. It covers the largest window and budget asked for.
+        this.lookaheadPacketListeners = new EnumMap<PacketType.Play, List<LookaheadPacketListener>>(PacketType.Play.class);
+        this.lookaheadPacketCounters = new ArrayList<LookaheadPacketCounter>();
+        int lookaheadMilliseconds = -1;
+        int lookaheadBudgetBytes = 0;
+        for (PacketListener listener : packetListeners) {
+            if (listener instanceof LookaheadPacketListener lookaheadPacketListener) {
+                lookaheadMilliseconds = Math.max(lookaheadMilliseconds, lookaheadPacketListener.getLookaheadMilliseconds());
+                lookaheadBudgetBytes = Math.max(lookaheadBudgetBytes, lookaheadPacketListener.getLookaheadBudgetBytes());
+                for (PacketType.Play packetType : lookaheadPacketListener.getLookaheadPacketTypes()) {
+                    this.lookaheadPacketListeners.computeIfAbsent(packetType, key -> new ArrayList<LookaheadPacketListener>(packetListeners.length)).add(lookaheadPacketListener);
+                }
+                if (lookaheadPacketListener instanceof LookaheadPacketCounter lookaheadPacketCounter) {
+                    this.lookaheadPacketCounters.add(lookaheadPacketCounter);
+                }
+            }
+        }
+        this.lookaheadMilliseconds = lookaheadMilliseconds;
+        this.lookaheadBudgetBytes = lookaheadBudgetBytes;
+
+        // With multiple trimmers, the replay is trimmed down to the range they all have in common.
+        int trimStartTimestamp = 0;
+        int trimEndTimestamp = Integer.MAX_VALUE;
+        for (PacketListener listener : packetListeners) {
+            if (listener instanceof ReplayTrimmer replayTrimmer) {
+                trimStartTimestamp = Math.max(trimStartTimestamp, replayTrimmer.getTrimStartTimestamp());
+                if (replayTrimmer.getTrimEndTimestamp() >= 0) {
+                    trimEndTimestamp = Math.min(trimEndTimestamp, replayTrimmer.getTrimEndTimestamp());
+                }
+            }
+        }
+        this.trimStartTimestamp = trimStartTimestamp;
+        this.trimEndTimestamp = trimEndTimestamp;
+        this.stateFolder = trimStartTimestamp > 0 ? new ReplayStateFolder(this.protocol, this.protocolVersion) : null;
+
         this.startOfReplayPacketInserters = startOfReplayPacketInserterList.toArray(new StartOfReplayPacketInserter[0]);
+        this.packetInserters = packetInserterList.toArray(new PacketInserter[0]);
+        this.timestampTransformers = timestampTransformerList.toArray(new TimestampTransformer[0]);
         this.blockActionPacketListeners = blockActionPacketListenerList.toArray(new BlockActionPacketListener[0]);
+        this.blockEntityDataPacketListeners = blockEntityDataPacketListenerList.toArray(new BlockEntityDataPacketListener[0]);
+        this.blockUpdatePacketListeners = blockUpdatePacketListenerList.toArray(new BlockUpdatePacketListener[0]);
+        this.chunkDataPacketListeners = chunkDataPacketListenerList.toArray(new ChunkDataPacketListener[0]);
         this.customSoundEffectPacketListeners = customSoundEffectPacketListenerList.toArray(new CustomSoundEffectPacketListener[0]);
         this.damageEventPacketListeners = damageEventPacketListenerList.toArray(new DamageEventPacketListener[0]);
         this.entityAnimationPacketListeners = entityAnimationPacketListenerList.toArray(new EntityAnimationPacketListener[0]);
@@ -207,15 +333,18 @@ public class ReplayManipulationTask implements Runnable {
         this.entityEventPacketListeners = entityEventPacketListenerList.toArray(new EntityEventPacketListener[0]);
         this.entitySoundEffectPacketListeners = entitySoundEffectPacketListenerList.toArray(new EntitySoundEffectPacketListener[0]);
         this.entityMovementPacketListeners = entityMovementPacketListeners.toArray(new EntityMovementPacketListener[0]);
+        this.explosionPacketListeners = explosionPacketListenerList.toArray(new ExplosionPacketListener[0]);
         this.gameEventPacketListeners = gameEventPacketListenerList.toArray(new GameEventPacketListener[0]);
         this.hurtAnimationPacketListeners = hurtAnimationPacketListenerList.toArray(new HurtAnimationPacketListener[0]);
         this.linkEntitiesPacketListeners = linkEntitiesPacketListenerList.toArray(new LinkEntitiesPacketListener[0]);
         this.moveMinecartAlongTrackPacketListeners = moveMinecartAlongTrackPacketListenerList.toArray(new MoveMinecartAlongTrackPacketListener[0]);
         this.particlePacketListeners = particlePacketListenerList.toArray(new ParticlePacketListener[0]);
         this.pickupItemPacketListeners = pickupItemPacketListenerList.toArray(new PickupItemPacketListener[0]);
+        this.playerInfoUpdatePacketListeners = playerInfoUpdatePacketListenerList.toArray(new PlayerInfoUpdatePacketListener[0]);
         this.projectilePowerPacketListeners = projectilePowerPacketListenerList.toArray(new ProjectilePowerPacketListener[0]);
         this.removeEntitiesPacketListeners = removeEntitiesPacketListenerList.toArray(new RemoveEntitiesPacketListener[0]);
         this.removeEntityEffectPacketListeners = removeEntityEffectPacketListenerList.toArray(new RemoveEntityEffectPacketListener[0]);
+        this.setCenterChunkPacketListeners = setCenterChunkPacketListenerList.toArray(new SetCenterChunkPacketListener[0]);
         this.setEntityMetadataPacketListeners = setEntityMetadataPacketListenerList.toArray(new SetEntityMetadataPacketListener[0]);
         this.setEntityVelocityPacketListeners = setEntityVelocityPacketListenerList.toArray(new SetEntityVelocityPacketListener[0]);
         this.setEquipmentPacketListeners = setEquipmentPacketListenerList.toArray(new SetEquipmentPacketListener[0]);
@@ -229,26 +358,34 @@ public class ReplayManipulationTask implements Runnable {
         this.spawnPlayerPacketListeners = spawnPlayerPacketListenerList.toArray(new SpawnPlayerPacketListener[0]);
         this.synchronizeVehiclePositionPacketListeners = synchronizeVehiclePositionPacketListenerList.toArray(new SynchronizeVehiclePositionPacketListener[0]);
         this.teleportEntityPacketListeners = teleportEntityPacketListenerList.toArray(new TeleportEntityPacketListener[0]);
+        this.unloadChunkPacketListeners = unloadChunkPacketListenerList.toArray(new UnloadChunkPacketListener[0]);
         this.updateAttributesPacketListeners = updateAttributesPacketListenerList.toArray(new UpdateAttributesPacketListener[0]);
         this.updateEntityPositionPacketListeners = updateEntityPositionPacketListenerList.toArray(new UpdateEntityPositionPacketListener[0]);
         this.updateEntityPositionAndRotationPacketListeners = updateEntityPositionAndRotationPacketListenerList.toArray(new UpdateEntityPositionAndRotationPacketListener[0]);
         this.updateEntityRotationPacketListeners = updateEntityRotationPacketListenerList.toArray(new UpdateEntityRotationPacketListener[0]);
+        this.updateLightPacketListeners = updateLightPacketListenerList.toArray(new UpdateLightPacketListener[0]);
+        this.updateSectionBlocksPacketListeners = updateSectionBlocksPacketListenerList.toArray(new UpdateSectionBlocksPacketListener[0]);
         this.updateTimePacketListeners = updateTimePacketListenerList.toArray(new UpdateTimePacketListener[0]);
         this.worldEventPacketListeners = worldEventPacketListenerList.toArray(new WorldEventPacketListener[0]);
     }
 
 
-    private final long sourceReplaySizeBytes;
+    private final long sourceReplaySizeBytes; // -1 while the replay is still being recorded.
+    private final RecordingTail recordingTail; // null unless the replay is still being recorded.
     private final Protocol protocol;
     private final int protocolVersion;
 
     private final Job job;
 
-    private final ReplayReader reader;
+    private ReplayReader reader; // Replaced with a reader of the lookahead buffer once the play phase is reached, if there are any lookahead listeners.
     private final ReplayWriter writer;
 
     private final StartOfReplayPacketInserter[] startOfReplayPacketInserters;
+    private final PacketInserter[] packetInserters;
     private final BlockActionPacketListener[] blockActionPacketListeners;
+    private final BlockEntityDataPacketListener[] blockEntityDataPacketListeners;
+    private final BlockUpdatePacketListener[] blockUpdatePacketListeners;
+    private final ChunkDataPacketListener[] chunkDataPacketListeners;
     private final CustomSoundEffectPacketListener[] customSoundEffectPacketListeners;
     private final DamageEventPacketListener[] damageEventPacketListeners;
     private final EntityAnimationPacketListener[] entityAnimationPacketListeners;
@@ -256,15 +393,18 @@ public class ReplayManipulationTask implements Runnable {
     private final EntityEventPacketListener[] entityEventPacketListeners;
     private final EntityMovementPacketListener[] entityMovementPacketListeners;
     private final EntitySoundEffectPacketListener[] entitySoundEffectPacketListeners;
+    private final ExplosionPacketListener[] explosionPacketListeners;
     private final GameEventPacketListener[] gameEventPacketListeners;
     private final HurtAnimationPacketListener[] hurtAnimationPacketListeners;
     private final LinkEntitiesPacketListener[] linkEntitiesPacketListeners;
     private final MoveMinecartAlongTrackPacketListener[] moveMinecartAlongTrackPacketListeners;
     private final ParticlePacketListener[] particlePacketListeners;
     private final PickupItemPacketListener[] pickupItemPacketListeners;
+    private final PlayerInfoUpdatePacketListener[] playerInfoUpdatePacketListeners;
     private final ProjectilePowerPacketListener[] projectilePowerPacketListeners;
     private final RemoveEntitiesPacketListener[] removeEntitiesPacketListeners;
     private final RemoveEntityEffectPacketListener[] removeEntityEffectPacketListeners;
+    private final SetCenterChunkPacketListener[] setCenterChunkPacketListeners;
     private final SetEntityMetadataPacketListener[] setEntityMetadataPacketListeners;
     private final SetEntityVelocityPacketListener[] setEntityVelocityPacketListeners;
     private final SetEquipmentPacketListener[] setEquipmentPacketListeners;
@@ -278,22 +418,51 @@ public class ReplayManipulationTask implements Runnable {
     private final SpawnPlayerPacketListener[] spawnPlayerPacketListeners;
     private final SynchronizeVehiclePositionPacketListener[] synchronizeVehiclePositionPacketListeners;
     private final TeleportEntityPacketListener[] teleportEntityPacketListeners;
+    private final UnloadChunkPacketListener[] unloadChunkPacketListeners;
     private final UpdateAttributesPacketListener[] updateAttributesPacketListeners;
     private final UpdateEntityPositionPacketListener[] updateEntityPositionPacketListeners;
     private final UpdateEntityPositionAndRotationPacketListener[] updateEntityPositionAndRotationPacketListeners;
     private final UpdateEntityRotationPacketListener[] updateEntityRotationPacketListeners;
+    private final UpdateLightPacketListener[] updateLightPacketListeners;
+    private final UpdateSectionBlocksPacketListener[] updateSectionBlocksPacketListeners;
     private final UpdateTimePacketListener[] updateTimePacketListeners;
     private final WorldEventPacketListener[] worldEventPacketListeners;
+    private final Map<PacketType.Play, RawPacketListener[]> rawPacketListeners;
+    private final boolean[] droppedPacketTypes;
+    private final TimestampTransformer[] timestampTransformers;
+    private int lastTimestampWritten = 0;
+    // Samples of (source timestamp, written timestamp), taken as the difference between the two changes. Used for mapping markers along with the packets.
+    private int[] sampledSourceTimestamps = new int[64];
+    private int[] sampledWrittenTimestamps = new int[64];
+    private int timestampSampleCount = 0;
+    private int unsampledSourceTimestamp = -1; // The last timestamp transformed, if it wasn't sampled.
+    private int unsampledWrittenTimestamp = -1;
+    private final Map<PacketType.Play, List<LookaheadPacketListener>> lookaheadPacketListeners;
+    private final List<LookaheadPacketCounter> lookaheadPacketCounters;
+    private final int lookaheadMilliseconds; // -1 if there are no lookahead listeners.
+    private final int lookaheadBudgetBytes;
+    private PacketLookaheadBuffer lookaheadBuffer = null;
+    private final int trimStartTimestamp;
+    private final int trimEndTimestamp; // Integer.MAX_VALUE if the end isn't trimmed.
+    private ReplayStateFolder stateFolder; // Folds the packets ahead of the trimmed start. null once past the start, or if the start isn't trimmed.
+    private int trimOffset = -1; // The (transformed) timestamp of the trimmed start, subtracted from every timestamp written out. -1 until the start is reached.
 
     private volatile boolean started = false;
 
     private int totalSizeOfLastPacketWritten = 0; // For some basic error checking
+    private int lastTimeStamp = 0;
 
     /**
      * Every X number of packets, the TaskProgress will be updated.
      */
     private static final int taskProgressUpdateFrequency = 512;
 
+    /// Small changes to the difference between source and written timestamps are sampled at most once per this many milliseconds (of the source replay).
+    private static final int TIMESTAMP_SAMPLE_MILLISECONDS = 50;
+
+    /// The block state of air, the same in every supported protocol version.
+    private static final int AIR_BLOCK_STATE = 0;
+
 
     @Override
     public void run() {
@@ -318,7 +487,7 @@ public class ReplayManipulationTask implements Runnable {
             }
 
             int startingReplayTimeStamp = this.reader.readInt();
-            this.writer.writeInt(startingReplayTimeStamp); // timeStamp
+            this.writer.writeInt(this.transformTimestamp(startingReplayTimeStamp)); // timeStamp
             int loginPacketSize = this.reader.readInt();
             this.writer.writeInt(loginPacketSize); // packetSize
             this.writer.writeByteArray(this.reader.readByteArray(loginPacketSize)); // packetID + data
@@ -328,17 +497,26 @@ public class ReplayManipulationTask implements Runnable {
                 this.insertPackets(startingReplayTimeStamp, packetInserter.insertPackets());
             }
 
+            // From here on, packets are read ahead for the lookahead listeners.
+            if (this.lookaheadMilliseconds >= 0) {
+                this.lookaheadBuffer = new PacketLookaheadBuffer(this.reader, this.sourceReplaySizeBytes, this.recordingTail, this.protocol,
+                        this.lookaheadMilliseconds, this.lookaheadBudgetBytes, this.lookaheadPacketListeners, this.lookaheadPacketCounters);
+                this.reader = new ReplayReader(this.lookaheadBuffer, this.reader.bytesRead());
+            }
+
             long packetIndex = 0; // May use useful for something if I need to target a specific packet within the sequence.
+            this.lastTimeStamp = startingReplayTimeStamp;
 
             // Only continue reading so long as data is available and this job isn't canceled.
-            while ((this.sourceReplaySizeBytes - this.reader.bytesRead()) != 0 && !this.job.isCanceled()) {
+            while ((this.sourceSizeBytes() - this.reader.bytesRead()) != 0 && !this.job.isCanceled()) {
                 packetIndex++;
 
-                // Used for some basic error checking.
-                long lastBytesWrittenTotal = this.writer.bytesWritten();
+                if (this.lookaheadBuffer != null) {
+                    this.lookaheadBuffer.fill();
+                }
 
-                // Update the task progress tracker every X number of packets.
-                if (packetIndex % ReplayManipulationTask.taskProgressUpdateFrequency == 0) {
+                // Update the task progress tracker every X number of packets. (There's no telling how far along a recording still being recorded is)
+                if (packetIndex % ReplayManipulationTask.taskProgressUpdateFrequency == 0 && this.recordingTail == null) {
                     // For some reason, using ((double)this.reader.bytesRead() / this.sourceReplaySizeBytes) can yield unexpected values during the first few cycles.
                     // Like "610860.0 / 4086648608L = 1.4947700636756093E-4" instead of "0.000149477" for example.
                     // Not sure why at this time. Maybe some sort of precision or overflow issue?
@@ -348,20 +526,25 @@ public class ReplayManipulationTask implements Runnable {
 
                 // It's possible that if a replay recording crashed and was recovered, that the last packet may not be fully written.
                 // In such case, the incomplete packet data from the source replay should be disregarded.
-                if ((this.sourceReplaySizeBytes - this.reader.bytesRead()) < 9) {
-                    Log.warning("Job #" + this.job.getJobNumber() + ": Last packet is missing data. Expected at least another 9 bytes, only " + (this.sourceReplaySizeBytes - this.reader.bytesRead()) + " bytes remain. Disregarding the last packet.");
+                if ((this.sourceSizeBytes() - this.reader.bytesRead()) < 9) {
+                    Log.warning("Job #" + this.job.getJobNumber() + ": Last packet is missing data. Expected at least another 9 bytes, only " + (this.sourceSizeBytes() - this.reader.bytesRead()) + " bytes remain. Disregarding the last packet.");
                     break;
                 }
 
                 // ReplayMod timestamp (in milliseconds since the beginning of this replay)
                 int timeStamp = this.reader.readInt();
 
+                // Everything past the trimmed end is left unread.
+                if (timeStamp > this.trimEndTimestamp) {
+                    break;
+                }
+
                 // Size of currentPacketID plus the packet data in bytes. Not a varInt!!! ReplayMod saves the size as a normal integer.
                 int packetSize = this.reader.readInt();
 
                 // Checking again - See above for explanation.
-                if ((this.sourceReplaySizeBytes - this.reader.bytesRead()) < packetSize) {
-                    Log.warning("Job #" + this.job.getJobNumber() + ": Last packet is missing data. Expected another " + packetSize + " bytes, only " + (this.sourceReplaySizeBytes - this.reader.bytesRead()) + " bytes remain. Disregarding the last packet.");
+                if ((this.sourceSizeBytes() - this.reader.bytesRead()) < packetSize) {
+                    Log.warning("Job #" + this.job.getJobNumber() + ": Last packet is missing data. Expected another " + packetSize + " bytes, only " + (this.sourceSizeBytes() - this.reader.bytesRead()) + " bytes remain. Disregarding the last packet.");
                     break;
                 }
 
@@ -370,127 +553,328 @@ public class ReplayManipulationTask implements Runnable {
                 int packetID = this.reader.readVarInt();
                 PacketType.Play packetType = this.protocol.getPlayPacketType(packetID);
 
-                this.totalSizeOfLastPacketWritten = 0;
-
-                switch (packetType) {
+                // Skip over dropped packet types without reading their data.
+                if (this.droppedPacketTypes[packetType.ordinal()]) {
+                    this.reader.skipFully((int) (packetSize - (this.reader.bytesRead() - startingBytesRead)));
+                    continue;
+                }
 
-                    case START_CONFIGURATION -> {
-                        // Not sure if this packet would ever occur during a replay.
-                        // Just in case, we'll handle this case if it occurs.
-                        Log.info("Job #" + this.job.getJobNumber() + ": Hit a Start Configuration packet during \"play\" phase."); // TODO: Remove this log sometime later.
-                        this.writePacketHeader(timeStamp, packetSize, packetID); // There is no data with this packet.
-                        this.passthroughConfigurationPackets(); // passthrough all the "configuration" phase packets to the writer.
+                if (this.stateFolder != null) {
+                    if (timeStamp < this.trimStartTimestamp) {
+                        if (packetType != PacketType.Play.START_CONFIGURATION) {
+                            this.stateFolder.fold(packetType, packetID, this.reader.readByteArray((int) (packetSize - (this.reader.bytesRead() - startingBytesRead))));
+                            continue;
+                        }
+                        // The configuration phase starts the client over. Write out what's been folded so far, and start folding over again after it.
+                        this.writeFoldedState(packetIndex);
+                    } else {
+                        this.writeFoldedState(packetIndex);
+                        this.stateFolder = null;
                     }
+                }
 
-                    case BLOCK_ACTION -> this.handleBlockActionPacket(packetIndex, timeStamp, packetSize, packetID);
+                this.processPacket(packetIndex, timeStamp, packetSize, startingBytesRead, packetID, packetType);
+            }
 
-                    case CUSTOM_SOUND_EFFECT -> this.handleCustomSoundEffectPacket(packetIndex, timeStamp, packetSize, packetID);
+            // The replay ended before the trimmed start.
+            if (this.stateFolder != null && !this.job.isCanceled()) {
+                this.writeFoldedState(packetIndex);
+                this.stateFolder = null;
+            }
 
-                    case DAMAGE_EVENT -> this.handleDamageEventPacket(packetIndex, timeStamp, packetSize, packetID);
+            // Insert custom packets at the tail of the replay if needed.
+            if (!this.job.isCanceled()) {
+                for (PacketInserter packetInserter : this.packetInserters) {
+                    this.insertPackets(this.lastTimeStamp, packetInserter.insertPacketsAtEnd());
+                }
+            }
 
-                    case ENTITY_ANIMATION -> this.handleEntityAnimationPacket(packetIndex, timeStamp, packetSize, packetID);
+            // Close the replay writer & reader (in that order)
+            this.writer.close();
+            this.reader.close();
 
-                    case ENTITY_EFFECT -> this.handleEntityEffectPacket(packetIndex, timeStamp, packetSize, packetID);
+            if (!this.job.isCanceled()) {
+                this.job.setProgress(Job.MAX_PROGRESS_VALUE - 1);
+            }
 
-                    case ENTITY_EVENT -> this.handleEntityEventPacket(packetIndex, timeStamp, packetSize, packetID);
+        } catch (Exception exception) {
+            try {
+                // Close the replay writer & reader (in that order)
+                this.writer.close();
+                this.reader.close();
+            } catch (IOException ioException) {
+                exception.addSuppressed(ioException);
+            }
+            // Rethrow the exception. To be handled by the ReplayJob instance caller.
+            // Logging and setting job status to FAILED is handled over there too.
+            throw new RuntimeException(exception);
+        }
+    }
 
-                    case ENTITY_MOVEMENT -> this.handleEntityMovementPacket(packetIndex, timeStamp, packetSize, packetID);
 
-                    case ENTITY_SOUND_EFFECT -> this.handleEntitySoundEffectPacket(packetIndex, timeStamp, packetSize, packetID);
+    /// The size of the source replay. While the replay is still being recorded, waits until there's more to read past what's been read so far (or the recording has ended),
+    /// and gives the size of the whole packets recorded so far. A truncated packet at the end of a recording is left out by the {@link RecordingTail} instead.
+    private long sourceSizeBytes() throws IOException {
+        if (this.recordingTail == null) {
+            return this.sourceReplaySizeBytes;
+        }
+        return this.recordingTail.awaitFramedBytes(this.reader.bytesRead());
+    }
 
-                    case GAME_EVENT -> this.handleGameEventPacket(packetIndex, timeStamp, packetSize, packetID);
 
-                    case HURT_ANIMATION -> this.handleHurtAnimationPacket(packetIndex, timeStamp, packetSize, packetID);
+    /**
+     * Process a single packet, passing it through the listeners and writing it out.
+     * The reader must be positioned right after the packet id.
+     *
+     * @param startingBytesRead The number of bytes read as of right after the packet size, before the packet id.
+     */
+    private void processPacket(long packetIndex, int timeStamp, int packetSize, long startingBytesRead, int packetID, PacketType.Play packetType) throws IOException {
+        // Used for some basic error checking.
+        long lastBytesWrittenTotal = this.writer.bytesWritten();
 
-                    case LINK_ENTITIES -> this.handleLinkEntitiesPacket(packetIndex, timeStamp, packetSize, packetID);
+        this.totalSizeOfLastPacketWritten = 0;
 
-                    case MOVE_MINECART_ALONG_TRACK -> this.handleMoveMinecartAlongTrackPacket(packetIndex, timeStamp, packetSize, packetID);
+        // Insert custom packets ahead of this packet if needed.
+        for (PacketInserter packetInserter : this.packetInserters) {
+            this.insertPackets(timeStamp, packetInserter.insertPackets(timeStamp, packetType));
+        }
+        this.lastTimeStamp = timeStamp;
 
-                    case PARTICLE -> this.handleParticlePacket(packetIndex, timeStamp, packetSize, packetID);
+        switch (packetType) {
 
-                    case PICKUP_ITEM -> this.handlePickupItemPacket(packetIndex, timeStamp, packetSize, packetID);
+            case START_CONFIGURATION -> {
+                // Not sure if this packet would ever occur during a replay.
+                // Just in case, we'll handle this case if it occurs.
+                Log.info("Job #" + this.job.getJobNumber() + ": Hit a Start Configuration packet during \"play\" phase."); // TODO: Remove this log sometime later.
+                this.writePacketHeader(timeStamp, packetSize, packetID); // There is no data with this packet.
+                this.passthroughConfigurationPackets(); // passthrough all the "configuration" phase packets to the writer.
+            }
 
-                    case PROJECTILE_POWER -> this.handleProjectilePowerPacket(packetIndex, timeStamp, packetSize, packetID);
+            case BLOCK_ACTION -> this.handleBlockActionPacket(packetIndex, timeStamp, packetSize, packetID);
 
-                    case REMOVE_ENTITIES -> this.handleRemoveEntitiesPacket(packetIndex, timeStamp, packetSize, packetID);
+            case BLOCK_ENTITY_DATA -> this.handleBlockEntityDataPacket(packetIndex, timeStamp, packetSize, packetID);
 
-                    case REMOVE_ENTITY_EFFECT -> this.handleRemoveEntityEffectPacket(packetIndex, timeStamp, packetSize, packetID);
+            case BLOCK_UPDATE -> this.handleBlockUpdatePacket(packetIndex, timeStamp, packetSize, packetID);
 
-                    case SET_ENTITY_METADATA -> this.handleSetEntityMetadataPacket(packetIndex, timeStamp, packetSize, packetID);
+            case CHUNK_DATA, CHUNK_DATA_AND_UPDATE_LIGHT -> this.handleChunkDataPacket(packetIndex, timeStamp, packetSize, packetID, packetType);
 
-                    case SET_ENTITY_VELOCITY -> this.handleSetEntityVelocityPacket(packetIndex, timeStamp, packetSize, packetID);
+            case CUSTOM_SOUND_EFFECT -> this.handleCustomSoundEffectPacket(packetIndex, timeStamp, packetSize, packetID);
 
-                    case SET_EQUIPMENT -> this.handleSetEquipmentPacket(packetIndex, timeStamp, packetSize, packetID);
+            case DAMAGE_EVENT -> this.handleDamageEventPacket(packetIndex, timeStamp, packetSize, packetID);
 
-                    case SET_HEAD_ROTATION -> this.handleSetHeadRotationPacket(packetIndex, timeStamp, packetSize, packetID);
+            case ENTITY_ANIMATION -> this.handleEntityAnimationPacket(packetIndex, timeStamp, packetSize, packetID);
 
-                    case SET_PASSENGERS -> this.handleSetPassengersPacket(packetIndex, timeStamp, packetSize, packetID);
+            case ENTITY_EFFECT -> this.handleEntityEffectPacket(packetIndex, timeStamp, packetSize, packetID);
 
-                    case SOUND_EFFECT -> this.handleSoundEffectPacket(packetIndex, timeStamp, packetSize, packetID);
+            case ENTITY_EVENT -> this.handleEntityEventPacket(packetIndex, timeStamp, packetSize, packetID);
 
-                    case SPAWN_ENTITY -> this.handleSpawnEntityPacket(packetIndex, timeStamp, packetSize, packetID);
+            case ENTITY_MOVEMENT -> this.handleEntityMovementPacket(packetIndex, timeStamp, packetSize, packetID);
 
-                    case SPAWN_EXPERIENCE_ORB -> this.handleSpawnExperienceOrbPacket(packetIndex, timeStamp, packetSize, packetID);
+            case ENTITY_SOUND_EFFECT -> this.handleEntitySoundEffectPacket(packetIndex, timeStamp, packetSize, packetID);
 
-                    case SPAWN_LIVING_ENTITY -> this.handleSpawnLivingEntityPacket(packetIndex, timeStamp, packetSize, packetID);
+            case EXPLOSION -> this.handleExplosionPacket(packetIndex, timeStamp, packetSize, packetID);
 
-                    case SPAWN_PAINTING -> this.handleSpawnPaintingPacket(packetIndex, timeStamp, packetSize, packetID);
+            case GAME_EVENT -> this.handleGameEventPacket(packetIndex, timeStamp, packetSize, packetID);
 
-                    case SPAWN_PLAYER -> this.handleSpawnPlayerPacket(packetIndex, timeStamp, packetSize, packetID);
+            case HURT_ANIMATION -> this.handleHurtAnimationPacket(packetIndex, timeStamp, packetSize, packetID);
 
-                    case SYNCHRONIZE_VEHICLE_POSITION -> this.handleSynchronizeVehiclePositionPacket(packetIndex, timeStamp, packetSize, packetID);
+            case LINK_ENTITIES -> this.handleLinkEntitiesPacket(packetIndex, timeStamp, packetSize, packetID);
 
-                    case TELEPORT_ENTITY -> this.handleTeleportEntityPacket(packetIndex, timeStamp, packetSize, packetID);
+            case MOVE_MINECART_ALONG_TRACK -> this.handleMoveMinecartAlongTrackPacket(packetIndex, timeStamp, packetSize, packetID);
 
-                    case UPDATE_ATTRIBUTES -> this.handleUpdateAttributesPacket(packetIndex, timeStamp, packetSize, packetID);
+            case PARTICLE -> this.handleParticlePacket(packetIndex, timeStamp, packetSize, packetID);
 
-                    case UPDATE_ENTITY_POSITION -> this.handleUpdateEntityPositionPacket(packetIndex, timeStamp, packetSize, packetID);
+            case PICKUP_ITEM -> this.handlePickupItemPacket(packetIndex, timeStamp, packetSize, packetID);
 
-                    case UPDATE_ENTITY_POSITION_AND_ROTATION -> this.handleUpdateEntityPositionAndRotationPacket(packetIndex, timeStamp, packetSize, packetID);
+            case PLAYER_INFO_UPDATE -> this.handlePlayerInfoUpdatePacket(packetIndex, timeStamp, packetSize, packetID);
 
-                    case UPDATE_ENTITY_ROTATION -> this.handleUpdateEntityRotationPacket(packetIndex, timeStamp, packetSize, packetID);
+            case PROJECTILE_POWER -> this.handleProjectilePowerPacket(packetIndex, timeStamp, packetSize, packetID);
 
-                    case UPDATE_TIME -> this.handleUpdateTimePacket(packetIndex, timeStamp, packetSize, packetID);
+            case REMOVE_ENTITIES -> this.handleRemoveEntitiesPacket(packetIndex, timeStamp, packetSize, packetID);
 
-                    case WORLD_EVENT -> this.handleWorldEventPacket(packetIndex, timeStamp, packetSize, packetID);
+            case REMOVE_ENTITY_EFFECT -> this.handleRemoveEntityEffectPacket(packetIndex, timeStamp, packetSize, packetID);
 
-                    default -> this.writePacketFull(timeStamp, packetSize, packetID, this.reader.readByteArray((int) (packetSize - (reader.bytesRead() - startingBytesRead))));
+            case SET_CENTER_CHUNK -> this.handleSetCenterChunkPacket(packetIndex, timeStamp, packetSize, packetID);
 
-                }
+            case SET_ENTITY_METADATA -> this.handleSetEntityMetadataPacket(packetIndex, timeStamp, packetSize, packetID);
 
-                // Do some basic error checking. Verify the correct number of bytes has been written out for the given packet size.
-                long bytesWrittenThisPacket = this.writer.bytesWritten() - lastBytesWrittenTotal;
-                // Check if anything has been written out this cycle.
-                if (bytesWrittenThisPacket != 0) {
-                    if (this.totalSizeOfLastPacketWritten != bytesWrittenThisPacket) {
-                        throw new RuntimeException("Unexpected number of bytes written for packet '" + packetType.name() + "' Expected " + this.totalSizeOfLastPacketWritten + " bytes, Actual " + bytesWrittenThisPacket + " bytes.");
-                    }
+            case SET_ENTITY_VELOCITY -> this.handleSetEntityVelocityPacket(packetIndex, timeStamp, packetSize, packetID);
+
+            case SET_EQUIPMENT -> this.handleSetEquipmentPacket(packetIndex, timeStamp, packetSize, packetID);
+
+            case SET_HEAD_ROTATION -> this.handleSetHeadRotationPacket(packetIndex, timeStamp, packetSize, packetID);
+
+            case SET_PASSENGERS -> this.handleSetPassengersPacket(packetIndex, timeStamp, packetSize, packetID);
+
+            case SOUND_EFFECT -> this.handleSoundEffectPacket(packetIndex, timeStamp, packetSize, packetID);
+
+            case SPAWN_ENTITY -> this.handleSpawnEntityPacket(packetIndex, timeStamp, packetSize, packetID);
+
+            case SPAWN_EXPERIENCE_ORB -> this.handleSpawnExperienceOrbPacket(packetIndex, timeStamp, packetSize, packetID);
+
+            case SPAWN_LIVING_ENTITY -> this.handleSpawnLivingEntityPacket(packetIndex, timeStamp, packetSize, packetID);
+
+            case SPAWN_PAINTING -> this.handleSpawnPaintingPacket(packetIndex, timeStamp, packetSize, packetID);
+
+            case SPAWN_PLAYER -> this.handleSpawnPlayerPacket(packetIndex, timeStamp, packetSize, packetID);
+
+            case SYNCHRONIZE_VEHICLE_POSITION -> this.handleSynchronizeVehiclePositionPacket(packetIndex, timeStamp, packetSize, packetID);
+
+            case TELEPORT_ENTITY -> this.handleTeleportEntityPacket(packetIndex, timeStamp, packetSize, packetID);
+
+            case UNLOAD_CHUNK -> this.handleUnloadChunkPacket(packetIndex, timeStamp, packetSize, packetID);
+
+            case UPDATE_ATTRIBUTES -> this.handleUpdateAttributesPacket(packetIndex, timeStamp, packetSize, packetID);
+
+            case UPDATE_ENTITY_POSITION -> this.handleUpdateEntityPositionPacket(packetIndex, timeStamp, packetSize, packetID);
+
+            case UPDATE_ENTITY_POSITION_AND_ROTATION -> this.handleUpdateEntityPositionAndRotationPacket(packetIndex, timeStamp, packetSize, packetID);
+
+            case UPDATE_ENTITY_ROTATION -> this.handleUpdateEntityRotationPacket(packetIndex, timeStamp, packetSize, packetID);
+
+            case UPDATE_LIGHT -> this.handleUpdateLightPacket(packetIndex, timeStamp, packetSize, packetID);
+
+            case UPDATE_SECTION_BLOCKS -> this.handleUpdateSectionBlocksPacket(packetIndex, timeStamp, packetSize, packetID);
+
+            case UPDATE_TIME -> this.handleUpdateTimePacket(packetIndex, timeStamp, packetSize, packetID);
+
+            case WORLD_EVENT -> this.handleWorldEventPacket(packetIndex, timeStamp, packetSize, packetID);
+
+            default -> {
+                RawPacketListener[] listeners = this.rawPacketListeners.get(packetType);
+                if (listeners != null) {
+                    this.handleRawPacket(packetIndex, timeStamp, packetSize, packetID, packetType, listeners);
+                } else {
+                    this.writePacketFull(timeStamp, packetSize, packetID, this.reader.readByteArray((int) (packetSize - (reader.bytesRead() - startingBytesRead))));
                 }
+            }
+
+        }
 
+        // Do some basic error checking. Verify the correct number of bytes has been written out for the given packet size.
+        long bytesWrittenThisPacket = this.writer.bytesWritten() - lastBytesWrittenTotal;
+        // Check if anything has been written out this cycle.
+        if (bytesWrittenThisPacket != 0) {
+            if (this.totalSizeOfLastPacketWritten != bytesWrittenThisPacket) {
+                throw new RuntimeException("Unexpected number of bytes written for packet '" + packetType.name() + "' Expected " + this.totalSizeOfLastPacketWritten + " bytes, Actual " + bytesWrittenThisPacket + " bytes.");
             }
+        }
+    }
 
-            // Close the replay writer & reader (in that order)
-            this.writer.close();
-            this.reader.close();
+    /**
+     * Write out the world state folded ahead of the trimmed start. The folded packets are processed just like any other packet,
+     * all at the trimmed start, which becomes the beginning of the new replay.
+     */
+    private void writeFoldedState(long packetIndex) throws IOException {
+        if (this.trimOffset == -1) {
+            this.trimOffset = this.applyTimestampTransformers(this.trimStartTimestamp);
+        }
 
-            if (!this.job.isCanceled()) {
-                this.job.setProgress(Job.MAX_PROGRESS_VALUE - 1);
+        byte[] foldedState = this.stateFolder.toByteArray(this.trimStartTimestamp);
+        this.stateFolder.clear();
+
+        ReplayReader replayReader = this.reader;
+        this.reader = new ReplayReader(new ByteArrayInputStream(foldedState), 0);
+        try {
+            while (this.reader.bytesRead() < foldedState.length) {
+                int timeStamp = this.reader.readInt();
+                int packetSize = this.reader.readInt();
+                long startingBytesRead = this.reader.bytesRead();
+                int packetID = this.reader.readVarInt();
+                this.processPacket(packetIndex, timeStamp, packetSize, startingBytesRead, packetID, this.protocol.getPlayPacketType(packetID));
             }
+        } finally {
+            this.reader = replayReader;
+        }
+    }
 
-        } catch (Exception exception) {
-            try {
-                // Close the replay writer & reader (in that order)
-                this.writer.close();
-                this.reader.close();
-            } catch (IOException ioException) {
-                exception.addSuppressed(ioException);
+
+    /// Returns the timestamp a packet is written out with, after all timestamp transformers are applied.
+    private int transformTimestamp(int sourceTimestamp) {
+        int timeStamp = this.applyTimestampTransformers(sourceTimestamp);
+        // Everything ahead of the trimmed start ends up at the beginning of the new replay.
+        if (this.trimOffset > 0) {
+            timeStamp = Math.max(0, timeStamp - this.trimOffset);
+        } else if (this.trimOffset == -1 && this.stateFolder != null) {
+            timeStamp = 0;
+        }
+        this.sampleTimestamp(sourceTimestamp, timeStamp);
+        this.lastTimestampWritten = timeStamp;
+        return timeStamp;
+    }
+
+    private int applyTimestampTransformers(int timeStamp) {
+        for (TimestampTransformer timestampTransformer : this.timestampTransformers) {
+            timeStamp = timestampTransformer.transformTimestamp(timeStamp);
+        }
+        return timeStamp;
+    }
+
+    private void sampleTimestamp(int sourceTimestamp, int writtenTimestamp) {
+        int count = this.timestampSampleCount;
+        if (count > 0) {
+            int lastSourceTimestamp = this.sampledSourceTimestamps[count - 1];
+            int lastDifference = this.sampledWrittenTimestamps[count - 1] - lastSourceTimestamp;
+            int difference = (writtenTimestamp - sourceTimestamp) - lastDifference;
+            if (sourceTimestamp < lastSourceTimestamp || difference == 0
+                    || (Math.abs(difference) < ReplayManipulationTask.TIMESTAMP_SAMPLE_MILLISECONDS && sourceTimestamp - lastSourceTimestamp < ReplayManipulationTask.TIMESTAMP_SAMPLE_MILLISECONDS)) {
+                this.unsampledSourceTimestamp = sourceTimestamp;
+                this.unsampledWrittenTimestamp = writtenTimestamp;
+                return;
+            }
+            // Close off a stretch the difference didn't change over, so it isn't interpolated across.
+            if (this.unsampledSourceTimestamp > lastSourceTimestamp && this.unsampledSourceTimestamp < sourceTimestamp
+                    && this.unsampledWrittenTimestamp - this.unsampledSourceTimestamp == lastDifference) {
+                this.addTimestampSample(this.unsampledSourceTimestamp, this.unsampledWrittenTimestamp);
+            } else if (sourceTimestamp == lastSourceTimestamp) {
+                this.sampledWrittenTimestamps[count - 1] = writtenTimestamp;
+                return;
             }
-            // Rethrow the exception. To be handled by the ReplayJob instance caller.
-            // Logging and setting job status to FAILED is handled over there too.
-            throw new RuntimeException(exception);
         }
+        this.addTimestampSample(sourceTimestamp, writtenTimestamp);
     }
 
+    private void addTimestampSample(int sourceTimestamp, int writtenTimestamp) {
+        int count = this.timestampSampleCount;
+        if (count == this.sampledSourceTimestamps.length) {
+            this.sampledSourceTimestamps = Arrays.copyOf(this.sampledSourceTimestamps, count * 2);
+            this.sampledWrittenTimestamps = Arrays.copyOf(this.sampledWrittenTimestamps, count * 2);
+        }
+        this.sampledSourceTimestamps[count] = sourceTimestamp;
+        this.sampledWrittenTimestamps[count] = writtenTimestamp;
+        this.timestampSampleCount = count + 1;
+    }
+
+    /**
+     * Map a timestamp of the source replay to the timestamp it ended up at in the new replay, following every change made to the timestamps
+     * (trimming, gap compaction, timelapse). Should only be used once the task is done.
+     * Note: The mapping is sampled and interpolated in between, so it may be off by a few milliseconds where the timestamps were changed unevenly.
+     *
+     * @param sourceTimestamp The timestamp within the source replay.
+     * @return The timestamp within the new replay, no later than {@link #getLastTimestampWritten()}.
+     */
+    public int mapTimestamp(int sourceTimestamp) {
+        int count = this.timestampSampleCount;
+        int index = Arrays.binarySearch(this.sampledSourceTimestamps, 0, count, sourceTimestamp);
+        if (index < 0) {
+            index = -index - 2; // The last sample before the timestamp.
+        }
+        if (index < 0) {
+            return count == 0 ? 0 : this.sampledWrittenTimestamps[0];
+        }
+        if (index == count - 1) {
+            int timestamp = sourceTimestamp + (this.sampledWrittenTimestamps[index] - this.sampledSourceTimestamps[index]);
+            return Math.max(0, Math.min(timestamp, this.lastTimestampWritten));
+        }
+        long sourceLength = this.sampledSourceTimestamps[index + 1] - this.sampledSourceTimestamps[index];
+        long writtenLength = this.sampledWrittenTimestamps[index + 1] - this.sampledWrittenTimestamps[index];
+        return Math.max(0, this.sampledWrittenTimestamps[index] + (int) ((sourceTimestamp - this.sampledSourceTimestamps[index]) * writtenLength / sourceLength));
+    }
+
+    /// Returns the (transformed) timestamp of the last packet written out. Once the task is done, this is the duration of the new replay.
+    public int getLastTimestampWritten() {
+        return this.lastTimestampWritten;
+    }
 
     /**
      * Write out a packet header in one line instead of three.
@@ -501,7 +885,7 @@ public class ReplayManipulationTask implements Runnable {
      * @param packetID   Variable Integer value. (uses 1-2 bytes typically)
      */
     private void writePacketHeader(int timeStamp, int packetSize, int packetID) throws IOException {
-        this.writer.writeInt(timeStamp);
+        this.writer.writeInt(this.transformTimestamp(timeStamp));
         this.writer.writeInt(packetSize);
         this.totalSizeOfLastPacketWritten += 8 + packetSize; // Total number of bytes the full packet should be. - this is used for some basic error checking.
         this.writer.writeVarInt(packetID);
@@ -535,7 +919,7 @@ public class ReplayManipulationTask implements Runnable {
             int packetIDVarIntSize = ReplayWriter.sizeOfVarInt(packetID);
             int[] data = this.reader.readByteArray(packetSize - packetIDVarIntSize);
 
-            this.writer.writeInt(timeStamp);
+            this.writer.writeInt(this.transformTimestamp(timeStamp));
             this.writer.writeInt(packetSize);
             this.writer.writeVarInt(packetID);
             this.writer.writeByteArray(data);
@@ -562,7 +946,7 @@ public class ReplayManipulationTask implements Runnable {
             int packetID = this.reader.readVarInt();
             int[] data = this.reader.readByteArray(packetSize - ReplayWriter.sizeOfVarInt(packetID));
 
-            this.writer.writeInt(timeStamp);
+            this.writer.writeInt(this.transformTimestamp(timeStamp));
             this.writer.writeInt(packetSize);
             this.writer.writeVarInt(packetID);
             this.writer.writeByteArray(data);
@@ -576,12 +960,71 @@ public class ReplayManipulationTask implements Runnable {
 
 
     /// TODO: Clean up duplicate code and refactor.
-    /// Note: Have not implemented for all types of packets - Only GAME_EVENT & UPDATE_TIME
+    /// Note: Have not implemented for all types of packets - Only BLOCK_UPDATE, GAME_EVENT, UNLOAD_CHUNK, UPDATE_SECTION_BLOCKS, UPDATE_TIME, the spawn and entity state packets & the relative entity movement packets
     private void insertPackets(int timeStamp, Packet... packets) throws IOException {
         if (packets != null) {
             for (Packet packet : packets) {
                 switch (packet.getPacketType()) {
 
+                    case BLOCK_UPDATE -> this.writeBlockUpdatePacket(timeStamp, (BlockUpdatePacket) packet);
+
+                    case UNLOAD_CHUNK -> this.writeUnloadChunkPacket(timeStamp, (UnloadChunkPacket) packet);
+
+                    case UPDATE_SECTION_BLOCKS -> this.writeUpdateSectionBlocksPacket(timeStamp, (UpdateSectionBlocksPacket) packet);
+
+                    case SPAWN_ENTITY -> this.writeSpawnEntityPacket(timeStamp, (SpawnEntityPacket) packet);
+
+                    case SPAWN_LIVING_ENTITY -> this.writeSpawnLivingEntityPacket(timeStamp, (SpawnLivingEntityPacket) packet);
+
+                    case SET_ENTITY_METADATA -> {
+                        SetEntityMetadataPacket setEntityMetadataPacket = (SetEntityMetadataPacket) packet;
+                        this.writeEntityPacket(timeStamp, PacketType.Play.SET_ENTITY_METADATA, setEntityMetadataPacket.getEntityID(), setEntityMetadataPacket.getRawMetadataBytes());
+                    }
+
+                    case SET_EQUIPMENT -> {
+                        SetEquipmentPacket setEquipmentPacket = (SetEquipmentPacket) packet;
+                        this.writeEntityPacket(timeStamp, PacketType.Play.SET_EQUIPMENT, setEquipmentPacket.getEntityID(), setEquipmentPacket.getRawEquipmentBytes());
+                    }
+
+                    case UPDATE_ENTITY_POSITION -> {
+                        UpdateEntityPositionPacket updateEntityPositionPacket = (UpdateEntityPositionPacket) packet;
+                        int packetID = this.protocol.getPlayPacketID(PacketType.Play.UPDATE_ENTITY_POSITION);
+                        this.writePacketHeader(timeStamp, ReplayWriter.sizeOfVarInt(packetID) + ReplayWriter.sizeOfVarInt(updateEntityPositionPacket.getEntityID()) + 7, packetID);
+                        this.writer.writeVarInt(updateEntityPositionPacket.getEntityID());
+                        this.writer.writeShort(updateEntityPositionPacket.getDeltaX());
+                        this.writer.writeShort(updateEntityPositionPacket.getDeltaY());
+                        this.writer.writeShort(updateEntityPositionPacket.getDeltaZ());
+                        this.writer.writeBoolean(updateEntityPositionPacket.isOnGround());
+                    }
+
+                    case UPDATE_ENTITY_POSITION_AND_ROTATION -> {
+                        UpdateEntityPositionAndRotationPacket updateEntityPositionAndRotationPacket = (UpdateEntityPositionAndRotationPacket) packet;
+                        int packetID = this.protocol.getPlayPacketID(PacketType.Play.UPDATE_ENTITY_POSITION_AND_ROTATION);
+                        this.writePacketHeader(timeStamp, ReplayWriter.sizeOfVarInt(packetID) + ReplayWriter.sizeOfVarInt(updateEntityPositionAndRotationPacket.getEntityID()) + 9, packetID);
+                        this.writer.writeVarInt(updateEntityPositionAndRotationPacket.getEntityID());
+                        this.writer.writeShort(updateEntityPositionAndRotationPacket.getDeltaX());
+                        this.writer.writeShort(updateEntityPositionAndRotationPacket.getDeltaY());
+                        this.writer.writeShort(updateEntityPositionAndRotationPacket.getDeltaZ());
+                        this.writer.writeByte(updateEntityPositionAndRotationPacket.getYawByte());
+                        this.writer.writeByte(updateEntityPositionAndRotationPacket.getPitchByte());
+                        this.writer.writeBoolean(updateEntityPositionAndRotationPacket.isOnGround());
+                    }
+
+                    case UPDATE_ENTITY_ROTATION -> {
+                        UpdateEntityRotationPacket updateEntityRotationPacket = (UpdateEntityRotationPacket) packet;
+                        int packetID = this.protocol.getPlayPacketID(PacketType.Play.UPDATE_ENTITY_ROTATION);
+                        this.writePacketHeader(timeStamp, ReplayWriter.sizeOfVarInt(packetID) + ReplayWriter.sizeOfVarInt(updateEntityRotationPacket.getEntityID()) + 3, packetID);
+                        this.writer.writeVarInt(updateEntityRotationPacket.getEntityID());
+                        this.writer.writeByte(updateEntityRotationPacket.getYawByte());
+                        this.writer.writeByte(updateEntityRotationPacket.getPitchByte());
+                        this.writer.writeBoolean(updateEntityRotationPacket.isOnGround());
+                    }
+
+                    case UPDATE_ATTRIBUTES -> {
+                        UpdateAttributesPacket updateAttributesPacket = (UpdateAttributesPacket) packet;
+                        this.writeEntityPacket(timeStamp, PacketType.Play.UPDATE_ATTRIBUTES, updateAttributesPacket.getEntityID(), updateAttributesPacket.getRawAttributesBytes());
+                    }
+
                     case GAME_EVENT -> {
                         int packetID = this.protocol.getPlayPacketID(PacketType.Play.GAME_EVENT);
                         this.writePacketHeader(timeStamp, ReplayWriter.sizeOfVarInt(packetID) + 5, packetID);
@@ -649,6 +1092,102 @@ public class ReplayManipulationTask implements Runnable {
         }
     }
 
+    private void writeSpawnEntityPacket(int timeStamp, SpawnEntityPacket spawnEntityPacket) throws IOException {
+        int packetID = this.protocol.getPlayPacketID(PacketType.Play.SPAWN_ENTITY);
+        int entityTypeID = this.protocol.getEntityTypeID(spawnEntityPacket.getEntityType());
+        if (entityTypeID == -1) {
+            throw new UnsupportedOperationException("EntityType." + spawnEntityPacket.getEntityType() + " is unsupported for this protocol version");
+        }
+        int[] rawMovementBytes = spawnEntityPacket.getRawMovementBytes();
+
+        int packetSize = ReplayWriter.sizeOfVarInt(packetID) + ReplayWriter.sizeOfVarInt(spawnEntityPacket.getEntityID()) + 16 + ReplayWriter.sizeOfVarInt(entityTypeID) + 24 + 2;
+        if (this.protocolVersion > Version.MC_1_18_2) {
+            packetSize += 1 + ReplayWriter.sizeOfVarInt(spawnEntityPacket.getData());
+        } else {
+            packetSize += 4;
+        }
+        if (this.protocolVersion < Version.MC_1_21_9) {
+            packetSize += 6;
+        } else {
+            packetSize += rawMovementBytes.length;
+        }
+
+        this.writePacketHeader(timeStamp, packetSize, packetID);
+        this.writer.writeVarInt(spawnEntityPacket.getEntityID());
+        this.writer.writeLong(spawnEntityPacket.getUuid().getMostSignificantBits());
+        this.writer.writeLong(spawnEntityPacket.getUuid().getLeastSignificantBits());
+        this.writer.writeVarInt(entityTypeID);
+        this.writer.writeDouble(spawnEntityPacket.getX());
+        this.writer.writeDouble(spawnEntityPacket.getY());
+        this.writer.writeDouble(spawnEntityPacket.getZ());
+        if (this.protocolVersion > Version.MC_1_21_8) {
+            this.writer.writeByteArray(rawMovementBytes);
+        }
+        this.writer.writeByte(spawnEntityPacket.getPitchByte());
+        this.writer.writeByte(spawnEntityPacket.getYawByte());
+        if (this.protocolVersion > Version.MC_1_18_2) {
+            this.writer.writeByte(spawnEntityPacket.getHeadYawByte());
+            this.writer.writeVarInt(spawnEntityPacket.getData());
+        } else {
+            this.writer.writeInt(spawnEntityPacket.getData());
+        }
+        if (this.protocolVersion < Version.MC_1_21_9) {
+            this.writer.writeShort(spawnEntityPacket.getVelocityX());
+            this.writer.writeShort(spawnEntityPacket.getVelocityY());
+            this.writer.writeShort(spawnEntityPacket.getVelocityZ());
+        }
+    }
+
+    private void writeSpawnLivingEntityPacket(int timeStamp, SpawnLivingEntityPacket spawnLivingEntityPacket) throws IOException {
+        int packetID = this.protocol.getPlayPacketID(PacketType.Play.SPAWN_LIVING_ENTITY);
+        int entityTypeID = this.protocol.getEntityTypeID(spawnLivingEntityPacket.getEntityType());
+        if (entityTypeID == -1) {
+            throw new UnsupportedOperationException("EntityType." + spawnLivingEntityPacket.getEntityType() + " is unsupported for this protocol version");
+        }
+
+        this.writePacketHeader(timeStamp, ReplayWriter.sizeOfVarInt(packetID) + ReplayWriter.sizeOfVarInt(spawnLivingEntityPacket.getEntityID()) + 16 + ReplayWriter.sizeOfVarInt(entityTypeID) + 24 + 3 + 6, packetID);
+        this.writer.writeVarInt(spawnLivingEntityPacket.getEntityID());
+        this.writer.writeLong(spawnLivingEntityPacket.getUuid().getMostSignificantBits());
+        this.writer.writeLong(spawnLivingEntityPacket.getUuid().getLeastSignificantBits());
+        this.writer.writeVarInt(entityTypeID);
+        this.writer.writeDouble(spawnLivingEntityPacket.getX());
+        this.writer.writeDouble(spawnLivingEntityPacket.getY());
+        this.writer.writeDouble(spawnLivingEntityPacket.getZ());
+        // Written in the order of yaw, then pitch. (unlike Spawn Entity which is pitch, then yaw)
+        this.writer.writeByte(spawnLivingEntityPacket.getYawByte());
+        this.writer.writeByte(spawnLivingEntityPacket.getPitchByte());
+        this.writer.writeByte(spawnLivingEntityPacket.getHeadYawByte());
+        this.writer.writeShort(spawnLivingEntityPacket.getVelocityX());
+        this.writer.writeShort(spawnLivingEntityPacket.getVelocityY());
+        this.writer.writeShort(spawnLivingEntityPacket.getVelocityZ());
+    }
+
+    /// Write out a packet consisting of an entity id followed by the rest of the packet data as-is.
+    private void writeEntityPacket(int timeStamp, PacketType.Play packetType, int entityID, int[] rawDataBytes) throws IOException {
+        int packetID = this.protocol.getPlayPacketID(packetType);
+        this.writePacketHeader(timeStamp, ReplayWriter.sizeOfVarInt(packetID) + ReplayWriter.sizeOfVarInt(entityID) + rawDataBytes.length, packetID);
+        this.writer.writeVarInt(entityID);
+        this.writer.writeByteArray(rawDataBytes);
+    }
+
+
+    private void handleRawPacket(long packetIndex, int timeStamp, int packetSize, int packetID, PacketType.Play packetType, RawPacketListener[] listeners) throws IOException {
+        // Read packet data
+        int[] rawDataBytes = this.reader.readByteArray(packetSize - ReplayWriter.sizeOfVarInt(packetID));
+
+        RawPacket rawPacket = new RawPacket(packetIndex, timeStamp, packetType, rawDataBytes);
+
+        // Let listener(s) manipulate this packet.
+        for (RawPacketListener listener : listeners) {
+            listener.onRawPacket(rawPacket);
+        }
+
+        // Write out the full packet (if the packet should be written out). The packet data may have been replaced, so the packet size is recalculated.
+        if (!rawPacket.isWriteCanceled()) {
+            rawDataBytes = rawPacket.getRawDataBytes();
+            this.writePacketFull(timeStamp, ReplayWriter.sizeOfVarInt(packetID) + rawDataBytes.length, packetID, rawDataBytes);
+        }
+    }
 
     private void handleBlockActionPacket(long packetIndex, int timeStamp, int packetSize, int packetID) throws IOException {
         if (this.blockActionPacketListeners.length > 0) {
@@ -689,20 +1228,128 @@ public class ReplayManipulationTask implements Runnable {
         }
     }
 
+    private void handleBlockEntityDataPacket(long packetIndex, int timeStamp, int packetSize, int packetID) throws IOException {
+        if (this.blockEntityDataPacketListeners.length > 0) {
+            // Read.
+            long position = this.reader.readLong();
+            int blockEntityType = this.reader.readVarInt();
+            int[] rawNBTBytes = this.reader.readByteArray(packetSize - ReplayWriter.sizeOfVarInt(packetID) - 8 - ReplayWriter.sizeOfVarInt(blockEntityType));
+
+            BlockEntityDataPacket blockEntityDataPacket = new BlockEntityDataPacket(packetIndex, timeStamp,
+                    BlockUpdatePacket.decodePositionX(position), BlockUpdatePacket.decodePositionY(position), BlockUpdatePacket.decodePositionZ(position), blockEntityType, rawNBTBytes);
+
+            // Let listener(s) cancel this packet.
+            for (BlockEntityDataPacketListener listener : this.blockEntityDataPacketListeners) {
+                listener.onBlockEntityDataPacket(blockEntityDataPacket);
+            }
+
+            // Write out the full packet (if the packet should be written out)
+            if (!blockEntityDataPacket.isWriteCanceled()) {
+                this.writePacketHeader(timeStamp, packetSize, packetID);
+                this.writer.writeLong(position);
+                this.writer.writeVarInt(blockEntityType);
+                this.writer.writeByteArray(rawNBTBytes);
+            }
+        } else {
+            this.writePacketFull(timeStamp, packetSize, packetID, this.reader.readByteArray(packetSize - ReplayWriter.sizeOfVarInt(packetID)));
+        }
+    }
+
+    private void handleBlockUpdatePacket(long packetIndex, int timeStamp, int packetSize, int packetID) throws IOException {
+        if (this.blockUpdatePacketListeners.length > 0) {
+            // Read.
+            long position = this.reader.readLong();
+            int blockState = this.reader.readVarInt();
+
+            BlockUpdatePacket blockUpdatePacket = new BlockUpdatePacket(packetIndex, timeStamp,
+                    BlockUpdatePacket.decodePositionX(position), BlockUpdatePacket.decodePositionY(position), BlockUpdatePacket.decodePositionZ(position), blockState);
+
+            // Let listener(s) manipulate this packet.
+            for (BlockUpdatePacketListener listener : this.blockUpdatePacketListeners) {
+                listener.onBlockUpdatePacket(blockUpdatePacket);
+            }
+
+            // Write out the full packet (if the packet should be written out)
+            if (!blockUpdatePacket.isWriteCanceled()) {
+                this.writeBlockUpdatePacket(timeStamp, blockUpdatePacket);
+            }
+        } else {
+            this.writePacketFull(timeStamp, packetSize, packetID, this.reader.readByteArray(packetSize - ReplayWriter.sizeOfVarInt(packetID)));
+        }
+    }
+
+    private void writeBlockUpdatePacket(int timeStamp, BlockUpdatePacket blockUpdatePacket) throws IOException {
+        int packetID = this.protocol.getPlayPacketID(PacketType.Play.BLOCK_UPDATE);
+        int blockState = blockUpdatePacket.getBlockState();
+
+        this.writePacketHeader(timeStamp, ReplayWriter.sizeOfVarInt(packetID) + 8 + ReplayWriter.sizeOfVarInt(blockState), packetID);
+        this.writer.writeLong(blockUpdatePacket.getEncodedPosition());
+        this.writer.writeVarInt(blockState);
+    }
+
+    private void handleChunkDataPacket(long packetIndex, int timeStamp, int packetSize, int packetID, PacketType.Play packetType) throws IOException {
+        if (this.chunkDataPacketListeners.length > 0) {
+            // Read.
+            int chunkX = this.reader.readInt();
+            int chunkZ = this.reader.readInt();
+            int[] rawDataBytes = this.reader.readByteArray(packetSize - ReplayWriter.sizeOfVarInt(packetID) - 8);
+
+            ChunkDataPacket chunkDataPacket = new ChunkDataPacket(packetIndex, timeStamp, packetType, chunkX, chunkZ, rawDataBytes);
+
+            // Let listener(s) modify or cancel this packet.
+            for (ChunkDataPacketListener listener : this.chunkDataPacketListeners) {
+                listener.onChunkDataPacket(chunkDataPacket);
+            }
+
+            // Write out the full packet (if the packet should be written out)
+            if (!chunkDataPacket.isWriteCanceled()) {
+                rawDataBytes = chunkDataPacket.getRawDataBytes();
+                this.writePacketHeader(timeStamp, ReplayWriter.sizeOfVarInt(packetID) + 8 + rawDataBytes.length, packetID);
+                this.writer.writeInt(chunkX);
+                this.writer.writeInt(chunkZ);
+                this.writer.writeByteArray(rawDataBytes);
+            }
+        } else {
+            this.writePacketFull(timeStamp, packetSize, packetID, this.reader.readByteArray(packetSize - ReplayWriter.sizeOfVarInt(packetID)));
+        }
+    }
+
     private void handleCustomSoundEffectPacket(long packetIndex, int timeStamp, int packetSize, int packetID) throws IOException {
         if (this.customSoundEffectPacketListeners.length > 0) {
             // Read packet data
-            int[] rawDataBytes = this.reader.readByteArray(packetSize - ReplayWriter.sizeOfVarInt(packetID));
+            int[] soundNameRawBytes = this.reader.readByteArray(this.reader.readVarInt());
+            int category = this.reader.readVarInt();
+            int encodedX = this.reader.readInt();
+            int encodedY = this.reader.readInt();
+            int encodedZ = this.reader.readInt();
+            float volume = this.reader.readFloat();
+            float pitch = this.reader.readFloat();
+            // The seed was added in protocol version 759 (1.19).
+            long seed = 0;
+            if (this.protocolVersion > Version.MC_1_18_2) {
+                seed = this.reader.readLong();
+            }
 
-            CustomSoundEffectPacket customSoundEffectPacket = new CustomSoundEffectPacket(packetIndex, timeStamp, rawDataBytes);
+            CustomSoundEffectPacket customSoundEffectPacket = new CustomSoundEffectPacket(packetIndex, timeStamp, soundNameRawBytes, category, encodedX, encodedY, encodedZ, volume, pitch, seed);
 
-            // Let listener(s) manipulate this packet. TODO: fully implement packet object
+            // Let listener(s) cancel this packet.
             for (CustomSoundEffectPacketListener listener : this.customSoundEffectPacketListeners) {
                 listener.onCustomSoundEffectPacket(customSoundEffectPacket);
             }
             // Write out the full packet (if the packet should be written out)
             if (!customSoundEffectPacket.isWriteCanceled()) {
-                this.writePacketFull(timeStamp, packetSize, packetID, rawDataBytes);
+                this.writePacketHeader(timeStamp, packetSize, packetID);
+                this.writer.writeVarInt(soundNameRawBytes.length);
+                this.writer.writeByteArray(soundNameRawBytes);
+                this.writer.writeVarInt(category);
+                this.writer.writeInt(encodedX);
+                this.writer.writeInt(encodedY);
+                this.writer.writeInt(encodedZ);
+                this.writer.writeFloat(volume);
+                this.writer.writeFloat(pitch);
+                if (this.protocolVersion > Version.MC_1_18_2) {
+                    this.writer.writeLong(seed);
+                }
             }
         } else {
             this.writePacketFull(timeStamp, packetSize, packetID, this.reader.readByteArray(packetSize - ReplayWriter.sizeOfVarInt(packetID)));
@@ -896,23 +1543,232 @@ public class ReplayManipulationTask implements Runnable {
     private void handleEntitySoundEffectPacket(long packetIndex, int timeStamp, int packetSize, int packetID) throws IOException {
         if (this.entitySoundEffectPacketListeners.length > 0) {
             // Read packet data
-            int[] rawDataBytes = this.reader.readByteArray(packetSize - ReplayWriter.sizeOfVarInt(packetID));
+            int soundID;
+            int[] soundNameRawBytes = null;
+            boolean hasFixedRange = false;
+            float fixedRange = 0;
+            // In protocol version 761+ (1.19.3+), the sound id is offset by one. An id of 0 means the sound is defined inline.
+            if (this.protocolVersion > Version.MC_1_19_2) {
+                soundID = this.reader.readVarInt() - 1;
+                if (soundID == SoundEffectPacket.INLINE_SOUND_ID) {
+                    soundNameRawBytes = this.reader.readByteArray(this.reader.readVarInt());
+                    hasFixedRange = this.reader.readBoolean();
+                    if (hasFixedRange) {
+                        fixedRange = this.reader.readFloat();
+                    }
+                }
+            } else {
+                soundID = this.reader.readVarInt();
+            }
+            int category = this.reader.readVarInt();
+            int entityID = this.reader.readVarInt();
+            float volume = this.reader.readFloat();
+            float pitch = this.reader.readFloat();
+            // The seed was added in protocol version 759 (1.19).
+            long seed = 0;
+            if (this.protocolVersion > Version.MC_1_18_2) {
+                seed = this.reader.readLong();
+            }
 
-            EntitySoundEffectPacket entitySoundEffectPacket = new EntitySoundEffectPacket(packetIndex, timeStamp, rawDataBytes);
+            EntitySoundEffectPacket entitySoundEffectPacket = new EntitySoundEffectPacket(packetIndex, timeStamp, soundID, soundNameRawBytes, hasFixedRange, fixedRange, category, entityID, volume, pitch, seed);
 
-            // Let listener(s) manipulate this packet. TODO: fully implement packet object
+            // Let listener(s) cancel this packet.
             for (EntitySoundEffectPacketListener listener : this.entitySoundEffectPacketListeners) {
                 listener.onEntitySoundEffectPacket(entitySoundEffectPacket);
             }
             // Write out the full packet (if the packet should be written out)
             if (!entitySoundEffectPacket.isWriteCanceled()) {
-                this.writePacketFull(timeStamp, packetSize, packetID, rawDataBytes);
+                this.writePacketHeader(timeStamp, packetSize, packetID);
+                this.writeSound(soundID, soundNameRawBytes, hasFixedRange, fixedRange);
+                this.writer.writeVarInt(category);
+                this.writer.writeVarInt(entityID);
+                this.writer.writeFloat(volume);
+                this.writer.writeFloat(pitch);
+                if (this.protocolVersion > Version.MC_1_18_2) {
+                    this.writer.writeLong(seed);
+                }
             }
         } else {
             this.writePacketFull(timeStamp, packetSize, packetID, this.reader.readByteArray(packetSize - ReplayWriter.sizeOfVarInt(packetID)));
         }
     }
 
+    /// Write out a sound, either as a registry id or defined inline. (the inline option is only for protocol version 761+ / 1.19.3+)
+    private void writeSound(int soundID, int[] soundNameRawBytes, boolean hasFixedRange, float fixedRange) throws IOException {
+        if (this.protocolVersion > Version.MC_1_19_2) {
+            this.writer.writeVarInt(soundID + 1);
+            if (soundID == SoundEffectPacket.INLINE_SOUND_ID) {
+                this.writer.writeVarInt(soundNameRawBytes.length);
+                this.writer.writeByteArray(soundNameRawBytes);
+                this.writer.writeBoolean(hasFixedRange);
+                if (hasFixedRange) {
+                    this.writer.writeFloat(fixedRange);
+                }
+            }
+        } else {
+            this.writer.writeVarInt(soundID);
+        }
+    }
+
+    private void handleExplosionPacket(long packetIndex, int timeStamp, int packetSize, int packetID) throws IOException {
+        if (this.explosionPacketListeners.length > 0) {
+            // Read packet data
+            long startingBytesRead = this.reader.bytesRead() - ReplayWriter.sizeOfVarInt(packetID);
+
+            double x, y, z;
+            // The position is made up of floats in protocol versions 758 (1.18.2) and older.
+            if (this.protocolVersion > Version.MC_1_18_2) {
+                x = this.reader.readDouble();
+                y = this.reader.readDouble();
+                z = this.reader.readDouble();
+            } else {
+                x = this.reader.readFloat();
+                y = this.reader.readFloat();
+                z = this.reader.readFloat();
+            }
+
+            float strength = 0;
+            int[] recordsRawBytes = new int[0];
+            int blockCount = 0;
+            boolean hasKnockback;
+            double knockbackX = 0, knockbackY = 0, knockbackZ = 0;
+            int blockInteraction = ExplosionPacket.BLOCK_INTERACTION_DESTROY;
+            if (this.protocolVersion < Version.MC_1_21_2) {
+                strength = this.reader.readFloat();
+                // The record count is a normal int (not a VarInt) in protocol versions 754 (1.16.5) and older.
+                int recordCount = this.protocolVersion >= Version.MC_1_17_0 ? this.reader.readVarInt() : this.reader.readInt();
+                recordsRawBytes = this.reader.readByteArray(recordCount * 3);
+                knockbackX = this.reader.readFloat();
+                knockbackY = this.reader.readFloat();
+                knockbackZ = this.reader.readFloat();
+                hasKnockback = knockbackX != 0 || knockbackY != 0 || knockbackZ != 0;
+                // Protocol versions 765 to 767 (1.20.3 to 1.21.1) tell the client how to treat the blocks.
+                if (this.protocolVersion > Version.MC_1_20_2) {
+                    blockInteraction = this.reader.readVarInt();
+                }
+            } else {
+                // The radius and block count were added in protocol version 773 (1.21.9), for the block particles.
+                if (this.protocolVersion > Version.MC_1_21_8) {
+                    strength = this.reader.readFloat();
+                    blockCount = this.reader.readInt();
+                }
+                hasKnockback = this.reader.readBoolean();
+                if (hasKnockback) {
+                    knockbackX = this.reader.readDouble();
+                    knockbackY = this.reader.readDouble();
+                    knockbackZ = this.reader.readDouble();
+                }
+            }
+            // Whatever remains are the particle and sound fields. (protocol version 765+ / 1.20.3+)
+            int[] effectsRawBytes = this.reader.readByteArray((int) (packetSize - (this.reader.bytesRead() - startingBytesRead)));
+
+            ExplosionPacket explosionPacket = new ExplosionPacket(packetIndex, timeStamp, x, y, z, strength, recordsRawBytes, blockCount,
+                    hasKnockback, knockbackX, knockbackY, knockbackZ, blockInteraction, effectsRawBytes);
+
+            // Let listener(s) cancel or strip this packet.
+            for (ExplosionPacketListener listener : this.explosionPacketListeners) {
+                listener.onExplosionPacket(explosionPacket);
+            }
+
+            if (explosionPacket.isWriteCanceled()) {
+                return;
+            }
+            // Drop the explosion, keeping only the blocks it destroyed.
+            if (explosionPacket.isStrippable()) {
+                if (explosionPacket.isDestroyingBlocks()) {
+                    this.insertPackets(timeStamp, this.explosionBlockChanges(explosionPacket));
+                }
+                return;
+            }
+
+            // Write out the full packet
+            this.writePacketHeader(timeStamp, packetSize, packetID);
+            if (this.protocolVersion > Version.MC_1_18_2) {
+                this.writer.writeDouble(x);
+                this.writer.writeDouble(y);
+                this.writer.writeDouble(z);
+            } else {
+                this.writer.writeFloat((float) x);
+                this.writer.writeFloat((float) y);
+                this.writer.writeFloat((float) z);
+            }
+            if (this.protocolVersion < Version.MC_1_21_2) {
+                this.writer.writeFloat(strength);
+                if (this.protocolVersion >= Version.MC_1_17_0) {
+                    this.writer.writeVarInt(explosionPacket.getRecordCount());
+                } else {
+                    this.writer.writeInt(explosionPacket.getRecordCount());
+                }
+                this.writer.writeByteArray(recordsRawBytes);
+                this.writer.writeFloat((float) knockbackX);
+                this.writer.writeFloat((float) knockbackY);
+                this.writer.writeFloat((float) knockbackZ);
+                if (this.protocolVersion > Version.MC_1_20_2) {
+                    this.writer.writeVarInt(blockInteraction);
+                }
+            } else {
+                if (this.protocolVersion > Version.MC_1_21_8) {
+                    this.writer.writeFloat(strength);
+                    this.writer.writeInt(blockCount);
+                }
+                this.writer.writeBoolean(hasKnockback);
+                if (hasKnockback) {
+                    this.writer.writeDouble(knockbackX);
+                    this.writer.writeDouble(knockbackY);
+                    this.writer.writeDouble(knockbackZ);
+                }
+            }
+            this.writer.writeByteArray(effectsRawBytes);
+        } else {
+            this.writePacketFull(timeStamp, packetSize, packetID, this.reader.readByteArray(packetSize - ReplayWriter.sizeOfVarInt(packetID)));
+        }
+    }
+
+    /// Build block updates setting each block destroyed by an explosion to air. One packet per chunk section.
+    private Packet[] explosionBlockChanges(ExplosionPacket explosionPacket) {
+        int baseX = (int) Math.floor(explosionPacket.getX());
+        int baseY = (int) Math.floor(explosionPacket.getY());
+        int baseZ = (int) Math.floor(explosionPacket.getZ());
+        int[] records = explosionPacket.getRecordsRawBytes();
+
+        // Group the records by chunk section.
+        LongIntHashMap sectionGroups = new LongIntHashMap(8);
+        int[] groups = new int[records.length / 3];
+        int[] groupSizes = new int[groups.length];
+        for (int i = 0; i < groups.length; i++) {
+            long sectionKey = UpdateSectionBlocksPacket.encodeSectionPosition(
+                    (baseX + (byte) records[i * 3]) >> 4, (baseY + (byte) records[i * 3 + 1]) >> 4, (baseZ + (byte) records[i * 3 + 2]) >> 4);
+            int group = sectionGroups.get(sectionKey, -1);
+            if (group == -1) {
+                group = sectionGroups.size();
+                sectionGroups.put(sectionKey, group);
+            }
+            groups[i] = group;
+            groupSizes[group]++;
+        }
+
+        Packet[] packets = new Packet[sectionGroups.size()];
+        long[][] sectionBlocks = new long[packets.length][];
+        int[] sectionFill = new int[packets.length];
+        for (int i = 0; i < groups.length; i++) {
+            int group = groups[i];
+            int x = baseX + (byte) records[i * 3];
+            int y = baseY + (byte) records[i * 3 + 1];
+            int z = baseZ + (byte) records[i * 3 + 2];
+
+            if (groupSizes[group] == 1) {
+                packets[group] = new BlockUpdatePacket(0, explosionPacket.getTimestamp(), x, y, z, ReplayManipulationTask.AIR_BLOCK_STATE);
+                continue;
+            }
+            if (sectionBlocks[group] == null) {
+                sectionBlocks[group] = new long[groupSizes[group]];
+                packets[group] = new UpdateSectionBlocksPacket(0, explosionPacket.getTimestamp(), x >> 4, y >> 4, z >> 4, false, sectionBlocks[group]);
+            }
+            sectionBlocks[group][sectionFill[group]++] = UpdateSectionBlocksPacket.encodeBlock(ReplayManipulationTask.AIR_BLOCK_STATE, x & 0xF, y & 0xF, z & 0xF);
+        }
+        return packets;
+    }
+
     private void handleGameEventPacket(long packetIndex, int timeStamp, int packetSize, int packetID) throws
             IOException {
         if (this.gameEventPacketListeners.length > 0) {
@@ -1111,7 +1967,7 @@ public class ReplayManipulationTask implements Runnable {
 
             ParticlePacket particlePacket = new ParticlePacket(packetIndex, timeStamp, longDistance, alwaysVisible, x, y, z, offsetX, offsetY, offsetZ, maxSpeed, particleCount, particleID, particleDataRawBytes);
 
-            // Let listener(s) cancel this packet.
+            // Let listener(s) manipulate this packet.
             for (ParticlePacketListener listener : this.particlePacketListeners) {
                 listener.onParticlePacket(particlePacket);
             }
@@ -1137,7 +1993,7 @@ public class ReplayManipulationTask implements Runnable {
                 this.writer.writeFloat(offsetY);
                 this.writer.writeFloat(offsetZ);
                 this.writer.writeFloat(maxSpeed);
-                this.writer.writeInt(particleCount);
+                this.writer.writeInt(particlePacket.getParticleCount());
                 if (this.protocolVersion > Version.MC_1_20_6) {
                     this.writer.writeVarInt(particleID);
                 }
@@ -1174,6 +2030,28 @@ public class ReplayManipulationTask implements Runnable {
         }
     }
 
+    private void handlePlayerInfoUpdatePacket(long packetIndex, int timeStamp, int packetSize, int packetID) throws IOException {
+        if (this.playerInfoUpdatePacketListeners.length > 0) {
+            // Read packet data. Decoded by the packet itself, only as far as needed.
+            int[] rawDataBytes = this.reader.readByteArray(packetSize - ReplayWriter.sizeOfVarInt(packetID));
+
+            PlayerInfoUpdatePacket playerInfoUpdatePacket = new PlayerInfoUpdatePacket(packetIndex, timeStamp, this.protocolVersion, rawDataBytes);
+
+            // Let listener(s) manipulate this packet.
+            for (PlayerInfoUpdatePacketListener listener : this.playerInfoUpdatePacketListeners) {
+                listener.onPlayerInfoUpdatePacket(playerInfoUpdatePacket);
+            }
+
+            // Write out the full packet (if the packet should be written out). Actions may have been removed, so the packet size is recalculated.
+            if (!playerInfoUpdatePacket.isWriteCanceled()) {
+                rawDataBytes = playerInfoUpdatePacket.getRawDataBytes();
+                this.writePacketFull(timeStamp, ReplayWriter.sizeOfVarInt(packetID) + rawDataBytes.length, packetID, rawDataBytes);
+            }
+        } else {
+            this.writePacketFull(timeStamp, packetSize, packetID, this.reader.readByteArray(packetSize - ReplayWriter.sizeOfVarInt(packetID)));
+        }
+    }
+
     private void handleProjectilePowerPacket(long packetIndex, int timeStamp, int packetSize, int packetID) throws IOException {
         if (this.projectilePowerPacketListeners.length > 0) {
             // Read packet data
@@ -1311,13 +2189,37 @@ public class ReplayManipulationTask implements Runnable {
         }
     }
 
+    private void handleSetCenterChunkPacket(long packetIndex, int timeStamp, int packetSize, int packetID) throws IOException {
+        if (this.setCenterChunkPacketListeners.length > 0) {
+            // Read.
+            int chunkX = this.reader.readVarInt();
+            int chunkZ = this.reader.readVarInt();
+
+            SetCenterChunkPacket setCenterChunkPacket = new SetCenterChunkPacket(packetIndex, timeStamp, chunkX, chunkZ);
+
+            // Let listener(s) cancel this packet.
+            for (SetCenterChunkPacketListener listener : this.setCenterChunkPacketListeners) {
+                listener.onSetCenterChunkPacket(setCenterChunkPacket);
+            }
+
+            // Write out the full packet (if the packet should be written out)
+            if (!setCenterChunkPacket.isWriteCanceled()) {
+                this.writePacketHeader(timeStamp, packetSize, packetID);
+                this.writer.writeVarInt(chunkX);
+                this.writer.writeVarInt(chunkZ);
+            }
+        } else {
+            this.writePacketFull(timeStamp, packetSize, packetID, this.reader.readByteArray(packetSize - ReplayWriter.sizeOfVarInt(packetID)));
+        }
+    }
+
     private void handleSetEntityMetadataPacket(long packetIndex, int timeStamp, int packetSize, int packetID) throws IOException {
         if (this.setEntityMetadataPacketListeners.length > 0) {
             // Read packet data
             int entityID = this.reader.readVarInt();
             int[] rawMetadataBytes = this.reader.readByteArray((packetSize - ReplayWriter.sizeOfVarInt(packetID)) - ReplayWriter.sizeOfVarInt(entityID));
 
-            SetEntityMetadataPacket setEntityMetadataPacket = new SetEntityMetadataPacket(packetIndex, timeStamp, entityID, rawMetadataBytes);
+            SetEntityMetadataPacket setEntityMetadataPacket = new SetEntityMetadataPacket(packetIndex, timeStamp, this.protocolVersion, entityID, rawMetadataBytes);
 
             // Let listener(s) cancel this packet.
             for (SetEntityMetadataPacketListener listener : this.setEntityMetadataPacketListeners) {
@@ -1326,6 +2228,11 @@ public class ReplayManipulationTask implements Runnable {
 
             // Write out the full packet (if the packet should be written out)
             if (!setEntityMetadataPacket.isWriteCanceled()) {
+                // The metadata may have been changed by a listener, changing the size of the packet.
+                if (setEntityMetadataPacket.isMetadataModified()) {
+                    rawMetadataBytes = setEntityMetadataPacket.getRawMetadataBytes();
+                    packetSize = ReplayWriter.sizeOfVarInt(packetID) + ReplayWriter.sizeOfVarInt(entityID) + rawMetadataBytes.length;
+                }
                 this.writePacketHeader(timeStamp, packetSize, packetID);
                 this.writer.writeVarInt(entityID);
                 this.writer.writeByteArray(rawMetadataBytes);
@@ -1488,17 +2395,54 @@ public class ReplayManipulationTask implements Runnable {
     private void handleSoundEffectPacket(long packetIndex, int timeStamp, int packetSize, int packetID) throws IOException {
         if (this.soundEffectPacketListeners.length > 0) {
             // Read packet data
-            int[] rawDataBytes = this.reader.readByteArray(packetSize - ReplayWriter.sizeOfVarInt(packetID));
+            int soundID;
+            int[] soundNameRawBytes = null;
+            boolean hasFixedRange = false;
+            float fixedRange = 0;
+            // In protocol version 761+ (1.19.3+), the sound id is offset by one. An id of 0 means the sound is defined inline.
+            if (this.protocolVersion > Version.MC_1_19_2) {
+                soundID = this.reader.readVarInt() - 1;
+                if (soundID == SoundEffectPacket.INLINE_SOUND_ID) {
+                    soundNameRawBytes = this.reader.readByteArray(this.reader.readVarInt());
+                    hasFixedRange = this.reader.readBoolean();
+                    if (hasFixedRange) {
+                        fixedRange = this.reader.readFloat();
+                    }
+                }
+            } else {
+                soundID = this.reader.readVarInt();
+            }
+            int category = this.reader.readVarInt();
+            int encodedX = this.reader.readInt();
+            int encodedY = this.reader.readInt();
+            int encodedZ = this.reader.readInt();
+            float volume = this.reader.readFloat();
+            float pitch = this.reader.readFloat();
+            // The seed was added in protocol version 759 (1.19).
+            long seed = 0;
+            if (this.protocolVersion > Version.MC_1_18_2) {
+                seed = this.reader.readLong();
+            }
 
-            SoundEffectPacket soundEffectPacket = new SoundEffectPacket(packetIndex, timeStamp, rawDataBytes);
+            SoundEffectPacket soundEffectPacket = new SoundEffectPacket(packetIndex, timeStamp, soundID, soundNameRawBytes, hasFixedRange, fixedRange, category, encodedX, encodedY, encodedZ, volume, pitch, seed);
 
-            // Let listener(s) manipulate this packet. TODO: fully implement packet object
+            // Let listener(s) cancel this packet.
             for (SoundEffectPacketListener listener : this.soundEffectPacketListeners) {
                 listener.onSoundEffectPacket(soundEffectPacket);
             }
             // Write out the full packet (if the packet should be written out)
             if (!soundEffectPacket.isWriteCanceled()) {
-                this.writePacketFull(timeStamp, packetSize, packetID, rawDataBytes);
+                this.writePacketHeader(timeStamp, packetSize, packetID);
+                this.writeSound(soundID, soundNameRawBytes, hasFixedRange, fixedRange);
+                this.writer.writeVarInt(category);
+                this.writer.writeInt(encodedX);
+                this.writer.writeInt(encodedY);
+                this.writer.writeInt(encodedZ);
+                this.writer.writeFloat(volume);
+                this.writer.writeFloat(pitch);
+                if (this.protocolVersion > Version.MC_1_18_2) {
+                    this.writer.writeLong(seed);
+                }
             }
         } else {
             this.writePacketFull(timeStamp, packetSize, packetID, this.reader.readByteArray(packetSize - ReplayWriter.sizeOfVarInt(packetID)));
@@ -1555,15 +2499,32 @@ public class ReplayManipulationTask implements Runnable {
             short velocityX = 0;
             short velocityY = 0;
             short velocityZ = 0;
+            int[] rawMovementBytes = null;
             if (this.protocolVersion < Version.MC_1_21_9) {
                 velocityX = this.reader.readShort();
                 velocityY = this.reader.readShort();
                 velocityZ = this.reader.readShort();
+            } else {
+                // Keep the new field as-is, so the packet can be written out again later. (See writeSpawnEntityPacket(...))
+                rawMovementBytes = new int[vec3Field1_unsignedByte == 0 ? 1 : ((vec3Field1_unsignedByte & 4) == 4 ? 6 + ReplayWriter.sizeOfVarInt(vec3Field4_varInt) : 6)];
+                rawMovementBytes[0] = vec3Field1_unsignedByte;
+                if (vec3Field1_unsignedByte != 0) {
+                    rawMovementBytes[1] = vec3Field2_unsignedByte;
+                    rawMovementBytes[2] = (vec3Field3_unsignedInt >>> 24) & 0xFF;
+                    rawMovementBytes[3] = (vec3Field3_unsignedInt >>> 16) & 0xFF;
+                    rawMovementBytes[4] = (vec3Field3_unsignedInt >>> 8) & 0xFF;
+                    rawMovementBytes[5] = vec3Field3_unsignedInt & 0xFF;
+                    int value = vec3Field4_varInt;
+                    for (int i = 6; i < rawMovementBytes.length; i++) {
+                        rawMovementBytes[i] = i == rawMovementBytes.length - 1 ? value : (value & 0x7F) | 0x80;
+                        value >>>= 7;
+                    }
+                }
             }
 
             EntityType entityType = this.protocol.getEntityType(entityTypeID);
 
-            SpawnEntityPacket spawnEntityPacket = new SpawnEntityPacket(packetIndex, timeStamp, entityID, new UUID(uuidMostSignificantBits, uuidLeastSignificantBits), entityType, x, y, z, pitch, yaw, headYaw, data, velocityX, velocityY, velocityZ);
+            SpawnEntityPacket spawnEntityPacket = new SpawnEntityPacket(packetIndex, timeStamp, entityID, new UUID(uuidMostSignificantBits, uuidLeastSignificantBits), entityType, x, y, z, pitch, yaw, headYaw, data, velocityX, velocityY, velocityZ, rawMovementBytes);
 
             // Let listener(s) cancel this packet.
             for (SpawnEntityPacketListener listener : this.spawnEntityPacketListeners) {
@@ -1660,7 +2621,7 @@ public class ReplayManipulationTask implements Runnable {
 
             EntityType entityType = this.protocol.getEntityType(entityTypeID);
 
-            SpawnLivingEntityPacket spawnLivingEntityPacket = new SpawnLivingEntityPacket(packetIndex, timeStamp, entityID, new UUID(uuidMostSignificantBits, uuidLeastSignificantBits), entityType, x, y, z, yaw, pitch, headYaw, velocityX, velocityY, velocityZ);
+            SpawnLivingEntityPacket spawnLivingEntityPacket = new SpawnLivingEntityPacket(packetIndex, timeStamp, entityID, new UUID(uuidMostSignificantBits, uuidLeastSignificantBits), entityType, x, y, z, pitch, yaw, headYaw, velocityX, velocityY, velocityZ);
 
             // Let listener(s) cancel this packet.
             for (SpawnLivingEntityPacketListener listener : this.spawnLivingEntityPacketListeners) {
@@ -1838,13 +2799,15 @@ public class ReplayManipulationTask implements Runnable {
 
             TeleportEntityPacket teleportEntityPacket = new TeleportEntityPacket(packetIndex, timeStamp, entityID, x, y, z, isProtocol_1_21_2_plus, velocityX, velocityY, velocityZ, yaw, pitch, onGround);
 
-            // Let listener(s) cancel this packet.
+            // Let listener(s) replace or cancel this packet.
             for (TeleportEntityPacketListener listener : this.teleportEntityPacketListeners) {
                 listener.onTeleportEntityPacket(teleportEntityPacket);
             }
 
-            // Write out the full packet (if the packet should be written out)
-            if (!teleportEntityPacket.isWriteCanceled()) {
+            // Write out the full packet (if the packet should be written out), or whatever replaces it.
+            if (!teleportEntityPacket.isWriteCanceled() && teleportEntityPacket.getReplacement() != null) {
+                this.insertPackets(timeStamp, teleportEntityPacket.getReplacement());
+            } else if (!teleportEntityPacket.isWriteCanceled()) {
                 this.writePacketHeader(timeStamp, packetSize, packetID);
                 this.writer.writeVarInt(entityID);
                 this.writer.writeDouble(x);
@@ -1870,6 +2833,48 @@ public class ReplayManipulationTask implements Runnable {
         }
     }
 
+    private void handleUnloadChunkPacket(long packetIndex, int timeStamp, int packetSize, int packetID) throws IOException {
+        if (this.unloadChunkPacketListeners.length > 0) {
+            // Read.
+            // Note: Since protocol 764 (1.20.2), the chunk position is written as a single long. Resulting in Z being written ahead of X.
+            int chunkX, chunkZ;
+            if (this.protocolVersion >= Version.MC_1_20_2) {
+                chunkZ = this.reader.readInt();
+                chunkX = this.reader.readInt();
+            } else {
+                chunkX = this.reader.readInt();
+                chunkZ = this.reader.readInt();
+            }
+
+            UnloadChunkPacket unloadChunkPacket = new UnloadChunkPacket(packetIndex, timeStamp, chunkX, chunkZ);
+
+            // Let listener(s) cancel this packet.
+            for (UnloadChunkPacketListener listener : this.unloadChunkPacketListeners) {
+                listener.onUnloadChunkPacket(unloadChunkPacket);
+            }
+
+            // Write out the full packet (if the packet should be written out)
+            if (!unloadChunkPacket.isWriteCanceled()) {
+                this.writeUnloadChunkPacket(timeStamp, unloadChunkPacket);
+            }
+        } else {
+            this.writePacketFull(timeStamp, packetSize, packetID, this.reader.readByteArray(packetSize - ReplayWriter.sizeOfVarInt(packetID)));
+        }
+    }
+
+    private void writeUnloadChunkPacket(int timeStamp, UnloadChunkPacket unloadChunkPacket) throws IOException {
+        int packetID = this.protocol.getPlayPacketID(PacketType.Play.UNLOAD_CHUNK);
+
+        this.writePacketHeader(timeStamp, ReplayWriter.sizeOfVarInt(packetID) + 8, packetID);
+        if (this.protocolVersion >= Version.MC_1_20_2) {
+            this.writer.writeInt(unloadChunkPacket.getChunkZ());
+            this.writer.writeInt(unloadChunkPacket.getChunkX());
+        } else {
+            this.writer.writeInt(unloadChunkPacket.getChunkX());
+            this.writer.writeInt(unloadChunkPacket.getChunkZ());
+        }
+    }
+
     private void handleUpdateAttributesPacket(long packetIndex, int timeStamp, int packetSize, int packetID) throws IOException {
         if (this.updateAttributesPacketListeners.length > 0) {
             // Read packet data
@@ -1939,13 +2944,15 @@ public class ReplayManipulationTask implements Runnable {
 
             UpdateEntityPositionAndRotationPacket updateEntityPositionAndRotationPacket = new UpdateEntityPositionAndRotationPacket(packetIndex, timeStamp, entityID, deltaX, deltaY, deltaZ, yawByte, pitchByte, onGround);
 
-            // Let listener(s) cancel this packet.
+            // Let listener(s) replace or cancel this packet.
             for (UpdateEntityPositionAndRotationPacketListener listener : this.updateEntityPositionAndRotationPacketListeners) {
                 listener.onUpdateEntityPositionAndRotationPacket(updateEntityPositionAndRotationPacket);
             }
 
-            // Write out the full packet (if the packet should be written out)
-            if (!updateEntityPositionAndRotationPacket.isWriteCanceled()) {
+            // Write out the full packet (if the packet should be written out), or whatever replaces it.
+            if (!updateEntityPositionAndRotationPacket.isWriteCanceled() && updateEntityPositionAndRotationPacket.getReplacement() != null) {
+                this.insertPackets(timeStamp, updateEntityPositionAndRotationPacket.getReplacement());
+            } else if (!updateEntityPositionAndRotationPacket.isWriteCanceled()) {
                 this.writePacketHeader(timeStamp, packetSize, packetID);
                 this.writer.writeVarInt(entityID);
                 this.writer.writeShort(deltaX);
@@ -1989,6 +2996,91 @@ public class ReplayManipulationTask implements Runnable {
         }
     }
 
+    private void handleUpdateLightPacket(long packetIndex, int timeStamp, int packetSize, int packetID) throws IOException {
+        if (this.updateLightPacketListeners.length > 0) {
+            // Read.
+            int chunkX = this.reader.readVarInt();
+            int chunkZ = this.reader.readVarInt();
+            int[] rawDataBytes = this.reader.readByteArray(packetSize - ReplayWriter.sizeOfVarInt(packetID) - ReplayWriter.sizeOfVarInt(chunkX) - ReplayWriter.sizeOfVarInt(chunkZ));
+
+            UpdateLightPacket updateLightPacket = new UpdateLightPacket(packetIndex, timeStamp, chunkX, chunkZ, rawDataBytes);
+
+            // Let listener(s) modify or cancel this packet.
+            for (UpdateLightPacketListener listener : this.updateLightPacketListeners) {
+                listener.onUpdateLightPacket(updateLightPacket);
+            }
+
+            // Write out the full packet (if the packet should be written out)
+            if (!updateLightPacket.isWriteCanceled()) {
+                rawDataBytes = updateLightPacket.getRawDataBytes();
+                this.writePacketHeader(timeStamp, ReplayWriter.sizeOfVarInt(packetID) + ReplayWriter.sizeOfVarInt(chunkX) + ReplayWriter.sizeOfVarInt(chunkZ) + rawDataBytes.length, packetID);
+                this.writer.writeVarInt(chunkX);
+                this.writer.writeVarInt(chunkZ);
+                this.writer.writeByteArray(rawDataBytes);
+            }
+        } else {
+            this.writePacketFull(timeStamp, packetSize, packetID, this.reader.readByteArray(packetSize - ReplayWriter.sizeOfVarInt(packetID)));
+        }
+    }
+
+    private void handleUpdateSectionBlocksPacket(long packetIndex, int timeStamp, int packetSize, int packetID) throws IOException {
+        if (this.updateSectionBlocksPacketListeners.length > 0) {
+            // Read.
+            long sectionPosition = this.reader.readLong();
+
+            // The "suppress light updates" boolean was removed in protocol 763 (1.20.0/1).
+            boolean suppressLightUpdates = false;
+            if (this.protocolVersion < Version.MC_1_20_0) {
+                suppressLightUpdates = this.reader.readBoolean();
+            }
+
+            long[] blocks = new long[this.reader.readVarInt()];
+            for (int i = 0; i < blocks.length; i++) {
+                blocks[i] = this.reader.readVarLong();
+            }
+
+            UpdateSectionBlocksPacket updateSectionBlocksPacket = new UpdateSectionBlocksPacket(packetIndex, timeStamp,
+                    UpdateSectionBlocksPacket.decodeSectionX(sectionPosition), UpdateSectionBlocksPacket.decodeSectionY(sectionPosition), UpdateSectionBlocksPacket.decodeSectionZ(sectionPosition),
+                    suppressLightUpdates, blocks);
+
+            // Let listener(s) manipulate this packet.
+            for (UpdateSectionBlocksPacketListener listener : this.updateSectionBlocksPacketListeners) {
+                listener.onUpdateSectionBlocksPacket(updateSectionBlocksPacket);
+            }
+
+            // Write out the full packet (if the packet should be written out, and there is still something to write out)
+            if (!updateSectionBlocksPacket.isWriteCanceled() && updateSectionBlocksPacket.getBlocks().length > 0) {
+                this.writeUpdateSectionBlocksPacket(timeStamp, updateSectionBlocksPacket);
+            }
+        } else {
+            this.writePacketFull(timeStamp, packetSize, packetID, this.reader.readByteArray(packetSize - ReplayWriter.sizeOfVarInt(packetID)));
+        }
+    }
+
+    private void writeUpdateSectionBlocksPacket(int timeStamp, UpdateSectionBlocksPacket updateSectionBlocksPacket) throws IOException {
+        int packetID = this.protocol.getPlayPacketID(PacketType.Play.UPDATE_SECTION_BLOCKS);
+        long[] blocks = updateSectionBlocksPacket.getBlocks();
+
+        // Calculate the new packet size.
+        int packetSize = ReplayWriter.sizeOfVarInt(packetID) + 8 + ReplayWriter.sizeOfVarInt(blocks.length);
+        if (this.protocolVersion < Version.MC_1_20_0) {
+            packetSize += 1;
+        }
+        for (long block : blocks) {
+            packetSize += ReplayWriter.sizeOfVarLong(block);
+        }
+
+        this.writePacketHeader(timeStamp, packetSize, packetID);
+        this.writer.writeLong(UpdateSectionBlocksPacket.encodeSectionPosition(updateSectionBlocksPacket.getSectionX(), updateSectionBlocksPacket.getSectionY(), updateSectionBlocksPacket.getSectionZ()));
+        if (this.protocolVersion < Version.MC_1_20_0) {
+            this.writer.writeBoolean(updateSectionBlocksPacket.isSuppressLightUpdates());
+        }
+        this.writer.writeVarInt(blocks.length);
+        for (long block : blocks) {
+            this.writer.writeVarLong(block);
+        }
+    }
+
     private void handleUpdateTimePacket(long packetIndex, int timeStamp, int packetSize, int packetID) throws
             IOException {
         if (this.updateTimePacketListeners.length > 0) {
@@ -2050,7 +3142,7 @@ public class ReplayManipulationTask implements Runnable {
             int data = this.reader.readInt();
             boolean relativeVolumeDisabled = this.reader.readBoolean();
 
-            WorldEventPacket worldEventPacket = new WorldEventPacket(packetIndex, timeStamp, eventID, (int) x, (int) y, (int) z, data, relativeVolumeDisabled);
+            WorldEventPacket worldEventPacket = new WorldEventPacket(packetIndex, timeStamp, eventID, this.protocol.getWorldEvent(eventID), (int) x, (int) y, (int) z, data, relativeVolumeDisabled);
 
             // Let listener(s) cancel this packet.
             for (WorldEventPacketListener listener : this.worldEventPacketListeners) {
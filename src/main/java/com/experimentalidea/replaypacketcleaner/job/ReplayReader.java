@@ -56,8 +56,20 @@ public class ReplayReader implements Closeable, AutoCloseable {
         }
     }
 
+    /**
+     * Create a replay reader that reads directly from the provided input stream, without any buffering of its own.
+     *
+     * @param inputStream The input stream. Any call to this ReplayReader's .close() method will close the provided input stream.
+     * @param bytesRead   The number of bytes already read from the replay. (as returned by {@link #bytesRead()})
+     */
+    ReplayReader(InputStream inputStream, long bytesRead) {
+        Objects.requireNonNull(inputStream, "inputStream cannot be null");
+        this.inputStream = new DataInputStream(inputStream);
+        this.bytesRead = bytesRead;
+    }
+
     private final DataInputStream inputStream;
-    private long bytesRead = 0;
+    private long bytesRead;
 
 
     public int readByte() throws IOException {
@@ -172,6 +184,21 @@ public class ReplayReader implements Closeable, AutoCloseable {
         return skipped;
     }
 
+    /// Skip exactly the given number of bytes. Unlike {@link #skip(int)}, this won't return early.
+    public void skipFully(int size) throws IOException {
+        while (size > 0) {
+            int skipped = this.inputStream.skipBytes(size);
+            if (skipped == 0) {
+                // skipBytes may give up before the end of the stream is reached. Read a byte to tell the two apart.
+                this.readByte();
+                skipped = 1;
+            } else {
+                this.bytesRead += skipped;
+            }
+            size -= skipped;
+        }
+    }
+
     public void close() throws IOException {
         this.inputStream.close();
     }
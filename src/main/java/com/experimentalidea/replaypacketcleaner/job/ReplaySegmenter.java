@@ -0,0 +1,210 @@
+/*
+ * Copyright 2025 ExperimentalIdea
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+package com.experimentalidea.replaypacketcleaner.job;
+
+import com.experimentalidea.replaypacketcleaner.Log;
+import com.experimentalidea.replaypacketcleaner.protocol.PacketType;
+import com.experimentalidea.replaypacketcleaner.protocol.Protocol;
+import com.experimentalidea.replaypacketcleaner.protocol.Version;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/// Cuts a replay into segments of a fixed length, each written out as a standalone recording that can be processed on its own.
+/// <br>
+/// <br> This is a single framing pass over the replay. Packets are copied over as they are, without being decoded,
+/// while the world state is folded along the way (see {@link ReplayStateFolder}). Every segment starts with the login/configuration phase of the replay,
+/// followed by a snapshot of the world state as of the start of the segment. The snapshot is timestamped right ahead of the start,
+/// so a {@link ReplayManipulationTask} trimmed to the start of the segment writes it out at the beginning of the new replay.
+class ReplaySegmenter {
+
+    /**
+     * @param job                   The job the replay is split for. Used for the job number when logging, progress & checking if the job is canceled.
+     * @param protocol              The protocol of the replay.
+     * @param segmentMilliseconds   The length of each segment in milliseconds.
+     * @param directory             The directory the segment recordings are written to.
+     */
+    ReplaySegmenter(Job job, Protocol protocol, int segmentMilliseconds, File directory) {
+        this.job = job;
+        this.protocol = protocol;
+        this.segmentMilliseconds = Math.max(1, segmentMilliseconds);
+        this.directory = directory;
+    }
+
+    /**
+     * A segment recording.
+     *
+     * @param file           The recording of the segment.
+     * @param startTimestamp The timestamp (within the source replay) the segment starts at.
+     * @param endTimestamp   The timestamp (within the source replay) of the last packet within the segment.
+     */
+    record Segment(File file, int startTimestamp, int endTimestamp) {
+
+        Segment withEnd(int endTimestamp) {
+            return new Segment(this.file, this.startTimestamp, endTimestamp);
+        }
+
+    }
+
+    private final Job job;
+    private final Protocol protocol;
+    private final int segmentMilliseconds;
+    private final File directory;
+
+
+    /**
+     * Split the replay into segments.
+     *
+     * @param reader                The reader of the source replay, positioned at the start.
+     * @param sourceReplaySizeBytes The size of the source replay in bytes.
+     * @param maxProgress           The job progress once the whole replay has been read.
+     * @return The segments in order, or an empty list if the job was canceled.
+     */
+    List<Segment> split(ReplayReader reader, long sourceReplaySizeBytes, int maxProgress) throws IOException {
+        int protocolVersion = this.protocol.getProtocolVersion();
+        ReplayStateFolder stateFolder = new ReplayStateFolder(this.protocol, protocolVersion);
+        List<Segment> segments = new ArrayList<Segment>();
+
+        // Everything up to (and including) the first play packet. Written out at the start of every segment.
+        ByteArrayOutputStream prelude = new ByteArrayOutputStream();
+        ReplayWriter preludeWriter = new ReplayWriter(prelude);
+        preludeWriter.writeInt(reader.readInt());
+        int length = reader.readInt();
+        preludeWriter.writeInt(length);
+        preludeWriter.writeByteArray(reader.readByteArray(length));
+        preludeWriter.flush();
+        int headerLength = prelude.size();
+        int lastPacketID = protocolVersion > Version.MC_1_20_1
+                ? this.protocol.getConfigurationPacketID(PacketType.Configuration.FINISH_CONFIGURATION)
+                : this.protocol.getLoginPacketID(PacketType.Login.LOGIN_SUCCESS);
+        ReplaySegmenter.copyPacketsUntil(reader, preludeWriter, lastPacketID);
+        ReplaySegmenter.copyPacket(reader, preludeWriter);
+        preludeWriter.flush();
+        byte[] preludeBytes = prelude.toByteArray();
+
+        int segmentIndex = 0;
+        ReplayWriter segmentWriter = this.startSegment(segments, 0, preludeBytes, null);
+        int lastTimestamp = 0;
+
+        try {
+            long packetIndex = 0;
+            while ((sourceReplaySizeBytes - reader.bytesRead()) >= 9 && !this.job.isCanceled()) {
+                if (++packetIndex % 512 == 0) {
+                    this.job.setProgress((int) ((reader.bytesRead() * maxProgress) / sourceReplaySizeBytes));
+                }
+
+                int timestamp = reader.readInt();
+                int packetSize = reader.readInt();
+                // A recording that crashed and was recovered may be missing data for the last packet. Disregard it.
+                if ((sourceReplaySizeBytes - reader.bytesRead()) < packetSize) {
+                    Log.warning("Job #" + this.job.getJobNumber() + ": Last packet is missing data. Disregarding the last packet.");
+                    break;
+                }
+                long startingBytesRead = reader.bytesRead();
+                int packetID = reader.readVarInt();
+                PacketType.Play packetType = this.protocol.getPlayPacketType(packetID);
+                int[] data = reader.readByteArray((int) (packetSize - (reader.bytesRead() - startingBytesRead)));
+
+                // Crossing over into a new segment.
+                if (timestamp / this.segmentMilliseconds > segmentIndex) {
+                    segmentIndex = timestamp / this.segmentMilliseconds;
+                    segmentWriter.close();
+                    segments.set(segments.size() - 1, segments.getLast().withEnd(lastTimestamp));
+                    segmentWriter = this.startSegment(segments, segmentIndex * this.segmentMilliseconds, preludeBytes, stateFolder);
+                }
+                lastTimestamp = timestamp;
+
+                segmentWriter.writeInt(timestamp);
+                segmentWriter.writeInt(packetSize);
+                segmentWriter.writeVarInt(packetID);
+                segmentWriter.writeByteArray(data);
+
+                if (packetType != PacketType.Play.START_CONFIGURATION) {
+                    stateFolder.fold(packetType, packetID, data);
+                    continue;
+                }
+
+                // The configuration phase starts the client over, with a new login.
+                // Segments from here on start with this configuration phase instead, and nothing folded ahead of it matters anymore.
+                stateFolder.clear();
+                ByteArrayOutputStream configuration = new ByteArrayOutputStream();
+                ReplayWriter configurationWriter = new ReplayWriter(configuration);
+                ReplaySegmenter.copyPacketsUntil(reader, configurationWriter, this.protocol.getConfigurationPacketID(PacketType.Configuration.FINISH_CONFIGURATION));
+                ReplaySegmenter.copyPacket(reader, configurationWriter);
+                configurationWriter.flush();
+                segmentWriter.writeBytes(configuration.toByteArray());
+
+                byte[] newPrelude = new byte[headerLength + configuration.size()];
+                System.arraycopy(preludeBytes, 0, newPrelude, 0, headerLength);
+                System.arraycopy(configuration.toByteArray(), 0, newPrelude, headerLength, configuration.size());
+                preludeBytes = newPrelude;
+            }
+        } finally {
+            segmentWriter.close();
+        }
+        segments.set(segments.size() - 1, segments.getLast().withEnd(lastTimestamp));
+
+        if (this.job.isCanceled()) {
+            for (Segment segment : segments) {
+                segment.file().delete();
+            }
+            return new ArrayList<Segment>();
+        }
+        return segments;
+    }
+
+    private ReplayWriter startSegment(List<Segment> segments, int startTimestamp, byte[] prelude, ReplayStateFolder stateFolder) throws IOException {
+        File file = new File(this.directory, "segment_" + (segments.size() + 1) + ".tmcpr");
+        file.deleteOnExit();
+        segments.add(new Segment(file, startTimestamp, startTimestamp));
+
+        ReplayWriter writer = new ReplayWriter(new FileOutputStream(file));
+        writer.writeBytes(prelude);
+        if (stateFolder != null) {
+            byte[] snapshot = stateFolder.toByteArray(startTimestamp - 1);
+            writer.writeBytes(snapshot);
+        }
+        return writer;
+    }
+
+    /// Copy packets over as they are, up to and including the packet with the given id.
+    private static void copyPacketsUntil(ReplayReader reader, ReplayWriter writer, int lastPacketID) throws IOException {
+        while (true) {
+            int timestamp = reader.readInt();
+            int packetSize = reader.readInt();
+            int packetID = reader.readVarInt();
+            writer.writeInt(timestamp);
+            writer.writeInt(packetSize);
+            writer.writeVarInt(packetID);
+            writer.writeByteArray(reader.readByteArray(packetSize - ReplayWriter.sizeOfVarInt(packetID)));
+            if (packetID == lastPacketID) {
+                return;
+            }
+        }
+    }
+
+    private static void copyPacket(ReplayReader reader, ReplayWriter writer) throws IOException {
+        writer.writeInt(reader.readInt());
+        int packetSize = reader.readInt();
+        writer.writeInt(packetSize);
+        writer.writeByteArray(reader.readByteArray(packetSize));
+    }
+
+}
@@ -0,0 +1,765 @@
+/*
+ * Copyright 2025 ExperimentalIdea
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+package com.experimentalidea.replaypacketcleaner.job;
+
+import com.experimentalidea.replaypacketcleaner.packet.BlockUpdatePacket;
+import com.experimentalidea.replaypacketcleaner.packet.EntityMetadata;
+import com.experimentalidea.replaypacketcleaner.packet.PlayerInfoUpdatePacket;
+import com.experimentalidea.replaypacketcleaner.packet.SetEquipmentPacket;
+import com.experimentalidea.replaypacketcleaner.packet.UpdateAttributesPacket;
+import com.experimentalidea.replaypacketcleaner.packet.UpdateSectionBlocksPacket;
+import com.experimentalidea.replaypacketcleaner.protocol.PacketType;
+import com.experimentalidea.replaypacketcleaner.protocol.Protocol;
+import com.experimentalidea.replaypacketcleaner.protocol.Version;
+import com.experimentalidea.replaypacketcleaner.protocol.WorldEvent;
+import com.experimentalidea.replaypacketcleaner.util.Hash64;
+import com.experimentalidea.replaypacketcleaner.util.LongIntHashMap;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/// Folds the packets ahead of the start of a trimmed replay down to the world state they leave behind, for the {@link ReplayManipulationTask}.
+/// <br>
+/// <br> Packets are kept in their original order, without being decoded beyond the few fields needed to tell which chunk, block or entity they belong to.
+/// A packet that's superseded (a chunk that's resent or unloaded, an entity that's removed, a newer time update, etc.) is dropped,
+/// relative entity movements are merged together, and packets that only have a passing effect (sounds, particles, animations, chat, titles, etc.) are never kept at all.
+/// <br> Entity state is folded down to its latest value. Metadata is merged into a single packet per entity, and equipment and attributes are kept per slot and attribute.
+/// Boss bars, scoreboard objectives and teams are kept up until they're removed, with only their latest update.
+/// Once more than half of the folded packets have been dropped, the dropped packets are compacted away.
+class ReplayStateFolder {
+
+    /**
+     * @param protocol        The protocol of the replay.
+     * @param protocolVersion The protocol version of the replay.
+     */
+    ReplayStateFolder(Protocol protocol, int protocolVersion) {
+        this.protocol = protocol;
+        this.protocolVersion = protocolVersion;
+        this.bundleDelimiterID = protocol.getPlayPacketID(PacketType.Play.BUNDLE_DELIMITER);
+        this.updateEntityPositionID = protocol.getPlayPacketID(PacketType.Play.UPDATE_ENTITY_POSITION);
+        this.updateEntityPositionAndRotationID = protocol.getPlayPacketID(PacketType.Play.UPDATE_ENTITY_POSITION_AND_ROTATION);
+        this.updateEntityRotationID = protocol.getPlayPacketID(PacketType.Play.UPDATE_ENTITY_ROTATION);
+    }
+
+    private final Protocol protocol;
+    private final int protocolVersion;
+    private final int bundleDelimiterID;
+    private final int updateEntityPositionID;
+    private final int updateEntityPositionAndRotationID;
+    private final int updateEntityRotationID;
+
+    /// Compacting is only worth it past this many packets.
+    private static final int MIN_COMPACT_COUNT = 1024;
+
+    // The folded packets, in their original order. A packet that's dropped later on is nulled out, so the indices of the others stay intact.
+    private int count = 0;
+    private int[] packetIDs = new int[1024];
+    private byte[][] packetData = new byte[1024][];
+    // The index of the previous packet of the same chain (chunk, entity, or entity movement). -1 at the end of a chain.
+    private int[] previousInChain = new int[1024];
+    // For packets setting several keyed entries at once (equipment slots, attributes), the number of entries not yet set again by a later packet.
+    private int[] liveEntries = new int[1024];
+    private int droppedCount = 0; // The number of packets nulled out.
+
+    // The key of a chain -> the index of the latest packet of the chain.
+    private final LongIntHashMap chunkChains = new LongIntHashMap(1024);
+    private final LongIntHashMap entityChains = new LongIntHashMap(256);
+    private final LongIntHashMap movementChains = new LongIntHashMap(256);
+    private final LongIntHashMap namedChains = new LongIntHashMap(64); // Boss bars, scoreboard objectives and teams. Keyed by a hash of their UUID or name.
+    private final LongIntHashMap containerChains = new LongIntHashMap(16); // Container id.
+
+    // The indices of packets that entirely replace the previous packet of the same key.
+    private final LongIntHashMap latestBlocks = new LongIntHashMap(1024); // Encoded block position.
+    private final LongIntHashMap latestBlockEntities = new LongIntHashMap(256); // Encoded block position.
+    private final LongIntHashMap latestEntityStates = new LongIntHashMap(256); // Entity id and packet type.
+    private final LongIntHashMap latestGlobalStates = new LongIntHashMap(64); // Packet type and sub type.
+    private final LongIntHashMap latestMetadata = new LongIntHashMap(256); // Entity id.
+    private final LongIntHashMap latestNamedStates = new LongIntHashMap(64); // Hash of the name and the part of the state that's set.
+    private final LongIntHashMap latestContainerSlots = new LongIntHashMap(64); // Container id and slot.
+
+    // The indices of packets setting several keyed entries at once. Dropped once every entry has been set again.
+    private final LongIntHashMap latestEquipment = new LongIntHashMap(256); // Entity id and equipment slot.
+    private final LongIntHashMap latestAttributes = new LongIntHashMap(256); // Hash of the entity id and attribute.
+
+    // Entity id -> the index of the relative movement packet that following relative movements are merged into.
+    private final LongIntHashMap mergeableMovements = new LongIntHashMap(256);
+
+    private int cursor; // Position within the packet data being read.
+
+
+    /**
+     * Fold a packet into the world state.
+     *
+     * @param packetType The type of the packet.
+     * @param packetID   The id of the packet.
+     * @param rawData    The packet data. (everything after the packet id)
+     */
+    void fold(PacketType.Play packetType, int packetID, int[] rawData) {
+        switch (packetType) {
+            // Only have a passing effect, there's nothing left of these by the start.
+            case ACKNOWLEDGE_BLOCK_CHANGE, ACKNOWLEDGE_PLAYER_DIGGING, AWARD_STATISTICS, BLOCK_ACTION, CHAT_MESSAGE, CHAT_PREVIEW, CHUNK_BATCH_FINISHED,
+                 CHUNK_BATCH_START, CLEAR_TITLES, CLIENTBOUND_KEEP_ALIVE, COMBAT_DEATH, COMBAT_EVENT, COMMAND_SUGGESTIONS_RESPONSE,
+                 CUSTOM_SOUND_EFFECT, DAMAGE_EVENT, DEBUG_BLOCK_VALUE, DEBUG_CHUNK_VALUE, DEBUG_ENTITY_VALUE, DEBUG_EVENT, DEBUG_SAMPLE, DELETE_MESSAGE,
+                 DISGUISED_CHAT_MESSAGE, END_COMBAT, ENTER_COMBAT, ENTITY_ANIMATION, ENTITY_EVENT, ENTITY_MOVEMENT, ENTITY_SOUND_EFFECT, EXPLOSION,
+                 GAME_TEST_HIGHLIGHT_POS, HURT_ANIMATION, LOOK_AT, MERCHANT_OFFERS, MESSAGE_HEADER, OPEN_BOOK, OPEN_SIGN_EDITOR, PARTICLE, PICKUP_ITEM,
+                 PING, PING_RESPONSE, PLACE_GHOST_RECIPE, PLAYER_CHAT_MESSAGE, SCULK_VIBRATION_SIGNAL, SET_ACTION_BAR_TEXT, SET_BLOCK_DESTROY_STAGE,
+                 SET_CONTAINER_PROPERTY, SET_COOLDOWN, SET_SUBTITLE_TEXT, SET_TITLE_ANIMATION_TIMES, SET_TITLE_TEXT, SOUND_EFFECT, STOP_SOUND,
+                 SYSTEM_CHAT_MESSAGE, TAG_QUERY_RESPONSE, TITLE, WINDOW_CONFIRMATION -> {
+                return;
+            }
+            default -> {
+            }
+        }
+
+        // Between packets, no index is held on to. Safe to move the packets around.
+        if (this.droppedCount > this.count / 2 && this.count >= ReplayStateFolder.MIN_COMPACT_COUNT) {
+            this.compact();
+        }
+
+        byte[] data = ReplayStateFolder.toData(rawData);
+
+        switch (packetType) {
+
+            case CHUNK_DATA, CHUNK_DATA_AND_UPDATE_LIGHT -> {
+                long chunkKey = ReplayStateFolder.chunkKeyOf(ReplayStateFolder.readInt(data, 0), ReplayStateFolder.readInt(data, 4));
+                this.removeChain(this.chunkChains, chunkKey);
+                this.addToChain(this.chunkChains, chunkKey, packetID, data);
+            }
+
+            // Since protocol 764 (1.20.2), the chunk position is written as a single long. Resulting in Z being written ahead of X.
+            case UNLOAD_CHUNK -> this.removeChain(this.chunkChains, this.protocolVersion >= Version.MC_1_20_2
+                    ? ReplayStateFolder.chunkKeyOf(ReplayStateFolder.readInt(data, 4), ReplayStateFolder.readInt(data, 0))
+                    : ReplayStateFolder.chunkKeyOf(ReplayStateFolder.readInt(data, 0), ReplayStateFolder.readInt(data, 4)));
+
+            case UPDATE_LIGHT -> {
+                this.cursor = 0;
+                int chunkX = this.readVarInt(data);
+                int chunkZ = this.readVarInt(data);
+                this.addToChain(this.chunkChains, ReplayStateFolder.chunkKeyOf(chunkX, chunkZ), packetID, data);
+            }
+
+            case BLOCK_UPDATE, BLOCK_ENTITY_DATA -> {
+                long position = ReplayStateFolder.readLong(data, 0);
+                long chunkKey = ReplayStateFolder.chunkKeyOf(BlockUpdatePacket.decodePositionX(position) >> 4, BlockUpdatePacket.decodePositionZ(position) >> 4);
+                this.replace(packetType == PacketType.Play.BLOCK_UPDATE ? this.latestBlocks : this.latestBlockEntities, position,
+                        this.addToChain(this.chunkChains, chunkKey, packetID, data));
+            }
+
+            case UPDATE_SECTION_BLOCKS -> {
+                long sectionPosition = ReplayStateFolder.readLong(data, 0);
+                long chunkKey = ReplayStateFolder.chunkKeyOf(UpdateSectionBlocksPacket.decodeSectionX(sectionPosition), UpdateSectionBlocksPacket.decodeSectionZ(sectionPosition));
+                this.addToChain(this.chunkChains, chunkKey, packetID, data);
+            }
+
+            case SPAWN_ENTITY, SPAWN_EXPERIENCE_ORB, SPAWN_LIVING_ENTITY, SPAWN_PAINTING, SPAWN_PLAYER -> {
+                this.cursor = 0;
+                int entityID = this.readVarInt(data);
+                // Anything left over from an entity previously spawned with the same id is no longer relevant.
+                this.removeEntity(entityID);
+                this.addToChain(this.entityChains, entityID, packetID, data);
+            }
+
+            case ENTITY_EFFECT, MOVE_MINECART_ALONG_TRACK, PROJECTILE_POWER, REMOVE_ENTITY_EFFECT, SET_PASSENGERS -> {
+                this.cursor = 0;
+                this.addToChain(this.entityChains, this.readVarInt(data), packetID, data);
+            }
+
+            case SET_ENTITY_METADATA -> this.foldEntityMetadata(packetID, rawData, data);
+
+            case SET_EQUIPMENT -> {
+                this.cursor = 0;
+                int entityID = this.readVarInt(data);
+                int[] slots = new SetEquipmentPacket(0, 0, entityID, Arrays.copyOfRange(rawData, this.cursor, rawData.length)).getSlots(this.protocolVersion);
+                int index = this.addToChain(this.entityChains, entityID, packetID, data);
+                if (slots != null) {
+                    long[] keys = new long[slots.length];
+                    for (int i = 0; i < slots.length; i++) {
+                        keys[i] = ((long) entityID << 8) | slots[i];
+                    }
+                    this.replaceEntries(this.latestEquipment, keys, index);
+                }
+            }
+
+            case UPDATE_ATTRIBUTES -> {
+                this.cursor = 0;
+                int entityID = this.readVarInt(data);
+                long[] keys = new UpdateAttributesPacket(0, 0, entityID, Arrays.copyOfRange(rawData, this.cursor, rawData.length)).getAttributeKeys(this.protocolVersion);
+                int index = this.addToChain(this.entityChains, entityID, packetID, data);
+                if (keys != null) {
+                    for (int i = 0; i < keys.length; i++) {
+                        keys[i] = Hash64.mix(keys[i] ^ Hash64.mix(entityID));
+                    }
+                    this.replaceEntries(this.latestAttributes, keys, index);
+                }
+            }
+
+            // For this packet, the entity id is a normal int. Not a var int.
+            case LINK_ENTITIES -> this.addToChain(this.entityChains, ReplayStateFolder.readInt(data, 0), packetID, data);
+
+            case SET_ENTITY_VELOCITY, SET_HEAD_ROTATION -> {
+                this.cursor = 0;
+                int entityID = this.readVarInt(data);
+                this.replace(this.latestEntityStates, ((long) entityID << 16) | packetType.ordinal(),
+                        this.addToChain(this.entityChains, entityID, packetID, data));
+            }
+
+            // An absolute position supersedes every movement before it.
+            case TELEPORT_ENTITY, SYNCHRONIZE_VEHICLE_POSITION -> {
+                this.cursor = 0;
+                int entityID = this.readVarInt(data);
+                this.removeChain(this.movementChains, entityID);
+                this.mergeableMovements.remove(entityID);
+                this.addToChain(this.movementChains, entityID, packetID, data);
+            }
+
+            case UPDATE_ENTITY_POSITION, UPDATE_ENTITY_POSITION_AND_ROTATION, UPDATE_ENTITY_ROTATION -> this.foldRelativeMovement(packetID, data);
+
+            case REMOVE_ENTITIES -> {
+                this.cursor = 0;
+                // In protocol version 755 (1.17.0), this packet contains only a single field for removing one entity.
+                int length = this.protocolVersion != Version.MC_1_17_0 ? this.readVarInt(data) : 1;
+                for (int i = 0; i < length; i++) {
+                    this.removeEntity(this.readVarInt(data));
+                }
+            }
+
+            // The client starts over with an empty world.
+            case RESPAWN -> {
+                this.removeAllChains(this.chunkChains);
+                this.removeAllChains(this.entityChains);
+                this.removeAllChains(this.movementChains);
+                this.latestBlocks.clear();
+                this.latestBlockEntities.clear();
+                this.latestEntityStates.clear();
+                this.latestMetadata.clear();
+                this.latestEquipment.clear();
+                this.latestAttributes.clear();
+                this.mergeableMovements.clear();
+                this.add(packetID, data);
+            }
+
+            case CHANGE_DIFFICULTY, PLAYER_ABILITIES, SET_CENTER_CHUNK, SET_DEFAULT_SPAWN_POSITION, SET_EXPERIENCE, SET_HEALTH, SET_HELD_ITEM,
+                 SET_RENDER_DISTANCE, SET_SIMULATION_DISTANCE, SET_TAB_LIST_HEADER_AND_FOOTER, SET_TICKING_STATE, UPDATE_TIME,
+                 SET_BORDER_CENTER, SET_BORDER_WARNING_DELAY, SET_BORDER_WARNING_DISTANCE ->
+                    this.replace(this.latestGlobalStates, (long) packetType.ordinal() << 8, this.add(packetID, data));
+
+            // Both set the size of the world border.
+            case SET_BORDER_SIZE, SET_BORDER_LERP_SIZE -> this.replace(this.latestGlobalStates, (long) PacketType.Play.SET_BORDER_SIZE.ordinal() << 8, this.add(packetID, data));
+
+            // Sets every part of the world border at once.
+            case INITIALIZE_WORLD_BORDER -> {
+                for (PacketType.Play borderPacketType : new PacketType.Play[]{PacketType.Play.SET_BORDER_CENTER, PacketType.Play.SET_BORDER_SIZE,
+                        PacketType.Play.SET_BORDER_WARNING_DELAY, PacketType.Play.SET_BORDER_WARNING_DISTANCE}) {
+                    this.drop(this.latestGlobalStates.get((long) borderPacketType.ordinal() << 8, -1));
+                    this.latestGlobalStates.remove((long) borderPacketType.ordinal() << 8);
+                }
+                this.replace(this.latestGlobalStates, (long) packetType.ordinal() << 8, this.add(packetID, data));
+            }
+
+            // The objective shown at each display slot. (a single byte, or a var int below 128)
+            case DISPLAY_OBJECTIVE -> this.replace(this.latestGlobalStates, ((long) packetType.ordinal() << 8) | (data[0] & 0xFF), this.add(packetID, data));
+
+            case BOSS_BAR -> {
+                long key = Hash64.mix(ReplayStateFolder.readLong(data, 0) ^ Hash64.mix(ReplayStateFolder.readLong(data, 8)));
+                this.cursor = 16;
+                int action = this.readVarInt(data);
+                this.foldNamedState(key, action, 0, 1, packetID, data);
+            }
+
+            case UPDATE_OBJECTIVES -> {
+                int nameEnd = this.skipString(data, 0);
+                this.foldNamedState(Hash64.hash(rawData, 0, nameEnd, packetType.ordinal()), data[nameEnd], 0, 1, packetID, data);
+            }
+
+            case UPDATE_TEAMS -> {
+                int nameEnd = this.skipString(data, 0);
+                int mode = data[nameEnd];
+                // Adding and removing entities, on top of the current members.
+                if (mode == 3 || mode == 4) {
+                    this.addToChain(this.namedChains, Hash64.hash(rawData, 0, nameEnd, packetType.ordinal()), packetID, data);
+                } else {
+                    this.foldNamedState(Hash64.hash(rawData, 0, nameEnd, packetType.ordinal()), mode, 0, 1, packetID, data);
+                }
+            }
+
+            // Scores are kept along with their objective, with only the latest score per entity.
+            // Before 1.20.3 (protocol 765), an action (update or remove) follows the entity name, and an empty objective name removes the score from every objective.
+            case UPDATE_SCORE, RESET_SCORE -> {
+                int entityEnd = this.skipString(data, 0);
+                int objectiveStart = entityEnd;
+                if (packetType == PacketType.Play.UPDATE_SCORE && this.protocolVersion < Version.MC_1_20_3) {
+                    objectiveStart++;
+                } else if (packetType == PacketType.Play.RESET_SCORE && data[objectiveStart++] == 0) {
+                    objectiveStart = -1; // Reset for every objective.
+                }
+                int objectiveEnd = objectiveStart == -1 ? -1 : this.skipString(data, objectiveStart);
+                if (objectiveEnd == -1 || objectiveEnd == objectiveStart + 1) {
+                    this.add(packetID, data);
+                    break;
+                }
+                long objectiveKey = Hash64.hash(rawData, objectiveStart, objectiveEnd, PacketType.Play.UPDATE_OBJECTIVES.ordinal());
+                this.replace(this.latestNamedStates, Hash64.hash(rawData, 0, entityEnd, objectiveKey),
+                        this.addToChain(this.namedChains, objectiveKey, packetID, data));
+            }
+
+            // Opening a container, or setting its full contents, supersedes anything set before for the container.
+            // Since 1.21.2 (protocol 768), the container id is a var int. Before that, a byte. The same value either way for ids below 128. (ids go up to 100)
+            case OPEN_SCREEN, OPEN_HORSE_SCREEN, SET_CONTAINER_CONTENT -> {
+                this.removeChain(this.containerChains, data[0]);
+                this.addToChain(this.containerChains, data[0], packetID, data);
+            }
+
+            // The player's own inventory (id 0) is never closed for good.
+            case CLOSE_CONTAINER -> {
+                if (data[0] != 0) {
+                    this.removeChain(this.containerChains, data[0]);
+                }
+            }
+
+            // Since 1.17.1 (protocol 756), the container id is followed by a state id.
+            case SET_CONTAINER_SLOT -> {
+                this.cursor = 1;
+                if (this.protocolVersion >= Version.MC_1_17_1) {
+                    this.readVarInt(data);
+                }
+                int slot = this.readShort(data);
+                this.replace(this.latestContainerSlots, ((long) data[0] << 16) | (slot & 0xFFFF), this.addToChain(this.containerChains, data[0], packetID, data));
+            }
+
+            case SET_PLAYER_INVENTORY_SLOT -> {
+                this.cursor = 0;
+                this.replace(this.latestGlobalStates, ((long) packetType.ordinal() << 8) | this.readVarInt(data), this.add(packetID, data));
+            }
+
+            case GAME_EVENT -> {
+                int event = data[0] & 0xFF;
+                switch (event) {
+                    // Begin & end raining.
+                    case 1, 2 -> this.replace(this.latestGlobalStates, ((long) packetType.ordinal() << 8) | 1, this.add(packetID, data));
+                    // Game mode, rain & thunder level, respawn screen, limited crafting, waiting for chunks.
+                    case 3, 7, 8, 11, 12, 13 -> this.replace(this.latestGlobalStates, ((long) packetType.ordinal() << 8) | event, this.add(packetID, data));
+                    // The rest are one-off effects.
+                    default -> {
+                    }
+                }
+            }
+
+            case WORLD_EVENT -> {
+                WorldEvent.Category category = this.protocol.getWorldEvent(ReplayStateFolder.readInt(data, 0)).getCategory();
+                if (category == WorldEvent.Category.GAMEPLAY || category == WorldEvent.Category.UNDEFINED) {
+                    this.add(packetID, data);
+                }
+            }
+
+            // Latency updates are only relevant for as long as they're current.
+            case PLAYER_INFO_UPDATE -> {
+                PlayerInfoUpdatePacket playerInfoUpdatePacket = new PlayerInfoUpdatePacket(0, 0, this.protocolVersion, rawData);
+                if (!playerInfoUpdatePacket.removeActions(PlayerInfoUpdatePacket.ACTION_UPDATE_LATENCY)) {
+                    this.add(packetID, data);
+                } else if (playerInfoUpdatePacket.getActions() != 0) {
+                    this.add(packetID, ReplayStateFolder.toData(playerInfoUpdatePacket.getRawDataBytes()));
+                }
+            }
+
+            default -> this.add(packetID, data);
+
+        }
+    }
+
+    /// Merge metadata into the previous metadata of the same entity, as long as both can be fully read.
+    private void foldEntityMetadata(int packetID, int[] rawData, byte[] data) {
+        this.cursor = 0;
+        int entityID = this.readVarInt(data);
+        int metadataStart = this.cursor;
+
+        int previous = this.latestMetadata.get(entityID, -1);
+        if (previous != -1 && this.packetData[previous] != null) {
+            EntityMetadata merged = new EntityMetadata(this.protocolVersion, ReplayStateFolder.toRawData(this.packetData[previous], metadataStart));
+            if (merged.merge(new EntityMetadata(this.protocolVersion, Arrays.copyOfRange(rawData, metadataStart, rawData.length)))) {
+                int[] mergedBytes = merged.getBytes();
+                byte[] mergedData = new byte[metadataStart + mergedBytes.length];
+                System.arraycopy(data, 0, mergedData, 0, metadataStart);
+                for (int i = 0; i < mergedBytes.length; i++) {
+                    mergedData[metadataStart + i] = (byte) mergedBytes[i];
+                }
+                this.replace(this.latestMetadata, entityID, this.addToChain(this.entityChains, entityID, packetID, mergedData));
+                return;
+            }
+        }
+
+        // Nothing to merge into, or either can't be fully read. Later metadata is merged into this one instead.
+        this.latestMetadata.put(entityID, this.addToChain(this.entityChains, entityID, packetID, data));
+    }
+
+    /**
+     * Fold a packet adding, removing or updating state identified by a name. (boss bars, scoreboard objectives and teams)
+     *
+     * @param action       The action of the packet. Any action but add and remove updates a part of the state, of which only the latest is kept.
+     * @param addAction    The action that adds the state, starting it over.
+     * @param removeAction The action that removes the state.
+     */
+    private void foldNamedState(long key, int action, int addAction, int removeAction, int packetID, byte[] data) {
+        if (action == addAction) {
+            this.removeChain(this.namedChains, key);
+            this.addToChain(this.namedChains, key, packetID, data);
+        } else if (action == removeAction) {
+            this.removeChain(this.namedChains, key);
+        } else {
+            this.replace(this.latestNamedStates, Hash64.mix(key + action), this.addToChain(this.namedChains, key, packetID, data));
+        }
+    }
+
+    /// Merge a relative movement into the previous relative movement of the same entity, as long as the combined deltas still fit.
+    private void foldRelativeMovement(int packetID, byte[] data) {
+        this.cursor = 0;
+        int entityID = this.readVarInt(data);
+        boolean hasPosition = packetID != this.updateEntityRotationID;
+        boolean hasRotation = packetID != this.updateEntityPositionID;
+        int deltaX = hasPosition ? this.readShort(data) : 0;
+        int deltaY = hasPosition ? this.readShort(data) : 0;
+        int deltaZ = hasPosition ? this.readShort(data) : 0;
+        int yaw = hasRotation ? data[this.cursor++] : 0;
+        int pitch = hasRotation ? data[this.cursor++] : 0;
+        boolean onGround = data[this.cursor] != 0;
+
+        int index = this.mergeableMovements.get(entityID, -1);
+        if (index != -1 && this.packetData[index] != null) {
+            byte[] previous = this.packetData[index];
+            boolean previousHasPosition = this.packetIDs[index] != this.updateEntityRotationID;
+            boolean previousHasRotation = this.packetIDs[index] != this.updateEntityPositionID;
+            this.cursor = 0;
+            this.readVarInt(previous);
+            if (previousHasPosition) {
+                deltaX += this.readShort(previous);
+                deltaY += this.readShort(previous);
+                deltaZ += this.readShort(previous);
+            }
+            if (previousHasRotation && !hasRotation) {
+                yaw = previous[this.cursor];
+                pitch = previous[this.cursor + 1];
+            }
+
+            if (deltaX == (short) deltaX && deltaY == (short) deltaY && deltaZ == (short) deltaZ) {
+                hasPosition |= previousHasPosition;
+                hasRotation |= previousHasRotation;
+                this.packetIDs[index] = hasPosition ? (hasRotation ? this.updateEntityPositionAndRotationID : this.updateEntityPositionID) : this.updateEntityRotationID;
+                this.packetData[index] = ReplayStateFolder.encodeRelativeMovement(entityID, hasPosition, hasRotation, deltaX, deltaY, deltaZ, yaw, pitch, onGround);
+                return;
+            }
+        }
+
+        // Nothing to merge into, or the combined deltas would overflow. Start over from this movement.
+        this.mergeableMovements.put(entityID, this.addToChain(this.movementChains, entityID, packetID, data));
+    }
+
+    private static byte[] encodeRelativeMovement(int entityID, boolean hasPosition, boolean hasRotation, int deltaX, int deltaY, int deltaZ,
+                                                 int yaw, int pitch, boolean onGround) {
+        byte[] data = new byte[ReplayWriter.sizeOfVarInt(entityID) + (hasPosition ? 6 : 0) + (hasRotation ? 2 : 0) + 1];
+        int offset = ReplayStateFolder.writeVarInt(data, 0, entityID);
+        if (hasPosition) {
+            offset = ReplayStateFolder.writeShort(data, offset, deltaX);
+            offset = ReplayStateFolder.writeShort(data, offset, deltaY);
+            offset = ReplayStateFolder.writeShort(data, offset, deltaZ);
+        }
+        if (hasRotation) {
+            data[offset++] = (byte) yaw;
+            data[offset++] = (byte) pitch;
+        }
+        data[offset] = (byte) (onGround ? 1 : 0);
+        return data;
+    }
+
+
+    /**
+     * Write out the folded packets as a replay packet stream. (timestamp, packet size, packet id, packet data)
+     * Empty bundles left behind by dropped packets are left out.
+     *
+     * @param timestamp The timestamp every packet is written out with.
+     */
+    byte[] toByteArray(int timestamp) throws IOException {
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        DataOutputStream outputStream = new DataOutputStream(byteArrayOutputStream);
+        boolean withinBundle = false;
+        for (int i = 0; i < this.count; i++) {
+            byte[] data = this.packetData[i];
+            if (data == null) {
+                continue;
+            }
+            int packetID = this.packetIDs[i];
+            if (packetID == this.bundleDelimiterID) {
+                if (!withinBundle) {
+                    int next = i + 1;
+                    while (next < this.count && this.packetData[next] == null) {
+                        next++;
+                    }
+                    if (next < this.count && this.packetIDs[next] == this.bundleDelimiterID) {
+                        i = next; // Skip over both delimiters of the empty bundle.
+                        continue;
+                    }
+                }
+                withinBundle = !withinBundle;
+            }
+
+            outputStream.writeInt(timestamp);
+            outputStream.writeInt(ReplayWriter.sizeOfVarInt(packetID) + data.length);
+            int value = packetID;
+            while ((value & ~0x7F) != 0) {
+                outputStream.writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            outputStream.writeByte(value);
+            outputStream.write(data);
+        }
+        outputStream.flush();
+        return byteArrayOutputStream.toByteArray();
+    }
+
+    /// Forget everything folded so far.
+    void clear() {
+        Arrays.fill(this.packetData, 0, this.count, null);
+        this.count = 0;
+        this.droppedCount = 0;
+        this.chunkChains.clear();
+        this.entityChains.clear();
+        this.movementChains.clear();
+        this.namedChains.clear();
+        this.containerChains.clear();
+        this.latestBlocks.clear();
+        this.latestBlockEntities.clear();
+        this.latestEntityStates.clear();
+        this.latestGlobalStates.clear();
+        this.latestMetadata.clear();
+        this.latestNamedStates.clear();
+        this.latestContainerSlots.clear();
+        this.latestEquipment.clear();
+        this.latestAttributes.clear();
+        this.mergeableMovements.clear();
+    }
+
+    /// Move the packets that are left together, dropping the nulled out slots, and update every index held on to.
+    private void compact() {
+        // The new index of each packet, -1 if dropped.
+        int[] newIndices = new int[this.count];
+        // For the chains, a dropped packet is replaced by the closest packet left before it within the same chain. (or -1)
+        int[] newChainIndices = new int[this.count];
+        int newCount = 0;
+        for (int i = 0; i < this.count; i++) {
+            int previous = this.previousInChain[i];
+            int newPrevious = previous == -1 ? -1 : newChainIndices[previous];
+            if (this.packetData[i] == null) {
+                newIndices[i] = -1;
+                newChainIndices[i] = newPrevious;
+                continue;
+            }
+            this.packetIDs[newCount] = this.packetIDs[i];
+            this.packetData[newCount] = this.packetData[i];
+            this.previousInChain[newCount] = newPrevious;
+            this.liveEntries[newCount] = this.liveEntries[i];
+            newIndices[i] = newCount;
+            newChainIndices[i] = newCount;
+            newCount++;
+        }
+        Arrays.fill(this.packetData, newCount, this.count, null);
+        this.count = newCount;
+        this.droppedCount = 0;
+
+        for (LongIntHashMap chains : new LongIntHashMap[]{this.chunkChains, this.entityChains, this.movementChains, this.namedChains, this.containerChains}) {
+            ReplayStateFolder.remapIndices(chains, newChainIndices);
+        }
+        for (LongIntHashMap latest : new LongIntHashMap[]{this.latestBlocks, this.latestBlockEntities, this.latestEntityStates, this.latestGlobalStates,
+                this.latestMetadata, this.latestNamedStates, this.latestContainerSlots, this.latestEquipment, this.latestAttributes, this.mergeableMovements}) {
+            ReplayStateFolder.remapIndices(latest, newIndices);
+        }
+    }
+
+    /// Replace every index with its new index, forgetting the keys left without one.
+    private static void remapIndices(LongIntHashMap indices, int[] newIndices) {
+        long[] keys = new long[indices.size()];
+        int[] values = new int[keys.length];
+        int size = 0;
+        for (int slot = 0; slot < indices.capacity(); slot++) {
+            if (indices.isSlotUsed(slot)) {
+                keys[size] = indices.keyAt(slot);
+                values[size++] = newIndices[indices.valueAt(slot)];
+            }
+        }
+        indices.clear();
+        for (int i = 0; i < size; i++) {
+            if (values[i] != -1) {
+                indices.put(keys[i], values[i]);
+            }
+        }
+    }
+
+
+    /// Returns the index of the added packet.
+    private int add(int packetID, byte[] data) {
+        if (this.count == this.packetData.length) {
+            int capacity = this.count << 1;
+            this.packetIDs = Arrays.copyOf(this.packetIDs, capacity);
+            this.packetData = Arrays.copyOf(this.packetData, capacity);
+            this.previousInChain = Arrays.copyOf(this.previousInChain, capacity);
+            this.liveEntries = Arrays.copyOf(this.liveEntries, capacity);
+        }
+        int index = this.count++;
+        this.packetIDs[index] = packetID;
+        this.packetData[index] = data;
+        this.previousInChain[index] = -1;
+        this.liveEntries[index] = 0;
+        return index;
+    }
+
+    /// Returns the index of the added packet.
+    private int addToChain(LongIntHashMap chains, long key, int packetID, byte[] data) {
+        int index = this.add(packetID, data);
+        this.previousInChain[index] = chains.get(key, -1);
+        chains.put(key, index);
+        return index;
+    }
+
+    /// Drop every packet of a chain.
+    private void removeChain(LongIntHashMap chains, long key) {
+        int index = chains.get(key, -1);
+        while (index != -1) {
+            this.drop(index);
+            index = this.previousInChain[index];
+        }
+        chains.remove(key);
+    }
+
+    private void removeAllChains(LongIntHashMap chains) {
+        for (int slot = 0; slot < chains.capacity(); slot++) {
+            if (chains.isSlotUsed(slot)) {
+                int index = chains.valueAt(slot);
+                while (index != -1) {
+                    this.drop(index);
+                    index = this.previousInChain[index];
+                }
+            }
+        }
+        chains.clear();
+    }
+
+    /// Drop the packet previously mapped to the key (if any), in favor of the packet at the given index.
+    private void replace(LongIntHashMap latest, long key, int index) {
+        this.drop(latest.get(key, -1));
+        latest.put(key, index);
+    }
+
+    /// Map each of the keys to the packet at the given index. A packet previously mapped to any of them is dropped once none of its keys are left mapped to it.
+    private void replaceEntries(LongIntHashMap latest, long[] keys, int index) {
+        for (long key : keys) {
+            int previous = latest.get(key, -1);
+            if (previous == index) {
+                continue; // The same key set twice by the packet.
+            }
+            if (previous != -1 && --this.liveEntries[previous] == 0) {
+                this.drop(previous);
+            }
+            latest.put(key, index);
+            this.liveEntries[index]++;
+        }
+    }
+
+    /// Null out the packet at the given index. (if any)
+    private void drop(int index) {
+        if (index != -1 && this.packetData[index] != null) {
+            this.packetData[index] = null;
+            this.droppedCount++;
+        }
+    }
+
+    private void removeEntity(int entityID) {
+        this.removeChain(this.entityChains, entityID);
+        this.removeChain(this.movementChains, entityID);
+        this.mergeableMovements.remove(entityID);
+    }
+
+
+    private int readVarInt(byte[] data) {
+        int value = 0;
+        int position = 0;
+        byte currentByte;
+        do {
+            currentByte = data[this.cursor++];
+            value |= (currentByte & 0x7F) << position;
+            position += 7;
+        } while ((currentByte & 0x80) != 0 && position < 32);
+        return value;
+    }
+
+    private short readShort(byte[] data) {
+        short value = (short) (((data[this.cursor] & 0xFF) << 8) | (data[this.cursor + 1] & 0xFF));
+        this.cursor += 2;
+        return value;
+    }
+
+    /// Returns the offset after the string.
+    private int skipString(byte[] data, int offset) {
+        this.cursor = offset;
+        int length = this.readVarInt(data);
+        return this.cursor + length;
+    }
+
+    private static int readInt(byte[] data, int offset) {
+        return ((data[offset] & 0xFF) << 24) | ((data[offset + 1] & 0xFF) << 16) | ((data[offset + 2] & 0xFF) << 8) | (data[offset + 3] & 0xFF);
+    }
+
+    private static long readLong(byte[] data, int offset) {
+        return ((long) ReplayStateFolder.readInt(data, offset) << 32) | (ReplayStateFolder.readInt(data, offset + 4) & 0xFFFFFFFFL);
+    }
+
+    /// Returns the offset after the written value.
+    private static int writeVarInt(byte[] data, int offset, int value) {
+        while ((value & ~0x7F) != 0) {
+            data[offset++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[offset++] = (byte) value;
+        return offset;
+    }
+
+    /// Returns the offset after the written value.
+    private static int writeShort(byte[] data, int offset, int value) {
+        data[offset] = (byte) (value >> 8);
+        data[offset + 1] = (byte) value;
+        return offset + 2;
+    }
+
+    /// Raw data holds a single byte per int, as returned by ReplayReader.readByteArray(int).
+    private static byte[] toData(int[] rawData) {
+        byte[] data = new byte[rawData.length];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) rawData[i];
+        }
+        return data;
+    }
+
+    private static int[] toRawData(byte[] data, int from) {
+        int[] rawData = new int[data.length - from];
+        for (int i = 0; i < rawData.length; i++) {
+            rawData[i] = data[from + i] & 0xFF;
+        }
+        return rawData;
+    }
+
+    private static long chunkKeyOf(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+}
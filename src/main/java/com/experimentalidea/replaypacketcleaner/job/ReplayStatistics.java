@@ -0,0 +1,207 @@
+/*
+ * Copyright 2025 ExperimentalIdea
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+package com.experimentalidea.replaypacketcleaner.job;
+
+import com.experimentalidea.replaypacketcleaner.Log;
+import com.experimentalidea.replaypacketcleaner.protocol.PacketType;
+import com.experimentalidea.replaypacketcleaner.protocol.Protocol;
+import com.experimentalidea.replaypacketcleaner.protocol.Version;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/// The packet and byte counts of a replay, per packet type and per second. Collected in a single framing pass, packets are skipped over without being decoded.
+/// <br> Packets are also grouped into categories, along the lines of what the listeners work on. Used for planning how to bring a replay within a budget. (see {@link BudgetPlanner})
+/// <br> The timestamps the player changes worlds at are noted down as well, for camera path culling.
+class ReplayStatistics {
+
+    /**
+     * @param job      The job the statistics are collected for. Used for the job number when logging, progress & checking if the job is canceled.
+     * @param protocol The protocol of the replay.
+     */
+    ReplayStatistics(Job job, Protocol protocol) {
+        this.job = job;
+        this.protocol = protocol;
+    }
+
+    /// A group of packet types that the same listeners work on.
+    enum Category {
+        PARTICLES,
+        SOUNDS,
+        MOVEMENT,
+        COMBAT,
+        BLOCKS,
+        CHUNKS,
+        ENTITIES,
+        PLAYER_INFO,
+        OTHER;
+
+        static Category of(PacketType.Play packetType) {
+            return switch (packetType) {
+                case PARTICLE -> PARTICLES;
+                case SOUND_EFFECT, ENTITY_SOUND_EFFECT, CUSTOM_SOUND_EFFECT -> SOUNDS;
+                case UPDATE_ENTITY_POSITION, UPDATE_ENTITY_POSITION_AND_ROTATION, UPDATE_ENTITY_ROTATION, TELEPORT_ENTITY,
+                     SET_HEAD_ROTATION, SET_ENTITY_VELOCITY, MOVE_MINECART_ALONG_TRACK -> MOVEMENT;
+                case DAMAGE_EVENT, HURT_ANIMATION, ENTITY_ANIMATION, ENTITY_EVENT, ENTITY_EFFECT, REMOVE_ENTITY_EFFECT -> COMBAT;
+                case BLOCK_UPDATE, UPDATE_SECTION_BLOCKS, BLOCK_ACTION, BLOCK_ENTITY_DATA -> BLOCKS;
+                case CHUNK_DATA, CHUNK_DATA_AND_UPDATE_LIGHT, UPDATE_LIGHT, UNLOAD_CHUNK -> CHUNKS;
+                case SPAWN_ENTITY, SPAWN_LIVING_ENTITY, SPAWN_PLAYER, SPAWN_EXPERIENCE_ORB, SPAWN_PAINTING, SET_ENTITY_METADATA,
+                     SET_EQUIPMENT, UPDATE_ATTRIBUTES, SET_PASSENGERS, LINK_ENTITIES, PICKUP_ITEM, REMOVE_ENTITIES -> ENTITIES;
+                case PLAYER_INFO_UPDATE -> PLAYER_INFO;
+                default -> OTHER;
+            };
+        }
+    }
+
+    private static final int CATEGORY_COUNT = Category.values().length;
+
+    private final Job job;
+    private final Protocol protocol;
+
+    // Indexed by the ordinal of the packet type.
+    private final long[] packetCounts = new long[PacketType.Play.values().length];
+    private final long[] byteCounts = new long[PacketType.Play.values().length];
+    // The login/configuration phase(s), which aren't play packets.
+    private long otherBytes = 0;
+
+    // Category ordinal -> packets within each second of the replay.
+    private final int[][] packetsPerSecond = new int[ReplayStatistics.CATEGORY_COUNT][64];
+    private final long[] categoryBytes = new long[ReplayStatistics.CATEGORY_COUNT];
+    private int seconds = 0;
+    // Only the first worldChangeCount are in use.
+    private int[] worldChangeTimestamps = new int[16];
+    private int worldChangeCount = 0;
+
+
+    /**
+     * Read through the replay and collect the statistics.
+     *
+     * @param reader                The reader of the source replay, positioned at the start.
+     * @param sourceReplaySizeBytes The size of the source replay in bytes.
+     * @param maxProgress           The job progress once the whole replay has been read.
+     * @return false if the job was canceled before the whole replay was read.
+     */
+    boolean collect(ReplayReader reader, long sourceReplaySizeBytes, int maxProgress) throws IOException {
+        int protocolVersion = this.protocol.getProtocolVersion();
+        int lastPacketID = protocolVersion > Version.MC_1_20_1
+                ? this.protocol.getConfigurationPacketID(PacketType.Configuration.FINISH_CONFIGURATION)
+                : this.protocol.getLoginPacketID(PacketType.Login.LOGIN_SUCCESS);
+
+        // The replay file header, followed by the login/configuration phase.
+        reader.readInt();
+        int length = reader.readInt();
+        reader.skipFully(length);
+        this.otherBytes += 8 + length;
+        this.skipPacketsUntil(reader, lastPacketID);
+
+        long packetIndex = 0;
+        while ((sourceReplaySizeBytes - reader.bytesRead()) >= 9 && !this.job.isCanceled()) {
+            if (++packetIndex % 512 == 0) {
+                this.job.setProgress((int) ((reader.bytesRead() * maxProgress) / sourceReplaySizeBytes));
+            }
+
+            int timestamp = reader.readInt();
+            int packetSize = reader.readInt();
+            // A recording that crashed and was recovered may be missing data for the last packet. Disregard it.
+            if ((sourceReplaySizeBytes - reader.bytesRead()) < packetSize) {
+                Log.warning("Job #" + this.job.getJobNumber() + ": Last packet is missing data. Disregarding the last packet.");
+                break;
+            }
+            int packetID = reader.readVarInt();
+            PacketType.Play packetType = this.protocol.getPlayPacketType(packetID);
+            reader.skipFully(packetSize - ReplayWriter.sizeOfVarInt(packetID));
+
+            this.packetCounts[packetType.ordinal()]++;
+            this.byteCounts[packetType.ordinal()] += 8 + packetSize;
+            this.count(Category.of(packetType), Math.max(0, timestamp) / 1000, 8 + packetSize);
+
+            // The client starts over in a new world. (The login the play phase opens with is where the replay starts, not a change)
+            if ((packetType == PacketType.Play.RESPAWN || packetType == PacketType.Play.START_CONFIGURATION || packetType == PacketType.Play.LOGIN) && packetIndex > 1) {
+                if (this.worldChangeCount == this.worldChangeTimestamps.length) {
+                    this.worldChangeTimestamps = Arrays.copyOf(this.worldChangeTimestamps, this.worldChangeCount << 1);
+                }
+                this.worldChangeTimestamps[this.worldChangeCount++] = timestamp;
+            }
+
+            // The configuration phase starts the client over, with a new login.
+            if (packetType == PacketType.Play.START_CONFIGURATION) {
+                this.skipPacketsUntil(reader, this.protocol.getConfigurationPacketID(PacketType.Configuration.FINISH_CONFIGURATION));
+            }
+        }
+        return !this.job.isCanceled();
+    }
+
+    private void count(Category category, int second, int bytes) {
+        if (second >= this.packetsPerSecond[0].length) {
+            int capacity = Math.max(second + 1, this.packetsPerSecond[0].length << 1);
+            for (int i = 0; i < ReplayStatistics.CATEGORY_COUNT; i++) {
+                int[] packets = new int[capacity];
+                System.arraycopy(this.packetsPerSecond[i], 0, packets, 0, this.seconds);
+                this.packetsPerSecond[i] = packets;
+            }
+        }
+        this.packetsPerSecond[category.ordinal()][second]++;
+        this.categoryBytes[category.ordinal()] += bytes;
+        this.seconds = Math.max(this.seconds, second + 1);
+    }
+
+    /// Skip over packets, up to and including the packet with the given id.
+    private void skipPacketsUntil(ReplayReader reader, int lastPacketID) throws IOException {
+        while (true) {
+            reader.readInt();
+            int packetSize = reader.readInt();
+            int packetID = reader.readVarInt();
+            reader.skipFully(packetSize - ReplayWriter.sizeOfVarInt(packetID));
+            this.otherBytes += 8 + packetSize;
+            if (packetID == lastPacketID) {
+                return;
+            }
+        }
+    }
+
+
+    long getPacketCount(PacketType.Play packetType) {
+        return this.packetCounts[packetType.ordinal()];
+    }
+
+    long getByteCount(PacketType.Play packetType) {
+        return this.byteCounts[packetType.ordinal()];
+    }
+
+    /// The bytes of everything that isn't a play packet. (the file header, the login/configuration phase)
+    long getOtherBytes() {
+        return this.otherBytes;
+    }
+
+    long getByteCount(Category category) {
+        return this.categoryBytes[category.ordinal()];
+    }
+
+    /// The timestamps the player changes worlds at (respawn, login), in order.
+    int[] getWorldChangeTimestamps() {
+        return Arrays.copyOf(this.worldChangeTimestamps, this.worldChangeCount);
+    }
+
+    /// The number of seconds covered, up to and including the second of the last packet.
+    int getSeconds() {
+        return this.seconds;
+    }
+
+    int getPacketCount(Category category, int second) {
+        return this.packetsPerSecond[category.ordinal()][second];
+    }
+
+}
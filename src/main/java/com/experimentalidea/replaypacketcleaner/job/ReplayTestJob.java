@@ -32,6 +32,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
@@ -46,8 +47,8 @@ public class ReplayTestJob extends ReplayJob {
      * workingDir should be an uuid, as a collision is effectively impossible.
      * workingDir is deleted when the task completes
      */
-    public ReplayTestJob(int jobNumber, Replay replay, File workingTmpDir, File exportDir, ProtocolDirectory protocolDirectory, boolean asyncReads, boolean asyncWrites) {
-        super(jobNumber, replay, workingTmpDir, exportDir, protocolDirectory, asyncReads, asyncWrites);
+    public ReplayTestJob(int jobNumber, Replay replay, File workingTmpDir, File exportDir, ProtocolDirectory protocolDirectory, boolean asyncReads, boolean asyncWrites, Executor executor) {
+        super(jobNumber, replay, workingTmpDir, exportDir, protocolDirectory, asyncReads, asyncWrites, executor);
 
         this.sourceFile = replay.getSourceFile();
         this.exportDir = replay.getExportDirectory();
@@ -102,6 +102,12 @@ public class ReplayWriter implements Closeable, AutoCloseable, Flushable {
         }
     }
 
+    /// Write out bytes that are already encoded, such as a packet stream copied from elsewhere.
+    public void writeBytes(byte[] bytes) throws IOException {
+        this.bytesWritten += bytes.length;
+        this.outputStream.write(bytes);
+    }
+
     public void writeShort(short value) throws IOException {
         this.bytesWritten += 2;
         this.outputStream.writeShort(value);
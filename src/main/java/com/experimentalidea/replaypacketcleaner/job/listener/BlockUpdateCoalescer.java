@@ -0,0 +1,292 @@
+/*
+ * Copyright 2025 ExperimentalIdea
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+package com.experimentalidea.replaypacketcleaner.job.listener;
+
+import com.experimentalidea.replaypacketcleaner.packet.*;
+import com.experimentalidea.replaypacketcleaner.packet.listener.*;
+import com.experimentalidea.replaypacketcleaner.protocol.Block;
+import com.experimentalidea.replaypacketcleaner.protocol.PacketType;
+import com.experimentalidea.replaypacketcleaner.protocol.Protocol;
+import com.experimentalidea.replaypacketcleaner.util.LongIntHashMap;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/// Coalesces rapid block changes (redstone clocks, farms, fluid flow, etc.) that occur within a time window.
+/// Only the final state of each block is written out, changes within the same chunk section are merged into a single packet,
+/// and changes that return a block to the state last sent to the client are dropped entirely.
+/// <br> Block changes canceled by an earlier listener are left alone. The written out changes don't pass through any later listener,
+/// so this should be placed after every listener filtering block changes.
+public class BlockUpdateCoalescer implements BlockUpdatePacketListener, UpdateSectionBlocksPacketListener,
+        ChunkDataPacketListener, UnloadChunkPacketListener, PacketInserter {
+
+    /**
+     * Creates a {@link BlockUpdatePacketListener} / {@link PacketInserter} that coalesces block changes.
+     *
+     * @param protocol           The protocol of the replay. Used for looking up the block of a block state.
+     * @param windowMilliseconds The length of the window in milliseconds. Pending block changes are written out once the window has passed.
+     */
+    public BlockUpdateCoalescer(Protocol protocol, int windowMilliseconds) {
+        if (windowMilliseconds < 0) {
+            windowMilliseconds = 0;
+        }
+        this.protocol = protocol;
+        this.windowMilliseconds = windowMilliseconds;
+    }
+
+    /// Once this many block states are being tracked, forget them all. Keeps memory in check for long replays.
+    private static final int MAX_KNOWN_STATES = 1 << 18;
+
+    private final Protocol protocol;
+    private final int windowMilliseconds;
+
+    private int windowStartTimestamp = 0;
+
+    // Chunk position -> encoded block position -> the latest block state within the current window.
+    private final Map<Long, LongIntHashMap> pendingStates = new HashMap<Long, LongIntHashMap>();
+    private int pendingStateCount = 0;
+    // Chunk position -> encoded block position -> the block state last written out.
+    private final Map<Long, LongIntHashMap> knownStates = new HashMap<Long, LongIntHashMap>();
+    private int knownStateCount = 0;
+
+
+    @Override
+    public void onBlockUpdatePacket(BlockUpdatePacket blockUpdatePacket) {
+        if (blockUpdatePacket.isWriteCanceled()) {
+            return;
+        }
+        long position = blockUpdatePacket.getEncodedPosition();
+        int blockState = blockUpdatePacket.getBlockState();
+
+        // Leave block states that aren't recognized alone, writing them out as-is.
+        if (this.protocol.getBlockByState(blockState) == Block.UNDEFINED) {
+            this.removePendingState(position); // This change supersedes anything pending for the same position.
+            this.setKnownState(position, blockState);
+            return;
+        }
+
+        blockUpdatePacket.setWriteCanceled(true);
+        this.queue(position, blockState, blockUpdatePacket.getTimestamp());
+    }
+
+    @Override
+    public void onUpdateSectionBlocksPacket(UpdateSectionBlocksPacket updateSectionBlocksPacket) {
+        if (updateSectionBlocksPacket.isWriteCanceled()) {
+            return;
+        }
+        int baseX = updateSectionBlocksPacket.getSectionX() << 4;
+        int baseY = updateSectionBlocksPacket.getSectionY() << 4;
+        int baseZ = updateSectionBlocksPacket.getSectionZ() << 4;
+
+        long[] blocks = updateSectionBlocksPacket.getBlocks();
+        int unrecognized = 0;
+        for (int i = 0; i < blocks.length; i++) {
+            long block = blocks[i];
+            int blockState = UpdateSectionBlocksPacket.decodeBlockState(block);
+            long position = BlockUpdatePacket.encodePosition(
+                    baseX + UpdateSectionBlocksPacket.decodeLocalX(block),
+                    baseY + UpdateSectionBlocksPacket.decodeLocalY(block),
+                    baseZ + UpdateSectionBlocksPacket.decodeLocalZ(block));
+
+            if (this.protocol.getBlockByState(blockState) == Block.UNDEFINED) {
+                this.removePendingState(position);
+                this.setKnownState(position, blockState);
+                // Keep the unrecognized block changes within the packet.
+                blocks[unrecognized++] = block;
+                continue;
+            }
+            this.queue(position, blockState, updateSectionBlocksPacket.getTimestamp());
+        }
+
+        if (unrecognized == 0) {
+            updateSectionBlocksPacket.setWriteCanceled(true);
+        } else if (unrecognized != blocks.length) {
+            long[] remaining = new long[unrecognized];
+            System.arraycopy(blocks, 0, remaining, 0, unrecognized);
+            updateSectionBlocksPacket.setBlocks(remaining);
+        }
+    }
+
+    // The chunk data represents the state after any pending changes. Pending changes and known states for the chunk are no longer relevant.
+    @Override
+    public void onChunkDataPacket(ChunkDataPacket chunkDataPacket) {
+        this.forgetChunk(chunkDataPacket.getChunkX(), chunkDataPacket.getChunkZ());
+    }
+
+    @Override
+    public void onUnloadChunkPacket(UnloadChunkPacket unloadChunkPacket) {
+        this.forgetChunk(unloadChunkPacket.getChunkX(), unloadChunkPacket.getChunkZ());
+    }
+
+
+    @Override
+    public Packet[] insertPackets(int timestamp, PacketType.Play nextPacketType) {
+        switch (nextPacketType) {
+            // These packets refer to whatever block is currently at their position. Write out pending changes ahead of them.
+            case BLOCK_ACTION, BLOCK_ENTITY_DATA -> {
+                return this.flush(timestamp);
+            }
+            // These packets can change blocks (or the entire world) without the use of block update packets.
+            case EXPLOSION, RESPAWN, START_CONFIGURATION, LOGIN -> {
+                Packet[] packets = this.flush(timestamp);
+                this.clearKnownStates();
+                return packets;
+            }
+            default -> {
+                if (this.pendingStateCount != 0 && timestamp - this.windowStartTimestamp >= this.windowMilliseconds) {
+                    return this.flush(timestamp);
+                }
+                return null;
+            }
+        }
+    }
+
+    @Override
+    public Packet[] insertPacketsAtEnd() {
+        return this.flush(this.windowStartTimestamp);
+    }
+
+
+    private void queue(long position, int blockState, int timestamp) {
+        if (this.pendingStateCount == 0) {
+            this.windowStartTimestamp = timestamp;
+        }
+        if (this.pendingStates.computeIfAbsent(BlockUpdateCoalescer.chunkKeyOf(position), key -> new LongIntHashMap(16)).put(position, blockState)) {
+            this.pendingStateCount++;
+        }
+    }
+
+    private void removePendingState(long position) {
+        LongIntHashMap chunkPendingStates = this.pendingStates.get(BlockUpdateCoalescer.chunkKeyOf(position));
+        if (chunkPendingStates != null && chunkPendingStates.remove(position)) {
+            this.pendingStateCount--;
+        }
+    }
+
+    private int getKnownState(long position) {
+        LongIntHashMap chunkKnownStates = this.knownStates.get(BlockUpdateCoalescer.chunkKeyOf(position));
+        return chunkKnownStates == null ? -1 : chunkKnownStates.get(position, -1);
+    }
+
+    private void setKnownState(long position, int blockState) {
+        if (this.knownStates.computeIfAbsent(BlockUpdateCoalescer.chunkKeyOf(position), key -> new LongIntHashMap(64)).put(position, blockState)) {
+            if (++this.knownStateCount > BlockUpdateCoalescer.MAX_KNOWN_STATES) {
+                this.clearKnownStates();
+            }
+        }
+    }
+
+    private void clearKnownStates() {
+        this.knownStates.clear();
+        this.knownStateCount = 0;
+    }
+
+    private void forgetChunk(int chunkX, int chunkZ) {
+        long chunkKey = BlockUpdateCoalescer.chunkKeyOf(chunkX, chunkZ);
+        LongIntHashMap chunkPendingStates = this.pendingStates.remove(chunkKey);
+        if (chunkPendingStates != null) {
+            this.pendingStateCount -= chunkPendingStates.size();
+        }
+        LongIntHashMap chunkKnownStates = this.knownStates.remove(chunkKey);
+        if (chunkKnownStates != null) {
+            this.knownStateCount -= chunkKnownStates.size();
+        }
+    }
+
+
+    /// Build the packets for all pending block changes. Grouping changes by chunk section.
+    private Packet[] flush(int timestamp) {
+        if (this.pendingStateCount == 0) {
+            return null;
+        }
+
+        // Drop changes that don't change anything from the client's point of view, and group the rest by section.
+        int count = 0;
+        long[] positions = new long[this.pendingStateCount];
+        int[] blockStates = new int[positions.length];
+        int[] groups = new int[positions.length];
+        LongIntHashMap sectionGroups = new LongIntHashMap(positions.length);
+        int[] groupSizes = new int[positions.length];
+
+        for (LongIntHashMap chunkPendingStates : this.pendingStates.values()) {
+            for (int slot = 0; slot < chunkPendingStates.capacity(); slot++) {
+                if (!chunkPendingStates.isSlotUsed(slot)) {
+                    continue;
+                }
+                long position = chunkPendingStates.keyAt(slot);
+                int blockState = chunkPendingStates.valueAt(slot);
+                if (this.getKnownState(position) == blockState) {
+                    continue;
+                }
+                this.setKnownState(position, blockState);
+
+                long sectionKey = UpdateSectionBlocksPacket.encodeSectionPosition(
+                        BlockUpdatePacket.decodePositionX(position) >> 4,
+                        BlockUpdatePacket.decodePositionY(position) >> 4,
+                        BlockUpdatePacket.decodePositionZ(position) >> 4);
+                int group = sectionGroups.get(sectionKey, -1);
+                if (group == -1) {
+                    group = sectionGroups.size();
+                    sectionGroups.put(sectionKey, group);
+                }
+                groupSizes[group]++;
+
+                positions[count] = position;
+                blockStates[count] = blockState;
+                groups[count] = group;
+                count++;
+            }
+        }
+        this.pendingStates.clear();
+        this.pendingStateCount = 0;
+
+        int groupCount = sectionGroups.size();
+        Packet[] packets = new Packet[groupCount];
+
+        // Build a packet for each section. A single change is written as a Block Update, multiple changes as an Update Section Blocks.
+        long[][] sectionBlocks = new long[groupCount][];
+        int[] sectionFill = new int[groupCount];
+        for (int i = 0; i < count; i++) {
+            int group = groups[i];
+            long position = positions[i];
+            int x = BlockUpdatePacket.decodePositionX(position);
+            int y = BlockUpdatePacket.decodePositionY(position);
+            int z = BlockUpdatePacket.decodePositionZ(position);
+
+            if (groupSizes[group] == 1) {
+                packets[group] = new BlockUpdatePacket(0, timestamp, x, y, z, blockStates[i]);
+                continue;
+            }
+            if (sectionBlocks[group] == null) {
+                sectionBlocks[group] = new long[groupSizes[group]];
+                packets[group] = new UpdateSectionBlocksPacket(0, timestamp, x >> 4, y >> 4, z >> 4, false, sectionBlocks[group]);
+            }
+            sectionBlocks[group][sectionFill[group]++] = UpdateSectionBlocksPacket.encodeBlock(blockStates[i], x & 0xF, y & 0xF, z & 0xF);
+        }
+
+        return packets;
+    }
+
+
+    private static long chunkKeyOf(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    private static long chunkKeyOf(long position) {
+        return BlockUpdateCoalescer.chunkKeyOf(BlockUpdatePacket.decodePositionX(position) >> 4, BlockUpdatePacket.decodePositionZ(position) >> 4);
+    }
+
+}
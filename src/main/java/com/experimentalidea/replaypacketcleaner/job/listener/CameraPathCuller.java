@@ -0,0 +1,234 @@
+/*
+ * Copyright 2025 ExperimentalIdea
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+package com.experimentalidea.replaypacketcleaner.job.listener;
+
+import com.experimentalidea.replaypacketcleaner.job.CameraPath;
+import com.experimentalidea.replaypacketcleaner.packet.*;
+import com.experimentalidea.replaypacketcleaner.packet.listener.*;
+import com.experimentalidea.replaypacketcleaner.protocol.EntityType;
+import com.experimentalidea.replaypacketcleaner.protocol.PacketType;
+import com.experimentalidea.replaypacketcleaner.util.IntHashSet;
+import com.experimentalidea.replaypacketcleaner.util.LongIntHashMap;
+
+/// Culls chunks and entities the camera path set up within the ReplayMod editor never comes near. Meant for replays that are only rendered out along that path.
+/// <br>
+/// <br> Chunks are dropped (along with any block and light changes within them) if the camera doesn't come within the distance of the chunk
+/// from the time the chunk is loaded onwards. Entities are dropped the same way, by the chunk they're spawned in with a margin for moving around.
+/// Players are always kept, they tend to travel far.
+/// <br> Which world the camera is in isn't part of the camera path. It's taken to be the world the player is in: the chunks of each world
+/// are only kept by the part of the path up until the player changes worlds (respawn, login) again.
+public class CameraPathCuller extends EntityFilter implements ChunkDataPacketListener, UnloadChunkPacketListener, UpdateLightPacketListener,
+        BlockUpdatePacketListener, UpdateSectionBlocksPacketListener, BlockEntityDataPacketListener, BlockActionPacketListener,
+        SpawnEntityPacketListener, SpawnLivingEntityPacketListener, SpawnPaintingPacketListener, SpawnExperienceOrbPacketListener, RawPacketListener {
+
+    /**
+     * Creates a listener that culls chunks and entities the camera never comes near.
+     *
+     * @param cameraPath            The camera path.
+     * @param distance              The distance in blocks (horizontally) from the camera within which chunks and entities are kept.
+     * @param worldChangeTimestamps The timestamps the player changes worlds at, in order. If null, the path after a change of worlds counts towards every world before it.
+     */
+    public CameraPathCuller(CameraPath cameraPath, int distance, int[] worldChangeTimestamps) {
+        this.cameraPath = cameraPath;
+        this.distance = Math.max(0, distance);
+        this.worldChangeTimestamps = worldChangeTimestamps;
+        this.noteCameraPath(Integer.MIN_VALUE);
+    }
+
+    /// Note down, for each chunk of the world entered at the given timestamp, the last timestamp the camera is within the distance of the chunk.
+    private void noteCameraPath(int fromTimestamp) {
+        CameraPath cameraPath = this.cameraPath;
+        int distance = this.distance;
+        this.lastSeenTimestamps.clear();
+        // The world is left at the next change of worlds.
+        int toTimestamp = Integer.MAX_VALUE;
+        if (this.worldChangeTimestamps != null) {
+            for (int worldChangeTimestamp : this.worldChangeTimestamps) {
+                if (worldChangeTimestamp > fromTimestamp) {
+                    toTimestamp = worldChangeTimestamp;
+                    break;
+                }
+            }
+        }
+        for (int sample = 0; sample < cameraPath.getSampleCount(); sample++) {
+            double x = cameraPath.getX(sample);
+            double z = cameraPath.getZ(sample);
+            int timestamp = cameraPath.getTimestamp(sample);
+            if (timestamp < fromTimestamp || timestamp >= toTimestamp) {
+                continue;
+            }
+            int minChunkX = (int) Math.floor((x - distance) / 16);
+            int maxChunkX = (int) Math.floor((x + distance) / 16);
+            int minChunkZ = (int) Math.floor((z - distance) / 16);
+            int maxChunkZ = (int) Math.floor((z + distance) / 16);
+            for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+                // The distance to the closest point of the chunk.
+                double dx = Math.max(0, Math.max(chunkX * 16 - x, x - (chunkX * 16 + 16)));
+                for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                    double dz = Math.max(0, Math.max(chunkZ * 16 - z, z - (chunkZ * 16 + 16)));
+                    if (dx * dx + dz * dz > (double) distance * distance) {
+                        continue;
+                    }
+                    long chunkKey = CameraPathCuller.chunkKeyOf(chunkX, chunkZ);
+                    if (this.lastSeenTimestamps.get(chunkKey, Integer.MIN_VALUE) < timestamp) {
+                        this.lastSeenTimestamps.put(chunkKey, timestamp);
+                    }
+                }
+            }
+        }
+    }
+
+    /// Entities are kept if the camera comes near any chunk within this many chunks of the chunk the entity is spawned in.
+    private static final int ENTITY_MARGIN_CHUNKS = 2;
+
+    private final CameraPath cameraPath;
+    private final int distance;
+    private final int[] worldChangeTimestamps; // null if not known.
+    // Chunk position -> the last timestamp the camera is near the chunk.
+    private final LongIntHashMap lastSeenTimestamps = new LongIntHashMap(4096);
+    // Chunk position -> timestamp the chunk was culled at. Used as a set.
+    private final LongIntHashMap culledChunks = new LongIntHashMap(1024);
+    private final IntHashSet culledEntities = new IntHashSet(256);
+
+
+    @Override
+    public void onChunkDataPacket(ChunkDataPacket chunkDataPacket) {
+        long chunkKey = CameraPathCuller.chunkKeyOf(chunkDataPacket.getChunkX(), chunkDataPacket.getChunkZ());
+        if (this.lastSeenTimestamps.get(chunkKey, Integer.MIN_VALUE) >= chunkDataPacket.getTimestamp()) {
+            this.culledChunks.remove(chunkKey);
+            return;
+        }
+        this.culledChunks.put(chunkKey, chunkDataPacket.getTimestamp());
+        chunkDataPacket.setWriteCanceled(true);
+    }
+
+    @Override
+    public void onUnloadChunkPacket(UnloadChunkPacket unloadChunkPacket) {
+        if (this.culledChunks.remove(CameraPathCuller.chunkKeyOf(unloadChunkPacket.getChunkX(), unloadChunkPacket.getChunkZ()))) {
+            unloadChunkPacket.setWriteCanceled(true);
+        }
+    }
+
+    @Override
+    public void onUpdateLightPacket(UpdateLightPacket updateLightPacket) {
+        if (this.isChunkCulled(updateLightPacket.getChunkX(), updateLightPacket.getChunkZ())) {
+            updateLightPacket.setWriteCanceled(true);
+        }
+    }
+
+    @Override
+    public void onBlockUpdatePacket(BlockUpdatePacket blockUpdatePacket) {
+        if (this.isChunkCulled(blockUpdatePacket.getPositionX() >> 4, blockUpdatePacket.getPositionZ() >> 4)) {
+            blockUpdatePacket.setWriteCanceled(true);
+        }
+    }
+
+    @Override
+    public void onUpdateSectionBlocksPacket(UpdateSectionBlocksPacket updateSectionBlocksPacket) {
+        if (this.isChunkCulled(updateSectionBlocksPacket.getSectionX(), updateSectionBlocksPacket.getSectionZ())) {
+            updateSectionBlocksPacket.setWriteCanceled(true);
+        }
+    }
+
+    @Override
+    public void onBlockEntityDataPacket(BlockEntityDataPacket blockEntityDataPacket) {
+        if (this.isChunkCulled(blockEntityDataPacket.getPositionX() >> 4, blockEntityDataPacket.getPositionZ() >> 4)) {
+            blockEntityDataPacket.setWriteCanceled(true);
+        }
+    }
+
+    @Override
+    public void onBlockActionPacket(BlockActionPacket blockActionPacket) {
+        if (this.isChunkCulled(blockActionPacket.getPositionX() >> 4, blockActionPacket.getPositionZ() >> 4)) {
+            blockActionPacket.setWriteCanceled(true);
+        }
+    }
+
+
+    private void onSpawn(Packet spawnPacket, int entityID, EntityType entityType, double x, double z) {
+        // Entity ids may be reused.
+        this.culledEntities.remove(entityID);
+        if (entityType == EntityType.PLAYER) {
+            return;
+        }
+
+        int chunkX = (int) Math.floor(x) >> 4;
+        int chunkZ = (int) Math.floor(z) >> 4;
+        for (int offsetX = -CameraPathCuller.ENTITY_MARGIN_CHUNKS; offsetX <= CameraPathCuller.ENTITY_MARGIN_CHUNKS; offsetX++) {
+            for (int offsetZ = -CameraPathCuller.ENTITY_MARGIN_CHUNKS; offsetZ <= CameraPathCuller.ENTITY_MARGIN_CHUNKS; offsetZ++) {
+                if (this.lastSeenTimestamps.get(CameraPathCuller.chunkKeyOf(chunkX + offsetX, chunkZ + offsetZ), Integer.MIN_VALUE) >= spawnPacket.getTimestamp()) {
+                    return;
+                }
+            }
+        }
+        this.culledEntities.add(entityID);
+        spawnPacket.setWriteCanceled(true);
+    }
+
+    @Override
+    public void onSpawnEntityPacket(SpawnEntityPacket spawnEntityPacket) {
+        this.onSpawn(spawnEntityPacket, spawnEntityPacket.getEntityID(), spawnEntityPacket.getEntityType(), spawnEntityPacket.getX(), spawnEntityPacket.getZ());
+    }
+
+    @Override
+    public void onSpawnLivingEntityPacket(SpawnLivingEntityPacket spawnLivingEntityPacket) {
+        this.onSpawn(spawnLivingEntityPacket, spawnLivingEntityPacket.getEntityID(), spawnLivingEntityPacket.getEntityType(), spawnLivingEntityPacket.getX(), spawnLivingEntityPacket.getZ());
+    }
+
+    @Override
+    public void onSpawnPaintingPacket(SpawnPaintingPacket spawnPaintingPacket) {
+        this.onSpawn(spawnPaintingPacket, spawnPaintingPacket.getEntityID(), EntityType.PAINTING, spawnPaintingPacket.getX(), spawnPaintingPacket.getZ());
+    }
+
+    @Override
+    public void onSpawnExperienceOrbPacket(SpawnExperienceOrbPacket spawnExperienceOrbPacket) {
+        this.onSpawn(spawnExperienceOrbPacket, spawnExperienceOrbPacket.getEntityID(), EntityType.EXPERIENCE_ORB, spawnExperienceOrbPacket.getX(), spawnExperienceOrbPacket.getZ());
+    }
+
+    @Override
+    protected boolean isFiltered(int entityID) {
+        return this.culledEntities.contains(entityID);
+    }
+
+    @Override
+    protected boolean onEntityRemoved(int entityID) {
+        return this.culledEntities.remove(entityID);
+    }
+
+
+    @Override
+    public PacketType.Play[] getRawPacketTypes() {
+        return new PacketType.Play[]{PacketType.Play.RESPAWN, PacketType.Play.START_CONFIGURATION, PacketType.Play.LOGIN};
+    }
+
+    // The client forgets all chunks and entities. The chunks from here on may be of another world, at the same chunk positions.
+    @Override
+    public void onRawPacket(RawPacket rawPacket) {
+        this.culledChunks.clear();
+        this.culledEntities.clear();
+        this.noteCameraPath(rawPacket.getTimestamp());
+    }
+
+
+    private boolean isChunkCulled(int chunkX, int chunkZ) {
+        return !this.culledChunks.isEmpty() && this.culledChunks.containsKey(CameraPathCuller.chunkKeyOf(chunkX, chunkZ));
+    }
+
+    private static long chunkKeyOf(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+}
@@ -0,0 +1,302 @@
+/*
+ * Copyright 2025 ExperimentalIdea
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+package com.experimentalidea.replaypacketcleaner.job.listener;
+
+import com.experimentalidea.replaypacketcleaner.job.ReplayWriter;
+import com.experimentalidea.replaypacketcleaner.packet.*;
+import com.experimentalidea.replaypacketcleaner.packet.listener.*;
+import com.experimentalidea.replaypacketcleaner.protocol.PacketType;
+import com.experimentalidea.replaypacketcleaner.protocol.Protocol;
+import com.experimentalidea.replaypacketcleaner.util.Hash64;
+import com.experimentalidea.replaypacketcleaner.util.LongIntHashMap;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/// Drops Unload Chunk / Chunk Data pairs where the chunk is re-sent unchanged. (Such as when a player walks or flies back and forth)
+/// The chunk simply stays loaded on the client instead.
+public class ChunkResendDeduplicator implements ChunkDataPacketListener, UnloadChunkPacketListener, SetCenterChunkPacketListener,
+        BlockUpdatePacketListener, UpdateSectionBlocksPacketListener, BlockEntityDataPacketListener, UpdateLightPacketListener, PacketInserter {
+
+    /**
+     * Creates a {@link ChunkDataPacketListener} / {@link PacketInserter} that deduplicates chunk resends.
+     *
+     * @param protocol         The protocol of the replay. Used for calculating the size of the packets dropped.
+     * @param cacheBudgetBytes The (approximate) amount of memory the chunk cache may use. The least recently used chunks are evicted beyond this.
+     * @param maxHoldSeconds   How long an unload may be held back waiting for the chunk to be re-sent. Afterward, the chunk gets unloaded as normal.
+     */
+    public ChunkResendDeduplicator(Protocol protocol, long cacheBudgetBytes, int maxHoldSeconds) {
+        if (cacheBudgetBytes < 0) {
+            cacheBudgetBytes = 0;
+        }
+        if (maxHoldSeconds < 0) {
+            maxHoldSeconds = 0;
+        }
+
+        this.protocol = protocol;
+        this.unloadChunkPacketSize = 8 + ReplayWriter.sizeOfVarInt(protocol.getPlayPacketID(PacketType.Play.UNLOAD_CHUNK)) + 8;
+        this.maxHoldMilliseconds = maxHoldSeconds * 1000;
+        this.maxCachedChunks = (int) Math.min(Integer.MAX_VALUE, cacheBudgetBytes / ChunkResendDeduplicator.CACHE_ENTRY_SIZE_ESTIMATE);
+
+        this.cache = new LinkedHashMap<Long, CachedChunk>(1024, 0.75F, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CachedChunk> eldest) {
+                if (this.size() > ChunkResendDeduplicator.this.maxCachedChunks) {
+                    // The client still expects an unload for this chunk if it's being held back.
+                    ChunkResendDeduplicator.this.releaseHeldUnload(eldest.getKey());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /// Rough number of bytes each cached chunk takes up. (map entry, boxed key, and the CachedChunk itself)
+    private static final int CACHE_ENTRY_SIZE_ESTIMATE = 96;
+    /// How often (in milliseconds of replay time) held back unloads are checked against the max hold time.
+    private static final int HOLD_CHECK_INTERVAL = 1000;
+
+    private final Protocol protocol;
+    private final int unloadChunkPacketSize;
+    private final int maxHoldMilliseconds;
+    private final int maxCachedChunks;
+
+    // Chunk position -> content hash of the chunk currently on the client. (least recently used first)
+    private final LinkedHashMap<Long, CachedChunk> cache;
+    // Chunk position -> timestamp of the unload being held back.
+    private final LongIntHashMap heldUnloads = new LongIntHashMap(256);
+    // Unloads that need to be written out before the next packet.
+    private final List<Packet> unloadsToWrite = new ArrayList<Packet>();
+
+    // Incremented when something changes an unknown number of chunks. Chunks cached during an older epoch are considered modified.
+    private int epoch = 0;
+
+    // The client's view center and an estimate of the server's view distance. Used to tell if the client would still keep a chunk around.
+    private int centerX = 0;
+    private int centerZ = 0;
+    private int viewDistanceEstimate = 0;
+
+    private int lastHoldCheckTimestamp = 0;
+    private long bytesSaved = 0;
+
+
+    /// Returns the number of bytes saved so far.
+    public long getBytesSaved() {
+        return this.bytesSaved;
+    }
+
+
+    @Override
+    public void onChunkDataPacket(ChunkDataPacket chunkDataPacket) {
+        int chunkX = chunkDataPacket.getChunkX();
+        int chunkZ = chunkDataPacket.getChunkZ();
+        long chunkKey = ChunkResendDeduplicator.chunkKeyOf(chunkX, chunkZ);
+
+        int[] rawDataBytes = chunkDataPacket.getRawDataBytes();
+        long hash = Hash64.hash(rawDataBytes);
+
+        this.viewDistanceEstimate = Math.max(this.viewDistanceEstimate, Math.max(Math.abs(chunkX - this.centerX), Math.abs(chunkZ - this.centerZ)));
+
+        CachedChunk cachedChunk = this.cache.get(chunkKey);
+        if (cachedChunk != null && this.heldUnloads.remove(chunkKey)) {
+            if (!cachedChunk.modified && cachedChunk.epoch == this.epoch && cachedChunk.hash == hash && cachedChunk.size == rawDataBytes.length) {
+                // Re-sent unchanged, the client still has this exact chunk loaded.
+                chunkDataPacket.setWriteCanceled(true);
+                this.bytesSaved += 8 + ReplayWriter.sizeOfVarInt(this.protocol.getPlayPacketID(chunkDataPacket.getPacketType())) + 8 + rawDataBytes.length;
+                return;
+            }
+            // Otherwise, the chunk data just replaces the chunk still loaded on the client. The held back unload isn't needed.
+        }
+
+        if (cachedChunk == null) {
+            this.cache.put(chunkKey, new CachedChunk(hash, rawDataBytes.length, this.epoch));
+        } else {
+            cachedChunk.hash = hash;
+            cachedChunk.size = rawDataBytes.length;
+            cachedChunk.epoch = this.epoch;
+            cachedChunk.modified = false;
+        }
+    }
+
+    @Override
+    public void onUnloadChunkPacket(UnloadChunkPacket unloadChunkPacket) {
+        long chunkKey = ChunkResendDeduplicator.chunkKeyOf(unloadChunkPacket.getChunkX(), unloadChunkPacket.getChunkZ());
+        CachedChunk cachedChunk = this.cache.get(chunkKey);
+
+        // Only hold back the unload if a re-send of the chunk could be dropped, and the client will keep the chunk around in the meantime.
+        if (cachedChunk != null && !cachedChunk.modified && cachedChunk.epoch == this.epoch && this.maxHoldMilliseconds > 0
+                && this.isWithinClientRange(unloadChunkPacket.getChunkX(), unloadChunkPacket.getChunkZ())) {
+            unloadChunkPacket.setWriteCanceled(true);
+            this.heldUnloads.put(chunkKey, unloadChunkPacket.getTimestamp());
+            this.bytesSaved += this.unloadChunkPacketSize;
+        } else {
+            this.cache.remove(chunkKey);
+        }
+    }
+
+    @Override
+    public void onSetCenterChunkPacket(SetCenterChunkPacket setCenterChunkPacket) {
+        this.centerX = setCenterChunkPacket.getChunkX();
+        this.centerZ = setCenterChunkPacket.getChunkZ();
+
+        // The client discards chunks beyond its range. Release the unloads of any held back chunk that would no longer be in range.
+        this.releaseHeldUnloads(false, false, setCenterChunkPacket.getTimestamp());
+    }
+
+
+    // Changes made to a chunk mean the re-sent chunk can't be dropped, as the client copy would differ from it.
+
+    @Override
+    public void onBlockUpdatePacket(BlockUpdatePacket blockUpdatePacket) {
+        this.markModified(blockUpdatePacket.getPositionX() >> 4, blockUpdatePacket.getPositionZ() >> 4);
+    }
+
+    @Override
+    public void onUpdateSectionBlocksPacket(UpdateSectionBlocksPacket updateSectionBlocksPacket) {
+        this.markModified(updateSectionBlocksPacket.getSectionX(), updateSectionBlocksPacket.getSectionZ());
+    }
+
+    @Override
+    public void onBlockEntityDataPacket(BlockEntityDataPacket blockEntityDataPacket) {
+        this.markModified(blockEntityDataPacket.getPositionX() >> 4, blockEntityDataPacket.getPositionZ() >> 4);
+    }
+
+    @Override
+    public void onUpdateLightPacket(UpdateLightPacket updateLightPacket) {
+        this.markModified(updateLightPacket.getChunkX(), updateLightPacket.getChunkZ());
+    }
+
+
+    @Override
+    public Packet[] insertPackets(int timestamp, PacketType.Play nextPacketType) {
+        switch (nextPacketType) {
+            // The client gets a new world. Write out everything held back, and start over.
+            case RESPAWN, START_CONFIGURATION, LOGIN -> {
+                this.releaseHeldUnloads(true, false, timestamp);
+                this.cache.clear();
+                this.epoch++;
+                this.centerX = 0;
+                this.centerZ = 0;
+                this.viewDistanceEstimate = 0;
+            }
+            // The client's range may shrink.
+            case SET_RENDER_DISTANCE -> {
+                this.releaseHeldUnloads(true, false, timestamp);
+                this.viewDistanceEstimate = 0;
+            }
+            // These packets can change any number of chunks without saying which ones upfront.
+            case EXPLOSION, CHUNK_BIOMES -> this.epoch++;
+
+            default -> {
+                if (timestamp - this.lastHoldCheckTimestamp >= ChunkResendDeduplicator.HOLD_CHECK_INTERVAL) {
+                    this.lastHoldCheckTimestamp = timestamp;
+                    this.releaseHeldUnloads(false, true, timestamp);
+                }
+            }
+        }
+
+        if (this.unloadsToWrite.isEmpty()) {
+            return null;
+        }
+        Packet[] packets = this.unloadsToWrite.toArray(new Packet[0]);
+        this.unloadsToWrite.clear();
+        return packets;
+    }
+
+    // Nothing is left to follow the held back unloads. No need to write them out.
+    @Override
+    public Packet[] insertPacketsAtEnd() {
+        return null;
+    }
+
+
+    private void markModified(int chunkX, int chunkZ) {
+        CachedChunk cachedChunk = this.cache.get(ChunkResendDeduplicator.chunkKeyOf(chunkX, chunkZ));
+        if (cachedChunk != null) {
+            cachedChunk.modified = true;
+        }
+    }
+
+    /**
+     * Release held back unloads so they get written out.
+     *
+     * @param all           Release all of them. Otherwise, only those beyond the client's range. (or held for too long if checkHoldTime is true)
+     * @param checkHoldTime Release those held for longer than the max hold time.
+     * @param timestamp     The current timestamp.
+     */
+    private void releaseHeldUnloads(boolean all, boolean checkHoldTime, int timestamp) {
+        if (this.heldUnloads.isEmpty()) {
+            return;
+        }
+
+        long[] toRelease = new long[this.heldUnloads.size()];
+        int count = 0;
+        for (int slot = 0; slot < this.heldUnloads.capacity(); slot++) {
+            if (!this.heldUnloads.isSlotUsed(slot)) {
+                continue;
+            }
+            long chunkKey = this.heldUnloads.keyAt(slot);
+            if (all
+                    || !this.isWithinClientRange((int) (chunkKey >> 32), (int) chunkKey)
+                    || (checkHoldTime && timestamp - this.heldUnloads.valueAt(slot) >= this.maxHoldMilliseconds)) {
+                toRelease[count++] = chunkKey;
+            }
+        }
+
+        for (int i = 0; i < count; i++) {
+            this.releaseHeldUnload(toRelease[i]);
+            this.cache.remove(toRelease[i]);
+        }
+    }
+
+    private void releaseHeldUnload(long chunkKey) {
+        if (this.heldUnloads.remove(chunkKey)) {
+            this.unloadsToWrite.add(new UnloadChunkPacket(0, 0, (int) (chunkKey >> 32), (int) chunkKey));
+            this.bytesSaved -= this.unloadChunkPacketSize;
+        }
+    }
+
+    /// The client keeps chunks within its view distance plus a margin of 3 chunks (with a minimum view distance of 2).
+    /// The view distance estimate can be off by one, so one less chunk of margin is used here.
+    private boolean isWithinClientRange(int chunkX, int chunkZ) {
+        int range = Math.max(2, this.viewDistanceEstimate - 1) + 3;
+        return Math.abs(chunkX - this.centerX) <= range && Math.abs(chunkZ - this.centerZ) <= range;
+    }
+
+
+    private static long chunkKeyOf(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+
+    private static class CachedChunk {
+
+        private CachedChunk(long hash, int size, int epoch) {
+            this.hash = hash;
+            this.size = size;
+            this.epoch = epoch;
+        }
+
+        private long hash;
+        private int size;
+        private int epoch;
+        private boolean modified = false;
+
+    }
+
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2025 ExperimentalIdea
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+package com.experimentalidea.replaypacketcleaner.job.listener;
+
+import com.experimentalidea.replaypacketcleaner.packet.*;
+import com.experimentalidea.replaypacketcleaner.packet.listener.*;
+
+/// Strips the chunk sections outside a range of heights. For example, the underground of every chunk for overhead shots of builds.
+/// <br>
+/// <br> Sections outside the range are sent empty (as air), along with their block entities and light being left out. See {@link ChunkSectionCodec}.
+/// Block changes within the stripped sections are dropped.
+/// <br>
+/// <br> The height of the world isn't known from the chunk data alone. It's assumed from the number of sections within a chunk:
+/// 24 sections (the overworld) start at y -64, 16 (the nether & end) start at y 0.
+/// Chunks of any other height (datapack dimensions) are left as they are, see {@link #getChunksSkipped()}.
+public class ChunkSectionStripper implements ChunkDataPacketListener, UpdateLightPacketListener, BlockUpdatePacketListener,
+        UpdateSectionBlocksPacketListener, BlockEntityDataPacketListener, BlockActionPacketListener {
+
+    /**
+     * Creates a listener that strips the chunk sections outside a range of heights.
+     *
+     * @param protocolVersion The protocol version of the replay. Must be 757 (MC 1.18) or newer.
+     * @param minY            The lowest block y to keep. Sections entirely below it are stripped.
+     * @param maxY            The highest block y to keep. Sections entirely above it are stripped.
+     */
+    public ChunkSectionStripper(int protocolVersion, int minY, int maxY) {
+        if (maxY < minY) {
+            throw new IllegalArgumentException("maxY cannot be below minY");
+        }
+        this.codec = new ChunkSectionCodec(protocolVersion);
+        this.minKeptSection = minY >> 4;
+        this.maxKeptSection = maxY >> 4;
+    }
+
+    private static final int OVERWORLD_SECTIONS = 24;
+    private static final int OVERWORLD_MIN_SECTION_Y = -4;
+    private static final int NETHER_AND_END_SECTIONS = 16;
+
+    private final ChunkSectionCodec codec;
+    private final int minKeptSection;
+    private final int maxKeptSection;
+
+    // The section y of the lowest section of the world. Taken from the last chunk loaded.
+    private int minSectionY = ChunkSectionStripper.OVERWORLD_MIN_SECTION_Y;
+    // False while in a world of unknown height, in which nothing is stripped.
+    private boolean knownHeight = true;
+    private int chunksSkipped = 0;
+
+
+    @Override
+    public void onChunkDataPacket(ChunkDataPacket chunkDataPacket) {
+        int[] rawDataBytes = chunkDataPacket.getRawDataBytes();
+        int sectionCount = this.codec.countSections(rawDataBytes);
+        if (sectionCount < 0) {
+            return;
+        }
+        if (sectionCount == ChunkSectionStripper.OVERWORLD_SECTIONS) {
+            this.minSectionY = ChunkSectionStripper.OVERWORLD_MIN_SECTION_Y;
+        } else if (sectionCount == ChunkSectionStripper.NETHER_AND_END_SECTIONS) {
+            this.minSectionY = 0;
+        } else {
+            // Guessing the lowest section would strip the wrong heights.
+            this.knownHeight = false;
+            this.chunksSkipped++;
+            return;
+        }
+        this.knownHeight = true;
+
+        int[] stripped = this.codec.stripSections(rawDataBytes, this.minSectionY, this.minKeptSection, this.maxKeptSection);
+        if (stripped != null) {
+            chunkDataPacket.setRawDataBytes(stripped);
+        }
+    }
+
+    @Override
+    public void onUpdateLightPacket(UpdateLightPacket updateLightPacket) {
+        if (!this.knownHeight) {
+            return;
+        }
+        int[] stripped = this.codec.stripLight(updateLightPacket.getRawDataBytes(), 0, this.minSectionY, this.minKeptSection, this.maxKeptSection);
+        if (stripped != null) {
+            updateLightPacket.setRawDataBytes(stripped);
+        }
+    }
+
+
+    @Override
+    public void onBlockUpdatePacket(BlockUpdatePacket blockUpdatePacket) {
+        if (this.isStripped(blockUpdatePacket.getPositionY() >> 4)) {
+            blockUpdatePacket.setWriteCanceled(true);
+        }
+    }
+
+    @Override
+    public void onUpdateSectionBlocksPacket(UpdateSectionBlocksPacket updateSectionBlocksPacket) {
+        if (this.isStripped(updateSectionBlocksPacket.getSectionY())) {
+            updateSectionBlocksPacket.setWriteCanceled(true);
+        }
+    }
+
+    @Override
+    public void onBlockEntityDataPacket(BlockEntityDataPacket blockEntityDataPacket) {
+        if (this.isStripped(blockEntityDataPacket.getPositionY() >> 4)) {
+            blockEntityDataPacket.setWriteCanceled(true);
+        }
+    }
+
+    @Override
+    public void onBlockActionPacket(BlockActionPacket blockActionPacket) {
+        if (this.isStripped(blockActionPacket.getPositionY() >> 4)) {
+            blockActionPacket.setWriteCanceled(true);
+        }
+    }
+
+
+    private boolean isStripped(int sectionY) {
+        return this.knownHeight && (sectionY < this.minKeptSection || sectionY > this.maxKeptSection);
+    }
+
+    /// Returns the number of chunks left as they are, because the height of their world (anything but 16 or 24 sections) isn't known.
+    public int getChunksSkipped() {
+        return this.chunksSkipped;
+    }
+
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2025 ExperimentalIdea
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+package com.experimentalidea.replaypacketcleaner.job.listener;
+
+import com.experimentalidea.replaypacketcleaner.packet.*;
+import com.experimentalidea.replaypacketcleaner.packet.listener.*;
+import com.experimentalidea.replaypacketcleaner.protocol.EntityType;
+import com.experimentalidea.replaypacketcleaner.util.IntHashSet;
+
+/// Removes the effects of combat and damage, while keeping the entities themselves.
+/// (damage events, hurt animations & statuses, arm swings, critical hit particles and the potion effects of non-player entities)
+/// <br>
+/// <br> Players are tracked by their spawn packets, so that effects of players (which show up in their HUD when spectated) are kept.
+public class CombatNoiseRemover implements DamageEventPacketListener, HurtAnimationPacketListener, EntityEventPacketListener, EntityAnimationPacketListener,
+        EntityEffectPacketListener, RemoveEntityEffectPacketListener, SpawnEntityPacketListener, SpawnPlayerPacketListener, RemoveEntitiesPacketListener {
+
+    /**
+     * Creates a listener that removes combat and damage effects.
+     *
+     * @param removeDamageEvents   If Damage Event packets should be removed.
+     * @param removeHurtAnimations If the hurt (red flash) animation should be removed. (Hurt Animation packets, the hurt statuses of Entity Event packets and the take damage animation)
+     * @param removeSwings         If arm swing animations should be removed.
+     * @param removeCriticals      If critical hit animations (particles) should be removed.
+     * @param removeMobEffects     If potion effects of non-player entities should be removed.
+     */
+    public CombatNoiseRemover(boolean removeDamageEvents, boolean removeHurtAnimations, boolean removeSwings, boolean removeCriticals, boolean removeMobEffects) {
+        this.removeDamageEvents = removeDamageEvents;
+        this.removeHurtAnimations = removeHurtAnimations;
+        this.removeSwings = removeSwings;
+        this.removeCriticals = removeCriticals;
+        this.removeMobEffects = removeMobEffects;
+    }
+
+    // Entity statuses of the hurt animation. (Note: these were replaced by the Damage Event packet in protocol 762+ / MC 1.19.4+)
+    private static final int STATUS_HURT = 2;
+    private static final int STATUS_HURT_THORNS = 33;
+    private static final int STATUS_HURT_DROWN = 36;
+    private static final int STATUS_HURT_BURN = 37;
+    private static final int STATUS_HURT_BERRY_BUSH = 44;
+    private static final int STATUS_HURT_FREEZE = 57;
+
+    private final boolean removeDamageEvents;
+    private final boolean removeHurtAnimations;
+    private final boolean removeSwings;
+    private final boolean removeCriticals;
+    private final boolean removeMobEffects;
+
+    private final IntHashSet players = new IntHashSet(64);
+
+
+    @Override
+    public void onDamageEventPacket(DamageEventPacket damageEventPacket) {
+        if (this.removeDamageEvents) {
+            damageEventPacket.setWriteCanceled(true);
+        }
+    }
+
+    @Override
+    public void onHurtAnimationPacket(HurtAnimationPacket hurtAnimationPacket) {
+        if (this.removeHurtAnimations) {
+            hurtAnimationPacket.setWriteCanceled(true);
+        }
+    }
+
+    @Override
+    public void onEntityEventPacket(EntityEventPacket entityEventPacket) {
+        if (!this.removeHurtAnimations) {
+            return;
+        }
+        switch (entityEventPacket.getEntityStatusByte()) {
+            case STATUS_HURT, STATUS_HURT_THORNS, STATUS_HURT_DROWN, STATUS_HURT_BURN, STATUS_HURT_BERRY_BUSH, STATUS_HURT_FREEZE ->
+                    entityEventPacket.setWriteCanceled(true);
+            default -> {
+            }
+        }
+    }
+
+    @Override
+    public void onEntityAnimationPacket(EntityAnimationPacket entityAnimationPacket) {
+        boolean remove = switch (entityAnimationPacket.getAnimationType()) {
+            case SWING_MAIN_HAND, SWING_OFF_HAND -> this.removeSwings;
+            case CRITICAL_EFFECT, MAGIC_CRITICAL_EFFECT -> this.removeCriticals;
+            case TAKE_DAMAGE -> this.removeHurtAnimations;
+            default -> false;
+        };
+        if (remove) {
+            entityAnimationPacket.setWriteCanceled(true);
+        }
+    }
+
+    @Override
+    public void onEntityEffectPacket(EntityEffectPacket entityEffectPacket) {
+        if (this.removeMobEffects && !this.players.contains(entityEffectPacket.getEntityID())) {
+            entityEffectPacket.setWriteCanceled(true);
+        }
+    }
+
+    @Override
+    public void onRemoveEntityEffectPacket(RemoveEntityEffectPacket removeEntityEffectPacket) {
+        if (this.removeMobEffects && !this.players.contains(removeEntityEffectPacket.getEntityID())) {
+            removeEntityEffectPacket.setWriteCanceled(true);
+        }
+    }
+
+
+    // Keep track of which entities are players.
+
+    @Override
+    public void onSpawnEntityPacket(SpawnEntityPacket spawnEntityPacket) {
+        // Entity ids may be reused.
+        if (spawnEntityPacket.getEntityType() == EntityType.PLAYER) {
+            this.players.add(spawnEntityPacket.getEntityID());
+        } else {
+            this.players.remove(spawnEntityPacket.getEntityID());
+        }
+    }
+
+    // Spawn Player. (Note: this packet type was removed and merged into Spawn Entity in protocol 764+ / MC 1.20.2+)
+    @Override
+    public void onSpawnPlayerPacket(SpawnPlayerPacket spawnPlayerPacket) {
+        this.players.add(spawnPlayerPacket.getEntityID());
+    }
+
+    @Override
+    public void onRemoveEntitiesPacket(RemoveEntitiesPacket removeEntitiesPacket) {
+        if (this.players.isEmpty()) {
+            return;
+        }
+        for (int entityID : removeEntitiesPacket.getEntityIDs()) {
+            this.players.remove(entityID);
+        }
+    }
+
+}
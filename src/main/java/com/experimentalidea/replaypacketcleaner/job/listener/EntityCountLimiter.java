@@ -0,0 +1,379 @@
+/*
+ * Copyright 2025 ExperimentalIdea
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+package com.experimentalidea.replaypacketcleaner.job.listener;
+
+import com.experimentalidea.replaypacketcleaner.packet.*;
+import com.experimentalidea.replaypacketcleaner.packet.listener.*;
+import com.experimentalidea.replaypacketcleaner.protocol.EntityType;
+import com.experimentalidea.replaypacketcleaner.protocol.PacketType;
+import com.experimentalidea.replaypacketcleaner.util.IntHashSet;
+import com.experimentalidea.replaypacketcleaner.util.LongIntHashMap;
+import com.experimentalidea.replaypacketcleaner.util.LongLongHashMap;
+
+import java.util.*;
+
+/// Caps the number of live entities of each type within a region of chunks. (mob farms, animal pens, etc.)
+/// The first entities spawned within a region are kept, further spawns of the same type are suppressed along with all their packets.
+/// An entity counts towards the region it was spawned in. Players are never capped.
+/// <br>
+/// <br> Optionally, when a kept entity is removed, a suppressed entity of the same type and region is promoted in its place.
+/// For this, the state of suppressed entities (spawn, position, rotation, metadata, equipment and attributes) is tracked so they can be spawned later.
+public class EntityCountLimiter extends EntityFilter implements SpawnEntityPacketListener, SpawnLivingEntityPacketListener, PacketInserter {
+
+    /**
+     * Creates a listener that caps the number of entities per type within a region.
+     *
+     * @param maxEntities      The max number of live entities of the same type within a region.
+     * @param regionSizeChunks The width of a region in chunks. A region covers regionSizeChunks x regionSizeChunks chunks.
+     * @param promote          If suppressed entities should be promoted when kept entities are removed.
+     */
+    public EntityCountLimiter(int maxEntities, int regionSizeChunks, boolean promote) {
+        this.maxEntities = Math.max(0, maxEntities);
+        this.regionSizeChunks = Math.max(1, regionSizeChunks);
+        this.promote = promote;
+    }
+
+    /// Suppressed entities stop being promotable once this many state packets are tracked for them.
+    private static final int MAX_TRACKED_STATE_PACKETS = 16;
+
+    private final int maxEntities;
+    private final int regionSizeChunks;
+    private final boolean promote;
+
+    // Kept entity id -> the key of its type & region.
+    private final LongLongHashMap keptEntities = new LongLongHashMap(256);
+    // Key of type & region -> number of kept entities.
+    private final LongIntHashMap keptCounts = new LongIntHashMap(64);
+    private final IntHashSet suppressedEntities = new IntHashSet(256);
+
+    // Only used when promoting.
+    private final Map<Integer, SuppressedEntity> promotableEntities = new HashMap<Integer, SuppressedEntity>();
+    private final Map<Long, ArrayDeque<SuppressedEntity>> promotableEntitiesByKey = new HashMap<Long, ArrayDeque<SuppressedEntity>>();
+    private final List<Packet> promotedPackets = new ArrayList<Packet>();
+
+
+    /// The latest known state of a suppressed entity.
+    private static class SuppressedEntity {
+
+        private SuppressedEntity(Packet spawnPacket, long key, double x, double y, double z, int yawByte, int pitchByte, int headYawByte) {
+            this.spawnPacket = spawnPacket;
+            this.key = key;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.yawByte = yawByte;
+            this.pitchByte = pitchByte;
+            this.headYawByte = headYawByte;
+        }
+
+        private final Packet spawnPacket;
+        private final long key;
+        private double x, y, z;
+        private int yawByte, pitchByte, headYawByte;
+        private SetEntityMetadataPacket metadataPacket = null;
+        private final List<Packet> statePackets = new ArrayList<Packet>(4);
+
+    }
+
+
+    /// Encode the key of an entity type & region. (regionX: 22 bits, regionZ: 22 bits, entity type: 20 bits)
+    private long keyOf(EntityType entityType, double x, double z) {
+        long regionX = Math.floorDiv((int) Math.floor(x) >> 4, this.regionSizeChunks);
+        long regionZ = Math.floorDiv((int) Math.floor(z) >> 4, this.regionSizeChunks);
+        return ((regionX & 0x3FFFFF) << 42) | ((regionZ & 0x3FFFFF) << 20) | entityType.ordinal();
+    }
+
+    private void onSpawn(Packet spawnPacket, int entityID, EntityType entityType, double x, double y, double z, int yawByte, int pitchByte, int headYawByte) {
+        // Entity ids may be reused.
+        this.onEntityRemoved(entityID);
+
+        if (entityType == EntityType.PLAYER || spawnPacket.isWriteCanceled()) {
+            return;
+        }
+        long key = this.keyOf(entityType, x, z);
+        if (this.keptCounts.get(key, 0) < this.maxEntities) {
+            this.keptCounts.add(key, 1);
+            this.keptEntities.put(entityID, key);
+            return;
+        }
+
+        spawnPacket.setWriteCanceled(true);
+        this.suppressedEntities.add(entityID);
+        if (this.promote) {
+            SuppressedEntity suppressedEntity = new SuppressedEntity(spawnPacket, key, x, y, z, yawByte, pitchByte, headYawByte);
+            this.promotableEntities.put(entityID, suppressedEntity);
+            this.promotableEntitiesByKey.computeIfAbsent(key, k -> new ArrayDeque<SuppressedEntity>()).addLast(suppressedEntity);
+        }
+    }
+
+    @Override
+    public void onSpawnEntityPacket(SpawnEntityPacket spawnEntityPacket) {
+        this.onSpawn(spawnEntityPacket, spawnEntityPacket.getEntityID(), spawnEntityPacket.getEntityType(),
+                spawnEntityPacket.getX(), spawnEntityPacket.getY(), spawnEntityPacket.getZ(),
+                spawnEntityPacket.getYawByte(), spawnEntityPacket.getPitchByte(), spawnEntityPacket.getHeadYawByte());
+    }
+
+    // Spawn Living Entity. (Note: this packet type was removed and merged into Spawn Entity in protocol 759+ / MC 1.19+)
+    @Override
+    public void onSpawnLivingEntityPacket(SpawnLivingEntityPacket spawnLivingEntityPacket) {
+        this.onSpawn(spawnLivingEntityPacket, spawnLivingEntityPacket.getEntityID(), spawnLivingEntityPacket.getEntityType(),
+                spawnLivingEntityPacket.getX(), spawnLivingEntityPacket.getY(), spawnLivingEntityPacket.getZ(),
+                spawnLivingEntityPacket.getYawByte(), spawnLivingEntityPacket.getPitchByte(), spawnLivingEntityPacket.getHeadYawByte());
+    }
+
+
+    @Override
+    protected boolean isFiltered(int entityID) {
+        return this.suppressedEntities.contains(entityID);
+    }
+
+    @Override
+    protected boolean onEntityRemoved(int entityID) {
+        if (this.suppressedEntities.remove(entityID)) {
+            SuppressedEntity suppressedEntity = this.promotableEntities.remove(entityID);
+            if (suppressedEntity != null) {
+                ArrayDeque<SuppressedEntity> queue = this.promotableEntitiesByKey.get(suppressedEntity.key);
+                queue.remove(suppressedEntity);
+                if (queue.isEmpty()) {
+                    this.promotableEntitiesByKey.remove(suppressedEntity.key);
+                }
+            }
+            return true;
+        }
+
+        long key = this.keptEntities.get(entityID, -1L);
+        if (key == -1L && !this.keptEntities.containsKey(entityID)) {
+            return false;
+        }
+        this.keptEntities.remove(entityID);
+        if (this.keptCounts.add(key, -1) <= 0) {
+            this.keptCounts.remove(key);
+        }
+
+        // Take its place with a suppressed entity.
+        if (this.promote) {
+            ArrayDeque<SuppressedEntity> queue = this.promotableEntitiesByKey.get(key);
+            SuppressedEntity promoted = queue == null ? null : queue.pollFirst();
+            if (promoted != null) {
+                if (queue.isEmpty()) {
+                    this.promotableEntitiesByKey.remove(key);
+                }
+                int promotedEntityID = this.entityIDOf(promoted.spawnPacket);
+                this.promotableEntities.remove(promotedEntityID);
+                this.suppressedEntities.remove(promotedEntityID);
+                this.keptEntities.put(promotedEntityID, key);
+                this.keptCounts.add(key, 1);
+                this.materialize(promoted);
+            }
+        }
+        return false;
+    }
+
+
+    // Track the state of suppressed entities, so they can be spawned later.
+
+    /// Returns the suppressed entity if it is promotable.
+    private SuppressedEntity promotable(int entityID) {
+        if (this.promotableEntities.isEmpty()) {
+            return null;
+        }
+        return this.promotableEntities.get(entityID);
+    }
+
+    /// Stop tracking the state of the entity, it'll remain suppressed.
+    private void forgetPromotable(SuppressedEntity suppressedEntity) {
+        this.promotableEntities.remove(this.entityIDOf(suppressedEntity.spawnPacket));
+        ArrayDeque<SuppressedEntity> queue = this.promotableEntitiesByKey.get(suppressedEntity.key);
+        queue.remove(suppressedEntity);
+        if (queue.isEmpty()) {
+            this.promotableEntitiesByKey.remove(suppressedEntity.key);
+        }
+    }
+
+    private void trackStatePacket(SuppressedEntity suppressedEntity, Packet packet) {
+        if (suppressedEntity.statePackets.size() >= EntityCountLimiter.MAX_TRACKED_STATE_PACKETS) {
+            this.forgetPromotable(suppressedEntity);
+            return;
+        }
+        suppressedEntity.statePackets.add(packet);
+    }
+
+    @Override
+    public void onSetEntityMetadataPacket(SetEntityMetadataPacket setEntityMetadataPacket) {
+        super.onSetEntityMetadataPacket(setEntityMetadataPacket);
+        SuppressedEntity suppressedEntity = this.promotable(setEntityMetadataPacket.getEntityID());
+        if (suppressedEntity != null) {
+            // Metadata packets only carry the entries that changed. Merge them into one.
+            if (suppressedEntity.metadataPacket == null) {
+                suppressedEntity.metadataPacket = setEntityMetadataPacket;
+            } else if (!suppressedEntity.metadataPacket.getMetadata().merge(setEntityMetadataPacket.getMetadata())) {
+                this.trackStatePacket(suppressedEntity, setEntityMetadataPacket);
+            }
+        }
+    }
+
+    @Override
+    public void onSetEquipmentPacket(SetEquipmentPacket setEquipmentPacket) {
+        super.onSetEquipmentPacket(setEquipmentPacket);
+        SuppressedEntity suppressedEntity = this.promotable(setEquipmentPacket.getEntityID());
+        if (suppressedEntity != null) {
+            this.trackStatePacket(suppressedEntity, setEquipmentPacket);
+        }
+    }
+
+    @Override
+    public void onUpdateAttributesPacket(UpdateAttributesPacket updateAttributesPacket) {
+        super.onUpdateAttributesPacket(updateAttributesPacket);
+        SuppressedEntity suppressedEntity = this.promotable(updateAttributesPacket.getEntityID());
+        if (suppressedEntity != null) {
+            this.trackStatePacket(suppressedEntity, updateAttributesPacket);
+        }
+    }
+
+    @Override
+    public void onUpdateEntityPositionPacket(UpdateEntityPositionPacket updateEntityPositionPacket) {
+        super.onUpdateEntityPositionPacket(updateEntityPositionPacket);
+        SuppressedEntity suppressedEntity = this.promotable(updateEntityPositionPacket.getEntityID());
+        if (suppressedEntity != null) {
+            suppressedEntity.x += updateEntityPositionPacket.getDeltaX() / 4096.0;
+            suppressedEntity.y += updateEntityPositionPacket.getDeltaY() / 4096.0;
+            suppressedEntity.z += updateEntityPositionPacket.getDeltaZ() / 4096.0;
+        }
+    }
+
+    @Override
+    public void onUpdateEntityPositionAndRotationPacket(UpdateEntityPositionAndRotationPacket updateEntityPositionAndRotationPacket) {
+        super.onUpdateEntityPositionAndRotationPacket(updateEntityPositionAndRotationPacket);
+        SuppressedEntity suppressedEntity = this.promotable(updateEntityPositionAndRotationPacket.getEntityID());
+        if (suppressedEntity != null) {
+            suppressedEntity.x += updateEntityPositionAndRotationPacket.getDeltaX() / 4096.0;
+            suppressedEntity.y += updateEntityPositionAndRotationPacket.getDeltaY() / 4096.0;
+            suppressedEntity.z += updateEntityPositionAndRotationPacket.getDeltaZ() / 4096.0;
+            suppressedEntity.yawByte = updateEntityPositionAndRotationPacket.getYawByte();
+            suppressedEntity.pitchByte = updateEntityPositionAndRotationPacket.getPitchByte();
+        }
+    }
+
+    @Override
+    public void onUpdateEntityRotationPacket(UpdateEntityRotationPacket updateEntityRotationPacket) {
+        super.onUpdateEntityRotationPacket(updateEntityRotationPacket);
+        SuppressedEntity suppressedEntity = this.promotable(updateEntityRotationPacket.getEntityID());
+        if (suppressedEntity != null) {
+            suppressedEntity.yawByte = updateEntityRotationPacket.getYawByte();
+            suppressedEntity.pitchByte = updateEntityRotationPacket.getPitchByte();
+        }
+    }
+
+    @Override
+    public void onSetHeadRotationPacket(SetHeadRotationPacket setHeadRotationPacket) {
+        super.onSetHeadRotationPacket(setHeadRotationPacket);
+        SuppressedEntity suppressedEntity = this.promotable(setHeadRotationPacket.getEntityID());
+        if (suppressedEntity != null) {
+            suppressedEntity.headYawByte = setHeadRotationPacket.getHeadYawByte();
+        }
+    }
+
+    @Override
+    public void onTeleportEntityPacket(TeleportEntityPacket teleportEntityPacket) {
+        super.onTeleportEntityPacket(teleportEntityPacket);
+        SuppressedEntity suppressedEntity = this.promotable(teleportEntityPacket.getEntityID());
+        if (suppressedEntity != null) {
+            suppressedEntity.x = teleportEntityPacket.getX();
+            suppressedEntity.y = teleportEntityPacket.getY();
+            suppressedEntity.z = teleportEntityPacket.getZ();
+            suppressedEntity.yawByte = EntityCountLimiter.toAngleByte(teleportEntityPacket.getYaw());
+            suppressedEntity.pitchByte = EntityCountLimiter.toAngleByte(teleportEntityPacket.getPitch());
+        }
+    }
+
+    @Override
+    public void onSynchronizeVehiclePositionPacket(SynchronizeVehiclePositionPacket synchronizeVehiclePositionPacket) {
+        super.onSynchronizeVehiclePositionPacket(synchronizeVehiclePositionPacket);
+        SuppressedEntity suppressedEntity = this.promotable(synchronizeVehiclePositionPacket.getEntityID());
+        if (suppressedEntity != null) {
+            suppressedEntity.x = (synchronizeVehiclePositionPacket.isRelativeX() ? suppressedEntity.x : 0) + synchronizeVehiclePositionPacket.getX();
+            suppressedEntity.y = (synchronizeVehiclePositionPacket.isRelativeY() ? suppressedEntity.y : 0) + synchronizeVehiclePositionPacket.getY();
+            suppressedEntity.z = (synchronizeVehiclePositionPacket.isRelativeZ() ? suppressedEntity.z : 0) + synchronizeVehiclePositionPacket.getZ();
+            int yawByte = EntityCountLimiter.toAngleByte(synchronizeVehiclePositionPacket.getYaw());
+            int pitchByte = EntityCountLimiter.toAngleByte(synchronizeVehiclePositionPacket.getPitch());
+            suppressedEntity.yawByte = (synchronizeVehiclePositionPacket.isRelativeYaw() ? suppressedEntity.yawByte + yawByte : yawByte) & 0xFF;
+            suppressedEntity.pitchByte = (synchronizeVehiclePositionPacket.isRelativePitch() ? suppressedEntity.pitchByte + pitchByte : pitchByte) & 0xFF;
+        }
+    }
+
+
+    /// Queue up the packets to spawn a promoted entity in its latest known state.
+    private void materialize(SuppressedEntity suppressedEntity) {
+        if (suppressedEntity.spawnPacket instanceof SpawnEntityPacket spawnEntityPacket) {
+            // Velocity isn't tracked, the entity is spawned at rest.
+            this.promotedPackets.add(new SpawnEntityPacket(spawnEntityPacket.getPacketIndex(), spawnEntityPacket.getTimestamp(),
+                    spawnEntityPacket.getEntityID(), spawnEntityPacket.getUuid(), spawnEntityPacket.getEntityType(),
+                    suppressedEntity.x, suppressedEntity.y, suppressedEntity.z, suppressedEntity.pitchByte, suppressedEntity.yawByte, suppressedEntity.headYawByte,
+                    spawnEntityPacket.getData(), (short) 0, (short) 0, (short) 0, spawnEntityPacket.getRawMovementBytes() == null ? null : new int[]{0}));
+        } else if (suppressedEntity.spawnPacket instanceof SpawnLivingEntityPacket spawnLivingEntityPacket) {
+            this.promotedPackets.add(new SpawnLivingEntityPacket(spawnLivingEntityPacket.getPacketIndex(), spawnLivingEntityPacket.getTimestamp(),
+                    spawnLivingEntityPacket.getEntityID(), spawnLivingEntityPacket.getUuid(), spawnLivingEntityPacket.getEntityType(),
+                    suppressedEntity.x, suppressedEntity.y, suppressedEntity.z, suppressedEntity.pitchByte, suppressedEntity.yawByte, suppressedEntity.headYawByte,
+                    (short) 0, (short) 0, (short) 0));
+        }
+        if (suppressedEntity.metadataPacket != null) {
+            this.promotedPackets.add(suppressedEntity.metadataPacket);
+        }
+        this.promotedPackets.addAll(suppressedEntity.statePackets);
+    }
+
+    @Override
+    public Packet[] insertPackets(int timestamp, PacketType.Play nextPacketType) {
+        switch (nextPacketType) {
+            // The client forgets all entities.
+            case RESPAWN, START_CONFIGURATION, LOGIN -> {
+                this.keptEntities.clear();
+                this.keptCounts.clear();
+                this.suppressedEntities.clear();
+                this.promotableEntities.clear();
+                this.promotableEntitiesByKey.clear();
+                this.promotedPackets.clear();
+                return null;
+            }
+            default -> {
+                if (this.promotedPackets.isEmpty()) {
+                    return null;
+                }
+                Packet[] packets = this.promotedPackets.toArray(new Packet[0]);
+                this.promotedPackets.clear();
+                return packets;
+            }
+        }
+    }
+
+    @Override
+    public Packet[] insertPacketsAtEnd() {
+        return null;
+    }
+
+
+    private int entityIDOf(Packet spawnPacket) {
+        if (spawnPacket instanceof SpawnEntityPacket spawnEntityPacket) {
+            return spawnEntityPacket.getEntityID();
+        }
+        return ((SpawnLivingEntityPacket) spawnPacket).getEntityID();
+    }
+
+    private static int toAngleByte(float degrees) {
+        return (int) Math.floor(degrees * 256.0F / 360.0F) & 0xFF;
+    }
+
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2025 ExperimentalIdea
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+package com.experimentalidea.replaypacketcleaner.job.listener;
+
+import com.experimentalidea.replaypacketcleaner.packet.*;
+import com.experimentalidea.replaypacketcleaner.packet.listener.*;
+
+/// The basis of a listener that filters out some entities. All packets associated with a filtered entity are dropped.
+/// Subclasses decide which entities are filtered, usually when they're spawned.
+public abstract class EntityFilter implements RemoveEntitiesPacketListener,
+        DamageEventPacketListener, EntityAnimationPacketListener, EntityEffectPacketListener, EntityEventPacketListener, EntityMovementPacketListener, HurtAnimationPacketListener,
+        LinkEntitiesPacketListener, PickupItemPacketListener, ProjectilePowerPacketListener, RemoveEntityEffectPacketListener, SetEntityMetadataPacketListener, SetEntityVelocityPacketListener,
+        SetEquipmentPacketListener, SetHeadRotationPacketListener, SetPassengersPacketListener, SynchronizeVehiclePositionPacketListener, TeleportEntityPacketListener,
+        UpdateAttributesPacketListener, UpdateEntityPositionPacketListener, UpdateEntityPositionAndRotationPacketListener, UpdateEntityRotationPacketListener {
+
+
+    /// Returns true if packets for the entity should be dropped.
+    protected abstract boolean isFiltered(int entityID);
+
+    /**
+     * Called for each entity removed by a Remove Entities packet. The entity should no longer be tracked after this.
+     *
+     * @return true if the entity was filtered. It's then left out of the packet, as the client never knew about it.
+     */
+    protected abstract boolean onEntityRemoved(int entityID);
+
+
+    @Override
+    public void onRemoveEntitiesPacket(RemoveEntitiesPacket removeEntitiesPacket) {
+        int[] entityIDs = removeEntitiesPacket.getEntityIDs();
+        int remaining = 0;
+        int[] remainingEntityIDs = new int[entityIDs.length];
+        for (int entityID : entityIDs) {
+            if (!this.onEntityRemoved(entityID)) {
+                remainingEntityIDs[remaining++] = entityID;
+            }
+        }
+        if (remaining == 0) {
+            removeEntitiesPacket.setWriteCanceled(true);
+        } else if (remaining != entityIDs.length) {
+            int[] copy = new int[remaining];
+            System.arraycopy(remainingEntityIDs, 0, copy, 0, remaining);
+            removeEntitiesPacket.setEntityIDs(copy);
+        }
+    }
+
+
+    // If a packet involves a filtered entity, cancel writing out the packet.
+
+    @Override
+    public void onDamageEventPacket(DamageEventPacket damageEventPacket) {
+        if (this.isFiltered(damageEventPacket.getEntityID())) {
+            damageEventPacket.setWriteCanceled(true);
+        }
+    }
+
+    @Override
+    public void onEntityAnimationPacket(EntityAnimationPacket entityAnimationPacket) {
+        if (this.isFiltered(entityAnimationPacket.getEntityID())) {
+            entityAnimationPacket.setWriteCanceled(true);
+        }
+    }
+
+    @Override
+    public void onEntityEffectPacket(EntityEffectPacket entityEffectPacket) {
+        if (this.isFiltered(entityEffectPacket.getEntityID())) {
+            entityEffectPacket.setWriteCanceled(true);
+        }
+    }
+
+    @Override
+    public void onEntityEventPacket(EntityEventPacket entityEventPacket) {
+        if (this.isFiltered(entityEventPacket.getEntityID())) {
+            entityEventPacket.setWriteCanceled(true);
+        }
+    }
+
+    @Override
+    public void onEntityMovementPacket(EntityMovementPacket entityMovementPacket) {
+        if (this.isFiltered(entityMovementPacket.getEntityID())) {
+            entityMovementPacket.setWriteCanceled(true);
+        }
+    }
+
+    @Override
+    public void onHurtAnimationPacket(HurtAnimationPacket hurtAnimationPacket) {
+        if (this.isFiltered(hurtAnimationPacket.getEntityID())) {
+            hurtAnimationPacket.setWriteCanceled(true);
+        }
+    }
+
+    @Override
+    public void onLinkEntitiesPacket(LinkEntitiesPacket linkEntitiesPacket) {
+        if (this.isFiltered(linkEntitiesPacket.getAttachedEntityID()) || this.isFiltered(linkEntitiesPacket.getHoldingEntityID())) {
+            linkEntitiesPacket.setWriteCanceled(true);
+        }
+    }
+
+    @Override
+    public void onPickupItemPacket(PickupItemPacket pickupItemPacket) {
+        if (this.isFiltered(pickupItemPacket.getCollectedEntityID()) || this.isFiltered(pickupItemPacket.getCollectorEntityID())) {
+            pickupItemPacket.setWriteCanceled(true);
+        }
+    }
+
+    @Override
+    public void onProjectilePowerPacket(ProjectilePowerPacket projectilePowerPacket) {
+        if (this.isFiltered(projectilePowerPacket.getEntityID())) {
+            projectilePowerPacket.setWriteCanceled(true);
+        }
+    }
+
+    @Override
+    public void onRemoveEntityEffectPacket(RemoveEntityEffectPacket removeEntityEffectPacket) {
+        if (this.isFiltered(removeEntityEffectPacket.getEntityID())) {
+            removeEntityEffectPacket.setWriteCanceled(true);
+        }
+    }
+
+    @Override
+    public void onSetEntityMetadataPacket(SetEntityMetadataPacket setEntityMetadataPacket) {
+        if (this.isFiltered(setEntityMetadataPacket.getEntityID())) {
+            setEntityMetadataPacket.setWriteCanceled(true);
+        }
+    }
+
+    @Override
+    public void onSetEntityVelocityPacket(SetEntityVelocityPacket setEntityVelocityPacket) {
+        if (this.isFiltered(setEntityVelocityPacket.getEntityID())) {
+            setEntityVelocityPacket.setWriteCanceled(true);
+        }
+    }
+
+    @Override
+    public void onSetEquipmentPacket(SetEquipmentPacket setEquipmentPacket) {
+        if (this.isFiltered(setEquipmentPacket.getEntityID())) {
+            setEquipmentPacket.setWriteCanceled(true);
+        }
+    }
+
+    @Override
+    public void onSetHeadRotationPacket(SetHeadRotationPacket setHeadRotationPacket) {
+        if (this.isFiltered(setHeadRotationPacket.getEntityID())) {
+            setHeadRotationPacket.setWriteCanceled(true);
+        }
+    }
+
+    // Drop the packet if the vehicle is filtered, otherwise leave out any filtered passengers.
+    @Override
+    public void onSetPassengersPacket(SetPassengersPacket setPassengersPacket) {
+        if (this.isFiltered(setPassengersPacket.getEntityID())) {
+            setPassengersPacket.setWriteCanceled(true);
+            return;
+        }
+        int[] passengerEntityIDs = setPassengersPacket.getPassengerEntityIDs();
+        int remaining = 0;
+        int[] remainingEntityIDs = new int[passengerEntityIDs.length];
+        for (int passengerEntityID : passengerEntityIDs) {
+            if (!this.isFiltered(passengerEntityID)) {
+                remainingEntityIDs[remaining++] = passengerEntityID;
+            }
+        }
+        if (remaining != passengerEntityIDs.length) {
+            int[] copy = new int[remaining];
+            System.arraycopy(remainingEntityIDs, 0, copy, 0, remaining);
+            setPassengersPacket.setPassengerIDs(copy);
+        }
+    }
+
+    @Override
+    public void onSynchronizeVehiclePositionPacket(SynchronizeVehiclePositionPacket synchronizeVehiclePositionPacket) {
+        if (this.isFiltered(synchronizeVehiclePositionPacket.getEntityID())) {
+            synchronizeVehiclePositionPacket.setWriteCanceled(true);
+        }
+    }
+
+    @Override
+    public void onTeleportEntityPacket(TeleportEntityPacket teleportEntityPacket) {
+        if (this.isFiltered(teleportEntityPacket.getEntityID())) {
+            teleportEntityPacket.setWriteCanceled(true);
+        }
+    }
+
+    @Override
+    public void onUpdateAttributesPacket(UpdateAttributesPacket updateAttributesPacket) {
+        if (this.isFiltered(updateAttributesPacket.getEntityID())) {
+            updateAttributesPacket.setWriteCanceled(true);
+        }
+    }
+
+    @Override
+    public void onUpdateEntityPositionAndRotationPacket(UpdateEntityPositionAndRotationPacket updateEntityPositionAndRotationPacket) {
+        if (this.isFiltered(updateEntityPositionAndRotationPacket.getEntityID())) {
+            updateEntityPositionAndRotationPacket.setWriteCanceled(true);
+        }
+    }
+
+    @Override
+    public void onUpdateEntityPositionPacket(UpdateEntityPositionPacket updateEntityPositionPacket) {
+        if (this.isFiltered(updateEntityPositionPacket.getEntityID())) {
+            updateEntityPositionPacket.setWriteCanceled(true);
+        }
+    }
+
+    @Override
+    public void onUpdateEntityRotationPacket(UpdateEntityRotationPacket updateEntityRotationPacket) {
+        if (this.isFiltered(updateEntityRotationPacket.getEntityID())) {
+            updateEntityRotationPacket.setWriteCanceled(true);
+        }
+    }
+
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2025 ExperimentalIdea
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+package com.experimentalidea.replaypacketcleaner.job.listener;
+
+import com.experimentalidea.replaypacketcleaner.packet.*;
+import com.experimentalidea.replaypacketcleaner.packet.listener.*;
+import com.experimentalidea.replaypacketcleaner.protocol.EntityType;
+import com.experimentalidea.replaypacketcleaner.protocol.PacketType;
+import com.experimentalidea.replaypacketcleaner.protocol.Protocol;
+import com.experimentalidea.replaypacketcleaner.util.IntHashSet;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/// Remove entities that add nothing visible to a replay. (markers, interaction entities, invisible armor stands, and optionally display entities)
+/// Once an entity is classified for removal, all packets for that entity are dropped.
+/// <br>
+/// <br> Armor stands can only be classified by their metadata, which follows the spawn packet.
+/// The metadata and equipment sent along with (within a tick of) the spawn packet are looked ahead for,
+/// so the spawn packet is either dropped (if invisible and without equipment) or passed on to the listeners that follow as usual.
+/// Armor stands whose spawn packet wasn't seen ahead of time are kept.
+public class HiddenEntityRemover extends EntityFilter implements SpawnEntityPacketListener, SpawnLivingEntityPacketListener,
+        LookaheadPacketListener, PacketInserter {
+
+    /**
+     * Creates a listener that removes hidden entities.
+     *
+     * @param protocol       The protocol of the replay.
+     * @param removeDisplays If display entities (block, item and text displays) should be removed as well. These are visible, but usually used for holograms.
+     */
+    public HiddenEntityRemover(Protocol protocol, boolean removeDisplays) {
+        this.protocol = protocol;
+        this.removeDisplays = removeDisplays;
+    }
+
+    // How long after the spawn packet the metadata and equipment sent along with it may arrive. (a tick)
+    private static final int CLASSIFY_WINDOW_MILLISECONDS = 50;
+    private static final int LOOKAHEAD_BUDGET_BYTES = 1024 * 1024;
+
+    private final Protocol protocol;
+    private final boolean removeDisplays;
+
+    // Ids of the entities being removed.
+    private final IntHashSet removedEntities = new IntHashSet(256);
+    // Armor stands seen ahead of time, in the order of their spawn packets.
+    private final ArrayDeque<UpcomingArmorStand> upcomingArmorStands = new ArrayDeque<UpcomingArmorStand>();
+    // Entity id -> the latest armor stand seen ahead of time with that id.
+    private final Map<Integer, UpcomingArmorStand> latestUpcomingArmorStands = new HashMap<Integer, UpcomingArmorStand>();
+
+
+    private static class UpcomingArmorStand {
+
+        private UpcomingArmorStand(int entityID, int timestamp) {
+            this.entityID = entityID;
+            this.timestamp = timestamp;
+        }
+
+        private final int entityID;
+        private final int timestamp;
+        private boolean invisible = false;
+        private boolean equipped = false;
+
+    }
+
+
+    @Override
+    public int getLookaheadMilliseconds() {
+        return HiddenEntityRemover.CLASSIFY_WINDOW_MILLISECONDS;
+    }
+
+    @Override
+    public int getLookaheadBudgetBytes() {
+        return HiddenEntityRemover.LOOKAHEAD_BUDGET_BYTES;
+    }
+
+    @Override
+    public PacketType.Play[] getLookaheadPacketTypes() {
+        return new PacketType.Play[]{PacketType.Play.SPAWN_ENTITY, PacketType.Play.SPAWN_LIVING_ENTITY, PacketType.Play.SET_ENTITY_METADATA, PacketType.Play.SET_EQUIPMENT};
+    }
+
+    @Override
+    public void onLookaheadPacket(RawPacket rawPacket) {
+        int[] data = rawPacket.getRawDataBytes();
+        int[] position = new int[1];
+        int entityID = HiddenEntityRemover.readVarInt(data, position);
+
+        switch (rawPacket.getPacketType()) {
+            // Entity id, uuid, then the entity type. (the same for both spawn packets)
+            case SPAWN_ENTITY, SPAWN_LIVING_ENTITY -> {
+                position[0] += 16;
+                if (position[0] >= data.length) {
+                    return;
+                }
+                if (this.protocol.getEntityType(HiddenEntityRemover.readVarInt(data, position)) == EntityType.ARMOR_STAND) {
+                    UpcomingArmorStand armorStand = new UpcomingArmorStand(entityID, rawPacket.getTimestamp());
+                    this.upcomingArmorStands.addLast(armorStand);
+                    this.latestUpcomingArmorStands.put(entityID, armorStand);
+                } else {
+                    this.latestUpcomingArmorStands.remove(entityID);
+                }
+            }
+            case SET_ENTITY_METADATA -> {
+                UpcomingArmorStand armorStand = this.getUpcomingArmorStand(entityID, rawPacket.getTimestamp());
+                if (armorStand != null) {
+                    EntityMetadata metadata = new EntityMetadata(this.protocol.getProtocolVersion(), Arrays.copyOfRange(data, position[0], data.length));
+                    if (metadata.contains(EntityMetadata.INDEX_SHARED_FLAGS)) {
+                        armorStand.invisible = metadata.hasSharedFlag(EntityMetadata.FLAG_INVISIBLE);
+                    }
+                }
+            }
+            case SET_EQUIPMENT -> {
+                UpcomingArmorStand armorStand = this.getUpcomingArmorStand(entityID, rawPacket.getTimestamp());
+                if (armorStand != null) {
+                    armorStand.equipped = true;
+                }
+            }
+        }
+    }
+
+    /// Returns the armor stand seen ahead of time, if a packet at the timestamp is sent along with its spawn packet.
+    private UpcomingArmorStand getUpcomingArmorStand(int entityID, int timestamp) {
+        UpcomingArmorStand armorStand = this.latestUpcomingArmorStands.get(entityID);
+        if (armorStand == null || timestamp - armorStand.timestamp > HiddenEntityRemover.CLASSIFY_WINDOW_MILLISECONDS) {
+            return null;
+        }
+        return armorStand;
+    }
+
+    /// Returns the armor stand seen ahead of time for the spawn packet, or null if it wasn't seen.
+    private UpcomingArmorStand pollUpcomingArmorStand(int entityID, int timestamp) {
+        // Those left behind were never processed. (e.g. dropped by the packet filter)
+        while (!this.upcomingArmorStands.isEmpty() && this.upcomingArmorStands.peekFirst().timestamp < timestamp) {
+            this.latestUpcomingArmorStands.remove(this.upcomingArmorStands.peekFirst().entityID, this.upcomingArmorStands.pollFirst());
+        }
+        Iterator<UpcomingArmorStand> iterator = this.upcomingArmorStands.iterator();
+        while (iterator.hasNext()) {
+            UpcomingArmorStand armorStand = iterator.next();
+            if (armorStand.timestamp != timestamp) {
+                break;
+            }
+            if (armorStand.entityID == entityID) {
+                iterator.remove();
+                this.latestUpcomingArmorStands.remove(entityID, armorStand);
+                return armorStand;
+            }
+        }
+        return null;
+    }
+
+
+    private boolean isRemovedType(EntityType entityType) {
+        return switch (entityType) {
+            case MARKER, INTERACTION -> true;
+            case BLOCK_DISPLAY, ITEM_DISPLAY, TEXT_DISPLAY -> this.removeDisplays;
+            default -> false;
+        };
+    }
+
+    private void onSpawn(Packet spawnPacket, int entityID, EntityType entityType) {
+        // Entity ids may be reused.
+        this.removedEntities.remove(entityID);
+
+        if (this.isRemovedType(entityType)) {
+            this.removedEntities.add(entityID);
+            spawnPacket.setWriteCanceled(true);
+        } else if (entityType == EntityType.ARMOR_STAND) {
+            UpcomingArmorStand armorStand = this.pollUpcomingArmorStand(entityID, spawnPacket.getTimestamp());
+            if (armorStand != null && armorStand.invisible && !armorStand.equipped && !spawnPacket.isWriteCanceled()) {
+                this.removedEntities.add(entityID);
+                spawnPacket.setWriteCanceled(true);
+            }
+        }
+    }
+
+    @Override
+    public void onSpawnEntityPacket(SpawnEntityPacket spawnEntityPacket) {
+        this.onSpawn(spawnEntityPacket, spawnEntityPacket.getEntityID(), spawnEntityPacket.getEntityType());
+    }
+
+    // Spawn Living Entity. (Note: this packet type was removed and merged into Spawn Entity in protocol 759+ / MC 1.19+)
+    @Override
+    public void onSpawnLivingEntityPacket(SpawnLivingEntityPacket spawnLivingEntityPacket) {
+        this.onSpawn(spawnLivingEntityPacket, spawnLivingEntityPacket.getEntityID(), spawnLivingEntityPacket.getEntityType());
+    }
+
+    @Override
+    protected boolean isFiltered(int entityID) {
+        return this.removedEntities.contains(entityID);
+    }
+
+    @Override
+    protected boolean onEntityRemoved(int entityID) {
+        return this.removedEntities.remove(entityID);
+    }
+
+
+    @Override
+    public Packet[] insertPackets(int timestamp, PacketType.Play nextPacketType) {
+        switch (nextPacketType) {
+            // The client forgets all entities.
+            case RESPAWN, START_CONFIGURATION, LOGIN -> this.removedEntities.clear();
+        }
+        return null;
+    }
+
+    @Override
+    public Packet[] insertPacketsAtEnd() {
+        return null;
+    }
+
+
+    private static int readVarInt(int[] data, int[] position) {
+        int value = 0;
+        int shift = 0;
+        while (position[0] < data.length && shift < 32) {
+            int currentByte = data[position[0]++];
+            value |= (currentByte & 0x7F) << shift;
+            if ((currentByte & 0x80) == 0) {
+                break;
+            }
+            shift += 7;
+        }
+        return value;
+    }
+
+}
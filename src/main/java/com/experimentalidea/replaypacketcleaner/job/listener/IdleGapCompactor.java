@@ -0,0 +1,215 @@
+/*
+ * Copyright 2025 ExperimentalIdea
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+package com.experimentalidea.replaypacketcleaner.job.listener;
+
+import com.experimentalidea.replaypacketcleaner.packet.*;
+import com.experimentalidea.replaypacketcleaner.packet.listener.*;
+import com.experimentalidea.replaypacketcleaner.protocol.PacketType;
+import com.experimentalidea.replaypacketcleaner.util.LongIntHashMap;
+
+/// Shrinks idle gaps of a replay (afk stretches, menu pauses, loading screens, etc.) by shifting all later timestamps back.
+/// <br>
+/// <br> The replay is split into one second buckets. A bucket is idle if both its number of packets and its number of visual packets are below a threshold.
+/// A run of idle buckets that lasts at least the min gap is a gap, and is shrunk down to the gap length. Nothing is dropped, the packets within a gap are squeezed together.
+/// Packets are counted ahead of time by their type, as they enter the lookahead buffer.
+/// <br>
+/// <br> Once a gap ends, the current time is sent to the client, so that the daylight cycle picks up where it would be without the cut.
+/// Weather changes are sent as packets, which are kept, so the weather stays consistent by itself.
+public class IdleGapCompactor implements TimestampTransformer, LookaheadPacketCounter, UpdateTimePacketListener, PacketInserter {
+
+    /**
+     * Creates a listener that shrinks idle gaps.
+     *
+     * @param minGapMilliseconds How long (in milliseconds) the replay must stay idle for it to be considered a gap.
+     * @param gapMilliseconds    The length (in milliseconds) a gap is shrunk down to. At most the min gap.
+     * @param maxPackets         A second with fewer packets than this is idle. (unless it has too many visual packets)
+     * @param maxVisualPackets   A second with fewer visual packets (entity movement, block changes, particles, etc.) than this is idle.
+     * @param budgetBytes        The max number of bytes buffered for looking ahead.
+     */
+    public IdleGapCompactor(int minGapMilliseconds, int gapMilliseconds, int maxPackets, int maxVisualPackets, int budgetBytes) {
+        this.minGapBuckets = Math.max(1, (minGapMilliseconds + IdleGapCompactor.BUCKET_MILLISECONDS - 1) / IdleGapCompactor.BUCKET_MILLISECONDS);
+        this.gapMilliseconds = Math.max(0, Math.min(gapMilliseconds, this.minGapBuckets * IdleGapCompactor.BUCKET_MILLISECONDS));
+        this.maxPackets = maxPackets;
+        this.maxVisualPackets = maxVisualPackets;
+        this.budgetBytes = budgetBytes;
+    }
+
+    private static final int BUCKET_MILLISECONDS = 1000;
+    /// The number of milliseconds per game tick.
+    private static final int TICK_MILLISECONDS = 50;
+    /// Forget the counts of buckets already passed once this many buckets are tracked.
+    private static final int MAX_TRACKED_BUCKETS = 4096;
+
+    private static final boolean[] VISUAL_PACKET_TYPES = new boolean[PacketType.Play.values().length];
+
+    static {
+        for (PacketType.Play packetType : new PacketType.Play[]{
+                PacketType.Play.BLOCK_ACTION, PacketType.Play.BLOCK_UPDATE, PacketType.Play.CHUNK_DATA, PacketType.Play.CHUNK_DATA_AND_UPDATE_LIGHT,
+                PacketType.Play.DAMAGE_EVENT, PacketType.Play.ENTITY_ANIMATION, PacketType.Play.EXPLOSION, PacketType.Play.PARTICLE, PacketType.Play.REMOVE_ENTITIES,
+                PacketType.Play.SET_ENTITY_METADATA, PacketType.Play.SET_EQUIPMENT, PacketType.Play.SET_HEAD_ROTATION, PacketType.Play.SPAWN_ENTITY,
+                PacketType.Play.SPAWN_EXPERIENCE_ORB, PacketType.Play.SPAWN_LIVING_ENTITY, PacketType.Play.SPAWN_PAINTING, PacketType.Play.SPAWN_PLAYER,
+                PacketType.Play.TELEPORT_ENTITY, PacketType.Play.UNLOAD_CHUNK, PacketType.Play.UPDATE_ENTITY_POSITION, PacketType.Play.UPDATE_ENTITY_POSITION_AND_ROTATION,
+                PacketType.Play.UPDATE_ENTITY_ROTATION, PacketType.Play.UPDATE_SECTION_BLOCKS, PacketType.Play.WORLD_EVENT}) {
+            IdleGapCompactor.VISUAL_PACKET_TYPES[packetType.ordinal()] = true;
+        }
+    }
+
+    private final int minGapBuckets;
+    private final int gapMilliseconds;
+    private final int maxPackets;
+    private final int maxVisualPackets;
+    private final int budgetBytes;
+
+    // Bucket -> number of packets / visual packets, as seen ahead of time.
+    private final LongIntHashMap packetCounts = new LongIntHashMap(64);
+    private final LongIntHashMap visualPacketCounts = new LongIntHashMap(64);
+    // The timestamp of the furthest packet seen ahead of time.
+    private int lookaheadTimestamp = 0;
+
+    private int currentBucket = -1;
+    private int lastActiveBucket = -1;
+    // The timestamp the current gap starts at, -1 if not within a gap.
+    private int gapStart = -1;
+    // The number of milliseconds cut out so far.
+    private int shift = 0;
+
+    // The latest time sent to the client, to pick up from once a gap ends.
+    private UpdateTimePacket lastUpdateTimePacket = null;
+
+
+    @Override
+    public int getLookaheadMilliseconds() {
+        // Whole buckets, covering the min gap past the start of the current bucket.
+        return (this.minGapBuckets + 1) * IdleGapCompactor.BUCKET_MILLISECONDS;
+    }
+
+    @Override
+    public int getLookaheadBudgetBytes() {
+        return this.budgetBytes;
+    }
+
+    // Only the packet types are needed, no copies of the packets.
+    @Override
+    public PacketType.Play[] getLookaheadPacketTypes() {
+        return new PacketType.Play[0];
+    }
+
+    @Override
+    public void onLookaheadPacket(RawPacket rawPacket) {
+        // Never called, no packet types are asked for.
+    }
+
+    @Override
+    public void onLookaheadPacketType(PacketType.Play packetType, int timestamp) {
+        long bucket = timestamp / IdleGapCompactor.BUCKET_MILLISECONDS;
+        this.packetCounts.add(bucket, 1);
+        if (IdleGapCompactor.VISUAL_PACKET_TYPES[packetType.ordinal()]) {
+            this.visualPacketCounts.add(bucket, 1);
+        }
+        this.lookaheadTimestamp = Math.max(this.lookaheadTimestamp, timestamp);
+    }
+
+
+    @Override
+    public void onUpdateTimePacket(UpdateTimePacket updateTimePacket) {
+        if (!updateTimePacket.isWriteCanceled()) {
+            this.lastUpdateTimePacket = updateTimePacket;
+        }
+    }
+
+
+    @Override
+    public Packet[] insertPackets(int timestamp, PacketType.Play nextPacketType) {
+        int bucket = timestamp / IdleGapCompactor.BUCKET_MILLISECONDS;
+        if (bucket == this.currentBucket) {
+            return null;
+        }
+        this.currentBucket = bucket;
+        this.forgetPassedBuckets();
+
+        if (this.gapStart != -1) {
+            if (!this.isActive(bucket)) {
+                return null;
+            }
+            // The gap is over. Cut out everything past the gap length.
+            this.shift += Math.max(0, bucket * IdleGapCompactor.BUCKET_MILLISECONDS - this.gapStart - this.gapMilliseconds);
+            this.gapStart = -1;
+            this.lastActiveBucket = bucket;
+            return this.currentTime(timestamp);
+        }
+
+        if (this.isActive(bucket)) {
+            this.lastActiveBucket = bucket;
+        } else if (this.isGap(this.lastActiveBucket + 1)) {
+            // Packets written before the gap was recognized keep their timestamps. (only if the lookahead buffer ran short)
+            this.gapStart = Math.max((this.lastActiveBucket + 1) * IdleGapCompactor.BUCKET_MILLISECONDS, timestamp - this.gapMilliseconds);
+        }
+        return null;
+    }
+
+    @Override
+    public Packet[] insertPacketsAtEnd() {
+        return null;
+    }
+
+
+    @Override
+    public int transformTimestamp(int timestamp) {
+        if (this.gapStart != -1 && timestamp > this.gapStart) {
+            return this.gapStart + Math.min(timestamp - this.gapStart, this.gapMilliseconds) - this.shift;
+        }
+        return timestamp - this.shift;
+    }
+
+
+    private boolean isActive(long bucket) {
+        return this.packetCounts.get(bucket, 0) >= this.maxPackets || this.visualPacketCounts.get(bucket, 0) >= this.maxVisualPackets;
+    }
+
+    /// Returns true if the buckets starting at the given bucket are known to be idle for at least the min gap.
+    private boolean isGap(int startBucket) {
+        int endBucket = startBucket + this.minGapBuckets;
+        if (this.lookaheadTimestamp < endBucket * IdleGapCompactor.BUCKET_MILLISECONDS) {
+            return false;
+        }
+        for (int bucket = startBucket; bucket < endBucket; bucket++) {
+            if (this.isActive(bucket)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void forgetPassedBuckets() {
+        if (this.packetCounts.size() > IdleGapCompactor.MAX_TRACKED_BUCKETS) {
+            long lastNeededBucket = Math.min(this.currentBucket, this.lastActiveBucket + 1);
+            this.packetCounts.removeIf(bucket -> bucket < lastNeededBucket);
+            this.visualPacketCounts.removeIf(bucket -> bucket < lastNeededBucket);
+        }
+    }
+
+    /// Returns the time the client should be at, following the latest time sent to it.
+    private Packet[] currentTime(int timestamp) {
+        if (this.lastUpdateTimePacket == null) {
+            return null;
+        }
+        long ticks = (timestamp - this.lastUpdateTimePacket.getTimestamp()) / IdleGapCompactor.TICK_MILLISECONDS;
+        UpdateTimePacket updateTimePacket = new UpdateTimePacket(0, timestamp, this.lastUpdateTimePacket.getWorldAge() + ticks,
+                this.lastUpdateTimePacket.getTimeOfDay() + (this.lastUpdateTimePacket.doesTimeAdvance() ? ticks : 0), this.lastUpdateTimePacket.doesTimeAdvance());
+        return new Packet[]{updateTimePacket};
+    }
+
+}
@@ -0,0 +1,399 @@
+/*
+ * Copyright 2025 ExperimentalIdea
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+package com.experimentalidea.replaypacketcleaner.job.listener;
+
+import com.experimentalidea.replaypacketcleaner.packet.*;
+import com.experimentalidea.replaypacketcleaner.packet.listener.*;
+import com.experimentalidea.replaypacketcleaner.protocol.PacketType;
+import com.experimentalidea.replaypacketcleaner.util.LongIntHashMap;
+
+/// Re-encodes entity movement in the smallest packet that leaves the client with the same position, rotation and on ground state.
+/// <br>
+/// <br> Tracks the last position, rotation and on ground state sent to the client for each entity.
+/// Movement that changes nothing is dropped, a position and rotation update that only changes one of the two is written as a position or rotation update,
+/// and a teleport (before 1.21.2) that a relative move reproduces exactly is written as one.
+/// <br> Positions are only compared exactly, a relative move is never used where it would round the position the client ends up with.
+public class MovementMinimizer implements SpawnEntityPacketListener, SpawnLivingEntityPacketListener, SpawnPlayerPacketListener, SpawnExperienceOrbPacketListener,
+        UpdateEntityPositionPacketListener, UpdateEntityPositionAndRotationPacketListener, UpdateEntityRotationPacketListener, TeleportEntityPacketListener,
+        SynchronizeVehiclePositionPacketListener, MoveMinecartAlongTrackPacketListener, RemoveEntitiesPacketListener, PacketInserter {
+
+    /// Creates a listener that re-encodes entity movement in its smallest form.
+    public MovementMinimizer() {
+    }
+
+    // Relative moves are in 1/4096ths of a block.
+    private static final double DELTA_SCALE = 4096.0;
+    // Beyond this, a position multiplied by DELTA_SCALE can no longer be told apart from its neighbours.
+    private static final double MAX_SCALED_POSITION = 0x1p52;
+
+    // Entity id -> index within trackedEntities.
+    private final LongIntHashMap trackedIndices = new LongIntHashMap(256);
+    // Only the first trackedCount are in use.
+    private TrackedEntity[] trackedEntities = new TrackedEntity[64];
+    private int trackedCount = 0;
+
+    private long packetsDropped = 0;
+    private long packetsShrunk = 0;
+
+
+    /// What the client was last told about an entity.
+    private static class TrackedEntity {
+
+        private int entityID;
+        // The position relative moves are applied to. Only known while it can be tracked exactly.
+        private boolean positionKnown;
+        private double x, y, z;
+        private boolean rotationKnown;
+        private int yawByte, pitchByte;
+        private boolean onGroundKnown;
+        private boolean onGround;
+
+    }
+
+
+    @Override
+    public void onSpawnEntityPacket(SpawnEntityPacket spawnEntityPacket) {
+        this.onSpawn(spawnEntityPacket, spawnEntityPacket.getEntityID(), spawnEntityPacket.getX(), spawnEntityPacket.getY(), spawnEntityPacket.getZ(), true,
+                spawnEntityPacket.getYawByte(), spawnEntityPacket.getPitchByte());
+    }
+
+    @Override
+    public void onSpawnLivingEntityPacket(SpawnLivingEntityPacket spawnLivingEntityPacket) {
+        this.onSpawn(spawnLivingEntityPacket, spawnLivingEntityPacket.getEntityID(), spawnLivingEntityPacket.getX(), spawnLivingEntityPacket.getY(), spawnLivingEntityPacket.getZ(), true,
+                spawnLivingEntityPacket.getYawByte(), spawnLivingEntityPacket.getPitchByte());
+    }
+
+    @Override
+    public void onSpawnPlayerPacket(SpawnPlayerPacket spawnPlayerPacket) {
+        this.onSpawn(spawnPlayerPacket, spawnPlayerPacket.getEntityID(), spawnPlayerPacket.getX(), spawnPlayerPacket.getY(), spawnPlayerPacket.getZ(), true,
+                spawnPlayerPacket.getYawByte(), spawnPlayerPacket.getPitchByte());
+    }
+
+    @Override
+    public void onSpawnExperienceOrbPacket(SpawnExperienceOrbPacket spawnExperienceOrbPacket) {
+        this.onSpawn(spawnExperienceOrbPacket, spawnExperienceOrbPacket.getEntityID(), spawnExperienceOrbPacket.getX(), spawnExperienceOrbPacket.getY(), spawnExperienceOrbPacket.getZ(), false, 0, 0);
+    }
+
+
+    @Override
+    public void onUpdateEntityPositionPacket(UpdateEntityPositionPacket updateEntityPositionPacket) {
+        int entityID = updateEntityPositionPacket.getEntityID();
+        if (updateEntityPositionPacket.isWriteCanceled()) {
+            this.forget(entityID);
+            return;
+        }
+        TrackedEntity trackedEntity = this.trackedOf(entityID);
+        boolean onGround = updateEntityPositionPacket.isOnGround();
+
+        if (MovementMinimizer.isZero(updateEntityPositionPacket.getDeltaX(), updateEntityPositionPacket.getDeltaY(), updateEntityPositionPacket.getDeltaZ())
+                && MovementMinimizer.isSameOnGround(trackedEntity, onGround)) {
+            updateEntityPositionPacket.setWriteCanceled(true);
+            this.packetsDropped++;
+            return;
+        }
+        MovementMinimizer.applyDelta(trackedEntity, updateEntityPositionPacket.getDeltaX(), updateEntityPositionPacket.getDeltaY(), updateEntityPositionPacket.getDeltaZ());
+        MovementMinimizer.setOnGround(trackedEntity, onGround);
+    }
+
+    @Override
+    public void onUpdateEntityPositionAndRotationPacket(UpdateEntityPositionAndRotationPacket updateEntityPositionAndRotationPacket) {
+        int entityID = updateEntityPositionAndRotationPacket.getEntityID();
+        if (updateEntityPositionAndRotationPacket.isWriteCanceled()) {
+            this.forget(entityID);
+            return;
+        }
+        TrackedEntity trackedEntity = this.trackedOf(entityID);
+        short deltaX = updateEntityPositionAndRotationPacket.getDeltaX();
+        short deltaY = updateEntityPositionAndRotationPacket.getDeltaY();
+        short deltaZ = updateEntityPositionAndRotationPacket.getDeltaZ();
+        int yawByte = updateEntityPositionAndRotationPacket.getYawByte();
+        int pitchByte = updateEntityPositionAndRotationPacket.getPitchByte();
+        boolean onGround = updateEntityPositionAndRotationPacket.isOnGround();
+
+        boolean isZero = MovementMinimizer.isZero(deltaX, deltaY, deltaZ);
+        boolean isSameRotation = MovementMinimizer.isSameRotation(trackedEntity, yawByte, pitchByte);
+        if (isZero && isSameRotation && MovementMinimizer.isSameOnGround(trackedEntity, onGround)) {
+            updateEntityPositionAndRotationPacket.setWriteCanceled(true);
+            this.packetsDropped++;
+            return;
+        }
+        if (isZero) {
+            updateEntityPositionAndRotationPacket.setReplacement(new UpdateEntityRotationPacket(updateEntityPositionAndRotationPacket.getPacketIndex(),
+                    updateEntityPositionAndRotationPacket.getTimestamp(), entityID, yawByte, pitchByte, onGround));
+            this.packetsShrunk++;
+        } else if (isSameRotation) {
+            updateEntityPositionAndRotationPacket.setReplacement(new UpdateEntityPositionPacket(updateEntityPositionAndRotationPacket.getPacketIndex(),
+                    updateEntityPositionAndRotationPacket.getTimestamp(), entityID, deltaX, deltaY, deltaZ, onGround));
+            this.packetsShrunk++;
+        }
+        MovementMinimizer.applyDelta(trackedEntity, deltaX, deltaY, deltaZ);
+        MovementMinimizer.setRotation(trackedEntity, yawByte, pitchByte);
+        MovementMinimizer.setOnGround(trackedEntity, onGround);
+    }
+
+    @Override
+    public void onUpdateEntityRotationPacket(UpdateEntityRotationPacket updateEntityRotationPacket) {
+        int entityID = updateEntityRotationPacket.getEntityID();
+        if (updateEntityRotationPacket.isWriteCanceled()) {
+            this.forget(entityID);
+            return;
+        }
+        TrackedEntity trackedEntity = this.trackedOf(entityID);
+        int yawByte = updateEntityRotationPacket.getYawByte();
+        int pitchByte = updateEntityRotationPacket.getPitchByte();
+        boolean onGround = updateEntityRotationPacket.isOnGround();
+
+        if (MovementMinimizer.isSameRotation(trackedEntity, yawByte, pitchByte) && MovementMinimizer.isSameOnGround(trackedEntity, onGround)) {
+            updateEntityRotationPacket.setWriteCanceled(true);
+            this.packetsDropped++;
+            return;
+        }
+        MovementMinimizer.setRotation(trackedEntity, yawByte, pitchByte);
+        MovementMinimizer.setOnGround(trackedEntity, onGround);
+    }
+
+    @Override
+    public void onTeleportEntityPacket(TeleportEntityPacket teleportEntityPacket) {
+        int entityID = teleportEntityPacket.getEntityID();
+        if (teleportEntityPacket.isWriteCanceled()) {
+            this.forget(entityID);
+            return;
+        }
+        TrackedEntity trackedEntity = this.trackedOf(entityID);
+        double x = teleportEntityPacket.getX();
+        double y = teleportEntityPacket.getY();
+        double z = teleportEntityPacket.getZ();
+        boolean onGround = teleportEntityPacket.isOnGround();
+
+        // Since 1.21.2 (protocol 768) the teleport also carries the velocity and a rotation that isn't limited to 256 steps. Leave it as-is.
+        if (teleportEntityPacket.hasVelocityFields()) {
+            MovementMinimizer.setPosition(trackedEntity, x, y, z);
+            trackedEntity.rotationKnown = false;
+            MovementMinimizer.setOnGround(trackedEntity, onGround);
+            return;
+        }
+
+        // Before 1.21.2 the rotation is sent as a byte. Turn it back into one.
+        int yawByte = (byte) Math.round(teleportEntityPacket.getYaw() * (256.0F / 360.0F));
+        int pitchByte = (byte) Math.round(teleportEntityPacket.getPitch() * (256.0F / 360.0F));
+
+        if (trackedEntity.positionKnown) {
+            long deltaX = MovementMinimizer.exactDelta(trackedEntity.x, x);
+            long deltaY = MovementMinimizer.exactDelta(trackedEntity.y, y);
+            long deltaZ = MovementMinimizer.exactDelta(trackedEntity.z, z);
+            if (MovementMinimizer.isShort(deltaX) && MovementMinimizer.isShort(deltaY) && MovementMinimizer.isShort(deltaZ)) {
+                boolean isZero = deltaX == 0 && deltaY == 0 && deltaZ == 0;
+                boolean isSameRotation = MovementMinimizer.isSameRotation(trackedEntity, yawByte, pitchByte);
+                if (isZero && isSameRotation && MovementMinimizer.isSameOnGround(trackedEntity, onGround)) {
+                    teleportEntityPacket.setWriteCanceled(true);
+                    this.packetsDropped++;
+                    return;
+                }
+
+                long packetIndex = teleportEntityPacket.getPacketIndex();
+                int timestamp = teleportEntityPacket.getTimestamp();
+                if (isZero) {
+                    teleportEntityPacket.setReplacement(new UpdateEntityRotationPacket(packetIndex, timestamp, entityID, yawByte, pitchByte, onGround));
+                } else if (isSameRotation) {
+                    teleportEntityPacket.setReplacement(new UpdateEntityPositionPacket(packetIndex, timestamp, entityID, (short) deltaX, (short) deltaY, (short) deltaZ, onGround));
+                } else {
+                    teleportEntityPacket.setReplacement(new UpdateEntityPositionAndRotationPacket(packetIndex, timestamp, entityID, (short) deltaX, (short) deltaY, (short) deltaZ,
+                            yawByte, pitchByte, onGround));
+                }
+                this.packetsShrunk++;
+            }
+        }
+        MovementMinimizer.setPosition(trackedEntity, x, y, z);
+        MovementMinimizer.setRotation(trackedEntity, yawByte, pitchByte);
+        MovementMinimizer.setOnGround(trackedEntity, onGround);
+    }
+
+    // Since 1.21.2 (protocol 768) this is the relative teleport (minecraft:teleport_entity), which may leave any of the position and rotation relative,
+    // with a delta that isn't limited to 1/4096ths of a block. Whatever the client ends up with is no longer known exactly.
+    @Override
+    public void onSynchronizeVehiclePositionPacket(SynchronizeVehiclePositionPacket synchronizeVehiclePositionPacket) {
+        this.forget(synchronizeVehiclePositionPacket.getEntityID());
+    }
+
+    // Moves the minecart along the track on the client's side, without going through the position relative moves are applied to.
+    @Override
+    public void onMoveMinecartAlongTrackPacket(MoveMinecartAlongTrackPacket moveMinecartAlongTrackPacket) {
+        this.forget(moveMinecartAlongTrackPacket.getEntityID());
+    }
+
+    @Override
+    public void onRemoveEntitiesPacket(RemoveEntitiesPacket removeEntitiesPacket) {
+        if (this.trackedCount == 0) {
+            return;
+        }
+        for (int entityID : removeEntitiesPacket.getEntityIDs()) {
+            this.forget(entityID);
+        }
+    }
+
+
+    @Override
+    public Packet[] insertPackets(int timestamp, PacketType.Play nextPacketType) {
+        switch (nextPacketType) {
+            // All entities are removed along with these packets.
+            case RESPAWN, START_CONFIGURATION, LOGIN -> {
+                this.trackedIndices.clear();
+                this.trackedCount = 0;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Packet[] insertPacketsAtEnd() {
+        return null;
+    }
+
+
+    /// The number of movement packets that changed nothing and were dropped.
+    public long getPacketsDropped() {
+        return this.packetsDropped;
+    }
+
+    /// The number of movement packets that were written out in a smaller form.
+    public long getPacketsShrunk() {
+        return this.packetsShrunk;
+    }
+
+
+    private void onSpawn(Packet spawnPacket, int entityID, double x, double y, double z, boolean hasRotation, int yawByte, int pitchByte) {
+        if (spawnPacket.isWriteCanceled()) {
+            this.forget(entityID);
+            return;
+        }
+        TrackedEntity trackedEntity = this.trackedOf(entityID);
+        MovementMinimizer.setPosition(trackedEntity, x, y, z);
+        trackedEntity.rotationKnown = false;
+        if (hasRotation) {
+            MovementMinimizer.setRotation(trackedEntity, yawByte, pitchByte);
+        }
+        trackedEntity.onGroundKnown = false;
+    }
+
+    private TrackedEntity trackedOf(int entityID) {
+        int index = this.trackedIndices.get(entityID, -1);
+        if (index != -1) {
+            return this.trackedEntities[index];
+        }
+        if (this.trackedCount == this.trackedEntities.length) {
+            TrackedEntity[] trackedEntities = new TrackedEntity[this.trackedEntities.length << 1];
+            System.arraycopy(this.trackedEntities, 0, trackedEntities, 0, this.trackedCount);
+            this.trackedEntities = trackedEntities;
+        }
+        TrackedEntity trackedEntity = this.trackedEntities[this.trackedCount];
+        if (trackedEntity == null) {
+            trackedEntity = new TrackedEntity();
+            this.trackedEntities[this.trackedCount] = trackedEntity;
+        }
+        trackedEntity.entityID = entityID;
+        trackedEntity.positionKnown = false;
+        trackedEntity.rotationKnown = false;
+        trackedEntity.onGroundKnown = false;
+        this.trackedIndices.put(entityID, this.trackedCount++);
+        return trackedEntity;
+    }
+
+    /// Stop tracking the entity, moving the last tracked entity into its place.
+    private void forget(int entityID) {
+        int index = this.trackedIndices.get(entityID, -1);
+        if (index == -1) {
+            return;
+        }
+        this.trackedIndices.remove(entityID);
+        int last = --this.trackedCount;
+        if (index != last) {
+            TrackedEntity trackedEntity = this.trackedEntities[index];
+            this.trackedEntities[index] = this.trackedEntities[last];
+            this.trackedEntities[last] = trackedEntity;
+            this.trackedIndices.put(this.trackedEntities[index].entityID, index);
+        }
+    }
+
+
+    private static void setPosition(TrackedEntity trackedEntity, double x, double y, double z) {
+        trackedEntity.positionKnown = true;
+        trackedEntity.x = x;
+        trackedEntity.y = y;
+        trackedEntity.z = z;
+    }
+
+    private static void setRotation(TrackedEntity trackedEntity, int yawByte, int pitchByte) {
+        trackedEntity.rotationKnown = true;
+        trackedEntity.yawByte = yawByte;
+        trackedEntity.pitchByte = pitchByte;
+    }
+
+    private static void setOnGround(TrackedEntity trackedEntity, boolean onGround) {
+        trackedEntity.onGroundKnown = true;
+        trackedEntity.onGround = onGround;
+    }
+
+    /// Apply a relative move to the tracked position.
+    /// The client rounds the position to 1/4096th of a block before applying a (non-zero) delta, so the position is only known afterward if no rounding took place.
+    private static void applyDelta(TrackedEntity trackedEntity, short deltaX, short deltaY, short deltaZ) {
+        if (!trackedEntity.positionKnown) {
+            return;
+        }
+        if ((deltaX != 0 && !MovementMinimizer.isOnGrid(trackedEntity.x))
+                || (deltaY != 0 && !MovementMinimizer.isOnGrid(trackedEntity.y))
+                || (deltaZ != 0 && !MovementMinimizer.isOnGrid(trackedEntity.z))) {
+            trackedEntity.positionKnown = false;
+            return;
+        }
+        trackedEntity.x = (trackedEntity.x * MovementMinimizer.DELTA_SCALE + deltaX) / MovementMinimizer.DELTA_SCALE;
+        trackedEntity.y = (trackedEntity.y * MovementMinimizer.DELTA_SCALE + deltaY) / MovementMinimizer.DELTA_SCALE;
+        trackedEntity.z = (trackedEntity.z * MovementMinimizer.DELTA_SCALE + deltaZ) / MovementMinimizer.DELTA_SCALE;
+    }
+
+    /// The delta of a relative move that takes the client from one position to the other exactly, or {@link Long#MAX_VALUE} if there is none.
+    private static long exactDelta(double from, double to) {
+        if (from == to) {
+            return 0;
+        }
+        if (!MovementMinimizer.isOnGrid(from) || !MovementMinimizer.isOnGrid(to)) {
+            return Long.MAX_VALUE;
+        }
+        return (long) (to * MovementMinimizer.DELTA_SCALE) - (long) (from * MovementMinimizer.DELTA_SCALE);
+    }
+
+    /// If the position lands exactly on a 1/4096th of a block.
+    private static boolean isOnGrid(double position) {
+        double scaled = position * MovementMinimizer.DELTA_SCALE;
+        return scaled == Math.rint(scaled) && Math.abs(scaled) < MovementMinimizer.MAX_SCALED_POSITION;
+    }
+
+    private static boolean isShort(long value) {
+        return value == (short) value;
+    }
+
+    private static boolean isZero(short deltaX, short deltaY, short deltaZ) {
+        return deltaX == 0 && deltaY == 0 && deltaZ == 0;
+    }
+
+    private static boolean isSameRotation(TrackedEntity trackedEntity, int yawByte, int pitchByte) {
+        return trackedEntity.rotationKnown && (byte) trackedEntity.yawByte == (byte) yawByte && (byte) trackedEntity.pitchByte == (byte) pitchByte;
+    }
+
+    private static boolean isSameOnGround(TrackedEntity trackedEntity, boolean onGround) {
+        return trackedEntity.onGroundKnown && trackedEntity.onGround == onGround;
+    }
+
+}
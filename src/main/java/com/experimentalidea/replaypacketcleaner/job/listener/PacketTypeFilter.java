@@ -0,0 +1,104 @@
+/*
+ * Copyright 2025 ExperimentalIdea
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+package com.experimentalidea.replaypacketcleaner.job.listener;
+
+import com.experimentalidea.replaypacketcleaner.packet.listener.PacketTypeFilterListener;
+import com.experimentalidea.replaypacketcleaner.protocol.PacketType;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+
+/// Drops packet types that play no part in a replay, such as chat, the HUD, inventories and network upkeep.
+/// The dropped types are the types of the chosen presets plus any denied types, minus any allowed types.
+public class PacketTypeFilter implements PacketTypeFilterListener {
+
+    /**
+     * Creates a {@link PacketTypeFilterListener} that drops packet types.
+     *
+     * @param presets The presets whose packet types are dropped.
+     * @param allowed Packet types that are never dropped, even if part of a preset.
+     * @param denied  Packet types that are dropped on top of the presets.
+     */
+    public PacketTypeFilter(Preset[] presets, PacketType.Play[] allowed, PacketType.Play[] denied) {
+        for (Preset preset : presets) {
+            this.droppedPacketTypes.addAll(preset.packetTypes);
+        }
+        this.droppedPacketTypes.addAll(Arrays.asList(denied));
+        this.droppedPacketTypes.removeAll(Arrays.asList(allowed));
+        this.droppedPacketTypes.removeAll(PacketTypeFilter.PROTECTED_PACKET_TYPES);
+    }
+
+
+    /// Packet types that change the protocol state or the framing of other packets. These are never dropped.
+    public static final Set<PacketType.Play> PROTECTED_PACKET_TYPES = EnumSet.of(
+            PacketType.Play.UNDEFINED, PacketType.Play.BUNDLE_DELIMITER, PacketType.Play.LOGIN, PacketType.Play.RESPAWN, PacketType.Play.START_CONFIGURATION);
+
+    private final Set<PacketType.Play> droppedPacketTypes = EnumSet.noneOf(PacketType.Play.class);
+
+
+    @Override
+    public PacketType.Play[] getDroppedPacketTypes() {
+        return this.droppedPacketTypes.toArray(new PacketType.Play[0]);
+    }
+
+
+    /// Named groups of packet types for the filter.
+    public static enum Preset {
+
+        /// Chat messages of all kinds.
+        CHAT(PacketType.Play.CHAT_MESSAGE, PacketType.Play.CHAT_PREVIEW, PacketType.Play.CHAT_SUGGESTIONS, PacketType.Play.DELETE_MESSAGE,
+                PacketType.Play.DISGUISED_CHAT_MESSAGE, PacketType.Play.MESSAGE_HEADER, PacketType.Play.PLAYER_CHAT_MESSAGE,
+                PacketType.Play.SET_DISPLAY_CHAT_PREVIEW, PacketType.Play.SYSTEM_CHAT_MESSAGE),
+
+        /// Keep alives, pings, debug info, command trees and other packets only relevant to a live connection.
+        DEBUG_NETWORK(PacketType.Play.ACKNOWLEDGE_BLOCK_CHANGE, PacketType.Play.ACKNOWLEDGE_PLAYER_DIGGING, PacketType.Play.CLIENTBOUND_KEEP_ALIVE,
+                PacketType.Play.COMMANDS, PacketType.Play.COMMAND_SUGGESTIONS_RESPONSE, PacketType.Play.COOKIE_REQUEST, PacketType.Play.CUSTOM_REPORT_DETAILS,
+                PacketType.Play.DEBUG_BLOCK_VALUE, PacketType.Play.DEBUG_CHUNK_VALUE, PacketType.Play.DEBUG_ENTITY_VALUE, PacketType.Play.DEBUG_EVENT,
+                PacketType.Play.DEBUG_SAMPLE, PacketType.Play.GAME_TEST_HIGHLIGHT_POS, PacketType.Play.PING, PacketType.Play.PING_RESPONSE,
+                PacketType.Play.SERVER_LINKS, PacketType.Play.STORE_COOKIE, PacketType.Play.TAG_QUERY_RESPONSE, PacketType.Play.TEST_INSTANCE_BLOCK_STATUS,
+                PacketType.Play.WINDOW_CONFIRMATION),
+
+        /// Titles, boss bars, the scoreboard sidebar, the tab list header/footer and the recording player's own health and experience.
+        /// Team updates are left out, as teams also decide name tag visibility and the color of glowing entities.
+        HUD(PacketType.Play.BOSS_BAR, PacketType.Play.CLEAR_TITLES, PacketType.Play.DISPLAY_OBJECTIVE, PacketType.Play.RESET_SCORE,
+                PacketType.Play.SET_ACTION_BAR_TEXT, PacketType.Play.SET_EXPERIENCE, PacketType.Play.SET_HEALTH, PacketType.Play.SET_SUBTITLE_TEXT,
+                PacketType.Play.SET_TAB_LIST_HEADER_AND_FOOTER, PacketType.Play.SET_TITLE_ANIMATION_TIMES, PacketType.Play.SET_TITLE_TEXT,
+                PacketType.Play.TITLE, PacketType.Play.UPDATE_OBJECTIVES, PacketType.Play.UPDATE_SCORE, PacketType.Play.WAYPOINT),
+
+        /// Containers, recipes, advancements and statistics of the recording player.
+        INVENTORY(PacketType.Play.AWARD_STATISTICS, PacketType.Play.CLOSE_CONTAINER, PacketType.Play.MERCHANT_OFFERS, PacketType.Play.OPEN_BOOK,
+                PacketType.Play.OPEN_HORSE_SCREEN, PacketType.Play.OPEN_SCREEN, PacketType.Play.OPEN_SIGN_EDITOR, PacketType.Play.PLACE_GHOST_RECIPE,
+                PacketType.Play.RECIPE_BOOK_ADD, PacketType.Play.RECIPE_BOOK_REMOVE, PacketType.Play.RECIPE_BOOK_SETTINGS,
+                PacketType.Play.SELECT_ADVANCEMENTS_TAB, PacketType.Play.SET_CONTAINER_CONTENT, PacketType.Play.SET_CONTAINER_PROPERTY,
+                PacketType.Play.SET_CONTAINER_SLOT, PacketType.Play.SET_COOLDOWN, PacketType.Play.SET_CURSOR_ITEM, PacketType.Play.SET_PLAYER_INVENTORY_SLOT,
+                PacketType.Play.UPDATE_ADVANCEMENTS, PacketType.Play.UPDATE_RECIPES, PacketType.Play.UPDATE_RECIPE_BOOK);
+
+
+        Preset(PacketType.Play... packetTypes) {
+            this.packetTypes = Set.of(packetTypes);
+        }
+
+        private final Set<PacketType.Play> packetTypes;
+
+
+        public Set<PacketType.Play> getPacketTypes() {
+            return this.packetTypes;
+        }
+
+    }
+
+}
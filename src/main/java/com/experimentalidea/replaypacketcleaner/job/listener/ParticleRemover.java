@@ -15,13 +15,16 @@
  * */
 package com.experimentalidea.replaypacketcleaner.job.listener;
 
+import com.experimentalidea.replaypacketcleaner.packet.listener.ExplosionPacketListener;
 import com.experimentalidea.replaypacketcleaner.packet.listener.ParticlePacketListener;
 import com.experimentalidea.replaypacketcleaner.packet.listener.WorldEventPacketListener;
+import com.experimentalidea.replaypacketcleaner.packet.ExplosionPacket;
 import com.experimentalidea.replaypacketcleaner.packet.ParticlePacket;
 import com.experimentalidea.replaypacketcleaner.packet.WorldEventPacket;
+import com.experimentalidea.replaypacketcleaner.protocol.WorldEvent;
 
 /// Removes most particle effects
-public class ParticleRemover implements ParticlePacketListener, WorldEventPacketListener {
+public class ParticleRemover implements ParticlePacketListener, WorldEventPacketListener, ExplosionPacketListener {
 
     public ParticleRemover() {
 
@@ -35,11 +38,18 @@ public class ParticleRemover implements ParticlePacketListener, WorldEventPacket
 
     @Override
     public void onWorldEventPacket(WorldEventPacket worldEventPacket) {
-        if (worldEventPacket.getEventID() >= 1500) { // Appears values 3000+ may be particle & sound? Will have to look into that later...
+        WorldEvent.Category category = worldEventPacket.getWorldEvent().getCategory();
+        if (category == WorldEvent.Category.PARTICLE || category == WorldEvent.Category.BLOCK_BREAK) {
             worldEventPacket.setWriteCanceled(true);
         }
     }
 
+    // Only stripped if the sound is removed as well. See ExplosionPacket#isStrippable()
+    @Override
+    public void onExplosionPacket(ExplosionPacket explosionPacket) {
+        explosionPacket.setStripParticles(true);
+    }
+
     /*
     EntityEffectPacket & RemoveEntityEffectPacket don't seem to effect the potion particles around an entity. They only seem to play for the player entity.
     Guessing those packets are intended for updating the hud/inventory screen with the current player status.
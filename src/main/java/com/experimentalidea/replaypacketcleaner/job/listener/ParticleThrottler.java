@@ -0,0 +1,105 @@
+/*
+ * Copyright 2025 ExperimentalIdea
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+package com.experimentalidea.replaypacketcleaner.job.listener;
+
+import com.experimentalidea.replaypacketcleaner.packet.ParticlePacket;
+import com.experimentalidea.replaypacketcleaner.packet.listener.ParticlePacketListener;
+import com.experimentalidea.replaypacketcleaner.protocol.ParticleType;
+import com.experimentalidea.replaypacketcleaner.protocol.Protocol;
+import com.experimentalidea.replaypacketcleaner.protocol.ProtocolMapper;
+import com.experimentalidea.replaypacketcleaner.util.IntHashSet;
+import com.experimentalidea.replaypacketcleaner.util.LongIntHashMap;
+
+/// Thins out particle spam (farms, spawners, explosions, etc.) while keeping the overall look of a scene.
+/// Limits the number of particle packets of each type per tick within each chunk, and scales down large bursts.
+/// Particle types can be exempt from throttling, or removed entirely.
+public class ParticleThrottler implements ParticlePacketListener {
+
+    /**
+     * Creates a listener that throttles particles.
+     *
+     * @param protocol              The protocol of the replay. Used for looking up the id of each particle type.
+     * @param maxPacketsPerChunk    The max number of particle packets of the same type within a chunk per tick.
+     * @param maxParticleCount      Particle packets spawning more particles than this are scaled down to this many.
+     * @param allowedParticleTypes  Particle types that are never throttled.
+     * @param deniedParticleTypes   Particle types that are always removed.
+     */
+    public ParticleThrottler(Protocol protocol, int maxPacketsPerChunk, int maxParticleCount, ParticleType[] allowedParticleTypes, ParticleType[] deniedParticleTypes) {
+        this.maxPacketsPerChunk = Math.max(0, maxPacketsPerChunk);
+        this.maxParticleCount = Math.max(1, maxParticleCount);
+        for (ParticleType particleType : allowedParticleTypes) {
+            int id = protocol.getParticleTypeID(particleType);
+            if (id != ProtocolMapper.UNDEFINED_ID) {
+                this.allowedParticleIDs.add(id);
+            }
+        }
+        for (ParticleType particleType : deniedParticleTypes) {
+            int id = protocol.getParticleTypeID(particleType);
+            if (id != ProtocolMapper.UNDEFINED_ID) {
+                this.deniedParticleIDs.add(id);
+            }
+        }
+    }
+
+    /// Length of a tick in milliseconds.
+    private static final int TICK_MILLISECONDS = 50;
+
+    private final int maxPacketsPerChunk;
+    private final int maxParticleCount;
+    private final IntHashSet allowedParticleIDs = new IntHashSet(16);
+    private final IntHashSet deniedParticleIDs = new IntHashSet(16);
+
+    private int currentTick = Integer.MIN_VALUE;
+    // Chunk position & particle id -> number of packets within the current tick.
+    private final LongIntHashMap packetsThisTick = new LongIntHashMap(256);
+
+
+    @Override
+    public void onParticlePacket(ParticlePacket particlePacket) {
+        int particleID = particlePacket.getParticleID();
+        if (this.deniedParticleIDs.contains(particleID)) {
+            particlePacket.setWriteCanceled(true);
+            return;
+        }
+        if (this.allowedParticleIDs.contains(particleID)) {
+            return;
+        }
+
+        int tick = Math.floorDiv(particlePacket.getTimestamp(), ParticleThrottler.TICK_MILLISECONDS);
+        if (tick != this.currentTick) {
+            this.currentTick = tick;
+            this.packetsThisTick.clear();
+        }
+
+        long key = ParticleThrottler.keyOf((int) Math.floor(particlePacket.getX()) >> 4, (int) Math.floor(particlePacket.getZ()) >> 4, particleID);
+        if (this.packetsThisTick.add(key, 1) > this.maxPacketsPerChunk) {
+            particlePacket.setWriteCanceled(true);
+            return;
+        }
+
+        // A count of 0 is a single particle, with the offset used as its velocity instead.
+        if (particlePacket.getParticleCount() > this.maxParticleCount) {
+            particlePacket.setParticleCount(this.maxParticleCount);
+        }
+    }
+
+
+    /// Encode a chunk position & particle id. (chunkX: 24 bits, chunkZ: 24 bits, particle id: 16 bits)
+    private static long keyOf(int chunkX, int chunkZ, int particleID) {
+        return ((chunkX & 0xFFFFFFL) << 40) | ((chunkZ & 0xFFFFFFL) << 16) | (particleID & 0xFFFF);
+    }
+
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2025 ExperimentalIdea
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+package com.experimentalidea.replaypacketcleaner.job.listener;
+
+import com.experimentalidea.replaypacketcleaner.packet.PlayerInfoUpdatePacket;
+import com.experimentalidea.replaypacketcleaner.packet.listener.PlayerInfoUpdatePacketListener;
+
+/// Removes the latency and display name updates from Player Info Update packets. Both are only shown within the tab list.
+/// Servers re-send the latency of every player every few seconds, which on busy servers adds up to a large number of packets.
+/// Packets left without any actions are dropped. The data of the other actions (add player, game mode, etc.) is left intact.
+public class PlayerInfoCompactor implements PlayerInfoUpdatePacketListener {
+
+    public PlayerInfoCompactor() {
+
+    }
+
+    private static final int REMOVED_ACTIONS = PlayerInfoUpdatePacket.ACTION_UPDATE_LATENCY | PlayerInfoUpdatePacket.ACTION_UPDATE_DISPLAY_NAME;
+
+
+    @Override
+    public void onPlayerInfoUpdatePacket(PlayerInfoUpdatePacket playerInfoUpdatePacket) {
+        if (playerInfoUpdatePacket.removeActions(PlayerInfoCompactor.REMOVED_ACTIONS) && playerInfoUpdatePacket.getActions() == 0) {
+            playerInfoUpdatePacket.setWriteCanceled(true);
+        }
+    }
+
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2025 ExperimentalIdea
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+package com.experimentalidea.replaypacketcleaner.job.listener;
+
+import com.experimentalidea.replaypacketcleaner.packet.*;
+import com.experimentalidea.replaypacketcleaner.packet.listener.*;
+import com.experimentalidea.replaypacketcleaner.protocol.EntityType;
+import com.experimentalidea.replaypacketcleaner.protocol.PacketType;
+import com.experimentalidea.replaypacketcleaner.util.IntHashSet;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/// Keeps only the selected players, chosen by uuid or name. All packets of other players (spawn, movement, equipment, metadata, animations, etc.) are dropped.
+/// The recording player is always kept. It's told apart by its entity id (given by the replay metadata, or a later Login packet), and the uuid it was first spawned with.
+/// <br>
+/// <br> Names are matched to uuids through the Player Info Update packets, which are sent before a player is spawned.
+/// The players remain within the player list (tab list).
+public class PlayerSelector extends EntityFilter implements SpawnEntityPacketListener, SpawnPlayerPacketListener, PlayerInfoUpdatePacketListener, RawPacketListener {
+
+    /**
+     * Creates a listener that keeps only the selected players.
+     *
+     * @param players                 The uuids and/or names (case-insensitive) of the players to keep.
+     * @param recordingPlayerEntityID The entity id of the recording player, as given by the replay metadata ("selfId"). -1 if unknown.
+     */
+    public PlayerSelector(String[] players, int recordingPlayerEntityID) {
+        this.recordingPlayerEntityID = recordingPlayerEntityID;
+        for (String player : players) {
+            try {
+                this.selectedUUIDs.add(UUID.fromString(player));
+            } catch (IllegalArgumentException e) {
+                this.selectedNames.add(player.toLowerCase(Locale.ROOT));
+            }
+        }
+    }
+
+    private final Set<UUID> selectedUUIDs = new HashSet<UUID>();
+    private final Set<String> selectedNames = new HashSet<String>();
+
+    // The entity id of the recording player. Given by the replay metadata, as the first Login packet isn't passed to listeners. Updated by any later Login packet.
+    private int recordingPlayerEntityID;
+    // The uuid of the recording player, once it's been spawned. ReplayMod spawns the recording player again under the same uuid (with a new entity id) after it respawns.
+    private UUID recordingPlayerUUID = null;
+    // Ids of the player entities being removed.
+    private final IntHashSet removedPlayers = new IntHashSet(64);
+
+
+    @Override
+    public PacketType.Play[] getRawPacketTypes() {
+        return new PacketType.Play[]{PacketType.Play.LOGIN};
+    }
+
+    @Override
+    public void onRawPacket(RawPacket rawPacket) {
+        int[] bytes = rawPacket.getRawDataBytes();
+        if (rawPacket.getPacketType() == PacketType.Play.LOGIN && bytes.length >= 4) {
+            this.recordingPlayerEntityID = (bytes[0] << 24) | (bytes[1] << 16) | (bytes[2] << 8) | bytes[3];
+            this.removedPlayers.remove(this.recordingPlayerEntityID);
+        }
+    }
+
+    // Select the uuids of players added with a selected name.
+    @Override
+    public void onPlayerInfoUpdatePacket(PlayerInfoUpdatePacket playerInfoUpdatePacket) {
+        if (this.selectedNames.isEmpty() || !playerInfoUpdatePacket.hasAction(PlayerInfoUpdatePacket.ACTION_ADD_PLAYER)) {
+            return;
+        }
+        Map<UUID, String> addedPlayers = playerInfoUpdatePacket.getAddedPlayers();
+        if (addedPlayers == null) {
+            return;
+        }
+        for (Map.Entry<UUID, String> entry : addedPlayers.entrySet()) {
+            if (this.selectedNames.contains(entry.getValue().toLowerCase(Locale.ROOT))) {
+                this.selectedUUIDs.add(entry.getKey());
+            }
+        }
+    }
+
+
+    private void onSpawn(Packet spawnPacket, int entityID, UUID uuid, boolean isPlayer) {
+        // Entity ids may be reused.
+        this.removedPlayers.remove(entityID);
+
+        if (isPlayer && entityID == this.recordingPlayerEntityID) {
+            this.recordingPlayerUUID = uuid;
+        }
+        if (!isPlayer || entityID == this.recordingPlayerEntityID || uuid.equals(this.recordingPlayerUUID) || this.selectedUUIDs.contains(uuid)) {
+            return;
+        }
+        this.removedPlayers.add(entityID);
+        spawnPacket.setWriteCanceled(true);
+    }
+
+    @Override
+    public void onSpawnEntityPacket(SpawnEntityPacket spawnEntityPacket) {
+        this.onSpawn(spawnEntityPacket, spawnEntityPacket.getEntityID(), spawnEntityPacket.getUuid(), spawnEntityPacket.getEntityType() == EntityType.PLAYER);
+    }
+
+    // Spawn Player. (Note: this packet type was removed and merged into Spawn Entity in protocol 764+ / MC 1.20.2+)
+    @Override
+    public void onSpawnPlayerPacket(SpawnPlayerPacket spawnPlayerPacket) {
+        this.onSpawn(spawnPlayerPacket, spawnPlayerPacket.getEntityID(), spawnPlayerPacket.getUuid(), true);
+    }
+
+    @Override
+    protected boolean isFiltered(int entityID) {
+        return this.removedPlayers.contains(entityID);
+    }
+
+    @Override
+    protected boolean onEntityRemoved(int entityID) {
+        return this.removedPlayers.remove(entityID);
+    }
+
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2025 ExperimentalIdea
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+package com.experimentalidea.replaypacketcleaner.job.listener;
+
+import com.experimentalidea.replaypacketcleaner.packet.*;
+import com.experimentalidea.replaypacketcleaner.packet.listener.*;
+import com.experimentalidea.replaypacketcleaner.protocol.EntityType;
+import com.experimentalidea.replaypacketcleaner.protocol.PacketType;
+import com.experimentalidea.replaypacketcleaner.protocol.Version;
+import com.experimentalidea.replaypacketcleaner.util.IntHashSet;
+import com.experimentalidea.replaypacketcleaner.util.LongIntHashMap;
+
+import java.util.ArrayDeque;
+
+/// Removes short-lived entities. (items picked up right away, arrows that despawn quickly, experience orbs, etc.)
+/// Looks ahead for the removal of each entity. If an entity is removed within the max lifetime of being spawned,
+/// its spawn, all packets associated with it and its removal are dropped together. Players are never removed.
+public class ShortLivedEntityPruner extends EntityFilter implements SpawnEntityPacketListener, SpawnLivingEntityPacketListener,
+        SpawnExperienceOrbPacketListener, LookaheadPacketListener, PacketInserter {
+
+    /**
+     * Creates a listener that removes short-lived entities.
+     *
+     * @param protocolVersion       The protocol version of the replay.
+     * @param maxLifetimeMillis     Entities removed within this many milliseconds of being spawned are removed.
+     * @param lookaheadBudgetBytes  The max number of bytes to buffer while looking ahead.
+     */
+    public ShortLivedEntityPruner(int protocolVersion, int maxLifetimeMillis, int lookaheadBudgetBytes) {
+        this.protocolVersion = protocolVersion;
+        this.maxLifetimeMillis = Math.max(0, maxLifetimeMillis);
+        this.lookaheadBudgetBytes = lookaheadBudgetBytes;
+    }
+
+    private final int protocolVersion;
+    private final int maxLifetimeMillis;
+    private final int lookaheadBudgetBytes;
+
+    private final IntHashSet prunedEntities = new IntHashSet(64);
+    // Entity id -> timestamp of its upcoming removal.
+    private final LongIntHashMap upcomingRemovals = new LongIntHashMap(256);
+    // Timestamps of upcoming packets after which the client has forgotten all entities.
+    private final ArrayDeque<Integer> upcomingResets = new ArrayDeque<Integer>();
+
+
+    @Override
+    public int getLookaheadMilliseconds() {
+        return this.maxLifetimeMillis;
+    }
+
+    @Override
+    public int getLookaheadBudgetBytes() {
+        return this.lookaheadBudgetBytes;
+    }
+
+    @Override
+    public PacketType.Play[] getLookaheadPacketTypes() {
+        return new PacketType.Play[]{PacketType.Play.REMOVE_ENTITIES, PacketType.Play.RESPAWN, PacketType.Play.START_CONFIGURATION, PacketType.Play.LOGIN};
+    }
+
+    @Override
+    public void onLookaheadPacket(RawPacket rawPacket) {
+        if (rawPacket.getPacketType() != PacketType.Play.REMOVE_ENTITIES) {
+            this.upcomingResets.addLast(rawPacket.getTimestamp());
+            return;
+        }
+
+        int[] data = rawPacket.getRawDataBytes();
+        int[] position = new int[1];
+        // In protocol version 755 (1.17.0), this packet removes only a single entity.
+        int length = this.protocolVersion != Version.MC_1_17_0 ? ShortLivedEntityPruner.readVarInt(data, position) : 1;
+        for (int i = 0; i < length && position[0] < data.length; i++) {
+            int entityID = ShortLivedEntityPruner.readVarInt(data, position);
+            // Keep the earliest removal, if the entity id is removed more than once.
+            if (!this.upcomingRemovals.containsKey(entityID)) {
+                this.upcomingRemovals.put(entityID, rawPacket.getTimestamp());
+            }
+        }
+    }
+
+
+    private void onSpawn(Packet spawnPacket, int entityID) {
+        if (spawnPacket.isWriteCanceled()) {
+            return;
+        }
+        int removalTimestamp = this.upcomingRemovals.get(entityID, -1);
+        if (removalTimestamp == -1 || removalTimestamp - spawnPacket.getTimestamp() > this.maxLifetimeMillis) {
+            return;
+        }
+        // The removal could be meant for another entity of the same id, once the client has forgotten this one.
+        Integer resetTimestamp = this.upcomingResets.peekFirst();
+        if (resetTimestamp != null && resetTimestamp <= removalTimestamp) {
+            return;
+        }
+        spawnPacket.setWriteCanceled(true);
+        this.prunedEntities.add(entityID);
+    }
+
+    @Override
+    public void onSpawnEntityPacket(SpawnEntityPacket spawnEntityPacket) {
+        if (spawnEntityPacket.getEntityType() != EntityType.PLAYER) {
+            this.onSpawn(spawnEntityPacket, spawnEntityPacket.getEntityID());
+        }
+    }
+
+    // Spawn Living Entity. (Note: this packet type was removed and merged into Spawn Entity in protocol 759+ / MC 1.19+)
+    @Override
+    public void onSpawnLivingEntityPacket(SpawnLivingEntityPacket spawnLivingEntityPacket) {
+        this.onSpawn(spawnLivingEntityPacket, spawnLivingEntityPacket.getEntityID());
+    }
+
+    @Override
+    public void onSpawnExperienceOrbPacket(SpawnExperienceOrbPacket spawnExperienceOrbPacket) {
+        this.onSpawn(spawnExperienceOrbPacket, spawnExperienceOrbPacket.getEntityID());
+    }
+
+
+    @Override
+    protected boolean isFiltered(int entityID) {
+        return this.prunedEntities.contains(entityID);
+    }
+
+    @Override
+    protected boolean onEntityRemoved(int entityID) {
+        this.upcomingRemovals.remove(entityID);
+        return this.prunedEntities.remove(entityID);
+    }
+
+
+    @Override
+    public Packet[] insertPackets(int timestamp, PacketType.Play nextPacketType) {
+        switch (nextPacketType) {
+            // The client forgets all entities.
+            case RESPAWN, START_CONFIGURATION, LOGIN -> {
+                this.upcomingResets.pollFirst();
+                this.prunedEntities.clear();
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Packet[] insertPacketsAtEnd() {
+        return null;
+    }
+
+
+    private static int readVarInt(int[] data, int[] position) {
+        int value = 0;
+        int shift = 0;
+        while (position[0] < data.length && shift < 32) {
+            int currentByte = data[position[0]++];
+            value |= (currentByte & 0x7F) << shift;
+            if ((currentByte & 0x80) == 0) {
+                break;
+            }
+            shift += 7;
+        }
+        return value;
+    }
+
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2025 ExperimentalIdea
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+package com.experimentalidea.replaypacketcleaner.job.listener;
+
+import com.experimentalidea.replaypacketcleaner.packet.CustomSoundEffectPacket;
+import com.experimentalidea.replaypacketcleaner.packet.EntitySoundEffectPacket;
+import com.experimentalidea.replaypacketcleaner.packet.Packet;
+import com.experimentalidea.replaypacketcleaner.packet.SoundEffectPacket;
+import com.experimentalidea.replaypacketcleaner.packet.listener.CustomSoundEffectPacketListener;
+import com.experimentalidea.replaypacketcleaner.packet.listener.EntitySoundEffectPacketListener;
+import com.experimentalidea.replaypacketcleaner.packet.listener.SoundEffectPacketListener;
+import com.experimentalidea.replaypacketcleaner.util.Hash64;
+import com.experimentalidea.replaypacketcleaner.util.TimeBucketedCounter;
+
+/// Thins out overlapping sounds. (farms, mob grinders, etc.)
+/// Identical sounds played at (about) the same position within a short window are collapsed into one,
+/// and the number of sounds playing at once within an area is capped.
+/// <br> Sounds played by an entity are collapsed per entity, as their position isn't known.
+public class SoundLimiter implements SoundEffectPacketListener, EntitySoundEffectPacketListener, CustomSoundEffectPacketListener {
+
+    /**
+     * Creates a listener that limits sounds.
+     *
+     * @param windowMilliseconds Identical sounds within this many milliseconds of each other are collapsed.
+     * @param maxPerArea         The max number of sounds playing at once within an area.
+     */
+    public SoundLimiter(int windowMilliseconds, int maxPerArea) {
+        this.maxPerArea = Math.max(0, maxPerArea);
+        this.recentSounds = new TimeBucketedCounter(windowMilliseconds, 256);
+    }
+
+    /// Sounds within a cube of this many blocks are considered to be at the same position.
+    private static final int POSITION_PRECISION_BLOCKS = 2;
+    /// Width of an area in blocks. (a cube)
+    private static final int AREA_SIZE_BLOCKS = 16;
+    /// Most sound effects last around a second. Sounds started within this many milliseconds are considered to be playing at once.
+    private static final int CONCURRENT_MILLISECONDS = 500;
+
+    private final int maxPerArea;
+
+    private final TimeBucketedCounter recentSounds;
+    private final TimeBucketedCounter playingSoundsPerArea = new TimeBucketedCounter(SoundLimiter.CONCURRENT_MILLISECONDS, 64);
+
+
+    @Override
+    public void onSoundEffectPacket(SoundEffectPacket soundEffectPacket) {
+        long soundKey = SoundLimiter.soundKeyOf(soundEffectPacket.getSoundID(), soundEffectPacket.getSoundNameRawBytes());
+        this.limit(soundEffectPacket, soundKey, soundEffectPacket.getCategory(), soundEffectPacket.getEncodedX(), soundEffectPacket.getEncodedY(), soundEffectPacket.getEncodedZ());
+    }
+
+    @Override
+    public void onCustomSoundEffectPacket(CustomSoundEffectPacket customSoundEffectPacket) {
+        long soundKey = SoundLimiter.soundKeyOf(SoundEffectPacket.INLINE_SOUND_ID, customSoundEffectPacket.getSoundNameRawBytes());
+        this.limit(customSoundEffectPacket, soundKey, customSoundEffectPacket.getCategory(), customSoundEffectPacket.getEncodedX(), customSoundEffectPacket.getEncodedY(), customSoundEffectPacket.getEncodedZ());
+    }
+
+    @Override
+    public void onEntitySoundEffectPacket(EntitySoundEffectPacket entitySoundEffectPacket) {
+        long soundKey = SoundLimiter.soundKeyOf(entitySoundEffectPacket.getSoundID(), entitySoundEffectPacket.getSoundNameRawBytes());
+        long key = Hash64.mix(soundKey ^ Hash64.mix(((long) entitySoundEffectPacket.getCategory() << 32) | (entitySoundEffectPacket.getEntityID() & 0xFFFFFFFFL)));
+        if (this.recentSounds.get(key, entitySoundEffectPacket.getTimestamp()) > 0) {
+            entitySoundEffectPacket.setWriteCanceled(true);
+            return;
+        }
+        this.recentSounds.add(key, entitySoundEffectPacket.getTimestamp());
+    }
+
+
+    /// Coordinates are as sent, multiplied by 8.
+    /// Only the sounds that are kept are counted, so that a busy area or a repeating sound isn't muted for good.
+    private void limit(Packet packet, long soundKey, int category, int encodedX, int encodedY, int encodedZ) {
+        int timestamp = packet.getTimestamp();
+
+        int precision = 8 * SoundLimiter.POSITION_PRECISION_BLOCKS;
+        long key = Hash64.mix(soundKey ^ Hash64.mix(SoundLimiter.cellOf(Math.floorDiv(encodedX, precision), Math.floorDiv(encodedY, precision), Math.floorDiv(encodedZ, precision)) + category));
+        if (this.recentSounds.get(key, timestamp) > 0) {
+            packet.setWriteCanceled(true);
+            return;
+        }
+
+        int areaSize = 8 * SoundLimiter.AREA_SIZE_BLOCKS;
+        long area = SoundLimiter.cellOf(Math.floorDiv(encodedX, areaSize), Math.floorDiv(encodedY, areaSize), Math.floorDiv(encodedZ, areaSize));
+        if (this.playingSoundsPerArea.get(area, timestamp) >= this.maxPerArea) {
+            packet.setWriteCanceled(true);
+            return;
+        }
+
+        this.recentSounds.add(key, timestamp);
+        this.playingSoundsPerArea.add(area, timestamp);
+    }
+
+    /// Sounds defined inline are identified by a hash of their resource name. (never a valid registry id, as those are positive)
+    private static long soundKeyOf(int soundID, int[] soundNameRawBytes) {
+        if (soundID == SoundEffectPacket.INLINE_SOUND_ID) {
+            return Hash64.hash(soundNameRawBytes) | Long.MIN_VALUE;
+        }
+        return soundID;
+    }
+
+    /// Encode a cell position. (x: 26 bits, y: 12 bits, z: 26 bits)
+    private static long cellOf(int x, int y, int z) {
+        return ((x & 0x3FFFFFFL) << 38) | ((y & 0xFFFL) << 26) | (z & 0x3FFFFFFL);
+    }
+
+}
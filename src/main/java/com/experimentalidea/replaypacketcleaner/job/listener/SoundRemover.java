@@ -17,9 +17,10 @@ package com.experimentalidea.replaypacketcleaner.job.listener;
 
 import com.experimentalidea.replaypacketcleaner.packet.*;
 import com.experimentalidea.replaypacketcleaner.packet.listener.*;
+import com.experimentalidea.replaypacketcleaner.protocol.WorldEvent;
 
 /// Removes most sound effects
-public class SoundRemover implements CustomSoundEffectPacketListener, EntitySoundEffectPacketListener, SoundEffectPacketListener, GameEventPacketListener, WorldEventPacketListener {
+public class SoundRemover implements CustomSoundEffectPacketListener, EntitySoundEffectPacketListener, SoundEffectPacketListener, GameEventPacketListener, WorldEventPacketListener, ExplosionPacketListener {
 
     public SoundRemover() {
 
@@ -50,9 +51,15 @@ public class SoundRemover implements CustomSoundEffectPacketListener, EntitySoun
 
     @Override
     public void onWorldEventPacket(WorldEventPacket worldEventPacket) {
-        if (worldEventPacket.getEventID() < 1500) { // Appears values 3000+ may be particle & sound? Will have to look into that later...
+        if (worldEventPacket.getWorldEvent().getCategory() == WorldEvent.Category.SOUND) {
             worldEventPacket.setWriteCanceled(true);
         }
     }
 
+    // Only stripped if the particles are removed as well. See ExplosionPacket#isStrippable()
+    @Override
+    public void onExplosionPacket(ExplosionPacket explosionPacket) {
+        explosionPacket.setStripSound(true);
+    }
+
 }
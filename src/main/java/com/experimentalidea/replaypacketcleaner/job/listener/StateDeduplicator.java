@@ -0,0 +1,389 @@
+/*
+ * Copyright 2025 ExperimentalIdea
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+package com.experimentalidea.replaypacketcleaner.job.listener;
+
+import com.experimentalidea.replaypacketcleaner.packet.*;
+import com.experimentalidea.replaypacketcleaner.packet.listener.*;
+import com.experimentalidea.replaypacketcleaner.protocol.PacketType;
+import com.experimentalidea.replaypacketcleaner.protocol.Protocol;
+import com.experimentalidea.replaypacketcleaner.protocol.Version;
+import com.experimentalidea.replaypacketcleaner.util.Hash64;
+import com.experimentalidea.replaypacketcleaner.util.LongLongHashMap;
+
+import java.util.*;
+
+/// Drops packets that re-send state the client already has.
+/// For each packet type, packets are keyed (by entity id, block position, map id, etc.) and a hash of the last written payload is kept per key.
+/// A packet with the exact same payload as the last one written for the same key is dropped.
+public class StateDeduplicator implements SetEntityMetadataPacketListener, SetEquipmentPacketListener, UpdateAttributesPacketListener,
+        BlockEntityDataPacketListener, UpdateTimePacketListener, RawPacketListener,
+        SpawnEntityPacketListener, SpawnExperienceOrbPacketListener, SpawnLivingEntityPacketListener, SpawnPaintingPacketListener, SpawnPlayerPacketListener,
+        RemoveEntitiesPacketListener, BlockUpdatePacketListener, UpdateSectionBlocksPacketListener, ChunkDataPacketListener, UnloadChunkPacketListener,
+        PacketInserter {
+
+    /**
+     * Creates a listener that deduplicates state packets.
+     *
+     * @param protocol    The protocol of the replay.
+     * @param packetTypes The packet types to deduplicate. Types not within {@link #SUPPORTED_PACKET_TYPES} are ignored.
+     */
+    public StateDeduplicator(Protocol protocol, PacketType.Play... packetTypes) {
+        this.protocolVersion = protocol.getProtocolVersion();
+
+        // Packet types within the same group share the same map of last payloads, as they change the same state.
+        LongLongHashMap worldBorder = new LongLongHashMap(1);
+        LongLongHashMap scores = new LongLongHashMap(64);
+
+        for (PacketType.Play packetType : packetTypes) {
+            if (!StateDeduplicator.SUPPORTED_PACKET_TYPES.contains(packetType)) {
+                continue;
+            }
+            switch (packetType) {
+                case INITIALIZE_WORLD_BORDER, SET_BORDER_CENTER, SET_BORDER_SIZE, SET_BORDER_WARNING_DELAY, SET_BORDER_WARNING_DISTANCE -> this.lastPayloads.put(packetType, worldBorder);
+                case UPDATE_SCORE -> this.lastPayloads.put(packetType, scores);
+                default -> this.lastPayloads.put(packetType, new LongLongHashMap(64));
+            }
+        }
+
+        // Key extractors for the packet types received as raw packets.
+        this.keyExtractors.put(PacketType.Play.MAP_DATA, rawDataBytes -> StateDeduplicator.readVarInt(rawDataBytes, 0)); // map id
+        this.keyExtractors.put(PacketType.Play.INITIALIZE_WORLD_BORDER, rawDataBytes -> 0L);
+        this.keyExtractors.put(PacketType.Play.SET_BORDER_CENTER, rawDataBytes -> 0L);
+        this.keyExtractors.put(PacketType.Play.SET_BORDER_SIZE, rawDataBytes -> 0L);
+        this.keyExtractors.put(PacketType.Play.SET_BORDER_WARNING_DELAY, rawDataBytes -> 0L);
+        this.keyExtractors.put(PacketType.Play.SET_BORDER_WARNING_DISTANCE, rawDataBytes -> 0L);
+        this.keyExtractors.put(PacketType.Play.UPDATE_OBJECTIVES, rawDataBytes -> StateDeduplicator.hashString(rawDataBytes, 0)); // objective name
+        this.keyExtractors.put(PacketType.Play.UPDATE_TEAMS, rawDataBytes -> StateDeduplicator.hashString(rawDataBytes, 0)); // team name
+        this.keyExtractors.put(PacketType.Play.DISPLAY_OBJECTIVE, rawDataBytes -> { // display position
+            if (this.protocolVersion >= Version.MC_1_20_2) {
+                return StateDeduplicator.readVarInt(rawDataBytes, 0);
+            }
+            return rawDataBytes[0];
+        });
+        this.keyExtractors.put(PacketType.Play.UPDATE_SCORE, rawDataBytes -> { // entity name + objective name
+            int offset = StateDeduplicator.skipString(rawDataBytes, 0);
+            if (this.protocolVersion < Version.MC_1_20_3) {
+                offset = StateDeduplicator.skipVarInt(rawDataBytes, offset); // action
+            }
+            return Hash64.mix(StateDeduplicator.hashString(rawDataBytes, 0) * 31 + StateDeduplicator.hashString(rawDataBytes, offset));
+        });
+    }
+
+    /// Packet types that can be deduplicated.
+    public static final Set<PacketType.Play> SUPPORTED_PACKET_TYPES = Collections.unmodifiableSet(EnumSet.of(
+            PacketType.Play.BLOCK_ENTITY_DATA,
+            PacketType.Play.DISPLAY_OBJECTIVE,
+            PacketType.Play.INITIALIZE_WORLD_BORDER,
+            PacketType.Play.MAP_DATA,
+            PacketType.Play.SET_BORDER_CENTER,
+            PacketType.Play.SET_BORDER_SIZE,
+            PacketType.Play.SET_BORDER_WARNING_DELAY,
+            PacketType.Play.SET_BORDER_WARNING_DISTANCE,
+            PacketType.Play.SET_ENTITY_METADATA,
+            PacketType.Play.SET_EQUIPMENT,
+            PacketType.Play.UPDATE_ATTRIBUTES,
+            PacketType.Play.UPDATE_OBJECTIVES,
+            PacketType.Play.UPDATE_SCORE,
+            PacketType.Play.UPDATE_TEAMS,
+            PacketType.Play.UPDATE_TIME));
+
+    private final int protocolVersion;
+
+    // Packet type -> (key -> hash of the last written payload)
+    private final Map<PacketType.Play, LongLongHashMap> lastPayloads = new EnumMap<PacketType.Play, LongLongHashMap>(PacketType.Play.class);
+    private final Map<PacketType.Play, KeyExtractor> keyExtractors = new EnumMap<PacketType.Play, KeyExtractor>(PacketType.Play.class);
+
+
+    /// Extracts the key from the raw data of a packet.
+    @FunctionalInterface
+    private interface KeyExtractor {
+        public long keyOf(int[] rawDataBytes);
+    }
+
+
+    /**
+     * Drop the packet if its payload is the same as the last one written for the key. Otherwise, remember the payload.
+     *
+     * @return true if the packet was dropped.
+     */
+    private boolean deduplicate(Packet packet, long key, long payloadHash) {
+        if (packet.isWriteCanceled()) {
+            return false;
+        }
+        LongLongHashMap lastPayload = this.lastPayloads.get(packet.getPacketType());
+        if (lastPayload == null) {
+            return false;
+        }
+        // Mix in the packet type, for packet types sharing the same map.
+        payloadHash = Hash64.mix(payloadHash + packet.getPacketType().ordinal());
+
+        if (lastPayload.containsKey(key) && lastPayload.get(key, 0L) == payloadHash) {
+            packet.setWriteCanceled(true);
+            return true;
+        }
+        lastPayload.put(key, payloadHash);
+        return false;
+    }
+
+    private void invalidate(PacketType.Play packetType, long key) {
+        LongLongHashMap lastPayload = this.lastPayloads.get(packetType);
+        if (lastPayload != null) {
+            lastPayload.remove(key);
+        }
+    }
+
+    private void invalidateAll(PacketType.Play packetType) {
+        LongLongHashMap lastPayload = this.lastPayloads.get(packetType);
+        if (lastPayload != null) {
+            lastPayload.clear();
+        }
+    }
+
+
+    @Override
+    public void onSetEntityMetadataPacket(SetEntityMetadataPacket setEntityMetadataPacket) {
+        this.deduplicate(setEntityMetadataPacket, setEntityMetadataPacket.getEntityID(), Hash64.hash(setEntityMetadataPacket.getRawMetadataBytes()));
+    }
+
+    @Override
+    public void onSetEquipmentPacket(SetEquipmentPacket setEquipmentPacket) {
+        this.deduplicate(setEquipmentPacket, setEquipmentPacket.getEntityID(), Hash64.hash(setEquipmentPacket.getRawEquipmentBytes()));
+    }
+
+    @Override
+    public void onUpdateAttributesPacket(UpdateAttributesPacket updateAttributesPacket) {
+        this.deduplicate(updateAttributesPacket, updateAttributesPacket.getEntityID(), Hash64.hash(updateAttributesPacket.getRawAttributesBytes()));
+    }
+
+    @Override
+    public void onBlockEntityDataPacket(BlockEntityDataPacket blockEntityDataPacket) {
+        int[] rawNBTBytes = blockEntityDataPacket.getRawNBTBytes();
+        this.deduplicate(blockEntityDataPacket, blockEntityDataPacket.getEncodedPosition(), Hash64.hash(rawNBTBytes, 0, rawNBTBytes.length, blockEntityDataPacket.getBlockEntityType()));
+    }
+
+    // Only while the time of day is frozen. Otherwise, every update is different anyway.
+    // The world age is left out, as the client keeps counting it up by itself in between updates.
+    @Override
+    public void onUpdateTimePacket(UpdateTimePacket updateTimePacket) {
+        if (updateTimePacket.doesTimeAdvance()) {
+            this.invalidate(PacketType.Play.UPDATE_TIME, 0L);
+        } else {
+            this.deduplicate(updateTimePacket, 0L, updateTimePacket.getTimeOfDay());
+        }
+    }
+
+
+    @Override
+    public PacketType.Play[] getRawPacketTypes() {
+        List<PacketType.Play> rawPacketTypes = new ArrayList<PacketType.Play>(this.keyExtractors.size() + 1);
+        for (PacketType.Play packetType : this.keyExtractors.keySet()) {
+            if (this.lastPayloads.containsKey(packetType)) {
+                rawPacketTypes.add(packetType);
+            }
+        }
+        // Needed for invalidating the last score payloads.
+        if (this.lastPayloads.containsKey(PacketType.Play.UPDATE_SCORE)) {
+            rawPacketTypes.add(PacketType.Play.RESET_SCORE);
+            if (!rawPacketTypes.contains(PacketType.Play.UPDATE_OBJECTIVES)) {
+                rawPacketTypes.add(PacketType.Play.UPDATE_OBJECTIVES);
+            }
+        }
+        // Needed for invalidating the last world border payload.
+        if (this.lastPayloads.containsKey(PacketType.Play.SET_BORDER_SIZE)) {
+            rawPacketTypes.add(PacketType.Play.SET_BORDER_LERP_SIZE);
+        }
+        return rawPacketTypes.toArray(new PacketType.Play[0]);
+    }
+
+    @Override
+    public void onRawPacket(RawPacket rawPacket) {
+        PacketType.Play packetType = rawPacket.getPacketType();
+        int[] rawDataBytes = rawPacket.getRawDataBytes();
+
+        switch (packetType) {
+            // Scores are removed along with the objective. Also, creating an objective starts with no scores.
+            case UPDATE_OBJECTIVES -> {
+                int mode = rawDataBytes[StateDeduplicator.skipString(rawDataBytes, 0)];
+                if (mode != 2) {
+                    this.invalidateAll(PacketType.Play.UPDATE_SCORE);
+                }
+            }
+            case RESET_SCORE -> {
+                this.invalidateAll(PacketType.Play.UPDATE_SCORE);
+                return;
+            }
+            // The border size changes over time, so a following border size packet is never the same as before.
+            // (The lerp itself isn't deduplicated, as re-sending it starts the change over again)
+            case SET_BORDER_LERP_SIZE -> {
+                this.invalidate(PacketType.Play.SET_BORDER_SIZE, 0L);
+                return;
+            }
+            default -> {
+                // Nothing else to invalidate.
+            }
+        }
+
+        KeyExtractor keyExtractor = this.keyExtractors.get(packetType);
+        if (keyExtractor != null) {
+            this.deduplicate(rawPacket, keyExtractor.keyOf(rawDataBytes), Hash64.hash(rawDataBytes));
+        }
+    }
+
+
+    // Invalidation of entity state when an entity is spawned or removed.
+
+    private void invalidateEntity(int entityID) {
+        this.invalidate(PacketType.Play.SET_ENTITY_METADATA, entityID);
+        this.invalidate(PacketType.Play.SET_EQUIPMENT, entityID);
+        this.invalidate(PacketType.Play.UPDATE_ATTRIBUTES, entityID);
+    }
+
+    @Override
+    public void onSpawnEntityPacket(SpawnEntityPacket spawnEntityPacket) {
+        this.invalidateEntity(spawnEntityPacket.getEntityID());
+    }
+
+    @Override
+    public void onSpawnExperienceOrbPacket(SpawnExperienceOrbPacket spawnExperienceOrbPacket) {
+        this.invalidateEntity(spawnExperienceOrbPacket.getEntityID());
+    }
+
+    @Override
+    public void onSpawnLivingEntityPacket(SpawnLivingEntityPacket spawnLivingEntityPacket) {
+        this.invalidateEntity(spawnLivingEntityPacket.getEntityID());
+    }
+
+    @Override
+    public void onSpawnPaintingPacket(SpawnPaintingPacket spawnPaintingPacket) {
+        this.invalidateEntity(spawnPaintingPacket.getEntityID());
+    }
+
+    @Override
+    public void onSpawnPlayerPacket(SpawnPlayerPacket spawnPlayerPacket) {
+        this.invalidateEntity(spawnPlayerPacket.getEntityID());
+    }
+
+    @Override
+    public void onRemoveEntitiesPacket(RemoveEntitiesPacket removeEntitiesPacket) {
+        for (int entityID : removeEntitiesPacket.getEntityIDs()) {
+            this.invalidateEntity(entityID);
+        }
+    }
+
+
+    // Invalidation of block entity state when the block is changed, or the chunk is (re)loaded or unloaded.
+
+    @Override
+    public void onBlockUpdatePacket(BlockUpdatePacket blockUpdatePacket) {
+        this.invalidate(PacketType.Play.BLOCK_ENTITY_DATA, blockUpdatePacket.getEncodedPosition());
+    }
+
+    @Override
+    public void onUpdateSectionBlocksPacket(UpdateSectionBlocksPacket updateSectionBlocksPacket) {
+        LongLongHashMap lastPayload = this.lastPayloads.get(PacketType.Play.BLOCK_ENTITY_DATA);
+        if (lastPayload == null || lastPayload.isEmpty()) {
+            return;
+        }
+        int baseX = updateSectionBlocksPacket.getSectionX() << 4;
+        int baseY = updateSectionBlocksPacket.getSectionY() << 4;
+        int baseZ = updateSectionBlocksPacket.getSectionZ() << 4;
+        for (long block : updateSectionBlocksPacket.getBlocks()) {
+            lastPayload.remove(BlockUpdatePacket.encodePosition(
+                    baseX + UpdateSectionBlocksPacket.decodeLocalX(block),
+                    baseY + UpdateSectionBlocksPacket.decodeLocalY(block),
+                    baseZ + UpdateSectionBlocksPacket.decodeLocalZ(block)));
+        }
+    }
+
+    @Override
+    public void onChunkDataPacket(ChunkDataPacket chunkDataPacket) {
+        this.invalidateChunk(chunkDataPacket.getChunkX(), chunkDataPacket.getChunkZ());
+    }
+
+    @Override
+    public void onUnloadChunkPacket(UnloadChunkPacket unloadChunkPacket) {
+        this.invalidateChunk(unloadChunkPacket.getChunkX(), unloadChunkPacket.getChunkZ());
+    }
+
+    private void invalidateChunk(int chunkX, int chunkZ) {
+        LongLongHashMap lastPayload = this.lastPayloads.get(PacketType.Play.BLOCK_ENTITY_DATA);
+        if (lastPayload == null || lastPayload.isEmpty()) {
+            return;
+        }
+        lastPayload.removeIf(position -> BlockUpdatePacket.decodePositionX(position) >> 4 == chunkX && BlockUpdatePacket.decodePositionZ(position) >> 4 == chunkZ);
+    }
+
+
+    // The client starts over with a new world (and a new set of entities) when respawning or (re)configuring.
+    @Override
+    public Packet[] insertPackets(int timestamp, PacketType.Play nextPacketType) {
+        switch (nextPacketType) {
+            case RESPAWN, START_CONFIGURATION, LOGIN -> {
+                for (LongLongHashMap lastPayload : this.lastPayloads.values()) {
+                    lastPayload.clear();
+                }
+            }
+            default -> {
+                // Do nothing.
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Packet[] insertPacketsAtEnd() {
+        return null;
+    }
+
+
+    // Helpers for reading the few fields needed from the raw packet data.
+
+    private static long readVarInt(int[] rawDataBytes, int offset) {
+        int value = 0;
+        int position = 0;
+        while (offset < rawDataBytes.length) {
+            int currentByte = rawDataBytes[offset++];
+            value |= (currentByte & 0x7F) << position;
+            if ((currentByte & 0x80) == 0) {
+                break;
+            }
+            position += 7;
+            if (position >= 32) {
+                break;
+            }
+        }
+        return value;
+    }
+
+    /// Returns the offset following the VarInt at the provided offset.
+    private static int skipVarInt(int[] rawDataBytes, int offset) {
+        while (offset < rawDataBytes.length && (rawDataBytes[offset] & 0x80) != 0) {
+            offset++;
+        }
+        return Math.min(offset + 1, rawDataBytes.length);
+    }
+
+    /// Returns the offset following the String at the provided offset.
+    private static int skipString(int[] rawDataBytes, int offset) {
+        int length = (int) StateDeduplicator.readVarInt(rawDataBytes, offset);
+        return Math.min(StateDeduplicator.skipVarInt(rawDataBytes, offset) + Math.max(0, length), rawDataBytes.length);
+    }
+
+    private static long hashString(int[] rawDataBytes, int offset) {
+        return Hash64.hash(rawDataBytes, offset, StateDeduplicator.skipString(rawDataBytes, offset), 0L);
+    }
+
+}
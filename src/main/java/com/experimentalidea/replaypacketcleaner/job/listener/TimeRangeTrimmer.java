@@ -0,0 +1,56 @@
+/*
+ * Copyright 2025 ExperimentalIdea
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+package com.experimentalidea.replaypacketcleaner.job.listener;
+
+import com.experimentalidea.replaypacketcleaner.packet.listener.ReplayTrimmer;
+
+/// Trims the replay down to a fixed range of time.
+public class TimeRangeTrimmer implements ReplayTrimmer {
+
+    /**
+     * Creates a {@link ReplayTrimmer} that trims the replay down to a range of time.
+     *
+     * @param startTimestamp The timestamp (in milliseconds) the replay should start at. A negative value is treated as 0, keeping the start as is.
+     * @param endTimestamp   The timestamp (in milliseconds) the replay should end at. A negative value keeps the end as is.
+     */
+    public TimeRangeTrimmer(int startTimestamp, int endTimestamp) {
+        if (startTimestamp < 0) {
+            startTimestamp = 0;
+        }
+        if (endTimestamp < 0) {
+            endTimestamp = -1;
+        } else if (endTimestamp < startTimestamp) {
+            throw new IllegalArgumentException("endTimestamp (" + endTimestamp + ") cannot be before startTimestamp (" + startTimestamp + ")");
+        }
+        this.startTimestamp = startTimestamp;
+        this.endTimestamp = endTimestamp;
+    }
+
+    private final int startTimestamp;
+    private final int endTimestamp;
+
+
+    @Override
+    public int getTrimStartTimestamp() {
+        return this.startTimestamp;
+    }
+
+    @Override
+    public int getTrimEndTimestamp() {
+        return this.endTimestamp;
+    }
+
+}
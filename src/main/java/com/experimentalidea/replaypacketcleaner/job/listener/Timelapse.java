@@ -0,0 +1,285 @@
+/*
+ * Copyright 2025 ExperimentalIdea
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+package com.experimentalidea.replaypacketcleaner.job.listener;
+
+import com.experimentalidea.replaypacketcleaner.packet.*;
+import com.experimentalidea.replaypacketcleaner.packet.listener.*;
+import com.experimentalidea.replaypacketcleaner.protocol.PacketType;
+import com.experimentalidea.replaypacketcleaner.util.LongIntHashMap;
+
+/// Turns a replay into a timelapse, which can be played back at normal speed. Every timestamp is divided by the speed-up factor.
+/// <br>
+/// <br> Movement that would happen within the same frame of the timelapse is thinned out.
+/// The relative movement and rotation of an entity within a frame is merged into a single packet, written out at the end of the frame.
+/// Relative movement adds up regardless of the order it's applied in, so a movement that can't be merged (it would no longer fit a relative move) is written out as-is.
+/// <br> (Collapsing block updates and dropping particles and sounds is left to their own listeners)
+public class Timelapse implements TimestampTransformer, UpdateEntityPositionPacketListener, UpdateEntityPositionAndRotationPacketListener,
+        UpdateEntityRotationPacketListener, TeleportEntityPacketListener, SynchronizeVehiclePositionPacketListener, MoveMinecartAlongTrackPacketListener,
+        RemoveEntitiesPacketListener, PacketInserter {
+
+    /**
+     * Creates a listener that turns a replay into a timelapse.
+     *
+     * @param speed             The speed-up factor. Every timestamp is divided by this.
+     * @param frameMilliseconds The length of a frame of the timelapse in milliseconds. Movement within a frame is merged.
+     */
+    public Timelapse(int speed, int frameMilliseconds) {
+        this.speed = Math.max(1, speed);
+        this.frameLength = Math.max(1, frameMilliseconds) * this.speed;
+    }
+
+    private final int speed;
+    // The length of a frame in milliseconds of the original replay.
+    private final int frameLength;
+
+    private int frame = 0;
+
+    // Entity id -> index within pendingMovements.
+    private final LongIntHashMap pendingIndices = new LongIntHashMap(256);
+    // Reused between frames, only the first pendingCount are in use.
+    private PendingMovement[] pendingMovements = new PendingMovement[64];
+    private int pendingCount = 0;
+
+
+    /// The merged movement of an entity within the current frame.
+    private static class PendingMovement {
+
+        private int entityID;
+        private int deltaX, deltaY, deltaZ;
+        private boolean hasPosition;
+        private boolean hasRotation;
+        private int yawByte, pitchByte;
+        private boolean onGround;
+
+    }
+
+
+    @Override
+    public int transformTimestamp(int timestamp) {
+        return timestamp / this.speed;
+    }
+
+
+    @Override
+    public void onUpdateEntityPositionPacket(UpdateEntityPositionPacket updateEntityPositionPacket) {
+        if (updateEntityPositionPacket.isWriteCanceled()) {
+            return;
+        }
+        PendingMovement pendingMovement = this.pendingOf(updateEntityPositionPacket.getEntityID());
+        if (this.mergePosition(pendingMovement, updateEntityPositionPacket.getDeltaX(), updateEntityPositionPacket.getDeltaY(), updateEntityPositionPacket.getDeltaZ())) {
+            pendingMovement.onGround = updateEntityPositionPacket.isOnGround();
+            updateEntityPositionPacket.setWriteCanceled(true);
+        }
+    }
+
+    @Override
+    public void onUpdateEntityPositionAndRotationPacket(UpdateEntityPositionAndRotationPacket updateEntityPositionAndRotationPacket) {
+        if (updateEntityPositionAndRotationPacket.isWriteCanceled()) {
+            return;
+        }
+        PendingMovement pendingMovement = this.pendingOf(updateEntityPositionAndRotationPacket.getEntityID());
+        if (this.mergePosition(pendingMovement, updateEntityPositionAndRotationPacket.getDeltaX(), updateEntityPositionAndRotationPacket.getDeltaY(), updateEntityPositionAndRotationPacket.getDeltaZ())) {
+            pendingMovement.hasRotation = true;
+            pendingMovement.yawByte = updateEntityPositionAndRotationPacket.getYawByte();
+            pendingMovement.pitchByte = updateEntityPositionAndRotationPacket.getPitchByte();
+            pendingMovement.onGround = updateEntityPositionAndRotationPacket.isOnGround();
+            updateEntityPositionAndRotationPacket.setWriteCanceled(true);
+        } else {
+            // Written out as-is, with a newer rotation than the pending one.
+            pendingMovement.hasRotation = false;
+        }
+    }
+
+    @Override
+    public void onUpdateEntityRotationPacket(UpdateEntityRotationPacket updateEntityRotationPacket) {
+        if (updateEntityRotationPacket.isWriteCanceled()) {
+            return;
+        }
+        PendingMovement pendingMovement = this.pendingOf(updateEntityRotationPacket.getEntityID());
+        pendingMovement.hasRotation = true;
+        pendingMovement.yawByte = updateEntityRotationPacket.getYawByte();
+        pendingMovement.pitchByte = updateEntityRotationPacket.getPitchByte();
+        pendingMovement.onGround = updateEntityRotationPacket.isOnGround();
+        updateEntityRotationPacket.setWriteCanceled(true);
+    }
+
+    // A teleport sets the position and rotation outright. Anything pending before it no longer matters.
+    @Override
+    public void onTeleportEntityPacket(TeleportEntityPacket teleportEntityPacket) {
+        if (!teleportEntityPacket.isWriteCanceled()) {
+            this.discard(teleportEntityPacket.getEntityID());
+        }
+    }
+
+    // Since 1.21.2 (protocol 768) this is the relative teleport (minecraft:teleport_entity), written out before the pending movement.
+    // Relative movement adds up regardless of the order, so only what's pending for the fields it sets outright is dropped.
+    @Override
+    public void onSynchronizeVehiclePositionPacket(SynchronizeVehiclePositionPacket synchronizeVehiclePositionPacket) {
+        if (synchronizeVehiclePositionPacket.isWriteCanceled()) {
+            return;
+        }
+        int index = this.pendingIndices.get(synchronizeVehiclePositionPacket.getEntityID(), -1);
+        if (index == -1) {
+            return;
+        }
+        PendingMovement pendingMovement = this.pendingMovements[index];
+        if (!synchronizeVehiclePositionPacket.isRelativeX()) {
+            pendingMovement.deltaX = 0;
+        }
+        if (!synchronizeVehiclePositionPacket.isRelativeY()) {
+            pendingMovement.deltaY = 0;
+        }
+        if (!synchronizeVehiclePositionPacket.isRelativeZ()) {
+            pendingMovement.deltaZ = 0;
+        }
+        if (pendingMovement.deltaX == 0 && pendingMovement.deltaY == 0 && pendingMovement.deltaZ == 0) {
+            pendingMovement.hasPosition = false;
+        }
+        // The pending rotation is absolute, it would override the rotation of the teleport.
+        pendingMovement.hasRotation = false;
+    }
+
+    // Moves the minecart along the track on the client's side. Anything pending before it no longer matters.
+    @Override
+    public void onMoveMinecartAlongTrackPacket(MoveMinecartAlongTrackPacket moveMinecartAlongTrackPacket) {
+        if (!moveMinecartAlongTrackPacket.isWriteCanceled()) {
+            this.discard(moveMinecartAlongTrackPacket.getEntityID());
+        }
+    }
+
+    @Override
+    public void onRemoveEntitiesPacket(RemoveEntitiesPacket removeEntitiesPacket) {
+        if (this.pendingCount == 0) {
+            return;
+        }
+        for (int entityID : removeEntitiesPacket.getEntityIDs()) {
+            this.discard(entityID);
+        }
+    }
+
+
+    @Override
+    public Packet[] insertPackets(int timestamp, PacketType.Play nextPacketType) {
+        switch (nextPacketType) {
+            // All entities are removed along with these packets.
+            case RESPAWN, START_CONFIGURATION, LOGIN -> {
+                this.pendingIndices.clear();
+                this.pendingCount = 0;
+                return null;
+            }
+            default -> {
+                int frame = timestamp / this.frameLength;
+                if (frame == this.frame) {
+                    return null;
+                }
+                this.frame = frame;
+                return this.flush(timestamp);
+            }
+        }
+    }
+
+    @Override
+    public Packet[] insertPacketsAtEnd() {
+        return this.flush(this.frame * this.frameLength);
+    }
+
+
+    private PendingMovement pendingOf(int entityID) {
+        int index = this.pendingIndices.get(entityID, -1);
+        if (index != -1) {
+            return this.pendingMovements[index];
+        }
+        if (this.pendingCount == this.pendingMovements.length) {
+            PendingMovement[] pendingMovements = new PendingMovement[this.pendingMovements.length << 1];
+            System.arraycopy(this.pendingMovements, 0, pendingMovements, 0, this.pendingCount);
+            this.pendingMovements = pendingMovements;
+        }
+        PendingMovement pendingMovement = this.pendingMovements[this.pendingCount];
+        if (pendingMovement == null) {
+            pendingMovement = new PendingMovement();
+            this.pendingMovements[this.pendingCount] = pendingMovement;
+        }
+        pendingMovement.entityID = entityID;
+        pendingMovement.deltaX = 0;
+        pendingMovement.deltaY = 0;
+        pendingMovement.deltaZ = 0;
+        pendingMovement.hasPosition = false;
+        pendingMovement.hasRotation = false;
+        this.pendingIndices.put(entityID, this.pendingCount++);
+        return pendingMovement;
+    }
+
+    /// Returns false if the merged movement would no longer fit a relative move.
+    private boolean mergePosition(PendingMovement pendingMovement, short deltaX, short deltaY, short deltaZ) {
+        int mergedX = pendingMovement.deltaX + deltaX;
+        int mergedY = pendingMovement.deltaY + deltaY;
+        int mergedZ = pendingMovement.deltaZ + deltaZ;
+        if (mergedX != (short) mergedX || mergedY != (short) mergedY || mergedZ != (short) mergedZ) {
+            return false;
+        }
+        pendingMovement.deltaX = mergedX;
+        pendingMovement.deltaY = mergedY;
+        pendingMovement.deltaZ = mergedZ;
+        pendingMovement.hasPosition = true;
+        return true;
+    }
+
+    private void discard(int entityID) {
+        int index = this.pendingIndices.get(entityID, -1);
+        if (index != -1) {
+            // Leave the entry in place, with nothing left to write out.
+            PendingMovement pendingMovement = this.pendingMovements[index];
+            pendingMovement.deltaX = 0;
+            pendingMovement.deltaY = 0;
+            pendingMovement.deltaZ = 0;
+            pendingMovement.hasPosition = false;
+            pendingMovement.hasRotation = false;
+        }
+    }
+
+    /// Build the packets for the pending movement of every entity.
+    private Packet[] flush(int timestamp) {
+        if (this.pendingCount == 0) {
+            return null;
+        }
+        Packet[] packets = new Packet[this.pendingCount];
+        int count = 0;
+        for (int i = 0; i < this.pendingCount; i++) {
+            PendingMovement pendingMovement = this.pendingMovements[i];
+            if (pendingMovement.hasPosition && pendingMovement.hasRotation) {
+                packets[count++] = new UpdateEntityPositionAndRotationPacket(0, timestamp, pendingMovement.entityID,
+                        (short) pendingMovement.deltaX, (short) pendingMovement.deltaY, (short) pendingMovement.deltaZ,
+                        pendingMovement.yawByte, pendingMovement.pitchByte, pendingMovement.onGround);
+            } else if (pendingMovement.hasPosition) {
+                packets[count++] = new UpdateEntityPositionPacket(0, timestamp, pendingMovement.entityID,
+                        (short) pendingMovement.deltaX, (short) pendingMovement.deltaY, (short) pendingMovement.deltaZ, pendingMovement.onGround);
+            } else if (pendingMovement.hasRotation) {
+                packets[count++] = new UpdateEntityRotationPacket(0, timestamp, pendingMovement.entityID,
+                        pendingMovement.yawByte, pendingMovement.pitchByte, pendingMovement.onGround);
+            }
+        }
+        this.pendingIndices.clear();
+        this.pendingCount = 0;
+
+        if (count != packets.length) {
+            Packet[] trimmed = new Packet[count];
+            System.arraycopy(packets, 0, trimmed, 0, count);
+            return trimmed;
+        }
+        return packets;
+    }
+
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2025 ExperimentalIdea
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+package com.experimentalidea.replaypacketcleaner.packet;
+
+import com.experimentalidea.replaypacketcleaner.protocol.PacketType;
+
+/// A read-only representation of a Block Entity Data Packet. The NBT data is kept as raw bytes.
+public class BlockEntityDataPacket extends Packet {
+
+
+    public BlockEntityDataPacket(long packetIndex, int timestamp, int positionX, int positionY, int positionZ, int blockEntityType, int[] rawNBTBytes) {
+        super(packetIndex, timestamp, PacketType.Play.BLOCK_ENTITY_DATA);
+        this.positionX = positionX;
+        this.positionY = positionY;
+        this.positionZ = positionZ;
+        this.blockEntityType = blockEntityType;
+        this.rawNBTBytes = rawNBTBytes;
+    }
+
+    private final int positionX, positionY, positionZ;
+    private final int blockEntityType;
+    private final int[] rawNBTBytes;
+
+
+    public int getPositionX() {
+        return this.positionX;
+    }
+
+    public int getPositionY() {
+        return this.positionY;
+    }
+
+    public int getPositionZ() {
+        return this.positionZ;
+    }
+
+    /// Returns the block position encoded the same way as it is on the wire.
+    public long getEncodedPosition() {
+        return BlockUpdatePacket.encodePosition(this.positionX, this.positionY, this.positionZ);
+    }
+
+
+    /// Returns the protocol specific block entity type id.
+    public int getBlockEntityType() {
+        return this.blockEntityType;
+    }
+
+    public int[] getRawNBTBytes() {
+        return this.rawNBTBytes;
+    }
+
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2025 ExperimentalIdea
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+package com.experimentalidea.replaypacketcleaner.packet;
+
+import com.experimentalidea.replaypacketcleaner.protocol.PacketType;
+
+/// A representation of a Block Update Packet.
+public class BlockUpdatePacket extends Packet {
+
+
+    public BlockUpdatePacket(long packetIndex, int timestamp, int positionX, int positionY, int positionZ, int blockState) {
+        super(packetIndex, timestamp, PacketType.Play.BLOCK_UPDATE);
+        this.positionX = positionX;
+        this.positionY = positionY;
+        this.positionZ = positionZ;
+        this.blockState = blockState;
+    }
+
+    private final int positionX, positionY, positionZ;
+    private int blockState;
+
+
+    public int getPositionX() {
+        return this.positionX;
+    }
+
+    public int getPositionY() {
+        return this.positionY;
+    }
+
+    public int getPositionZ() {
+        return this.positionZ;
+    }
+
+    /// Returns the block position encoded the same way as it is on the wire.
+    public long getEncodedPosition() {
+        return BlockUpdatePacket.encodePosition(this.positionX, this.positionY, this.positionZ);
+    }
+
+
+    /// Returns the protocol specific block state.
+    public int getBlockState() {
+        return this.blockState;
+    }
+
+    public void setBlockState(int blockState) {
+        this.blockState = blockState;
+    }
+
+
+    /// Encode a block position. (x: 26 bits, z: 26 bits, y: 12 bits)
+    public static long encodePosition(int x, int y, int z) {
+        return (((long) x & 0x3FFFFFF) << 38) | (((long) z & 0x3FFFFFF) << 12) | ((long) y & 0xFFF);
+    }
+
+    public static int decodePositionX(long position) {
+        return (int) (position >> 38);
+    }
+
+    public static int decodePositionY(long position) {
+        return (int) (position << 52 >> 52);
+    }
+
+    public static int decodePositionZ(long position) {
+        return (int) (position << 26 >> 38);
+    }
+
+}
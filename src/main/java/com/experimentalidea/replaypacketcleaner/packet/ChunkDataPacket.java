@@ -0,0 +1,56 @@
+/*
+ * Copyright 2025 ExperimentalIdea
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+package com.experimentalidea.replaypacketcleaner.packet;
+
+import com.experimentalidea.replaypacketcleaner.protocol.PacketType;
+
+/// A representation of a Chunk Data (and Update Light) Packet. Everything after the chunk coordinates is kept as raw bytes. (See {@link ChunkSectionCodec} for decoding them)
+public class ChunkDataPacket extends Packet {
+
+
+    /**
+     * @param packetType Either CHUNK_DATA (protocol 755 - 756 / MC 1.17.x) or CHUNK_DATA_AND_UPDATE_LIGHT (protocol 757+ / MC 1.18+)
+     */
+    public ChunkDataPacket(long packetIndex, int timestamp, PacketType.Play packetType, int chunkX, int chunkZ, int[] rawDataBytes) {
+        super(packetIndex, timestamp, packetType);
+        this.chunkX = chunkX;
+        this.chunkZ = chunkZ;
+        this.rawDataBytes = rawDataBytes;
+    }
+
+    private final int chunkX, chunkZ;
+    private int[] rawDataBytes;
+
+
+    public int getChunkX() {
+        return this.chunkX;
+    }
+
+    public int getChunkZ() {
+        return this.chunkZ;
+    }
+
+    /// Returns the packet data following the chunk coordinates. (heightmaps, chunk sections, block entities and, depending on the protocol version, light data)
+    public int[] getRawDataBytes() {
+        return this.rawDataBytes;
+    }
+
+    /// Replace the packet data following the chunk coordinates.
+    public void setRawDataBytes(int[] rawDataBytes) {
+        this.rawDataBytes = rawDataBytes;
+    }
+
+}
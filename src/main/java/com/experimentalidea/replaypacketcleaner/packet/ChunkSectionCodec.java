@@ -0,0 +1,409 @@
+/*
+ * Copyright 2025 ExperimentalIdea
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+package com.experimentalidea.replaypacketcleaner.packet;
+
+import com.experimentalidea.replaypacketcleaner.protocol.Version;
+
+import java.util.Arrays;
+
+/// Decodes the layout of the chunk data (chunk sections, block entities and light) of Chunk Data And Update Light packets (protocol 757+ / MC 1.18+),
+/// far enough to rewrite the sections outside a range of heights. Chunk sections above or below the range are replaced by empty sections,
+/// and the block entities and light within them are left out.
+/// <br>
+/// <br> The contents of the sections aren't decoded, only the paletted containers are sized. Data that can't be sized is left as is.
+public class ChunkSectionCodec {
+
+    /**
+     * @param protocolVersion The protocol version of the replay. Must be 757 (MC 1.18) or newer.
+     */
+    public ChunkSectionCodec(int protocolVersion) {
+        this.protocolVersion = protocolVersion;
+    }
+
+    /// The number of entries within the paletted container of a chunk section. Blocks are 16x16x16, biomes 4x4x4.
+    private static final int BLOCK_ENTRIES = 4096;
+    private static final int BIOME_ENTRIES = 64;
+    /// Above this many bits per entry, a paletted container has no palette of its own, using the global ids instead.
+    private static final int BLOCK_MAX_INDIRECT_BITS = 8;
+    private static final int BIOME_MAX_INDIRECT_BITS = 3;
+
+    private final int protocolVersion;
+
+
+    /**
+     * Count the chunk sections within the data of a Chunk Data And Update Light packet.
+     *
+     * @param rawDataBytes The packet data following the chunk coordinates.
+     * @return The number of chunk sections, or -1 if the data couldn't be decoded.
+     */
+    public int countSections(int[] rawDataBytes) {
+        int offset = this.skipHeightmaps(rawDataBytes, 0);
+        if (offset < 0 || offset >= rawDataBytes.length) {
+            return -1;
+        }
+        int dataEnd = EntityMetadata.skipVarInt(rawDataBytes, offset) + EntityMetadata.readVarInt(rawDataBytes, offset);
+        offset = EntityMetadata.skipVarInt(rawDataBytes, offset);
+        int count = 0;
+        while (offset >= 0 && offset < dataEnd) {
+            offset = this.skipSection(rawDataBytes, offset);
+            count++;
+        }
+        return offset == dataEnd ? count : -1;
+    }
+
+    /**
+     * Replace the chunk sections outside a range with empty sections (air, keeping the biomes),
+     * and leave out the block entities and light within them.
+     * Light is kept for the sections right next to the range, as blocks within the range are lit by their neighbours.
+     *
+     * @param rawDataBytes   The packet data following the chunk coordinates.
+     * @param minSectionY    The section y of the lowest section of the world. (-4 for the overworld, 0 for the nether & end)
+     * @param minKeptSection The section y of the lowest section to keep.
+     * @param maxKeptSection The section y of the highest section to keep.
+     * @return The new packet data, or null if nothing changed (or the data couldn't be decoded).
+     */
+    public int[] stripSections(int[] rawDataBytes, int minSectionY, int minKeptSection, int maxKeptSection) {
+        int[] bytes = rawDataBytes;
+        int heightmapsEnd = this.skipHeightmaps(bytes, 0);
+        if (heightmapsEnd < 0 || heightmapsEnd >= bytes.length) {
+            return null;
+        }
+        int dataStart = EntityMetadata.skipVarInt(bytes, heightmapsEnd);
+        int dataEnd = dataStart + EntityMetadata.readVarInt(bytes, heightmapsEnd);
+        if (dataStart < 0 || dataEnd > bytes.length) {
+            return null;
+        }
+
+        Output output = new Output(bytes.length);
+        output.write(bytes, 0, heightmapsEnd);
+
+        // Chunk sections.
+        Output sections = new Output(dataEnd - dataStart);
+        boolean changed = false;
+        int offset = dataStart;
+        for (int sectionY = minSectionY; offset < dataEnd; sectionY++) {
+            int blocksEnd = this.skipContainer(bytes, offset + 2, ChunkSectionCodec.BLOCK_ENTRIES, ChunkSectionCodec.BLOCK_MAX_INDIRECT_BITS);
+            int biomesEnd = this.skipContainer(bytes, blocksEnd, ChunkSectionCodec.BIOME_ENTRIES, ChunkSectionCodec.BIOME_MAX_INDIRECT_BITS);
+            if (biomesEnd < 0 || biomesEnd > dataEnd) {
+                return null;
+            }
+            if ((sectionY >= minKeptSection && sectionY <= maxKeptSection) || this.isEmptySection(bytes, offset, blocksEnd)) {
+                sections.write(bytes, offset, biomesEnd - offset);
+            } else {
+                // No blocks, a single value palette of air (state id 0), followed by the biomes as they were.
+                sections.write(0);
+                sections.write(0);
+                sections.write(0);
+                sections.write(0);
+                if (this.protocolVersion < Version.MC_1_21_5) {
+                    sections.write(0);
+                }
+                sections.write(bytes, blocksEnd, biomesEnd - blocksEnd);
+                changed = true;
+            }
+            offset = biomesEnd;
+        }
+        if (!changed) {
+            return null;
+        }
+        output.writeVarInt(sections.size());
+        output.write(sections.bytes, 0, sections.size());
+
+        // Block entities. (packed xz, y, type, nbt)
+        offset = dataEnd;
+        int blockEntityCount = EntityMetadata.readVarInt(bytes, offset);
+        offset = EntityMetadata.skipVarInt(bytes, offset);
+        Output blockEntities = new Output(0);
+        int keptBlockEntities = 0;
+        for (int i = 0; i < blockEntityCount; i++) {
+            if (offset < 0 || offset + 3 > bytes.length) {
+                return null;
+            }
+            int y = (short) ((bytes[offset + 1] << 8) | bytes[offset + 2]);
+            int end = EntityMetadata.skipNBT(bytes, EntityMetadata.skipVarInt(bytes, offset + 3), this.protocolVersion);
+            if (end < 0) {
+                return null;
+            }
+            if ((y >> 4) >= minKeptSection && (y >> 4) <= maxKeptSection) {
+                blockEntities.write(bytes, offset, end - offset);
+                keptBlockEntities++;
+            }
+            offset = end;
+        }
+        output.writeVarInt(keptBlockEntities);
+        output.write(blockEntities.bytes, 0, blockEntities.size());
+
+        // Light.
+        int[] light = this.stripLight(bytes, offset, minSectionY, minKeptSection, maxKeptSection);
+        if (light == null) {
+            output.write(bytes, offset, bytes.length - offset);
+        } else {
+            output.write(light, 0, light.length);
+        }
+        return output.toArray();
+    }
+
+    /**
+     * Leave out the light of the chunk sections outside a range (and not right next to it).
+     * The light data of a Chunk Data And Update Light packet is laid out the same as the data of an Update Light packet.
+     * Sections below the range are marked as empty (no light), while sections above it are left out of both masks, so the client keeps full sky light there.
+     *
+     * @param rawDataBytes   The packet data.
+     * @param offset         The offset the light data starts at.
+     * @param minSectionY    The section y of the lowest section of the world.
+     * @param minKeptSection The section y of the lowest section to keep.
+     * @param maxKeptSection The section y of the highest section to keep.
+     * @return The new light data (starting from the offset), or null if nothing changed (or the data couldn't be decoded).
+     */
+    public int[] stripLight(int[] rawDataBytes, int offset, int minSectionY, int minKeptSection, int maxKeptSection) {
+        int[] bytes = rawDataBytes;
+        int start = offset;
+        // The "trust edges" boolean was removed in protocol 763 (1.20.0/1).
+        if (this.protocolVersion < Version.MC_1_20_0) {
+            offset++;
+        }
+
+        // Sky light mask, block light mask, empty sky light mask, empty block light mask.
+        long[][] masks = new long[4][];
+        for (int i = 0; i < 4; i++) {
+            if (offset < 0 || offset >= bytes.length) {
+                return null;
+            }
+            int length = EntityMetadata.readVarInt(bytes, offset);
+            offset = EntityMetadata.skipVarInt(bytes, offset);
+            if (length < 0 || offset + length * 8L > bytes.length) {
+                return null;
+            }
+            masks[i] = new long[length];
+            for (int j = 0; j < length; j++) {
+                masks[i][j] = ChunkSectionCodec.readLong(bytes, offset);
+                offset += 8;
+            }
+        }
+
+        // Light sections start one below the lowest chunk section. Keep those within the range, and those right next to it.
+        int minKeptIndex = minKeptSection - minSectionY;
+        int maxKeptIndex = maxKeptSection - minSectionY + 2;
+
+        Output arrays = new Output(bytes.length - offset);
+        boolean changed = false;
+        for (int type = 0; type < 2; type++) {
+            if (offset < 0 || offset >= bytes.length) {
+                return null;
+            }
+            int arrayCount = EntityMetadata.readVarInt(bytes, offset);
+            offset = EntityMetadata.skipVarInt(bytes, offset);
+            long[] mask = masks[type];
+            long[] emptyMask = masks[type + 2];
+            int keptCount = 0;
+            Output kept = new Output(0);
+            int index = -1;
+            for (int i = 0; i < arrayCount; i++) {
+                index = ChunkSectionCodec.nextSetBit(mask, index + 1);
+                int length = offset < 0 ? -1 : EntityMetadata.readVarInt(bytes, offset);
+                int end = EntityMetadata.skipVarInt(bytes, offset) + length;
+                if (index < 0 || length < 0 || end > bytes.length) {
+                    return null;
+                }
+                if (index >= minKeptIndex && index <= maxKeptIndex) {
+                    kept.write(bytes, offset, end - offset);
+                    keptCount++;
+                } else if (index > maxKeptIndex) {
+                    // Above the range, sent as no light data at all, which the client reads as full sky light (and no block light).
+                    mask[index >> 6] &= ~(1L << (index & 63));
+                    changed = true;
+                } else {
+                    // Below the range, marked as empty (all zeroes) instead.
+                    mask[index >> 6] &= ~(1L << (index & 63));
+                    if ((index >> 6) < emptyMask.length) {
+                        emptyMask[index >> 6] |= 1L << (index & 63);
+                    } else {
+                        emptyMask = Arrays.copyOf(emptyMask, (index >> 6) + 1);
+                        emptyMask[index >> 6] |= 1L << (index & 63);
+                        masks[type + 2] = emptyMask;
+                    }
+                    changed = true;
+                }
+                offset = end;
+            }
+            arrays.writeVarInt(keptCount);
+            arrays.write(kept.bytes, 0, kept.size());
+        }
+        if (!changed) {
+            return null;
+        }
+
+        Output output = new Output(bytes.length - start);
+        if (this.protocolVersion < Version.MC_1_20_0) {
+            output.write(bytes[start]);
+        }
+        for (long[] mask : masks) {
+            output.writeVarInt(mask.length);
+            for (long value : mask) {
+                output.writeLong(value);
+            }
+        }
+        output.write(arrays.bytes, 0, arrays.size());
+        // Anything following the light data.
+        if (offset < bytes.length) {
+            output.write(bytes, offset, bytes.length - offset);
+        }
+        return output.toArray();
+    }
+
+
+    /// Heightmaps are an NBT compound, and since protocol 770 (1.21.5) a list of (type, long array) instead.
+    private int skipHeightmaps(int[] bytes, int offset) {
+        if (this.protocolVersion < Version.MC_1_21_5) {
+            return EntityMetadata.skipNBT(bytes, offset, this.protocolVersion);
+        }
+        int count = EntityMetadata.readVarInt(bytes, offset);
+        offset = EntityMetadata.skipVarInt(bytes, offset);
+        for (int i = 0; i < count && offset >= 0; i++) {
+            offset = EntityMetadata.skipVarInt(bytes, offset);
+            if (offset < 0) {
+                return -1;
+            }
+            int length = EntityMetadata.readVarInt(bytes, offset);
+            offset = EntityMetadata.skipVarInt(bytes, offset);
+            offset = offset < 0 ? -1 : offset + length * 8;
+        }
+        return offset;
+    }
+
+    /// Returns true if the section has no blocks, and block states of a single value palette of air. As stripped sections are written out.
+    private boolean isEmptySection(int[] bytes, int offset, int blocksEnd) {
+        int emptyLength = this.protocolVersion < Version.MC_1_21_5 ? 5 : 4;
+        if (blocksEnd - offset != emptyLength) {
+            return false;
+        }
+        for (int i = offset; i < blocksEnd; i++) {
+            if (bytes[i] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /// A chunk section is made of the number of non-air blocks (short), the block states and the biomes.
+    private int skipSection(int[] bytes, int offset) {
+        return this.skipContainer(bytes, this.skipContainer(bytes, offset + 2, ChunkSectionCodec.BLOCK_ENTRIES, ChunkSectionCodec.BLOCK_MAX_INDIRECT_BITS),
+                ChunkSectionCodec.BIOME_ENTRIES, ChunkSectionCodec.BIOME_MAX_INDIRECT_BITS);
+    }
+
+    /// A paletted container: bits per entry, the palette (a single value, a list of values, or nothing for global ids), then the packed entries.
+    /// Since protocol 770 (1.21.5), the number of longs holding the entries is no longer sent, as it follows from the bits per entry.
+    private int skipContainer(int[] bytes, int offset, int entries, int maxIndirectBits) {
+        if (offset < 0 || offset >= bytes.length) {
+            return -1;
+        }
+        int bitsPerEntry = bytes[offset++];
+        if (bitsPerEntry == 0) {
+            offset = EntityMetadata.skipVarInt(bytes, offset);
+        } else if (bitsPerEntry <= maxIndirectBits) {
+            int paletteLength = EntityMetadata.readVarInt(bytes, offset);
+            offset = EntityMetadata.skipVarInt(bytes, offset);
+            for (int i = 0; i < paletteLength && offset >= 0; i++) {
+                offset = EntityMetadata.skipVarInt(bytes, offset);
+            }
+        }
+        if (offset < 0) {
+            return -1;
+        }
+
+        int longs;
+        if (this.protocolVersion < Version.MC_1_21_5) {
+            longs = EntityMetadata.readVarInt(bytes, offset);
+            offset = EntityMetadata.skipVarInt(bytes, offset);
+        } else if (bitsPerEntry == 0) {
+            longs = 0;
+        } else {
+            int entriesPerLong = 64 / bitsPerEntry;
+            longs = (entries + entriesPerLong - 1) / entriesPerLong;
+        }
+        return offset < 0 || longs < 0 ? -1 : offset + longs * 8;
+    }
+
+    private static int nextSetBit(long[] mask, int fromIndex) {
+        for (int index = fromIndex; (index >> 6) < mask.length; index++) {
+            if ((mask[index >> 6] & (1L << (index & 63))) != 0) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    private static long readLong(int[] bytes, int offset) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (bytes[offset + i] & 0xFF);
+        }
+        return value;
+    }
+
+
+    /// A growable array of (unsigned) bytes, held as ints like the rest of the raw packet data.
+    private static class Output {
+
+        private Output(int initialCapacity) {
+            this.bytes = new int[Math.max(16, initialCapacity)];
+        }
+
+        private int[] bytes;
+        private int size = 0;
+
+        private int size() {
+            return this.size;
+        }
+
+        private void ensureCapacity(int additional) {
+            if (this.size + additional > this.bytes.length) {
+                this.bytes = Arrays.copyOf(this.bytes, Math.max(this.bytes.length * 2, this.size + additional));
+            }
+        }
+
+        private void write(int value) {
+            this.ensureCapacity(1);
+            this.bytes[this.size++] = value & 0xFF;
+        }
+
+        private void write(int[] source, int offset, int length) {
+            this.ensureCapacity(length);
+            System.arraycopy(source, offset, this.bytes, this.size, length);
+            this.size += length;
+        }
+
+        private void writeVarInt(int value) {
+            while ((value & ~0x7F) != 0) {
+                this.write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            this.write(value);
+        }
+
+        private void writeLong(long value) {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                this.write((int) (value >>> shift));
+            }
+        }
+
+        private int[] toArray() {
+            return Arrays.copyOf(this.bytes, this.size);
+        }
+
+    }
+
+}
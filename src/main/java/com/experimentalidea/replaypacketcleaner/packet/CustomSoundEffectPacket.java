@@ -18,25 +18,86 @@ package com.experimentalidea.replaypacketcleaner.packet;
 import com.experimentalidea.replaypacketcleaner.protocol.PacketType;
 
 /**
- * A read-only representation of a Custom Sound Effect Packet. Currently, I don't see a need to do anything with this packet outside deleting it.
+ * A read-only representation of a Custom Sound Effect Packet.
  * In protocol version 761, this packet's function was merged into SOUND_EFFECT.
+ *
  * @see com.experimentalidea.replaypacketcleaner.packet.SoundEffectPacket
- * TODO: implement packet.
  */
 public class CustomSoundEffectPacket extends Packet {
 
-    public CustomSoundEffectPacket(long packetIndex, int timestamp, int[] rawDataBytes) {
+    public CustomSoundEffectPacket(long packetIndex, int timestamp, int[] soundNameRawBytes, int category, int encodedX, int encodedY, int encodedZ, float volume, float pitch, long seed) {
         super(packetIndex, timestamp, PacketType.Play.CUSTOM_SOUND_EFFECT);
-        this.rawDataBytes = rawDataBytes;
+        if (soundNameRawBytes == null) {
+            throw new IllegalArgumentException("soundNameRawBytes cannot be null");
+        }
+        this.soundNameRawBytes = soundNameRawBytes;
+        this.category = category;
+        this.encodedX = encodedX;
+        this.encodedY = encodedY;
+        this.encodedZ = encodedZ;
+        this.volume = volume;
+        this.pitch = pitch;
+        this.seed = seed;
+    }
+
+    private final int[] soundNameRawBytes;
+    private final int category;
+    private final int encodedX, encodedY, encodedZ;
+    private final float volume, pitch;
+    private final long seed;
+
+
+    public String getSoundName() {
+        return SoundEffectPacket.decodeSoundName(this.soundNameRawBytes);
+    }
+
+    /// Returns the UTF-8 bytes of the resource name of the sound.
+    public int[] getSoundNameRawBytes() {
+        return this.soundNameRawBytes;
+    }
+
+    public int getCategory() {
+        return this.category;
     }
 
-    private final int[] rawDataBytes;
+    /// Returns the X coordinate multiplied by 8, as it's sent.
+    public int getEncodedX() {
+        return this.encodedX;
+    }
+
+    /// Returns the Y coordinate multiplied by 8, as it's sent.
+    public int getEncodedY() {
+        return this.encodedY;
+    }
 
-    /// TODO: Remove and implement packet
-    @Deprecated
-    public int[] getRawDataBytes() {
-        return rawDataBytes;
+    /// Returns the Z coordinate multiplied by 8, as it's sent.
+    public int getEncodedZ() {
+        return this.encodedZ;
     }
 
+    public double getX() {
+        return this.encodedX / 8.0;
+    }
+
+    public double getY() {
+        return this.encodedY / 8.0;
+    }
+
+    public double getZ() {
+        return this.encodedZ / 8.0;
+    }
+
+    public float getVolume() {
+        return this.volume;
+    }
+
+    public float getPitch() {
+        return this.pitch;
+    }
+
+    /// Only present in protocol version 759+ (1.19+). Otherwise 0.
+    public long getSeed() {
+        return this.seed;
+    }
 
 }
@@ -0,0 +1,561 @@
+/*
+ * Copyright 2025 ExperimentalIdea
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+package com.experimentalidea.replaypacketcleaner.packet;
+
+import com.experimentalidea.replaypacketcleaner.protocol.EntityDataType;
+import com.experimentalidea.replaypacketcleaner.protocol.Version;
+
+/// A view over the raw entity metadata of a {@link SetEntityMetadataPacket}, for reading, removing and rewriting entries.
+/// Nothing is decoded upfront. Each lookup walks the list of entries, skipping over the value of each entry by the size of its type.
+/// <br>
+/// <br> Some values (particles, item stacks with components, inline variants, types unknown to the protocol version) can't be sized without fully decoding them.
+/// Entries following such a value are not accessible, and are left untouched. See {@link #isFullyIndexed()}.
+public class EntityMetadata {
+
+    public EntityMetadata(int protocolVersion, int[] rawMetadataBytes) {
+        this.protocolVersion = protocolVersion;
+        this.bytes = rawMetadataBytes;
+    }
+
+    // Indexes of the entries shared by all entities.
+    public static final int INDEX_SHARED_FLAGS = 0;
+    public static final int INDEX_AIR_SUPPLY = 1;
+    public static final int INDEX_CUSTOM_NAME = 2;
+    public static final int INDEX_CUSTOM_NAME_VISIBLE = 3;
+    public static final int INDEX_SILENT = 4;
+    public static final int INDEX_NO_GRAVITY = 5;
+    public static final int INDEX_POSE = 6;
+    public static final int INDEX_TICKS_FROZEN = 7;
+
+    // Bits of the shared flags entry.
+    public static final int FLAG_ON_FIRE = 0x01;
+    public static final int FLAG_CROUCHING = 0x02;
+    public static final int FLAG_SPRINTING = 0x08;
+    public static final int FLAG_SWIMMING = 0x10;
+    public static final int FLAG_INVISIBLE = 0x20;
+    public static final int FLAG_GLOWING = 0x40;
+    public static final int FLAG_FALL_FLYING = 0x80;
+
+    private static final int END_OF_ENTRIES = 0xFF;
+
+    // Returned by find() when the entry isn't present, or couldn't be reached.
+    private static final int NOT_FOUND = -1;
+    private static final int UNREACHABLE = -2;
+
+    private final int protocolVersion;
+    private int[] bytes;
+    private boolean modified = false;
+
+    // Set by find() for the entry found.
+    private EntityDataType foundType;
+    private int foundValueOffset;
+    private int foundValueEnd; // -1 if the value can't be sized.
+
+
+    /// Returns the current raw metadata bytes, including any changes made.
+    public int[] getBytes() {
+        return this.bytes;
+    }
+
+    /// Returns true if any entry has been removed or rewritten.
+    public boolean isModified() {
+        return this.modified;
+    }
+
+    /// Returns true if there are no entries left.
+    public boolean isEmpty() {
+        return this.bytes.length == 0 || this.bytes[0] == EntityMetadata.END_OF_ENTRIES;
+    }
+
+    /// Returns true if every entry can be reached. If false, entries after the first value that can't be sized are not accessible.
+    public boolean isFullyIndexed() {
+        return this.find(EntityMetadata.END_OF_ENTRIES) != EntityMetadata.UNREACHABLE;
+    }
+
+    public boolean contains(int index) {
+        return this.find(index) >= 0;
+    }
+
+    /// Returns the type of the entry, or null if the entry isn't present (or can't be reached).
+    public EntityDataType getType(int index) {
+        return this.find(index) >= 0 ? this.foundType : null;
+    }
+
+
+    public int getByte(int index, int defaultValue) {
+        if (!this.findSized(index) || this.foundType != EntityDataType.BYTE) {
+            return defaultValue;
+        }
+        return this.bytes[this.foundValueOffset];
+    }
+
+    public boolean getBoolean(int index, boolean defaultValue) {
+        if (!this.findSized(index) || this.foundType != EntityDataType.BOOLEAN) {
+            return defaultValue;
+        }
+        return this.bytes[this.foundValueOffset] != 0;
+    }
+
+    /// Applicable to the types sent as a single VarInt. (VAR_INT, DIRECTION, POSE, BLOCK_STATE, OPTIONAL_BLOCK_STATE, OPTIONAL_VAR_INT, variants, etc.)
+    public int getVarInt(int index, int defaultValue) {
+        if (!this.findSized(index) || !EntityMetadata.isVarIntType(this.foundType)) {
+            return defaultValue;
+        }
+        return EntityMetadata.readVarInt(this.bytes, this.foundValueOffset);
+    }
+
+    public float getFloat(int index, float defaultValue) {
+        if (!this.findSized(index) || this.foundType != EntityDataType.FLOAT) {
+            return defaultValue;
+        }
+        return Float.intBitsToFloat(EntityMetadata.readInt(this.bytes, this.foundValueOffset));
+    }
+
+    /// Applicable to the optional types. Returns true if the entry is present and holds a value.
+    public boolean isValuePresent(int index) {
+        if (!this.findSized(index)) {
+            return false;
+        }
+        return switch (this.foundType) {
+            case OPTIONAL_TEXT_COMPONENT, OPTIONAL_BLOCK_POSITION, OPTIONAL_UUID, OPTIONAL_GLOBAL_POSITION -> this.bytes[this.foundValueOffset] != 0;
+            case OPTIONAL_BLOCK_STATE, OPTIONAL_VAR_INT -> EntityMetadata.readVarInt(this.bytes, this.foundValueOffset) != 0;
+            default -> true;
+        };
+    }
+
+    /// Returns true if the shared flags entry is present and has the flag set.
+    public boolean hasSharedFlag(int flag) {
+        return (this.getByte(EntityMetadata.INDEX_SHARED_FLAGS, 0) & flag) != 0;
+    }
+
+
+    /**
+     * Remove an entry.
+     *
+     * @return true if the entry was removed, false if it isn't present (or can't be reached or sized).
+     */
+    public boolean remove(int index) {
+        int entryOffset = this.find(index);
+        if (entryOffset < 0 || this.foundValueEnd < 0) {
+            return false;
+        }
+        this.replace(entryOffset, this.foundValueEnd, new int[0]);
+        return true;
+    }
+
+    /// Rewrite the value of a BYTE entry. Returns false if the entry isn't present or isn't of type BYTE.
+    public boolean setByte(int index, int value) {
+        if (!this.findSized(index) || this.foundType != EntityDataType.BYTE) {
+            return false;
+        }
+        this.bytes[this.foundValueOffset] = value & 0xFF;
+        this.modified = true;
+        return true;
+    }
+
+    /// Rewrite the value of a BOOLEAN entry. Returns false if the entry isn't present or isn't of type BOOLEAN.
+    public boolean setBoolean(int index, boolean value) {
+        if (!this.findSized(index) || this.foundType != EntityDataType.BOOLEAN) {
+            return false;
+        }
+        this.bytes[this.foundValueOffset] = value ? 1 : 0;
+        this.modified = true;
+        return true;
+    }
+
+    /// Rewrite the value of an entry sent as a single VarInt. Returns false if the entry isn't present or not of such a type.
+    public boolean setVarInt(int index, int value) {
+        if (!this.findSized(index) || !EntityMetadata.isVarIntType(this.foundType)) {
+            return false;
+        }
+        int[] valueBytes = new int[EntityMetadata.sizeOfVarInt(value)];
+        for (int i = 0; i < valueBytes.length - 1; i++) {
+            valueBytes[i] = (value & 0x7F) | 0x80;
+            value >>>= 7;
+        }
+        valueBytes[valueBytes.length - 1] = value;
+        this.replace(this.foundValueOffset, this.foundValueEnd, valueBytes);
+        return true;
+    }
+
+
+    /**
+     * Apply the entries of newer metadata on top of these entries. Entries present in both are replaced, the others are added.
+     *
+     * @return true if merged. false if either metadata isn't fully indexed, in which case nothing is changed.
+     */
+    public boolean merge(EntityMetadata newer) {
+        if (!this.isFullyIndexed() || !newer.isFullyIndexed()) {
+            return false;
+        }
+        int[] newerBytes = newer.bytes;
+        int offset = 0;
+        while (offset < newerBytes.length && newerBytes[offset] != EntityMetadata.END_OF_ENTRIES) {
+            int typeOffset = offset + 1;
+            int valueOffset = EntityMetadata.skipVarInt(newerBytes, typeOffset);
+            int valueEnd = newer.skipValue(EntityDataType.getByID(newer.protocolVersion, EntityMetadata.readVarInt(newerBytes, typeOffset)), valueOffset);
+
+            this.remove(newerBytes[offset]);
+            int[] entry = new int[valueEnd - offset];
+            System.arraycopy(newerBytes, offset, entry, 0, entry.length);
+            int endOfEntries = this.endOfEntries();
+            this.replace(endOfEntries, endOfEntries, entry);
+
+            offset = valueEnd;
+        }
+        return true;
+    }
+
+    /// Returns the offset of the end of entries marker. Only valid when fully indexed.
+    private int endOfEntries() {
+        int offset = 0;
+        while (offset < this.bytes.length && this.bytes[offset] != EntityMetadata.END_OF_ENTRIES) {
+            int valueOffset = EntityMetadata.skipVarInt(this.bytes, offset + 1);
+            offset = this.skipValue(EntityDataType.getByID(this.protocolVersion, EntityMetadata.readVarInt(this.bytes, offset + 1)), valueOffset);
+        }
+        return offset;
+    }
+
+    /// Replace the bytes within [from, to) with the provided bytes.
+    private void replace(int from, int to, int[] replacement) {
+        if (to - from == replacement.length) {
+            System.arraycopy(replacement, 0, this.bytes, from, replacement.length);
+        } else {
+            int[] newBytes = new int[this.bytes.length - (to - from) + replacement.length];
+            System.arraycopy(this.bytes, 0, newBytes, 0, from);
+            System.arraycopy(replacement, 0, newBytes, from, replacement.length);
+            System.arraycopy(this.bytes, to, newBytes, from + replacement.length, this.bytes.length - to);
+            this.bytes = newBytes;
+        }
+        this.modified = true;
+    }
+
+
+    /**
+     * Walk the entries looking for the entry with the provided index.
+     *
+     * @return The offset of the entry, {@link #NOT_FOUND} if the entry isn't present,
+     * or {@link #UNREACHABLE} if a value that can't be sized was reached first.
+     */
+    private int find(int index) {
+        int[] bytes = this.bytes;
+        int offset = 0;
+        while (offset < bytes.length) {
+            int entryIndex = bytes[offset];
+            if (entryIndex == EntityMetadata.END_OF_ENTRIES) {
+                return EntityMetadata.NOT_FOUND;
+            }
+            int typeOffset = offset + 1;
+            int valueOffset = EntityMetadata.skipVarInt(bytes, typeOffset);
+            if (valueOffset < 0) {
+                return EntityMetadata.UNREACHABLE;
+            }
+            EntityDataType type = EntityDataType.getByID(this.protocolVersion, EntityMetadata.readVarInt(bytes, typeOffset));
+            int valueEnd = this.skipValue(type, valueOffset);
+            if (entryIndex == index) {
+                this.foundType = type;
+                this.foundValueOffset = valueOffset;
+                this.foundValueEnd = valueEnd;
+                return offset;
+            }
+            if (valueEnd < 0) {
+                return EntityMetadata.UNREACHABLE;
+            }
+            offset = valueEnd;
+        }
+        return EntityMetadata.NOT_FOUND;
+    }
+
+    /// Find the entry, requiring its value to be sized.
+    private boolean findSized(int index) {
+        return this.find(index) >= 0 && this.foundValueEnd >= 0;
+    }
+
+    /// Returns the offset following the value, or -1 if the value can't be sized.
+    private int skipValue(EntityDataType type, int offset) {
+        int[] bytes = this.bytes;
+        int end = switch (type) {
+            case BYTE, BOOLEAN -> offset + 1;
+            case VAR_INT, DIRECTION, BLOCK_STATE, OPTIONAL_BLOCK_STATE, OPTIONAL_VAR_INT, POSE,
+                 CAT_VARIANT, COW_VARIANT, WOLF_VARIANT, WOLF_SOUND_VARIANT, FROG_VARIANT, PIG_VARIANT, CHICKEN_VARIANT,
+                 SNIFFER_STATE, ARMADILLO_STATE -> EntityMetadata.skipVarInt(bytes, offset);
+            case VAR_LONG -> EntityMetadata.skipVarLong(bytes, offset);
+            case FLOAT -> offset + 4;
+            case BLOCK_POSITION -> offset + 8;
+            case ROTATIONS, VECTOR3 -> offset + 12;
+            case QUATERNION -> offset + 16;
+            case STRING -> EntityMetadata.skipString(bytes, offset);
+            case TEXT_COMPONENT -> this.skipTextComponent(offset);
+            case OPTIONAL_TEXT_COMPONENT -> {
+                if (offset >= bytes.length) {
+                    yield -1;
+                }
+                yield bytes[offset] == 0 ? offset + 1 : this.skipTextComponent(offset + 1);
+            }
+            case OPTIONAL_BLOCK_POSITION -> {
+                if (offset >= bytes.length) {
+                    yield -1;
+                }
+                yield bytes[offset] == 0 ? offset + 1 : offset + 1 + 8;
+            }
+            case OPTIONAL_UUID -> {
+                if (offset >= bytes.length) {
+                    yield -1;
+                }
+                yield bytes[offset] == 0 ? offset + 1 : offset + 1 + 16;
+            }
+            case OPTIONAL_GLOBAL_POSITION -> {
+                if (offset >= bytes.length) {
+                    yield -1;
+                }
+                if (bytes[offset] == 0) {
+                    yield offset + 1;
+                }
+                int dimensionEnd = EntityMetadata.skipString(bytes, offset + 1);
+                yield dimensionEnd < 0 ? -1 : dimensionEnd + 8;
+            }
+            case VILLAGER_DATA -> EntityMetadata.skipVarInt(bytes, EntityMetadata.skipVarInt(bytes, EntityMetadata.skipVarInt(bytes, offset)));
+            case NBT -> this.skipNBT(offset);
+            case ITEM_STACK -> this.skipItemStack(offset);
+            case PAINTING_VARIANT -> {
+                // Since 1.21, an id of 0 is followed by the variant itself.
+                if (this.protocolVersion >= Version.MC_1_21_0 && offset < bytes.length && bytes[offset] == 0) {
+                    yield -1;
+                }
+                yield EntityMetadata.skipVarInt(bytes, offset);
+            }
+            // Particle data depends on the particle type.
+            case PARTICLE, PARTICLES, UNDEFINED -> -1;
+        };
+        if (end < 0 || end > bytes.length) {
+            return -1;
+        }
+        return end;
+    }
+
+    private int skipTextComponent(int offset) {
+        if (this.protocolVersion >= Version.MC_1_20_3) {
+            return this.skipNBT(offset);
+        }
+        return EntityMetadata.skipString(this.bytes, offset);
+    }
+
+    private int skipItemStack(int offset) {
+        return EntityMetadata.skipItemStack(this.bytes, offset, this.protocolVersion);
+    }
+
+    private int skipNBT(int offset) {
+        return EntityMetadata.skipNBT(this.bytes, offset, this.protocolVersion);
+    }
+
+    // The skip/read helpers below are shared with the other packets within this package that are decoded from raw bytes.
+
+    /// Skip an item stack. Returns -1 if it can't be sized without fully decoding it. (since 1.20.5, an item stack with components added)
+    static int skipItemStack(int[] bytes, int offset, int protocolVersion) {
+        if (offset < 0) {
+            return -1;
+        }
+        if (protocolVersion >= Version.MC_1_20_5) {
+            // Count, item id, number of components added, number of components removed, followed by the components.
+            int count = EntityMetadata.readVarInt(bytes, offset);
+            offset = EntityMetadata.skipVarInt(bytes, offset);
+            if (offset < 0 || count <= 0) {
+                return offset;
+            }
+            offset = EntityMetadata.skipVarInt(bytes, offset);
+            if (offset < 0 || offset >= bytes.length) {
+                return -1;
+            }
+            int added = EntityMetadata.readVarInt(bytes, offset);
+            offset = EntityMetadata.skipVarInt(bytes, offset);
+            if (added != 0 || offset < 0 || offset >= bytes.length) {
+                return -1; // Component data depends on the component type.
+            }
+            int removed = EntityMetadata.readVarInt(bytes, offset);
+            offset = EntityMetadata.skipVarInt(bytes, offset);
+            for (int i = 0; i < removed && offset >= 0; i++) {
+                offset = EntityMetadata.skipVarInt(bytes, offset);
+            }
+            return offset;
+        }
+        // Present, item id, count, nbt.
+        if (offset >= bytes.length) {
+            return -1;
+        }
+        if (bytes[offset] == 0) {
+            return offset + 1;
+        }
+        offset = EntityMetadata.skipVarInt(bytes, offset + 1);
+        if (offset < 0) {
+            return -1;
+        }
+        return EntityMetadata.skipNBT(bytes, offset + 1, protocolVersion);
+    }
+
+    /// Skip a root NBT tag. Since 1.20.2, the root tag is sent without a name.
+    static int skipNBT(int[] bytes, int offset, int protocolVersion) {
+        if (offset < 0 || offset >= bytes.length) {
+            return -1;
+        }
+        int tagType = bytes[offset++];
+        if (tagType == 0) {
+            return offset;
+        }
+        if (protocolVersion < Version.MC_1_20_2) {
+            offset = EntityMetadata.skipNBTString(bytes, offset);
+        }
+        return EntityMetadata.skipNBTPayload(bytes, offset, tagType, 0);
+    }
+
+    private static int skipNBTPayload(int[] bytes, int offset, int tagType, int depth) {
+        if (offset < 0 || offset > bytes.length || depth > 512) {
+            return -1;
+        }
+        switch (tagType) {
+            case 1 -> {
+                return offset + 1;
+            }
+            case 2 -> {
+                return offset + 2;
+            }
+            case 3, 5 -> {
+                return offset + 4;
+            }
+            case 4, 6 -> {
+                return offset + 8;
+            }
+            case 7, 11, 12 -> {
+                if (offset + 4 > bytes.length) {
+                    return -1;
+                }
+                long length = EntityMetadata.readInt(bytes, offset);
+                long elementSize = tagType == 7 ? 1 : (tagType == 11 ? 4 : 8);
+                long end = offset + 4 + length * elementSize;
+                return length < 0 || end > bytes.length ? -1 : (int) end;
+            }
+            case 8 -> {
+                return EntityMetadata.skipNBTString(bytes, offset);
+            }
+            case 9 -> {
+                if (offset + 5 > bytes.length) {
+                    return -1;
+                }
+                int elementType = bytes[offset];
+                int length = EntityMetadata.readInt(bytes, offset + 1);
+                offset += 5;
+                for (int i = 0; i < length && offset >= 0; i++) {
+                    offset = EntityMetadata.skipNBTPayload(bytes, offset, elementType, depth + 1);
+                }
+                return offset;
+            }
+            case 10 -> {
+                while (offset >= 0 && offset < bytes.length) {
+                    int entryType = bytes[offset++];
+                    if (entryType == 0) {
+                        return offset;
+                    }
+                    offset = EntityMetadata.skipNBTPayload(bytes, EntityMetadata.skipNBTString(bytes, offset), entryType, depth + 1);
+                }
+                return -1;
+            }
+            default -> {
+                return -1;
+            }
+        }
+    }
+
+    private static int skipNBTString(int[] bytes, int offset) {
+        if (offset < 0 || offset + 2 > bytes.length) {
+            return -1;
+        }
+        return offset + 2 + ((bytes[offset] << 8) | bytes[offset + 1]);
+    }
+
+
+    private static boolean isVarIntType(EntityDataType type) {
+        return switch (type) {
+            case VAR_INT, DIRECTION, BLOCK_STATE, OPTIONAL_BLOCK_STATE, OPTIONAL_VAR_INT, POSE,
+                 CAT_VARIANT, COW_VARIANT, WOLF_VARIANT, WOLF_SOUND_VARIANT, FROG_VARIANT, PIG_VARIANT, CHICKEN_VARIANT,
+                 SNIFFER_STATE, ARMADILLO_STATE -> true;
+            default -> false;
+        };
+    }
+
+    static int readVarInt(int[] bytes, int offset) {
+        int value = 0;
+        int position = 0;
+        while (offset < bytes.length && position < 32) {
+            int currentByte = bytes[offset++];
+            value |= (currentByte & 0x7F) << position;
+            if ((currentByte & 0x80) == 0) {
+                break;
+            }
+            position += 7;
+        }
+        return value;
+    }
+
+    /// Returns the offset following the VarInt, or -1 if it runs past the end.
+    static int skipVarInt(int[] bytes, int offset) {
+        if (offset < 0) {
+            return -1;
+        }
+        for (int i = 0; i < 5; i++) {
+            if (offset >= bytes.length) {
+                return -1;
+            }
+            if ((bytes[offset++] & 0x80) == 0) {
+                return offset;
+            }
+        }
+        return -1;
+    }
+
+    private static int skipVarLong(int[] bytes, int offset) {
+        for (int i = 0; i < 10; i++) {
+            if (offset >= bytes.length) {
+                return -1;
+            }
+            if ((bytes[offset++] & 0x80) == 0) {
+                return offset;
+            }
+        }
+        return -1;
+    }
+
+    static int skipString(int[] bytes, int offset) {
+        int lengthEnd = EntityMetadata.skipVarInt(bytes, offset);
+        int length = lengthEnd < 0 ? -1 : EntityMetadata.readVarInt(bytes, offset);
+        if (length < 0) {
+            return -1;
+        }
+        return lengthEnd + length;
+    }
+
+    private static int readInt(int[] bytes, int offset) {
+        return (bytes[offset] << 24) | (bytes[offset + 1] << 16) | (bytes[offset + 2] << 8) | bytes[offset + 3];
+    }
+
+    private static int sizeOfVarInt(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+}
@@ -18,25 +18,81 @@ package com.experimentalidea.replaypacketcleaner.packet;
 import com.experimentalidea.replaypacketcleaner.protocol.PacketType;
 
 /**
- * A read-only representation of a Entity Sound Effect Packet. Currently, I don't see a need to do anything with this packet outside deleting it.
- * TODO: implement packet.
+ * A read-only representation of a Entity Sound Effect Packet.
+ * <br> In protocol version 761+ (1.19.3+), the sound can either be a registry id or defined inline by its resource name.
  */
 public class EntitySoundEffectPacket extends Packet {
 
 
-    public EntitySoundEffectPacket(long packetIndex, int timestamp, int[] rawDataBytes) {
+    public EntitySoundEffectPacket(long packetIndex, int timestamp, int soundID, int[] soundNameRawBytes, boolean hasFixedRange, float fixedRange, int category, int entityID, float volume, float pitch, long seed) {
         super(packetIndex, timestamp, PacketType.Play.ENTITY_SOUND_EFFECT);
-        this.rawDataBytes = rawDataBytes;
+        if (soundID == SoundEffectPacket.INLINE_SOUND_ID && soundNameRawBytes == null) {
+            throw new IllegalArgumentException("soundNameRawBytes cannot be null for a sound defined inline");
+        }
+        this.soundID = soundID;
+        this.soundNameRawBytes = soundNameRawBytes;
+        this.hasFixedRange = hasFixedRange;
+        this.fixedRange = fixedRange;
+        this.category = category;
+        this.entityID = entityID;
+        this.volume = volume;
+        this.pitch = pitch;
+        this.seed = seed;
     }
 
-    private final int[] rawDataBytes;
+    private final int soundID;
+    private final int[] soundNameRawBytes;
+    private final boolean hasFixedRange;
+    private final float fixedRange;
+    private final int category;
+    private final int entityID;
+    private final float volume, pitch;
+    private final long seed;
 
-    /**
-     * TODO: Remove and implement packet
-     */
-    @Deprecated
-    public int[] getRawDataBytes() {
-        return rawDataBytes;
+
+    /// Returns the registry id of the sound, or {@link SoundEffectPacket#INLINE_SOUND_ID} if the sound is defined inline.
+    public int getSoundID() {
+        return this.soundID;
+    }
+
+    /// Returns the resource name of a sound defined inline, or null if the sound is a registry id.
+    public String getSoundName() {
+        return SoundEffectPacket.decodeSoundName(this.soundNameRawBytes);
+    }
+
+    /// Returns the UTF-8 bytes of the resource name of a sound defined inline, or null if the sound is a registry id.
+    public int[] getSoundNameRawBytes() {
+        return this.soundNameRawBytes;
+    }
+
+    /// Only applicable for a sound defined inline.
+    public boolean hasFixedRange() {
+        return this.hasFixedRange;
+    }
+
+    public float getFixedRange() {
+        return this.fixedRange;
+    }
+
+    public int getCategory() {
+        return this.category;
+    }
+
+    public int getEntityID() {
+        return this.entityID;
+    }
+
+    public float getVolume() {
+        return this.volume;
+    }
+
+    public float getPitch() {
+        return this.pitch;
+    }
+
+    /// Only present in protocol version 759+ (1.19+). Otherwise 0.
+    public long getSeed() {
+        return this.seed;
     }
 
 }
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2025 ExperimentalIdea
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+package com.experimentalidea.replaypacketcleaner.packet;
+
+import com.experimentalidea.replaypacketcleaner.protocol.PacketType;
+
+/// A representation of an Explosion Packet. Everything is read-only, other than whether the particles and/or sound of the explosion should be stripped.
+///
+/// Only the gameplay relevant fields (position, strength, destroyed blocks, player knockback) are decoded.
+/// The trailing particle and sound fields found in protocol versions 765+ (1.20.3+) are kept as raw bytes.
+public class ExplosionPacket extends Packet {
+
+
+    /**
+     * @param strength           The strength of the explosion. The radius in protocol versions 773+ (1.21.9+). Not present in protocol versions 768 to 772 (1.21.2 to 1.21.8).
+     * @param recordsRawBytes    The destroyed blocks as x, y, z signed byte offsets from the explosion's block position. Only present in protocol versions 767 (1.21.1) and older.
+     * @param blockCount         The number of destroyed blocks. Only present in protocol versions 773+ (1.21.9+), only used for the block particles.
+     * @param blockInteraction   How blocks are affected by the explosion. Only present in protocol versions 765 to 767 (1.20.3 to 1.21.1).
+     * @param effectsRawBytes    The particle and sound fields at the end of the packet. Empty in protocol versions 764 (1.20.2) and older.
+     */
+    public ExplosionPacket(long packetIndex, int timestamp, double x, double y, double z, float strength, int[] recordsRawBytes, int blockCount,
+                           boolean hasKnockback, double knockbackX, double knockbackY, double knockbackZ, int blockInteraction, int[] effectsRawBytes) {
+        super(packetIndex, timestamp, PacketType.Play.EXPLOSION);
+        if (recordsRawBytes == null) {
+            throw new IllegalArgumentException("recordsRawBytes cannot be null");
+        }
+        if (effectsRawBytes == null) {
+            throw new IllegalArgumentException("effectsRawBytes cannot be null");
+        }
+
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.strength = strength;
+        this.recordsRawBytes = recordsRawBytes;
+        this.blockCount = blockCount;
+        this.hasKnockback = hasKnockback;
+        this.knockbackX = knockbackX;
+        this.knockbackY = knockbackY;
+        this.knockbackZ = knockbackZ;
+        this.blockInteraction = blockInteraction;
+        this.effectsRawBytes = effectsRawBytes;
+    }
+
+
+    /// Block interaction value telling the client to leave the blocks alone. (protocol versions 765 to 767)
+    public static final int BLOCK_INTERACTION_KEEP = 0;
+    /// Block interaction value telling the client to destroy the blocks. Also used for protocol versions without a block interaction.
+    public static final int BLOCK_INTERACTION_DESTROY = 1;
+    /// Block interaction value telling the client to destroy the blocks, with some of the drops decaying. (protocol versions 765 to 767)
+    public static final int BLOCK_INTERACTION_DESTROY_WITH_DECAY = 2;
+    /// Block interaction value telling the client to only trigger the blocks (doors, buttons, levers, etc.), as wind charges do. (protocol versions 765 to 767)
+    public static final int BLOCK_INTERACTION_TRIGGER_BLOCK = 3;
+
+    private final double x, y, z;
+    private final float strength;
+    private final int[] recordsRawBytes;
+    private final int blockCount;
+    private final boolean hasKnockback;
+    private final double knockbackX, knockbackY, knockbackZ;
+    private final int blockInteraction;
+    private final int[] effectsRawBytes;
+
+    private boolean stripParticles = false;
+    private boolean stripSound = false;
+
+
+    public double getX() {
+        return this.x;
+    }
+
+    public double getY() {
+        return this.y;
+    }
+
+    public double getZ() {
+        return this.z;
+    }
+
+    public float getStrength() {
+        return this.strength;
+    }
+
+    /// The number of blocks destroyed by this explosion.
+    public int getRecordCount() {
+        return this.recordsRawBytes.length / 3;
+    }
+
+    /// Each record is 3 signed bytes (x, y, z) relative to the block position of the explosion.
+    public int[] getRecordsRawBytes() {
+        return this.recordsRawBytes;
+    }
+
+    public int getBlockCount() {
+        return this.blockCount;
+    }
+
+    /// Whether this explosion knocks back the player who recorded the replay.
+    /// In protocol versions 767 (1.21.1) and older the knockback is always present on the wire, and is considered absent when it is zero.
+    public boolean hasKnockback() {
+        return this.hasKnockback;
+    }
+
+    public double getKnockbackX() {
+        return this.knockbackX;
+    }
+
+    public double getKnockbackY() {
+        return this.knockbackY;
+    }
+
+    public double getKnockbackZ() {
+        return this.knockbackZ;
+    }
+
+    public int getBlockInteraction() {
+        return this.blockInteraction;
+    }
+
+    /// Whether the client will set the destroyed blocks (see {@link #getRecordsRawBytes()}) to air.
+    public boolean isDestroyingBlocks() {
+        return this.recordsRawBytes.length > 0 && (this.blockInteraction == ExplosionPacket.BLOCK_INTERACTION_DESTROY
+                || this.blockInteraction == ExplosionPacket.BLOCK_INTERACTION_DESTROY_WITH_DECAY);
+    }
+
+    public int[] getEffectsRawBytes() {
+        return this.effectsRawBytes;
+    }
+
+
+    public boolean isStripParticles() {
+        return this.stripParticles;
+    }
+
+    /// Request the particles of this explosion to be removed. Only honored when the sound is stripped as well, see {@link #isStrippable()}.
+    public void setStripParticles(boolean stripParticles) {
+        this.stripParticles = stripParticles;
+    }
+
+    public boolean isStripSound() {
+        return this.stripSound;
+    }
+
+    /// Request the sound of this explosion to be removed. Only honored when the particles are stripped as well, see {@link #isStrippable()}.
+    public void setStripSound(boolean stripSound) {
+        this.stripSound = stripSound;
+    }
+
+    /// The particles and sound can't be left out of an explosion packet, they are either required fields or hardcoded within the client.
+    /// They can only be stripped by dropping the packet altogether and sending the destroyed blocks as block updates instead.
+    /// That isn't possible when the explosion knocks back the player, or when only one of the two is to be stripped.
+    public boolean isStrippable() {
+        return this.stripParticles && this.stripSound && !this.hasKnockback;
+    }
+
+}
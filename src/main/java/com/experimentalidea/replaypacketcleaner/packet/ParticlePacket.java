@@ -17,7 +17,7 @@ package com.experimentalidea.replaypacketcleaner.packet;
 
 import com.experimentalidea.replaypacketcleaner.protocol.PacketType;
 
-/// A read-only representation of a Particle Packet. Currently, I don't see a need to do anything with this packet outside deleting it.
+/// A representation of a Particle Packet. Only the particle count can be changed, everything else is read-only.
 public class ParticlePacket extends Packet {
 
 
@@ -46,7 +46,7 @@ public class ParticlePacket extends Packet {
     private final double x, y, z;
     private final float offsetX, offsetY, offsetZ;
     private final float maxSpeed;
-    private final int particleCount;
+    private int particleCount;
     private final int particleID;
 
     private final int[] particleDataRawBytes;
@@ -92,6 +92,14 @@ public class ParticlePacket extends Packet {
         return this.particleCount;
     }
 
+    /// Set the number of particles to spawn. A value of 0 spawns a single particle, using the offset as its velocity.
+    public void setParticleCount(int particleCount) {
+        if (particleCount < 0) {
+            throw new IllegalArgumentException("particleCount cannot be negative");
+        }
+        this.particleCount = particleCount;
+    }
+
     public int getParticleID() {
         return this.particleID;
     }
@@ -102,126 +110,4 @@ public class ParticlePacket extends Packet {
         return this.particleDataRawBytes;
     }
 
-    /* all 1.12.5 particle types
-    public static enum ParticleType {
-        /// Unknown Particle Type
-        _UNDEFINED,
-
-        ANGRY_VILLAGER,
-        BLOCK,
-        BLOCK_MARKER,
-        BUBBLE,
-        CLOUD,
-        CRIT,
-        DAMAGE_INDICATOR,
-        DRAGON_BREATH,
-        DRIPPING_LAVA,
-        FALLING_LAVA,
-        LANDING_LAVA,
-        DRIPPING_WATER,
-        FAILING_WATER,
-        DUST,
-        DUST_COLOR_TRANSITION,
-        EFFECT,
-        ELDER_GUARDIAN,
-        ENCHANTED_HIT,
-        ENCHANT,
-        END_ROD,
-        ENTITY_EFFECT,
-        EXPLOSION_EMITTER,
-        EXPLOSION,
-        GUST,
-        SMALL_GUST,
-        GUST_EMITTER_LARGE,
-        GUST_EMITTER_SMALL,
-        SONIC_BOOM,
-        FALLING_DUST,
-        FIREWORK,
-        FISHING,
-        FLAME,
-        INFESTED,
-        CHERRY_LEAVES,
-        PALE_OAK_LEAVES,
-        TINTED_LEAVES,
-        SCULK_SOUL,
-        SCULK_CHARGE,
-        SCULK_CHARGE_POP,
-        SOUL_FIRE_FLAME,
-        SOUL,
-        FLASH,
-        HAPPY_VILLAGER,
-        COMPOSTER,
-        HEART,
-        INSTANT_EFFECT,
-        ITEM,
-        VIBRATION,
-        TRAIL,
-        ITEM_SLIME,
-        ITEM_COBWEB,
-        ITEM_SNOWBALL,
-        LARGE_SMOKE,
-        LAVA,
-        MYCELIUM,
-        NOTE,
-        POOF,
-        PORTAL,
-        RAIN,
-        SMOKE,
-        WHITE_SMOKE,
-        SNEEZE,
-        SPIT,
-        SQUID_INK,
-        SWEEP_ATTACK,
-        TOTEM_OF_UNDYING,
-        UNDERWATER,
-        SPLASH,
-        WITCH,
-        BUBBLE_POP,
-        CURRENT_DOWN,
-        BUBBLE_COLUMN_UP,
-        NAUTILUS,
-        DOLPHIN,
-        CAMPFIRE_COSY_SMOKE,
-        CAMPFIRE_SIGNAL_SMOKE,
-        DRIPPING_HONEY,
-        FALLING_HONEY,
-        LANDING_HONEY,
-        FALLING_NECTAR,
-        FALLING_SPORE_BLOSSOM,
-        ASH,
-        CRIMSON_SPORE,
-        WARPED_SPORE,
-        SPORE_BLOSSOM_AIR,
-        DRIPPING_OBSIDIAN_TEAR,
-        FALLING_OBSIDIAN_TEAR,
-        LANDING_OBSIDIAN_TEAR,
-        REVERSE_PORTAL,
-        WHITE_ASH,
-        SMALL_FLAME,
-        SNOWFLAKE,
-        DRIPPING_DRIPSTONE_LAVA,
-        FALLING_DRIPSTONE_LAVA,
-        DRIPPING_DRIPSTONE_WATER,
-        FALLING_DRIPSTONE_WATER,
-        GLOW_SQUID_INK,
-        GLOW,
-        WAX_ON,
-        WAX_OFF,
-        ELECTRIC_SPARK,
-        SCRAPE,
-        SHRIEK,
-        EGG_CRACK,
-        DUST_PLUME,
-        TRIAL_SPAWNER_DETECTION,
-        TRIAL_SPAWNER_DETECTION_OMINOUS,
-        VAULT_CONNECTION,
-        DUST_PILLAR,
-        OMINOUS_SPAWNING,
-        RAID_OMEN,
-        TRIAL_OMEN,
-        BLOCK_CRUMBLE,
-        FIREFLY
-
-    }*/
-
 }
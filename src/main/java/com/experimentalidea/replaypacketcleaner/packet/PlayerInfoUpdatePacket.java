@@ -0,0 +1,299 @@
+/*
+ * Copyright 2025 ExperimentalIdea
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+package com.experimentalidea.replaypacketcleaner.packet;
+
+import com.experimentalidea.replaypacketcleaner.protocol.PacketType;
+import com.experimentalidea.replaypacketcleaner.protocol.Version;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/// A representation of a Player Info Update packet. (Also known as "Player Info" in protocol versions 760 (1.19.2) and older)
+/// The packet data is kept as raw bytes. Actions can be removed from the packet, in which case the packet data is re-encoded without them.
+/// <br>
+/// <br> In protocol versions 760 and older, a packet holds a single action. Removing that action leaves nothing of the packet.
+/// In protocol versions 761+ (1.19.3+), a packet holds a set of actions applied to every player within the packet.
+public class PlayerInfoUpdatePacket extends Packet {
+
+
+    public PlayerInfoUpdatePacket(long packetIndex, int timestamp, int protocolVersion, int[] rawDataBytes) {
+        super(packetIndex, timestamp, PacketType.Play.PLAYER_INFO_UPDATE);
+        if (rawDataBytes == null) {
+            throw new IllegalArgumentException("rawDataBytes cannot be null");
+        }
+        this.protocolVersion = protocolVersion;
+        this.rawDataBytes = rawDataBytes;
+
+        if (protocolVersion > Version.MC_1_19_2) {
+            this.actions = rawDataBytes.length > 0 ? rawDataBytes[0] : 0;
+        } else {
+            int action = rawDataBytes.length > 0 ? EntityMetadata.readVarInt(rawDataBytes, 0) : -1;
+            this.actions = action >= 0 && action < PlayerInfoUpdatePacket.LEGACY_ACTIONS.length ? PlayerInfoUpdatePacket.LEGACY_ACTIONS[action] : 0;
+        }
+    }
+
+
+    // The actions, as the bits of the action set used in protocol versions 761+ (1.19.3+).
+    public static final int ACTION_ADD_PLAYER = 0x01;
+    public static final int ACTION_INITIALIZE_CHAT = 0x02;
+    public static final int ACTION_UPDATE_GAME_MODE = 0x04;
+    public static final int ACTION_UPDATE_LISTED = 0x08;
+    public static final int ACTION_UPDATE_LATENCY = 0x10;
+    public static final int ACTION_UPDATE_DISPLAY_NAME = 0x20;
+    /// Protocol versions 768+ (1.21.2+)
+    public static final int ACTION_UPDATE_LIST_ORDER = 0x40;
+    /// Only in the newest protocol versions.
+    public static final int ACTION_UPDATE_HAT = 0x80;
+    /// Protocol versions 760 (1.19.2) and older. Replaced by the Player Info Remove packet.
+    public static final int ACTION_REMOVE_PLAYER = 0x100;
+
+    // Protocol versions 760 and older. The single action of the packet, by its id.
+    private static final int[] LEGACY_ACTIONS = {ACTION_ADD_PLAYER, ACTION_UPDATE_GAME_MODE, ACTION_UPDATE_LATENCY, ACTION_UPDATE_DISPLAY_NAME, ACTION_REMOVE_PLAYER};
+
+    private final int protocolVersion;
+    private int[] rawDataBytes;
+    private int actions;
+
+
+    /// Returns the packet data (everything after the packet id), including any changes made.
+    public int[] getRawDataBytes() {
+        return this.rawDataBytes;
+    }
+
+    /// Returns the actions within this packet, as a combination of the ACTION_ bits. 0 if no actions are left (or the action isn't recognized).
+    public int getActions() {
+        return this.actions;
+    }
+
+    public boolean hasAction(int action) {
+        return (this.actions & action) != 0;
+    }
+
+    /**
+     * Remove actions from this packet, along with their data for every player.
+     *
+     * @param actions The ACTION_ bits of the actions to be removed.
+     * @return false if the packet data couldn't be decoded, in which case this packet is left untouched.
+     */
+    public boolean removeActions(int actions) {
+        int removed = this.actions & actions;
+        if (removed == 0) {
+            return true;
+        }
+        // A single action, nothing remains of the packet without it.
+        if (this.protocolVersion <= Version.MC_1_19_2) {
+            this.actions = 0;
+            return true;
+        }
+
+        int[] bytes = this.rawDataBytes;
+        int remaining = this.actions & ~removed;
+        int playerCount = EntityMetadata.readVarInt(bytes, 1);
+        int offset = EntityMetadata.skipVarInt(bytes, 1);
+        if (offset < 0) {
+            return false;
+        }
+
+        // Copy over the uuid and the data of the remaining actions for each player.
+        int[] newBytes = new int[bytes.length];
+        newBytes[0] = remaining;
+        int length = 1;
+        for (int i = 1; i < offset; i++) {
+            newBytes[length++] = bytes[i];
+        }
+        for (int player = 0; player < playerCount; player++) {
+            if (offset + 16 > bytes.length) {
+                return false;
+            }
+            System.arraycopy(bytes, offset, newBytes, length, 16);
+            length += 16;
+            offset += 16;
+
+            for (int action = 0x01; action <= ACTION_UPDATE_HAT; action <<= 1) {
+                if ((this.actions & action) == 0) {
+                    continue;
+                }
+                int end = this.skipAction(action, offset);
+                if (end < 0 || end > bytes.length) {
+                    return false;
+                }
+                if ((removed & action) == 0) {
+                    System.arraycopy(bytes, offset, newBytes, length, end - offset);
+                    length += end - offset;
+                }
+                offset = end;
+            }
+        }
+        if (offset != bytes.length) {
+            return false;
+        }
+
+        int[] trimmed = new int[length];
+        System.arraycopy(newBytes, 0, trimmed, 0, length);
+        this.rawDataBytes = trimmed;
+        this.actions = remaining;
+        return true;
+    }
+
+    /**
+     * Get the uuid and name of each player added by this packet.
+     *
+     * @return The names of the added players by their uuid. Empty if this packet doesn't add players, or null if the packet data couldn't be decoded.
+     */
+    public Map<UUID, String> getAddedPlayers() {
+        Map<UUID, String> players = new LinkedHashMap<UUID, String>();
+        if (!this.hasAction(ACTION_ADD_PLAYER)) {
+            return players;
+        }
+
+        int[] bytes = this.rawDataBytes;
+        boolean legacy = this.protocolVersion <= Version.MC_1_19_2;
+        int offset = legacy ? EntityMetadata.skipVarInt(bytes, 0) : 1;
+        if (offset < 0 || offset >= bytes.length) {
+            return null;
+        }
+        int playerCount = EntityMetadata.readVarInt(bytes, offset);
+        offset = EntityMetadata.skipVarInt(bytes, offset);
+
+        for (int player = 0; player < playerCount; player++) {
+            if (offset < 0 || offset + 16 > bytes.length) {
+                return null;
+            }
+            UUID uuid = new UUID(PlayerInfoUpdatePacket.readLong(bytes, offset), PlayerInfoUpdatePacket.readLong(bytes, offset + 8));
+            offset += 16;
+
+            // The name is the first value of the add player action, which is the first action.
+            int nameStart = EntityMetadata.skipVarInt(bytes, offset);
+            int nameEnd = EntityMetadata.skipString(bytes, offset);
+            if (nameStart < 0 || nameEnd < nameStart || nameEnd > bytes.length) {
+                return null;
+            }
+            byte[] name = new byte[nameEnd - nameStart];
+            for (int i = 0; i < name.length; i++) {
+                name[i] = (byte) bytes[nameStart + i];
+            }
+            players.put(uuid, new String(name, StandardCharsets.UTF_8));
+
+            if (legacy) {
+                offset = this.skipLegacyAddPlayer(offset);
+                continue;
+            }
+            for (int action = 0x01; action <= ACTION_UPDATE_HAT && offset >= 0; action <<= 1) {
+                if ((this.actions & action) != 0) {
+                    offset = this.skipAction(action, offset);
+                }
+            }
+        }
+        return players;
+    }
+
+    /// Protocol versions 760 and older. Returns the offset following the data of a player added, or -1 if it can't be sized.
+    private int skipLegacyAddPlayer(int offset) {
+        int[] bytes = this.rawDataBytes;
+        // Name & properties, game mode, latency and the optional display name.
+        offset = EntityMetadata.skipVarInt(bytes, EntityMetadata.skipVarInt(bytes, this.skipAction(ACTION_ADD_PLAYER, offset)));
+        offset = this.skipOptional(offset, EntityMetadata.skipString(bytes, offset + 1));
+        if (this.protocolVersion < Version.MC_1_19_0 || offset < 0) {
+            return offset;
+        }
+        // Optional signature data: public key expiry, public key, public key signature.
+        if (offset >= bytes.length) {
+            return -1;
+        }
+        if (bytes[offset] == 0) {
+            return offset + 1;
+        }
+        offset += 1 + 8;
+        for (int i = 0; i < 2 && offset >= 0 && offset < bytes.length; i++) {
+            int size = EntityMetadata.readVarInt(bytes, offset);
+            offset = EntityMetadata.skipVarInt(bytes, offset);
+            offset = offset < 0 ? -1 : offset + size;
+        }
+        return offset;
+    }
+
+    private static long readLong(int[] bytes, int offset) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (bytes[offset + i] & 0xFF);
+        }
+        return value;
+    }
+
+    /// Returns the offset following the data of the action, or -1 if it can't be sized.
+    private int skipAction(int action, int offset) {
+        int[] bytes = this.rawDataBytes;
+        switch (action) {
+            case ACTION_ADD_PLAYER -> {
+                // Name, followed by the properties (name, value, optional signature).
+                offset = EntityMetadata.skipString(bytes, offset);
+                if (offset < 0 || offset >= bytes.length) {
+                    return -1;
+                }
+                int propertyCount = EntityMetadata.readVarInt(bytes, offset);
+                offset = EntityMetadata.skipVarInt(bytes, offset);
+                for (int i = 0; i < propertyCount && offset >= 0; i++) {
+                    offset = EntityMetadata.skipString(bytes, EntityMetadata.skipString(bytes, offset));
+                    offset = this.skipOptional(offset, EntityMetadata.skipString(bytes, offset + 1));
+                }
+                return offset;
+            }
+            case ACTION_INITIALIZE_CHAT -> {
+                // Optional: chat session id, public key expiry, public key, public key signature.
+                if (offset < 0 || offset >= bytes.length) {
+                    return -1;
+                }
+                if (bytes[offset] == 0) {
+                    return offset + 1;
+                }
+                offset += 1 + 16 + 8;
+                for (int i = 0; i < 2 && offset >= 0 && offset < bytes.length; i++) {
+                    int size = EntityMetadata.readVarInt(bytes, offset);
+                    offset = EntityMetadata.skipVarInt(bytes, offset);
+                    offset = offset < 0 ? -1 : offset + size;
+                }
+                return offset;
+            }
+            case ACTION_UPDATE_GAME_MODE, ACTION_UPDATE_LATENCY, ACTION_UPDATE_LIST_ORDER -> {
+                return EntityMetadata.skipVarInt(bytes, offset);
+            }
+            case ACTION_UPDATE_LISTED, ACTION_UPDATE_HAT -> {
+                return offset + 1;
+            }
+            case ACTION_UPDATE_DISPLAY_NAME -> {
+                // The text component is sent as NBT since protocol version 765 (1.20.3), as a JSON string before.
+                if (this.protocolVersion > Version.MC_1_20_2) {
+                    return this.skipOptional(offset, EntityMetadata.skipNBT(bytes, offset + 1, this.protocolVersion));
+                }
+                return this.skipOptional(offset, EntityMetadata.skipString(bytes, offset + 1));
+            }
+            default -> {
+                return -1;
+            }
+        }
+    }
+
+    /// For a value prefixed by a boolean. Returns the offset following the boolean if false, otherwise valueEnd.
+    private int skipOptional(int offset, int valueEnd) {
+        if (offset < 0 || offset >= this.rawDataBytes.length) {
+            return -1;
+        }
+        return this.rawDataBytes[offset] == 0 ? offset + 1 : valueEnd;
+    }
+
+}
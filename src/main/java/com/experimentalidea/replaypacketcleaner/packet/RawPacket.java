@@ -0,0 +1,45 @@
+/*
+ * Copyright 2025 ExperimentalIdea
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+package com.experimentalidea.replaypacketcleaner.packet;
+
+import com.experimentalidea.replaypacketcleaner.protocol.PacketType;
+
+/// A representation of any packet type that doesn't have a dedicated Packet class (yet). The packet data is kept as raw bytes.
+public class RawPacket extends Packet {
+
+
+    public RawPacket(long packetIndex, int timestamp, PacketType.Play packetType, int[] rawDataBytes) {
+        super(packetIndex, timestamp, packetType);
+        this.setRawDataBytes(rawDataBytes);
+    }
+
+    private int[] rawDataBytes;
+
+
+    /// Returns the packet data (everything after the packet id)
+    public int[] getRawDataBytes() {
+        return this.rawDataBytes;
+    }
+
+    ///  Replace the packet data with a new one. Provided int[] must not be null.
+    public final void setRawDataBytes(int[] rawDataBytes) {
+        if (rawDataBytes == null) {
+            throw new IllegalArgumentException("array rawDataBytes cannot be null");
+        }
+        this.rawDataBytes = rawDataBytes;
+    }
+
+}
@@ -17,25 +17,44 @@ package com.experimentalidea.replaypacketcleaner.packet;
 
 import com.experimentalidea.replaypacketcleaner.protocol.PacketType;
 
-/// A read-only representation of a Set Entity Metadata Packet. Currently, I don't see a need to do anything with this packet outside deleting it.
+/// A representation of a Set Entity Metadata Packet. The metadata is only decoded when accessed through {@link #getMetadata()}.
 public class SetEntityMetadataPacket extends Packet {
 
-    public SetEntityMetadataPacket(long packetIndex, int timestamp, int entityID, int[] rawMetadataBytes) {
+    public SetEntityMetadataPacket(long packetIndex, int timestamp, int protocolVersion, int entityID, int[] rawMetadataBytes) {
         super(packetIndex, timestamp, PacketType.Play.SET_ENTITY_METADATA);
+        this.protocolVersion = protocolVersion;
         this.entityID = entityID;
         this.rawMetadataBytes = rawMetadataBytes;
     }
 
+    private final int protocolVersion;
     private final int entityID;
     private final int[] rawMetadataBytes;
+    private EntityMetadata metadata = null;
 
 
     public int getEntityID() {
         return this.entityID;
     }
 
-    @Deprecated
+    /// Returns the metadata entries of this packet, for reading or changing them. Created on first access.
+    public EntityMetadata getMetadata() {
+        if (this.metadata == null) {
+            this.metadata = new EntityMetadata(this.protocolVersion, this.rawMetadataBytes);
+        }
+        return this.metadata;
+    }
+
+    /// Returns true if the metadata has been changed through {@link #getMetadata()}.
+    public boolean isMetadataModified() {
+        return this.metadata != null && this.metadata.isModified();
+    }
+
+    /// Returns the raw metadata bytes, including any changes made through {@link #getMetadata()}.
     public int[] getRawMetadataBytes() {
+        if (this.metadata != null) {
+            return this.metadata.getBytes();
+        }
         return this.rawMetadataBytes;
     }
 
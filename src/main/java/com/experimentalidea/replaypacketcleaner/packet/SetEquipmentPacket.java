@@ -17,6 +17,8 @@ package com.experimentalidea.replaypacketcleaner.packet;
 
 import com.experimentalidea.replaypacketcleaner.protocol.PacketType;
 
+import java.util.Arrays;
+
 /// A read-only representation of a Set Entity Equipment Packet. Currently, I don't see a need to do anything with this packet outside deleting it.
 public class SetEquipmentPacket extends Packet {
 
@@ -34,10 +36,42 @@ public class SetEquipmentPacket extends Packet {
         return this.entityID;
     }
 
+    /// Returns the raw bytes of the equipment (everything after the entity id).
+    public int[] getRawEquipmentBytes() {
+        return this.rawDataArrayBytes;
+    }
+
+    /**
+     * Read the equipment slots set by this packet.
+     *
+     * @param protocolVersion The protocol version of the replay.
+     * @return The slots, in the order they're set. null if an item ahead of the last slot can't be sized without fully decoding it.
+     */
+    public int[] getSlots(int protocolVersion) {
+        int[] bytes = this.rawDataArrayBytes;
+        int[] slots = new int[8];
+        int count = 0;
+        int offset = 0;
+        while (offset >= 0 && offset < bytes.length) {
+            if (count == slots.length) {
+                slots = Arrays.copyOf(slots, count << 1);
+            }
+            int slot = bytes[offset];
+            slots[count++] = slot & 0x7F;
+            // The top bit is set on every slot but the last.
+            if ((slot & 0x80) == 0) {
+                return Arrays.copyOf(slots, count);
+            }
+            offset = EntityMetadata.skipItemStack(bytes, offset + 1, protocolVersion);
+        }
+        return null;
+    }
+
     /// TODO: Remove and replace in the future.
+    /// @deprecated Use {@link #getRawEquipmentBytes()} instead.
     @Deprecated
     public int[] getRawDataArrayBytes() {
-        return this.rawDataArrayBytes;
+        return this.getRawEquipmentBytes();
     }
 
 }
@@ -17,24 +17,125 @@ package com.experimentalidea.replaypacketcleaner.packet;
 
 import com.experimentalidea.replaypacketcleaner.protocol.PacketType;
 
+import java.nio.charset.StandardCharsets;
+
 /**
- * A read-only representation of a Sound Effect Packet. Currently, I don't see a need to do anything with this packet outside deleting it.
- * TODO: implement packet.
+ * A read-only representation of a Sound Effect Packet.
+ * <br> In protocol version 761+ (1.19.3+), the sound can either be a registry id or defined inline by its resource name, which replaced the Custom Sound Effect Packet.
+ *
+ * @see com.experimentalidea.replaypacketcleaner.packet.CustomSoundEffectPacket
  */
 public class SoundEffectPacket extends Packet {
 
-    public SoundEffectPacket(long packetIndex, int timestamp, int[] rawDataBytes) {
+    public SoundEffectPacket(long packetIndex, int timestamp, int soundID, int[] soundNameRawBytes, boolean hasFixedRange, float fixedRange, int category, int encodedX, int encodedY, int encodedZ, float volume, float pitch, long seed) {
         super(packetIndex, timestamp, PacketType.Play.SOUND_EFFECT);
-        this.rawDataBytes = rawDataBytes;
+        if (soundID == SoundEffectPacket.INLINE_SOUND_ID && soundNameRawBytes == null) {
+            throw new IllegalArgumentException("soundNameRawBytes cannot be null for a sound defined inline");
+        }
+        this.soundID = soundID;
+        this.soundNameRawBytes = soundNameRawBytes;
+        this.hasFixedRange = hasFixedRange;
+        this.fixedRange = fixedRange;
+        this.category = category;
+        this.encodedX = encodedX;
+        this.encodedY = encodedY;
+        this.encodedZ = encodedZ;
+        this.volume = volume;
+        this.pitch = pitch;
+        this.seed = seed;
+    }
+
+    /// The sound id used when the sound is defined inline by its resource name.
+    public static final int INLINE_SOUND_ID = -1;
+
+    private final int soundID;
+    private final int[] soundNameRawBytes;
+    private final boolean hasFixedRange;
+    private final float fixedRange;
+    private final int category;
+    private final int encodedX, encodedY, encodedZ;
+    private final float volume, pitch;
+    private final long seed;
+
+
+    /// Returns the registry id of the sound, or {@link #INLINE_SOUND_ID} if the sound is defined inline.
+    public int getSoundID() {
+        return this.soundID;
+    }
+
+    /// Returns the resource name of a sound defined inline, or null if the sound is a registry id.
+    public String getSoundName() {
+        return SoundEffectPacket.decodeSoundName(this.soundNameRawBytes);
+    }
+
+    /// Returns the UTF-8 bytes of the resource name of a sound defined inline, or null if the sound is a registry id.
+    public int[] getSoundNameRawBytes() {
+        return this.soundNameRawBytes;
+    }
+
+    /// Only applicable for a sound defined inline.
+    public boolean hasFixedRange() {
+        return this.hasFixedRange;
+    }
+
+    public float getFixedRange() {
+        return this.fixedRange;
+    }
+
+    public int getCategory() {
+        return this.category;
     }
 
-    private final int[] rawDataBytes;
+    /// Returns the X coordinate multiplied by 8, as it's sent.
+    public int getEncodedX() {
+        return this.encodedX;
+    }
+
+    /// Returns the Y coordinate multiplied by 8, as it's sent.
+    public int getEncodedY() {
+        return this.encodedY;
+    }
+
+    /// Returns the Z coordinate multiplied by 8, as it's sent.
+    public int getEncodedZ() {
+        return this.encodedZ;
+    }
+
+    public double getX() {
+        return this.encodedX / 8.0;
+    }
+
+    public double getY() {
+        return this.encodedY / 8.0;
+    }
 
-    /// TODO: Remove and implement packet
-    @Deprecated
-    public int[] getRawDataBytes() {
-        return rawDataBytes;
+    public double getZ() {
+        return this.encodedZ / 8.0;
     }
 
+    public float getVolume() {
+        return this.volume;
+    }
+
+    public float getPitch() {
+        return this.pitch;
+    }
+
+    /// Only present in protocol version 759+ (1.19+). Otherwise 0.
+    public long getSeed() {
+        return this.seed;
+    }
+
+
+    static String decodeSoundName(int[] soundNameRawBytes) {
+        if (soundNameRawBytes == null) {
+            return null;
+        }
+        byte[] bytes = new byte[soundNameRawBytes.length];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) soundNameRawBytes[i];
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
 
 }
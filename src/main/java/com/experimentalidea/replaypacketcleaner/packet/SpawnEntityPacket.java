@@ -23,7 +23,7 @@ import java.util.UUID;
 /// A read-only representation of a Spawn Entity Packet. Currently, I don't see a need to do anything with this packet outside deleting it.
 public class SpawnEntityPacket extends Packet {
 
-    public SpawnEntityPacket(long packetIndex, int timestamp, int entityID, UUID uuid, EntityType entityType, double x, double y, double z, int pitchByte, int yawByte, int headYawByte, int data, short velocityX, short velocityY, short velocityZ) {
+    public SpawnEntityPacket(long packetIndex, int timestamp, int entityID, UUID uuid, EntityType entityType, double x, double y, double z, int pitchByte, int yawByte, int headYawByte, int data, short velocityX, short velocityY, short velocityZ, int[] rawMovementBytes) {
         super(packetIndex, timestamp, PacketType.Play.SPAWN_ENTITY);
         if (uuid == null) {
             throw new IllegalArgumentException("uuid cannot be null");
@@ -45,6 +45,7 @@ public class SpawnEntityPacket extends Packet {
         this.velocityX = velocityX;
         this.velocityY = velocityY;
         this.velocityZ = velocityZ;
+        this.rawMovementBytes = rawMovementBytes;
     }
 
     private final int entityID;
@@ -54,6 +55,7 @@ public class SpawnEntityPacket extends Packet {
     private final int pitchByte, yawByte, headYawByte;
     private final int data;
     private final short velocityX, velocityY, velocityZ;
+    private final int[] rawMovementBytes;
 
 
     public int getEntityID() {
@@ -108,4 +110,9 @@ public class SpawnEntityPacket extends Packet {
         return this.velocityZ;
     }
 
+    /// Only present for protocol versions 773+ (1.21.9+), where the velocity fields were replaced. Kept as-is. Otherwise, null.
+    public int[] getRawMovementBytes() {
+        return this.rawMovementBytes;
+    }
+
 }
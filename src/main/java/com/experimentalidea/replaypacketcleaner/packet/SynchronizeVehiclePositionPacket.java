@@ -35,6 +35,13 @@ public class SynchronizeVehiclePositionPacket extends Packet {
         this.onGround = onGround;
     }
 
+    // The teleport flags mark which of the fields are relative.
+    private static final int RELATIVE_X = 0x01;
+    private static final int RELATIVE_Y = 0x02;
+    private static final int RELATIVE_Z = 0x04;
+    private static final int RELATIVE_YAW = 0x08;
+    private static final int RELATIVE_PITCH = 0x10;
+
     private final int entityID;
     private final double x, y, z;
     private final double velocityX, velocityY, velocityZ;
@@ -81,11 +88,37 @@ public class SynchronizeVehiclePositionPacket extends Packet {
     }
 
     /// TODO: Break out flags for easy checking.
+    /// @deprecated Use {@link #isRelativeX()}, {@link #isRelativeY()}, {@link #isRelativeZ()}, {@link #isRelativeYaw()} and {@link #isRelativePitch()} instead.
     @Deprecated
     public int getTeleportFlags() {
         return this.teleportFlags;
     }
 
+    /// Returns true if x is relative to the current position, rather than absolute.
+    public boolean isRelativeX() {
+        return (this.teleportFlags & SynchronizeVehiclePositionPacket.RELATIVE_X) != 0;
+    }
+
+    /// Returns true if y is relative to the current position, rather than absolute.
+    public boolean isRelativeY() {
+        return (this.teleportFlags & SynchronizeVehiclePositionPacket.RELATIVE_Y) != 0;
+    }
+
+    /// Returns true if z is relative to the current position, rather than absolute.
+    public boolean isRelativeZ() {
+        return (this.teleportFlags & SynchronizeVehiclePositionPacket.RELATIVE_Z) != 0;
+    }
+
+    /// Returns true if the yaw is relative to the current rotation, rather than absolute.
+    public boolean isRelativeYaw() {
+        return (this.teleportFlags & SynchronizeVehiclePositionPacket.RELATIVE_YAW) != 0;
+    }
+
+    /// Returns true if the pitch is relative to the current rotation, rather than absolute.
+    public boolean isRelativePitch() {
+        return (this.teleportFlags & SynchronizeVehiclePositionPacket.RELATIVE_PITCH) != 0;
+    }
+
     public boolean isOnGround() {
         return this.onGround;
     }
@@ -17,7 +17,7 @@ package com.experimentalidea.replaypacketcleaner.packet;
 
 import com.experimentalidea.replaypacketcleaner.protocol.PacketType;
 
-/// A read-only representation of a Teleport Entity Packet. Currently, I don't see a need to do anything with this packet outside deleting it.
+/// A read-only representation of a Teleport Entity Packet. It can be deleted, or replaced by a relative movement packet.
 public class TeleportEntityPacket extends Packet {
 
     /// Create a Teleport Entity Packet and specify if the velocityX/Y/Z fields are present in the source packet data and provided here.
@@ -53,6 +53,8 @@ public class TeleportEntityPacket extends Packet {
     private final float yaw, pitch;
     private final boolean onGround;
 
+    private Packet replacement = null;
+
 
     public int getEntityID() {
         return this.entityID;
@@ -112,4 +114,24 @@ public class TeleportEntityPacket extends Packet {
         return this.onGround;
     }
 
+    /// The packet written out in place of this one, or null if this packet is written out as-is.
+    public Packet getReplacement() {
+        return this.replacement;
+    }
+
+    /// Write out the given packet in place of this one, at the same timestamp. Pass null to write out this packet as-is again.
+    /// <br> Canceling the write of this packet also cancels the replacement.
+    ///
+    /// @throws IllegalArgumentException if the replacement isn't an Update Entity Position, Update Entity Position And Rotation or Update Entity Rotation Packet.
+    public void setReplacement(Packet replacement) throws IllegalArgumentException {
+        if (replacement != null) {
+            switch (replacement.getPacketType()) {
+                case UPDATE_ENTITY_POSITION, UPDATE_ENTITY_POSITION_AND_ROTATION, UPDATE_ENTITY_ROTATION -> {
+                }
+                default -> throw new IllegalArgumentException("A Teleport Entity Packet can't be replaced by a " + replacement.getPacketType().name() + " packet.");
+            }
+        }
+        this.replacement = replacement;
+    }
+
 }
@@ -16,6 +16,8 @@
 package com.experimentalidea.replaypacketcleaner.packet;
 
 import com.experimentalidea.replaypacketcleaner.protocol.PacketType;
+import com.experimentalidea.replaypacketcleaner.protocol.Version;
+import com.experimentalidea.replaypacketcleaner.util.Hash64;
 
 /// A read-only representation of a Set Update Attributes Packet. Currently, I don't see a need to do anything with this packet outside deleting it.
 public class UpdateAttributesPacket extends Packet {
@@ -34,10 +36,79 @@ public class UpdateAttributesPacket extends Packet {
         return this.entityID;
     }
 
+    /// Returns the raw bytes of the attributes (everything after the entity id).
+    public int[] getRawAttributesBytes() {
+        return this.rawDataArrayBytes;
+    }
+
+    /**
+     * Read the keys of the attributes set by this packet.
+     * Since 1.20.5 an attribute is identified by its registry id, which is used as-is. Before that, by its name, which is hashed. (never a valid registry id, as it's negative)
+     *
+     * @param protocolVersion The protocol version of the replay.
+     * @return The attribute keys, in the order they're set. null if the attributes can't be read.
+     */
+    public long[] getAttributeKeys(int protocolVersion) {
+        int[] bytes = this.rawDataArrayBytes;
+        int count;
+        int offset;
+        // In protocol version 754 (1.16.4 - 1.16.5), the number of attributes is a normal int. Not a var int.
+        if (protocolVersion < Version.MC_1_17_0) {
+            if (bytes.length < 4) {
+                return null;
+            }
+            count = (bytes[0] << 24) | (bytes[1] << 16) | (bytes[2] << 8) | bytes[3];
+            offset = 4;
+        } else {
+            count = EntityMetadata.readVarInt(bytes, 0);
+            offset = EntityMetadata.skipVarInt(bytes, 0);
+        }
+        if (count < 0 || count > bytes.length) {
+            return null;
+        }
+
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            if (offset < 0 || offset >= bytes.length) {
+                return null;
+            }
+            if (protocolVersion >= Version.MC_1_20_5) {
+                keys[i] = EntityMetadata.readVarInt(bytes, offset);
+                offset = EntityMetadata.skipVarInt(bytes, offset);
+            } else {
+                int end = EntityMetadata.skipString(bytes, offset);
+                if (end < 0 || end > bytes.length) {
+                    return null;
+                }
+                keys[i] = Hash64.hash(bytes, offset, end, 0L) | Long.MIN_VALUE;
+                offset = end;
+            }
+            // The value, followed by the modifiers. (an id, amount and operation each)
+            offset += 8;
+            if (offset < 0 || offset >= bytes.length) {
+                return null;
+            }
+            int modifierCount = EntityMetadata.readVarInt(bytes, offset);
+            offset = EntityMetadata.skipVarInt(bytes, offset);
+            for (int j = 0; j < modifierCount && offset >= 0; j++) {
+                // Since 1.21, a modifier is identified by a resource location rather than a UUID.
+                offset = protocolVersion >= Version.MC_1_21_0 ? EntityMetadata.skipString(bytes, offset) : offset + 16;
+                if (offset >= 0) {
+                    offset += 8 + 1;
+                }
+            }
+        }
+        if (offset != bytes.length) {
+            return null;
+        }
+        return keys;
+    }
+
     /// TODO: Remove and replace in the future.
+    /// @deprecated Use {@link #getRawAttributesBytes()} instead.
     @Deprecated
     public int[] getRawDataArrayBytes() {
-        return this.rawDataArrayBytes;
+        return this.getRawAttributesBytes();
     }
 
 }
@@ -17,7 +17,7 @@ package com.experimentalidea.replaypacketcleaner.packet;
 
 import com.experimentalidea.replaypacketcleaner.protocol.PacketType;
 
-/// A read-only representation of an Update Entity Position And Rotation Packet. Currently, I don't see a need to do anything with this packet outside deleting it.
+/// A read-only representation of an Update Entity Position And Rotation Packet. It can be deleted, or replaced by a smaller relative movement packet.
 public class UpdateEntityPositionAndRotationPacket extends Packet {
 
     public UpdateEntityPositionAndRotationPacket(long packetIndex, int timestamp, int entityID, short deltaX, short deltaY, short deltaZ, int yawByte, int pitchByte, boolean onGround) {
@@ -36,6 +36,8 @@ public class UpdateEntityPositionAndRotationPacket extends Packet {
     private final int yawByte, pitchByte;
     private final boolean onGround;
 
+    private Packet replacement = null;
+
 
     public int getEntityID() {
         return this.entityID;
@@ -65,4 +67,24 @@ public class UpdateEntityPositionAndRotationPacket extends Packet {
         return this.onGround;
     }
 
+    /// The packet written out in place of this one, or null if this packet is written out as-is.
+    public Packet getReplacement() {
+        return this.replacement;
+    }
+
+    /// Write out the given packet in place of this one, at the same timestamp. Pass null to write out this packet as-is again.
+    /// <br> Canceling the write of this packet also cancels the replacement.
+    ///
+    /// @throws IllegalArgumentException if the replacement isn't an Update Entity Position or Update Entity Rotation Packet.
+    public void setReplacement(Packet replacement) throws IllegalArgumentException {
+        if (replacement != null) {
+            switch (replacement.getPacketType()) {
+                case UPDATE_ENTITY_POSITION, UPDATE_ENTITY_ROTATION -> {
+                }
+                default -> throw new IllegalArgumentException("An Update Entity Position And Rotation Packet can't be replaced by a " + replacement.getPacketType().name() + " packet.");
+            }
+        }
+        this.replacement = replacement;
+    }
+
 }
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2025 ExperimentalIdea
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+package com.experimentalidea.replaypacketcleaner.packet;
+
+import com.experimentalidea.replaypacketcleaner.protocol.PacketType;
+
+/// A representation of an Update Light Packet. The light data is kept as raw bytes. (See {@link ChunkSectionCodec#stripLight} for rewriting them)
+public class UpdateLightPacket extends Packet {
+
+
+    public UpdateLightPacket(long packetIndex, int timestamp, int chunkX, int chunkZ, int[] rawDataBytes) {
+        super(packetIndex, timestamp, PacketType.Play.UPDATE_LIGHT);
+        this.chunkX = chunkX;
+        this.chunkZ = chunkZ;
+        this.rawDataBytes = rawDataBytes;
+    }
+
+    private final int chunkX, chunkZ;
+    private int[] rawDataBytes;
+
+
+    public int getChunkX() {
+        return this.chunkX;
+    }
+
+    public int getChunkZ() {
+        return this.chunkZ;
+    }
+
+    /// Returns the packet data following the chunk coordinates.
+    public int[] getRawDataBytes() {
+        return this.rawDataBytes;
+    }
+
+    /// Replace the packet data following the chunk coordinates.
+    public void setRawDataBytes(int[] rawDataBytes) {
+        this.rawDataBytes = rawDataBytes;
+    }
+
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2025 ExperimentalIdea
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+package com.experimentalidea.replaypacketcleaner.packet;
+
+import com.experimentalidea.replaypacketcleaner.protocol.PacketType;
+
+/// A representation of an Update Section Blocks Packet. (Also known as a Multi Block Change)
+public class UpdateSectionBlocksPacket extends Packet {
+
+
+    /**
+     * @param blocks The block changes in the same format used on the wire. See {@link #encodeBlock(int, int, int, int)}
+     */
+    public UpdateSectionBlocksPacket(long packetIndex, int timestamp, int sectionX, int sectionY, int sectionZ, boolean suppressLightUpdates, long[] blocks) {
+        super(packetIndex, timestamp, PacketType.Play.UPDATE_SECTION_BLOCKS);
+        this.sectionX = sectionX;
+        this.sectionY = sectionY;
+        this.sectionZ = sectionZ;
+        this.suppressLightUpdates = suppressLightUpdates;
+        this.setBlocks(blocks);
+    }
+
+    private final int sectionX, sectionY, sectionZ;
+    private final boolean suppressLightUpdates;
+    private long[] blocks;
+
+
+    public int getSectionX() {
+        return this.sectionX;
+    }
+
+    public int getSectionY() {
+        return this.sectionY;
+    }
+
+    public int getSectionZ() {
+        return this.sectionZ;
+    }
+
+    /// Only present on the wire for protocol versions 762 (1.19.4) and older. Ignored by newer protocol versions.
+    public boolean isSuppressLightUpdates() {
+        return this.suppressLightUpdates;
+    }
+
+
+    ///  Returns the underlying long[] of encoded block changes.
+    public long[] getBlocks() {
+        return this.blocks;
+    }
+
+    ///  Replace the underlying long[] of encoded block changes with a new one. Provided long[] must not be null.
+    public final void setBlocks(long[] blocks) {
+        if (blocks == null) {
+            throw new IllegalArgumentException("array blocks cannot be null");
+        }
+        this.blocks = blocks;
+    }
+
+
+    /// Encode the chunk section position. (x: 22 bits, z: 22 bits, y: 20 bits)
+    public static long encodeSectionPosition(int sectionX, int sectionY, int sectionZ) {
+        return (((long) sectionX & 0x3FFFFF) << 42) | (((long) sectionZ & 0x3FFFFF) << 20) | ((long) sectionY & 0xFFFFF);
+    }
+
+    public static int decodeSectionX(long sectionPosition) {
+        return (int) (sectionPosition >> 42);
+    }
+
+    public static int decodeSectionY(long sectionPosition) {
+        return (int) (sectionPosition << 44 >> 44);
+    }
+
+    public static int decodeSectionZ(long sectionPosition) {
+        return (int) (sectionPosition << 22 >> 42);
+    }
+
+
+    /**
+     * Encode a single block change.
+     *
+     * @param blockState The protocol specific block state.
+     * @param localX     0-15, relative to the section.
+     * @param localY     0-15, relative to the section.
+     * @param localZ     0-15, relative to the section.
+     */
+    public static long encodeBlock(int blockState, int localX, int localY, int localZ) {
+        return ((long) blockState << 12) | ((localX & 0xF) << 8) | ((localZ & 0xF) << 4) | (localY & 0xF);
+    }
+
+    public static int decodeBlockState(long block) {
+        return (int) (block >>> 12);
+    }
+
+    public static int decodeLocalX(long block) {
+        return (int) (block >>> 8) & 0xF;
+    }
+
+    public static int decodeLocalY(long block) {
+        return (int) block & 0xF;
+    }
+
+    public static int decodeLocalZ(long block) {
+        return (int) (block >>> 4) & 0xF;
+    }
+
+}
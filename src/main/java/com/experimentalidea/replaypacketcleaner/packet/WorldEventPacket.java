@@ -16,13 +16,15 @@
 package com.experimentalidea.replaypacketcleaner.packet;
 
 import com.experimentalidea.replaypacketcleaner.protocol.PacketType;
+import com.experimentalidea.replaypacketcleaner.protocol.WorldEvent;
 
 /// A read-only representation of a World Event Packet. Currently, I don't see a need to do anything with this packet outside deleting it.
 public class WorldEventPacket extends Packet {
 
-    public WorldEventPacket(long packetIndex, int timestamp, int eventID, int positionX, int positionY, int positionZ, int data, boolean relativeVolumeDisabled) {
+    public WorldEventPacket(long packetIndex, int timestamp, int eventID, WorldEvent worldEvent, int positionX, int positionY, int positionZ, int data, boolean relativeVolumeDisabled) {
         super(packetIndex, timestamp, PacketType.Play.WORLD_EVENT);
         this.eventID = eventID;
+        this.worldEvent = worldEvent;
         this.positionX = positionX;
         this.positionY = positionY;
         this.positionZ = positionZ;
@@ -31,17 +33,21 @@ public class WorldEventPacket extends Packet {
     }
 
     private final int eventID;
+    private final WorldEvent worldEvent;
     private final int positionX, positionY, positionZ;
     private final int data;
     private final boolean disableRelativeVolume;
 
 
-    /// An EventID less than 1500 is for sounds, greater than or equal to 1500 is for particles.
-    /// It appears EventID greater than or equal to 3000 are for both sound and particles? Unsure at this time...
     public int getEventID() {
         return this.eventID;
     }
 
+    /// The event, along with its category (sound, particle, etc.). WorldEvent.UNDEFINED if the event id isn't recognized.
+    public WorldEvent getWorldEvent() {
+        return this.worldEvent;
+    }
+
     public int getPositionX() {
         return this.positionX;
     }
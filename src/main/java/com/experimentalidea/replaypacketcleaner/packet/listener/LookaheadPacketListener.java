@@ -0,0 +1,47 @@
+/*
+ * Copyright 2025 ExperimentalIdea
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+package com.experimentalidea.replaypacketcleaner.packet.listener;
+
+import com.experimentalidea.replaypacketcleaner.packet.RawPacket;
+import com.experimentalidea.replaypacketcleaner.protocol.PacketType;
+
+/// A listener that gets to see packets ahead of time, before they're processed and written out.
+/// <br> Packets are read ahead into a buffer bounded by both time and memory. Once the memory budget is used up, packets are streamed through as usual,
+/// so there's no guarantee that any given packet is seen ahead of time.
+public interface LookaheadPacketListener extends PacketListener {
+
+    /**
+     * Returns how far ahead (in milliseconds) this listener wants to see. Only called once, when the listener is registered.
+     */
+    public int getLookaheadMilliseconds();
+
+    /**
+     * Returns the max number of bytes this listener wants to be buffered for looking ahead. Only called once, when the listener is registered.
+     */
+    public int getLookaheadBudgetBytes();
+
+    /**
+     * Returns the packet types this listener wants to see ahead of time. Only called once, when the listener is registered.
+     */
+    public PacketType.Play[] getLookaheadPacketTypes();
+
+    /**
+     * Called as a packet enters the lookahead buffer, some time before the packet itself is processed.
+     * The packet is a copy for reading only, any changes made to it are not written out.
+     */
+    public void onLookaheadPacket(RawPacket rawPacket);
+
+}
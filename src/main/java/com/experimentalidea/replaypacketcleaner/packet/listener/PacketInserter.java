@@ -0,0 +1,40 @@
+/*
+ * Copyright 2025 ExperimentalIdea
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+package com.experimentalidea.replaypacketcleaner.packet.listener;
+
+import com.experimentalidea.replaypacketcleaner.packet.Packet;
+import com.experimentalidea.replaypacketcleaner.protocol.PacketType;
+
+/// Unlike {@link StartOfReplayPacketInserter}, allows for packets to be inserted anywhere within the replay, as well as at the very end.
+public interface PacketInserter extends PacketListener {
+
+    /**
+     * Returns an array of packets to be inserted right before the next packet of the replay is processed.
+     * The inserted packets are written out with the timestamp of the next packet.
+     * Can return an empty array or even null if there are no packets to be inserted.
+     *
+     * @param timestamp      The timestamp of the next packet.
+     * @param nextPacketType The type of the next packet.
+     */
+    public Packet[] insertPackets(int timestamp, PacketType.Play nextPacketType);
+
+    /**
+     * Returns an array of packets to be inserted at the end of the replay, written out with the timestamp of the last packet.
+     * Can return an empty array or even null if there are no packets to be inserted.
+     */
+    public Packet[] insertPacketsAtEnd();
+
+}
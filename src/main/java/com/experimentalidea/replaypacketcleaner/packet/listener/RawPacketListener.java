@@ -0,0 +1,31 @@
+/*
+ * Copyright 2025 ExperimentalIdea
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+package com.experimentalidea.replaypacketcleaner.packet.listener;
+
+import com.experimentalidea.replaypacketcleaner.packet.RawPacket;
+import com.experimentalidea.replaypacketcleaner.protocol.PacketType;
+
+/// A listener for packet types that don't have a dedicated packet listener. (Packet types that do are never passed to this listener)
+public interface RawPacketListener extends PacketListener {
+
+    /**
+     * Returns the packet types this listener wants to receive. Only called once, when the listener is registered.
+     */
+    public PacketType.Play[] getRawPacketTypes();
+
+    public void onRawPacket(RawPacket rawPacket);
+
+}
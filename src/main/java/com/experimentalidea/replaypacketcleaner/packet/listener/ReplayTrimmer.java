@@ -0,0 +1,36 @@
+/*
+ * Copyright 2025 ExperimentalIdea
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+package com.experimentalidea.replaypacketcleaner.packet.listener;
+
+/// A listener that trims the replay down to a range of time.
+/// <br> Packets after the end are never read. Packets before the start aren't written out as they are, instead the world state they leave behind
+/// (chunks, entities, time, weather, player list, etc.) is folded together and written out at the start, which becomes the new beginning of the replay.
+/// If there are multiple trimmers, the replay is trimmed down to the range all of them have in common.
+public interface ReplayTrimmer extends PacketListener {
+
+    /**
+     * Returns the timestamp (in milliseconds since the beginning of the replay) the replay should start at. 0 to keep the start as is.
+     * Only called once, when the listener is registered.
+     */
+    public int getTrimStartTimestamp();
+
+    /**
+     * Returns the timestamp (in milliseconds since the beginning of the replay) the replay should end at. -1 to keep the end as is.
+     * Only called once, when the listener is registered.
+     */
+    public int getTrimEndTimestamp();
+
+}
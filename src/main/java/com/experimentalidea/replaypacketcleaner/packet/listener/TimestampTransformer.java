@@ -0,0 +1,30 @@
+/*
+ * Copyright 2025 ExperimentalIdea
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+package com.experimentalidea.replaypacketcleaner.packet.listener;
+
+/// A listener that changes the timestamps of the replay. (speeding it up, cutting out gaps, etc.)
+/// <br> Packets are passed to listeners with their original timestamp, the transformation only applies when a packet is written out.
+/// If there are multiple transformers, they're applied in the order they're registered.
+public interface TimestampTransformer extends PacketListener {
+
+    /**
+     * Returns the timestamp a packet is written out with. Must never decrease as the timestamps passed in increase.
+     *
+     * @param timestamp The timestamp of the packet. (As returned by the previous transformer, if there are multiple)
+     */
+    public int transformTimestamp(int timestamp);
+
+}
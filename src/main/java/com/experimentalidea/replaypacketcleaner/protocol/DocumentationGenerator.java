@@ -20,7 +20,7 @@ import java.util.*;
 /**
  * Used to automatically create basic documentation for all protocol enum types in
  * {@link PacketType.Login}, {@link PacketType.Configuration}, {@link PacketType.Play},
- * {@link EntityType}, {@link BlockEntity}, {@link Block}, & {@link Item}.
+ * {@link EntityType}, {@link BlockEntity}, {@link Block}, {@link Item}, & {@link ParticleType}.
  */
 public class DocumentationGenerator {
 
@@ -28,7 +28,7 @@ public class DocumentationGenerator {
     /**
      * Creates formated text that can be used to replace the current protocol enum type documentation.
      * The supported enum's are {@link PacketType.Login}, {@link PacketType.Configuration},
-     * {@link PacketType.Play}, {@link EntityType}, {@link BlockEntity}, {@link Block}, & {@link Item}.
+     * {@link PacketType.Play}, {@link EntityType}, {@link BlockEntity}, {@link Block}, {@link Item}, & {@link ParticleType}.
      *
      * @param protocolDirectory The protocol directory with all the protocols supported by RPC loaded. Used as reference to create the documentation.
      * @param values            Array of all values for a supported enum.
@@ -601,6 +601,9 @@ public class DocumentationGenerator {
             case Item item -> {
                 return null;
             }
+            case ParticleType particleType -> {
+                return null;
+            }
             default -> throw new IllegalStateException("Unexpected value: " + type);
         }
 
@@ -634,6 +637,9 @@ public class DocumentationGenerator {
             case Item item -> {
                 return protocol.getItemID(item) != ProtocolMapper.UNDEFINED_ID;
             }
+            case ParticleType particleType -> {
+                return protocol.getParticleTypeID(particleType) != ProtocolMapper.UNDEFINED_ID;
+            }
             default -> throw new IllegalStateException("Unexpected value: " + type);
         }
     }
@@ -664,6 +670,9 @@ public class DocumentationGenerator {
             case Item item -> {
                 return protocol.getItemResourceName(item);
             }
+            case ParticleType particleType -> {
+                return protocol.getParticleTypeResourceName(particleType);
+            }
             default -> throw new IllegalStateException("Unexpected value: " + type);
         }
     }
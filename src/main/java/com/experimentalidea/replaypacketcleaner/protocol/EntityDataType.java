@@ -0,0 +1,155 @@
+/*
+ * Copyright 2025 ExperimentalIdea
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+package com.experimentalidea.replaypacketcleaner.protocol;
+
+/**
+ * Represents the different types of values an entry of entity metadata can have. (Also known as entity data serializers)
+ * <br>
+ * <br> The id of each type differs between protocol versions, use {@link #getByID(int, int)} to look up a type.
+ * Types that aren't known for a protocol version are represented by EntityDataType.UNDEFINED.
+ */
+public enum EntityDataType {
+
+    /**
+     * Used to represent an undefined EntityDataType type.
+     */
+    UNDEFINED,
+
+    BYTE,
+    VAR_INT,
+    /// Supported Protocols: 761+ (1.19.3+)
+    VAR_LONG,
+    FLOAT,
+    STRING,
+    /// A JSON string before protocol 765 (1.20.3), an NBT tag since.
+    TEXT_COMPONENT,
+    OPTIONAL_TEXT_COMPONENT,
+    ITEM_STACK,
+    BOOLEAN,
+    ROTATIONS,
+    BLOCK_POSITION,
+    OPTIONAL_BLOCK_POSITION,
+    DIRECTION,
+    OPTIONAL_UUID,
+    /// Supported Protocols: 762+ (1.19.4+)
+    BLOCK_STATE,
+    OPTIONAL_BLOCK_STATE,
+    NBT,
+    PARTICLE,
+    /// Supported Protocols: 766+ (1.20.5+)
+    PARTICLES,
+    VILLAGER_DATA,
+    OPTIONAL_VAR_INT,
+    POSE,
+    /// Supported Protocols: 759+ (1.19+)
+    CAT_VARIANT,
+    /// Supported Protocols: 770+ (1.21.5+)
+    COW_VARIANT,
+    /// Supported Protocols: 766+ (1.20.5+)
+    WOLF_VARIANT,
+    /// Supported Protocols: 770+ (1.21.5+)
+    WOLF_SOUND_VARIANT,
+    /// Supported Protocols: 759+ (1.19+)
+    FROG_VARIANT,
+    /// Supported Protocols: 770+ (1.21.5+)
+    PIG_VARIANT,
+    /// Supported Protocols: 770+ (1.21.5+)
+    CHICKEN_VARIANT,
+    /// Supported Protocols: 759+ (1.19+)
+    OPTIONAL_GLOBAL_POSITION,
+    /// Supported Protocols: 759+ (1.19+). Since protocol 767 (1.21), the variant may be sent inline instead of by id.
+    PAINTING_VARIANT,
+    /// Supported Protocols: 762+ (1.19.4+)
+    SNIFFER_STATE,
+    /// Supported Protocols: 766+ (1.20.5+)
+    ARMADILLO_STATE,
+    /// Supported Protocols: 762+ (1.19.4+)
+    VECTOR3,
+    /// Supported Protocols: 762+ (1.19.4+)
+    QUATERNION;
+
+
+    // The types in order of their ids for each range of protocol versions.
+
+    private static final EntityDataType[] TYPES_1_17 = {
+            BYTE, VAR_INT, FLOAT, STRING, TEXT_COMPONENT, OPTIONAL_TEXT_COMPONENT, ITEM_STACK, BOOLEAN, ROTATIONS, BLOCK_POSITION,
+            OPTIONAL_BLOCK_POSITION, DIRECTION, OPTIONAL_UUID, OPTIONAL_BLOCK_STATE, NBT, PARTICLE, VILLAGER_DATA, OPTIONAL_VAR_INT, POSE};
+
+    private static final EntityDataType[] TYPES_1_19 = {
+            BYTE, VAR_INT, FLOAT, STRING, TEXT_COMPONENT, OPTIONAL_TEXT_COMPONENT, ITEM_STACK, BOOLEAN, ROTATIONS, BLOCK_POSITION,
+            OPTIONAL_BLOCK_POSITION, DIRECTION, OPTIONAL_UUID, OPTIONAL_BLOCK_STATE, NBT, PARTICLE, VILLAGER_DATA, OPTIONAL_VAR_INT, POSE,
+            CAT_VARIANT, FROG_VARIANT, OPTIONAL_GLOBAL_POSITION, PAINTING_VARIANT};
+
+    private static final EntityDataType[] TYPES_1_19_3 = {
+            BYTE, VAR_INT, VAR_LONG, FLOAT, STRING, TEXT_COMPONENT, OPTIONAL_TEXT_COMPONENT, ITEM_STACK, BOOLEAN, ROTATIONS, BLOCK_POSITION,
+            OPTIONAL_BLOCK_POSITION, DIRECTION, OPTIONAL_UUID, OPTIONAL_BLOCK_STATE, NBT, PARTICLE, VILLAGER_DATA, OPTIONAL_VAR_INT, POSE,
+            CAT_VARIANT, FROG_VARIANT, OPTIONAL_GLOBAL_POSITION, PAINTING_VARIANT};
+
+    private static final EntityDataType[] TYPES_1_19_4 = {
+            BYTE, VAR_INT, VAR_LONG, FLOAT, STRING, TEXT_COMPONENT, OPTIONAL_TEXT_COMPONENT, ITEM_STACK, BOOLEAN, ROTATIONS, BLOCK_POSITION,
+            OPTIONAL_BLOCK_POSITION, DIRECTION, OPTIONAL_UUID, BLOCK_STATE, OPTIONAL_BLOCK_STATE, NBT, PARTICLE, VILLAGER_DATA, OPTIONAL_VAR_INT, POSE,
+            CAT_VARIANT, FROG_VARIANT, OPTIONAL_GLOBAL_POSITION, PAINTING_VARIANT, SNIFFER_STATE, VECTOR3, QUATERNION};
+
+    private static final EntityDataType[] TYPES_1_20_5 = {
+            BYTE, VAR_INT, VAR_LONG, FLOAT, STRING, TEXT_COMPONENT, OPTIONAL_TEXT_COMPONENT, ITEM_STACK, BOOLEAN, ROTATIONS, BLOCK_POSITION,
+            OPTIONAL_BLOCK_POSITION, DIRECTION, OPTIONAL_UUID, BLOCK_STATE, OPTIONAL_BLOCK_STATE, NBT, PARTICLE, PARTICLES, VILLAGER_DATA, OPTIONAL_VAR_INT, POSE,
+            CAT_VARIANT, WOLF_VARIANT, FROG_VARIANT, OPTIONAL_GLOBAL_POSITION, PAINTING_VARIANT, SNIFFER_STATE, ARMADILLO_STATE, VECTOR3, QUATERNION};
+
+    private static final EntityDataType[] TYPES_1_21_5 = {
+            BYTE, VAR_INT, VAR_LONG, FLOAT, STRING, TEXT_COMPONENT, OPTIONAL_TEXT_COMPONENT, ITEM_STACK, BOOLEAN, ROTATIONS, BLOCK_POSITION,
+            OPTIONAL_BLOCK_POSITION, DIRECTION, OPTIONAL_UUID, BLOCK_STATE, OPTIONAL_BLOCK_STATE, NBT, PARTICLE, PARTICLES, VILLAGER_DATA, OPTIONAL_VAR_INT, POSE,
+            CAT_VARIANT, COW_VARIANT, WOLF_VARIANT, WOLF_SOUND_VARIANT, FROG_VARIANT, PIG_VARIANT, CHICKEN_VARIANT, OPTIONAL_GLOBAL_POSITION, PAINTING_VARIANT,
+            SNIFFER_STATE, ARMADILLO_STATE, VECTOR3, QUATERNION};
+
+    // Protocol 773 (1.21.9) added new types. Only the ids known not to have moved are used, any other id is left as UNDEFINED.
+    private static final EntityDataType[] TYPES_1_21_9 = {
+            BYTE, VAR_INT, VAR_LONG, FLOAT, STRING, TEXT_COMPONENT, OPTIONAL_TEXT_COMPONENT, ITEM_STACK, BOOLEAN, ROTATIONS, BLOCK_POSITION,
+            OPTIONAL_BLOCK_POSITION, DIRECTION, OPTIONAL_UUID, BLOCK_STATE, OPTIONAL_BLOCK_STATE, NBT, PARTICLE, PARTICLES, VILLAGER_DATA, OPTIONAL_VAR_INT, POSE,
+            CAT_VARIANT, COW_VARIANT, WOLF_VARIANT, WOLF_SOUND_VARIANT, FROG_VARIANT, PIG_VARIANT, CHICKEN_VARIANT, OPTIONAL_GLOBAL_POSITION, PAINTING_VARIANT,
+            SNIFFER_STATE, ARMADILLO_STATE};
+
+
+    /**
+     * Look up the type of entity metadata entry.
+     *
+     * @param protocolVersion The protocol version.
+     * @param id              The id of the type as used on the wire.
+     * @return The type, or {@link #UNDEFINED} if the id is not known for the protocol version.
+     */
+    public static EntityDataType getByID(int protocolVersion, int id) {
+        EntityDataType[] types;
+        if (protocolVersion >= Version.MC_1_21_9) {
+            types = EntityDataType.TYPES_1_21_9;
+        } else if (protocolVersion >= Version.MC_1_21_5) {
+            types = EntityDataType.TYPES_1_21_5;
+        } else if (protocolVersion >= Version.MC_1_20_5) {
+            types = EntityDataType.TYPES_1_20_5;
+        } else if (protocolVersion >= Version.MC_1_19_4) {
+            types = EntityDataType.TYPES_1_19_4;
+        } else if (protocolVersion >= Version.MC_1_19_3) {
+            types = EntityDataType.TYPES_1_19_3;
+        } else if (protocolVersion >= Version.MC_1_19_0) {
+            types = EntityDataType.TYPES_1_19;
+        } else {
+            types = EntityDataType.TYPES_1_17;
+        }
+        if (id < 0 || id >= types.length) {
+            return EntityDataType.UNDEFINED;
+        }
+        return types[id];
+    }
+
+}
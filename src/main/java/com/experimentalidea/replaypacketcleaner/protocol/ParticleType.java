@@ -0,0 +1,1074 @@
+/*
+ * Copyright 2025 ExperimentalIdea
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+package com.experimentalidea.replaypacketcleaner.protocol;
+
+/**
+ * Represents all the different particle types.
+ * <br>
+ * <br> In cases where a type doesn't exist, ParticleType.UNDEFINED should be used instead.
+ * <br>
+ * <br> Documentation for each type created with {@link DocumentationGenerator}.
+ * Supported Protocol(s) & Resource(s) documented are only inclusive of the protocol versions Replay Packet Cleaner itself currently supports.
+ *
+ * @see Protocol
+ */
+public enum ParticleType implements ProtocolMetadata {
+
+    /**
+     * Used to represent an undefined ParticleType type.
+     */
+    UNDEFINED,
+
+
+    /**
+     * Angry Villager
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:angry_villager
+     */
+    ANGRY_VILLAGER,
+
+    /**
+     * Ash
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:ash
+     */
+    ASH,
+
+    /**
+     * Block
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:block
+     */
+    BLOCK,
+
+    /**
+     * Block Crumble
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:block_crumble
+     */
+    BLOCK_CRUMBLE,
+
+    /**
+     * Block Marker
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:block_marker
+     */
+    BLOCK_MARKER,
+
+    /**
+     * Bubble
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:bubble
+     */
+    BUBBLE,
+
+    /**
+     * Bubble Column Up
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:bubble_column_up
+     */
+    BUBBLE_COLUMN_UP,
+
+    /**
+     * Bubble Pop
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:bubble_pop
+     */
+    BUBBLE_POP,
+
+    /**
+     * Campfire Cosy Smoke
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:campfire_cosy_smoke
+     */
+    CAMPFIRE_COSY_SMOKE,
+
+    /**
+     * Campfire Signal Smoke
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:campfire_signal_smoke
+     */
+    CAMPFIRE_SIGNAL_SMOKE,
+
+    /**
+     * Cherry Leaves
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:cherry_leaves
+     */
+    CHERRY_LEAVES,
+
+    /**
+     * Cloud
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:cloud
+     */
+    CLOUD,
+
+    /**
+     * Composter
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:composter
+     */
+    COMPOSTER,
+
+    /**
+     * Crimson Spore
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:crimson_spore
+     */
+    CRIMSON_SPORE,
+
+    /**
+     * Crit
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:crit
+     */
+    CRIT,
+
+    /**
+     * Current Down
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:current_down
+     */
+    CURRENT_DOWN,
+
+    /**
+     * Damage Indicator
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:damage_indicator
+     */
+    DAMAGE_INDICATOR,
+
+    /**
+     * Dolphin
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:dolphin
+     */
+    DOLPHIN,
+
+    /**
+     * Dragon Breath
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:dragon_breath
+     */
+    DRAGON_BREATH,
+
+    /**
+     * Dripping Dripstone Lava
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:dripping_dripstone_lava
+     */
+    DRIPPING_DRIPSTONE_LAVA,
+
+    /**
+     * Dripping Dripstone Water
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:dripping_dripstone_water
+     */
+    DRIPPING_DRIPSTONE_WATER,
+
+    /**
+     * Dripping Honey
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:dripping_honey
+     */
+    DRIPPING_HONEY,
+
+    /**
+     * Dripping Lava
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:dripping_lava
+     */
+    DRIPPING_LAVA,
+
+    /**
+     * Dripping Obsidian Tear
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:dripping_obsidian_tear
+     */
+    DRIPPING_OBSIDIAN_TEAR,
+
+    /**
+     * Dripping Water
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:dripping_water
+     */
+    DRIPPING_WATER,
+
+    /**
+     * Dust
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:dust
+     */
+    DUST,
+
+    /**
+     * Dust Color Transition
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:dust_color_transition
+     */
+    DUST_COLOR_TRANSITION,
+
+    /**
+     * Dust Pillar
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:dust_pillar
+     */
+    DUST_PILLAR,
+
+    /**
+     * Dust Plume
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:dust_plume
+     */
+    DUST_PLUME,
+
+    /**
+     * Effect
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:effect
+     */
+    EFFECT,
+
+    /**
+     * Egg Crack
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:egg_crack
+     */
+    EGG_CRACK,
+
+    /**
+     * Elder Guardian
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:elder_guardian
+     */
+    ELDER_GUARDIAN,
+
+    /**
+     * Electric Spark
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:electric_spark
+     */
+    ELECTRIC_SPARK,
+
+    /**
+     * Enchant
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:enchant
+     */
+    ENCHANT,
+
+    /**
+     * Enchanted Hit
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:enchanted_hit
+     */
+    ENCHANTED_HIT,
+
+    /**
+     * End Rod
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:end_rod
+     */
+    END_ROD,
+
+    /**
+     * Entity Effect
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:entity_effect
+     */
+    ENTITY_EFFECT,
+
+    /**
+     * Explosion
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:explosion
+     */
+    EXPLOSION,
+
+    /**
+     * Explosion Emitter
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:explosion_emitter
+     */
+    EXPLOSION_EMITTER,
+
+    /**
+     * Falling Dripstone Lava
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:falling_dripstone_lava
+     */
+    FALLING_DRIPSTONE_LAVA,
+
+    /**
+     * Falling Dripstone Water
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:falling_dripstone_water
+     */
+    FALLING_DRIPSTONE_WATER,
+
+    /**
+     * Falling Dust
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:falling_dust
+     */
+    FALLING_DUST,
+
+    /**
+     * Falling Honey
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:falling_honey
+     */
+    FALLING_HONEY,
+
+    /**
+     * Falling Lava
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:falling_lava
+     */
+    FALLING_LAVA,
+
+    /**
+     * Falling Nectar
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:falling_nectar
+     */
+    FALLING_NECTAR,
+
+    /**
+     * Falling Obsidian Tear
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:falling_obsidian_tear
+     */
+    FALLING_OBSIDIAN_TEAR,
+
+    /**
+     * Falling Spore Blossom
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:falling_spore_blossom
+     */
+    FALLING_SPORE_BLOSSOM,
+
+    /**
+     * Falling Water
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:falling_water
+     */
+    FALLING_WATER,
+
+    /**
+     * Firefly
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:firefly
+     */
+    FIREFLY,
+
+    /**
+     * Firework
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:firework
+     */
+    FIREWORK,
+
+    /**
+     * Fishing
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:fishing
+     */
+    FISHING,
+
+    /**
+     * Flame
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:flame
+     */
+    FLAME,
+
+    /**
+     * Flash
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:flash
+     */
+    FLASH,
+
+    /**
+     * Glow
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:glow
+     */
+    GLOW,
+
+    /**
+     * Glow Squid Ink
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:glow_squid_ink
+     */
+    GLOW_SQUID_INK,
+
+    /**
+     * Gust
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:gust
+     */
+    GUST,
+
+    /**
+     * Gust Emitter Large
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:gust_emitter_large
+     */
+    GUST_EMITTER_LARGE,
+
+    /**
+     * Gust Emitter Small
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:gust_emitter_small
+     */
+    GUST_EMITTER_SMALL,
+
+    /**
+     * Happy Villager
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:happy_villager
+     */
+    HAPPY_VILLAGER,
+
+    /**
+     * Heart
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:heart
+     */
+    HEART,
+
+    /**
+     * Infested
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:infested
+     */
+    INFESTED,
+
+    /**
+     * Instant Effect
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:instant_effect
+     */
+    INSTANT_EFFECT,
+
+    /**
+     * Item
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:item
+     */
+    ITEM,
+
+    /**
+     * Item Cobweb
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:item_cobweb
+     */
+    ITEM_COBWEB,
+
+    /**
+     * Item Slime
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:item_slime
+     */
+    ITEM_SLIME,
+
+    /**
+     * Item Snowball
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:item_snowball
+     */
+    ITEM_SNOWBALL,
+
+    /**
+     * Landing Honey
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:landing_honey
+     */
+    LANDING_HONEY,
+
+    /**
+     * Landing Lava
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:landing_lava
+     */
+    LANDING_LAVA,
+
+    /**
+     * Landing Obsidian Tear
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:landing_obsidian_tear
+     */
+    LANDING_OBSIDIAN_TEAR,
+
+    /**
+     * Large Smoke
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:large_smoke
+     */
+    LARGE_SMOKE,
+
+    /**
+     * Lava
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:lava
+     */
+    LAVA,
+
+    /**
+     * Mycelium
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:mycelium
+     */
+    MYCELIUM,
+
+    /**
+     * Nautilus
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:nautilus
+     */
+    NAUTILUS,
+
+    /**
+     * Note
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:note
+     */
+    NOTE,
+
+    /**
+     * Ominous Spawning
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:ominous_spawning
+     */
+    OMINOUS_SPAWNING,
+
+    /**
+     * Pale Oak Leaves
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:pale_oak_leaves
+     */
+    PALE_OAK_LEAVES,
+
+    /**
+     * Poof
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:poof
+     */
+    POOF,
+
+    /**
+     * Portal
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:portal
+     */
+    PORTAL,
+
+    /**
+     * Raid Omen
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:raid_omen
+     */
+    RAID_OMEN,
+
+    /**
+     * Rain
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:rain
+     */
+    RAIN,
+
+    /**
+     * Reverse Portal
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:reverse_portal
+     */
+    REVERSE_PORTAL,
+
+    /**
+     * Scrape
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:scrape
+     */
+    SCRAPE,
+
+    /**
+     * Sculk Charge
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:sculk_charge
+     */
+    SCULK_CHARGE,
+
+    /**
+     * Sculk Charge Pop
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:sculk_charge_pop
+     */
+    SCULK_CHARGE_POP,
+
+    /**
+     * Sculk Soul
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:sculk_soul
+     */
+    SCULK_SOUL,
+
+    /**
+     * Shriek
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:shriek
+     */
+    SHRIEK,
+
+    /**
+     * Small Flame
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:small_flame
+     */
+    SMALL_FLAME,
+
+    /**
+     * Small Gust
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:small_gust
+     */
+    SMALL_GUST,
+
+    /**
+     * Smoke
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:smoke
+     */
+    SMOKE,
+
+    /**
+     * Sneeze
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:sneeze
+     */
+    SNEEZE,
+
+    /**
+     * Snowflake
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:snowflake
+     */
+    SNOWFLAKE,
+
+    /**
+     * Sonic Boom
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:sonic_boom
+     */
+    SONIC_BOOM,
+
+    /**
+     * Soul
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:soul
+     */
+    SOUL,
+
+    /**
+     * Soul Fire Flame
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:soul_fire_flame
+     */
+    SOUL_FIRE_FLAME,
+
+    /**
+     * Spit
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:spit
+     */
+    SPIT,
+
+    /**
+     * Splash
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:splash
+     */
+    SPLASH,
+
+    /**
+     * Spore Blossom Air
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:spore_blossom_air
+     */
+    SPORE_BLOSSOM_AIR,
+
+    /**
+     * Squid Ink
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:squid_ink
+     */
+    SQUID_INK,
+
+    /**
+     * Sweep Attack
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:sweep_attack
+     */
+    SWEEP_ATTACK,
+
+    /**
+     * Tinted Leaves
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:tinted_leaves
+     */
+    TINTED_LEAVES,
+
+    /**
+     * Totem Of Undying
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:totem_of_undying
+     */
+    TOTEM_OF_UNDYING,
+
+    /**
+     * Trail
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:trail
+     */
+    TRAIL,
+
+    /**
+     * Trial Omen
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:trial_omen
+     */
+    TRIAL_OMEN,
+
+    /**
+     * Trial Spawner Detection
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:trial_spawner_detection
+     */
+    TRIAL_SPAWNER_DETECTION,
+
+    /**
+     * Trial Spawner Detection Ominous
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:trial_spawner_detection_ominous
+     */
+    TRIAL_SPAWNER_DETECTION_OMINOUS,
+
+    /**
+     * Underwater
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:underwater
+     */
+    UNDERWATER,
+
+    /**
+     * Vault Connection
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:vault_connection
+     */
+    VAULT_CONNECTION,
+
+    /**
+     * Vibration
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:vibration
+     */
+    VIBRATION,
+
+    /**
+     * Warped Spore
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:warped_spore
+     */
+    WARPED_SPORE,
+
+    /**
+     * Wax Off
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:wax_off
+     */
+    WAX_OFF,
+
+    /**
+     * Wax On
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:wax_on
+     */
+    WAX_ON,
+
+    /**
+     * White Ash
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:white_ash
+     */
+    WHITE_ASH,
+
+    /**
+     * White Smoke
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:white_smoke
+     */
+    WHITE_SMOKE,
+
+    /**
+     * Witch
+     * <p>
+     * Supported Protocol: 770 (1.21.5)
+     * <br>
+     * Resource: minecraft:witch
+     */
+    WITCH;
+
+
+    ParticleType() {
+        this.metadata = new TypeMetadata<ParticleType>(this, new String[]{TypeMetadata.JSON_NODE_PROTOCOL, TypeMetadata.JSON_NODE_REGISTRIES, TypeMetadata.JSON_NODE_PARTICLE_TYPE, this.name().toLowerCase()});
+    }
+
+    private final TypeMetadata<ParticleType> metadata;
+
+    @Override
+    public TypeMetadata<ParticleType> getMetadata() {
+        return this.metadata;
+    }
+
+}
@@ -35,6 +35,8 @@ import java.util.StringTokenizer;
  * @see Block
  * @see BlockEntity
  * @see Item
+ * @see ParticleType
+ * @see WorldEvent
  */
 public class Protocol {
 
@@ -47,7 +49,9 @@ public class Protocol {
                      ProtocolMapper<EntityType> entityTypeMapper,
                      ProtocolBlockMapper blockMapper,
                      ProtocolMapper<BlockEntity> blockEntityTypeMapper,
-                     ProtocolMapper<Item> itemMapper) {
+                     ProtocolMapper<Item> itemMapper,
+                     ProtocolMapper<ParticleType> particleTypeMapper,
+                     WorldEvent[] worldEvents) {
 
         this.protocolVersion = protocolVersion;
         this.mcVersions = mcVersions;
@@ -60,6 +64,8 @@ public class Protocol {
         this.blockMapper = blockMapper;
         this.blockEntityTypeMapper = blockEntityTypeMapper;
         this.itemMapper = itemMapper;
+        this.particleTypeMapper = particleTypeMapper;
+        this.worldEvents = worldEvents;
     }
 
 
@@ -74,6 +80,8 @@ public class Protocol {
     private final ProtocolBlockMapper blockMapper;
     private final ProtocolMapper<BlockEntity> blockEntityTypeMapper;
     private final ProtocolMapper<Item> itemMapper;
+    private final ProtocolMapper<ParticleType> particleTypeMapper;
+    private final WorldEvent[] worldEvents;
 
 
     /**
@@ -105,8 +113,8 @@ public class Protocol {
         // protocol > metadata > mc_versions : <String[]>
         // protocol > packets > <State> > <PacketType> > resource : <String> (not present for versions older than 1.21.0)
         // protocol > packets > <State> > <PacketType> > id : <int> (-1 == unsupported)
-        // protocol > registries > <entity_type/block/block_entity/item> > resourceName : <String> (not present for versions older than 1.13)
-        // protocol > registries > <entity_type/block/block_entity/item> > id : <int> (-1 == unsupported, if not present also considered unsupported)
+        // protocol > registries > <entity_type/block/block_entity/item/particle_type> > resourceName : <String> (not present for versions older than 1.13)
+        // protocol > registries > <entity_type/block/block_entity/item/particle_type> > id : <int> (-1 == unsupported, if not present also considered unsupported)
         // protocol > registries > block > states : <int[]> (mapping block states to blocks, not so for the reverse)
 
         Objects.requireNonNull(jsonProtocolMappings, "jsonProtocolMappings cannot be null");
@@ -184,8 +192,12 @@ public class Protocol {
         ProtocolBlockMapper blockMapper = new ProtocolBlockMapper(jsonProtocolMappings);
         ProtocolMapper<BlockEntity> blockEntityTypeMapper = new ProtocolMapper<BlockEntity>(BlockEntity.UNDEFINED, jsonProtocolMappings);
         ProtocolMapper<Item> itemMapper = new ProtocolMapper<Item>(Item.UNDEFINED, jsonProtocolMappings);
+        ProtocolMapper<ParticleType> particleTypeMapper = new ProtocolMapper<ParticleType>(ParticleType.UNDEFINED, jsonProtocolMappings);
 
-        return new Protocol(protocolVersion, mcVersions, configurationMapper, loginMapper, playMapper, entityTypeMapper, blockMapper, blockEntityTypeMapper, itemMapper);
+        // World events aren't part of the mappings, their ids are hardcoded per protocol version within WorldEvent.
+        WorldEvent[] worldEvents = WorldEvent.createLookupTable(protocolVersion);
+
+        return new Protocol(protocolVersion, mcVersions, configurationMapper, loginMapper, playMapper, entityTypeMapper, blockMapper, blockEntityTypeMapper, itemMapper, particleTypeMapper, worldEvents);
     }
 
 
@@ -608,4 +620,70 @@ public class Protocol {
     }
 
 
+    /**
+     * Get the particle type by the id.
+     *
+     * @param id The id of the particle type.
+     * @return The particle type associated with the provided id.
+     * Or if the id is not recognized, ParticleType.UNDEFINED will be returned instead.
+     * @see ParticleType
+     */
+    public ParticleType getParticleType(int id) {
+        return this.particleTypeMapper.getType(id);
+    }
+
+    /**
+     * Get the id of a particle type.
+     *
+     * @param particleType The particle type.
+     * @return The id associated with the provided particle type. If the particle type is not supported by this protocol,
+     * or the particle type is ParticleType.UNDEFINED, ProtocolMapper.UNDEFINED_ID (-1) will be returned instead.
+     * @see ParticleType
+     */
+    public int getParticleTypeID(ParticleType particleType) {
+        return this.particleTypeMapper.getID(particleType);
+    }
+
+    /**
+     * Get the resource name of a particle type.
+     *
+     * @param particleType The particle type.
+     * @return The resource associated with the provided particle type. If the particle type is not supported by this protocol,
+     * or the particle type is ParticleType.UNDEFINED, or the particle type doesn't have a resource associated with it,
+     * ProtocolMapper.UNDEFINED_RESOURCE_NAME (empty string) will be returned instead.
+     * @see ParticleType
+     */
+    public String getParticleTypeResourceName(ParticleType particleType) {
+        return this.particleTypeMapper.getResourceName(particleType);
+    }
+
+    /**
+     * Get the particle type by the resource name.
+     *
+     * @param resourceName The resource name of the particle type.
+     * @return The particle type associated with the provided resource.
+     * Or if the resource is not recognized, ParticleType.UNDEFINED will be returned instead.
+     * @see ParticleType
+     */
+    public ParticleType getParticleType(String resourceName) {
+        return this.particleTypeMapper.getType(resourceName);
+    }
+
+
+    /**
+     * Get a world event by the id.
+     *
+     * @param id The id of the world event, as found within a World Event packet.
+     * @return The world event associated with the provided id.
+     * Or if the id is not recognized, WorldEvent.UNDEFINED will be returned instead.
+     * @see WorldEvent
+     */
+    public WorldEvent getWorldEvent(int id) {
+        if (id < 0 || id >= this.worldEvents.length || this.worldEvents[id] == null) {
+            return WorldEvent.UNDEFINED;
+        }
+        return this.worldEvents[id];
+    }
+
+
 }
@@ -28,7 +28,7 @@ import java.util.Objects;
  * Typically, instances of this class are wrapped by {@link Protocol}.
  * <p>
  * Supported protocol enums are {@link PacketType.Login}, {@link PacketType.Configuration}, {@link PacketType.Play},
- * {@link EntityType}, {@link Block}, {@link BlockEntity}, and {@link Item}.
+ * {@link EntityType}, {@link Block}, {@link BlockEntity}, {@link Item}, and {@link ParticleType}.
  * <p>
  * For {@link Block}, {@link ProtocolBlockMapper} should be used instead to support getting the block from a block state number.
  */
@@ -40,7 +40,7 @@ public class ProtocolMapper<E extends Enum<E> & ProtocolMetadata> {
      * Using internally created arrays mapping each enum type to/from their protocol version specific id.
      * <p>
      * Supported protocol enums are {@link PacketType.Login}, {@link PacketType.Configuration}, {@link PacketType.Play},
-     * {@link EntityType}, {@link Block}, {@link BlockEntity}, and {@link Item}.
+     * {@link EntityType}, {@link Block}, {@link BlockEntity}, {@link Item}, and {@link ParticleType}.
      *
      * @param undefinedType        Provide the type which will be used in places where no type is applicable.
      * @param jsonProtocolMappings The {@link JSONObject} containing the relevant protocol mappings.
@@ -61,6 +61,7 @@ public class TypeMetadata<E extends Enum<E> & ProtocolMetadata> {
     public static final String JSON_NODE_BLOCKSTATES = "blockstates";
     public static final String JSON_NODE_BLOCK_ENTITY = "block_entity";
     public static final String JSON_NODE_ITEM = "item";
+    public static final String JSON_NODE_PARTICLE_TYPE = "particle_type";
 
     public static final String JSON_NODE_RESOURCE = "resource";
     public static final String JSON_NODE_ID = "id";
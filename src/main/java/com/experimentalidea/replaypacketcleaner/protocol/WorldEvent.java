@@ -0,0 +1,222 @@
+/*
+ * Copyright 2025 ExperimentalIdea
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+package com.experimentalidea.replaypacketcleaner.protocol;
+
+/**
+ * Represents the world events (also known as level events) sent with PacketType.Play.WORLD_EVENT, each classified by a {@link Category}.
+ * <p>
+ * World events are not part of a registry, so their ids are hardcoded here alongside the protocol versions they are valid for.
+ * Events that were removed from the game are kept for newer protocol versions, unless their id has been reused for another event.
+ * <p>
+ * In cases where an event isn't recognized, WorldEvent.UNDEFINED should be used instead.
+ *
+ * @see Protocol#getWorldEvent(int)
+ */
+public enum WorldEvent {
+
+    /**
+     * Used to represent an undefined WorldEvent type.
+     */
+    UNDEFINED(-1, Category.UNDEFINED),
+
+
+    DISPENSER_DISPENSE(1000, Category.SOUND),
+    DISPENSER_FAIL(1001, Category.SOUND),
+    DISPENSER_LAUNCH(1002, Category.SOUND),
+    ENDER_EYE_LAUNCH(1003, Category.SOUND),
+    FIREWORK_SHOOT(1004, Category.SOUND),
+    IRON_DOOR_OPEN(1005, Category.SOUND),
+    WOODEN_DOOR_OPEN(1006, Category.SOUND),
+    WOODEN_TRAPDOOR_OPEN(1007, Category.SOUND),
+    FENCE_GATE_OPEN(1008, Category.SOUND),
+    FIRE_EXTINGUISH(1009, Category.SOUND),
+    /// Starts a music disc. Up until protocol version 766 (1.20.6) a data value of 0 stops the music disc instead.
+    JUKEBOX_PLAY(1010, Category.GAMEPLAY),
+    IRON_DOOR_CLOSE(1011, Category.SOUND, 0, Version.MC_1_20_6),
+    JUKEBOX_STOP(1011, Category.GAMEPLAY, Version.MC_1_21_0, Integer.MAX_VALUE),
+    WOODEN_DOOR_CLOSE(1012, Category.SOUND),
+    WOODEN_TRAPDOOR_CLOSE(1013, Category.SOUND),
+    FENCE_GATE_CLOSE(1014, Category.SOUND),
+    GHAST_WARN(1015, Category.SOUND),
+    GHAST_SHOOT(1016, Category.SOUND),
+    ENDER_DRAGON_SHOOT(1017, Category.SOUND),
+    BLAZE_SHOOT(1018, Category.SOUND),
+    ZOMBIE_ATTACK_WOODEN_DOOR(1019, Category.SOUND),
+    ZOMBIE_ATTACK_IRON_DOOR(1020, Category.SOUND),
+    ZOMBIE_BREAK_WOODEN_DOOR(1021, Category.SOUND),
+    WITHER_BREAK_BLOCK(1022, Category.SOUND),
+    WITHER_SPAWN(1023, Category.SOUND),
+    WITHER_SHOOT(1024, Category.SOUND),
+    BAT_TAKE_OFF(1025, Category.SOUND),
+    ZOMBIE_INFECT(1026, Category.SOUND),
+    ZOMBIE_VILLAGER_CONVERTED(1027, Category.SOUND),
+    ENDER_DRAGON_DEATH(1028, Category.SOUND),
+    ANVIL_DESTROYED(1029, Category.SOUND),
+    ANVIL_USED(1030, Category.SOUND),
+    ANVIL_LANDED(1031, Category.SOUND),
+    PORTAL_TRAVEL(1032, Category.SOUND),
+    CHORUS_FLOWER_GROW(1033, Category.SOUND),
+    CHORUS_FLOWER_DEATH(1034, Category.SOUND),
+    BREWING_STAND_BREW(1035, Category.SOUND),
+    IRON_TRAPDOOR_CLOSE(1036, Category.SOUND),
+    IRON_TRAPDOOR_OPEN(1037, Category.SOUND),
+    END_PORTAL_CREATED(1038, Category.SOUND),
+    PHANTOM_BITE(1039, Category.SOUND),
+    ZOMBIE_CONVERT_TO_DROWNED(1040, Category.SOUND),
+    HUSK_CONVERT_TO_ZOMBIE(1041, Category.SOUND),
+    GRINDSTONE_USED(1042, Category.SOUND),
+    BOOK_PAGE_TURN(1043, Category.SOUND),
+    SMITHING_TABLE_USED(1044, Category.SOUND),
+    POINTED_DRIPSTONE_LAND(1045, Category.SOUND, Version.MC_1_17_0, Integer.MAX_VALUE),
+    LAVA_DRIP_INTO_CAULDRON(1046, Category.SOUND, Version.MC_1_17_0, Integer.MAX_VALUE),
+    WATER_DRIP_INTO_CAULDRON(1047, Category.SOUND, Version.MC_1_17_0, Integer.MAX_VALUE),
+    SKELETON_CONVERT_TO_STRAY(1048, Category.SOUND, Version.MC_1_17_0, Integer.MAX_VALUE),
+    CRAFTER_CRAFT(1049, Category.SOUND, Version.MC_1_20_3, Integer.MAX_VALUE),
+    CRAFTER_FAIL(1050, Category.SOUND, Version.MC_1_20_3, Integer.MAX_VALUE),
+    WIND_CHARGE_SHOOT(1051, Category.SOUND, Version.MC_1_20_5, Integer.MAX_VALUE),
+
+    COMPOSTER_FILL(1500, Category.PARTICLE),
+    LAVA_EXTINGUISH(1501, Category.PARTICLE),
+    REDSTONE_TORCH_BURNOUT(1502, Category.PARTICLE),
+    END_PORTAL_FRAME_FILL(1503, Category.PARTICLE),
+    DRIPSTONE_DRIP(1504, Category.PARTICLE, Version.MC_1_17_0, Integer.MAX_VALUE),
+    PLANT_GROWTH(1505, Category.PARTICLE, Version.MC_1_17_0, Integer.MAX_VALUE),
+
+    SMOKE(2000, Category.PARTICLE),
+    /// The particles and sound of a block being broken. Not the block change itself.
+    DESTROY_BLOCK(2001, Category.BLOCK_BREAK),
+    POTION_SPLASH(2002, Category.PARTICLE),
+    ENDER_EYE_BREAK(2003, Category.PARTICLE),
+    SPAWNER_SPAWN(2004, Category.PARTICLE),
+    BONE_MEAL(2005, Category.PARTICLE),
+    DRAGON_BREATH(2006, Category.PARTICLE),
+    INSTANT_POTION_SPLASH(2007, Category.PARTICLE),
+    ENDER_DRAGON_DESTROY_BLOCK(2008, Category.BLOCK_BREAK),
+    WET_SPONGE_DRY(2009, Category.PARTICLE),
+    WHITE_SMOKE(2010, Category.PARTICLE, Version.MC_1_20_3, Integer.MAX_VALUE),
+    BEE_GROWTH(2011, Category.PARTICLE, Version.MC_1_20_5, Integer.MAX_VALUE),
+    TURTLE_EGG_PLACEMENT(2012, Category.PARTICLE, Version.MC_1_20_5, Integer.MAX_VALUE),
+    SMASH_ATTACK(2013, Category.PARTICLE, Version.MC_1_20_5, Integer.MAX_VALUE),
+
+    /// The beam of a newly spawned end gateway.
+    END_GATEWAY_SPAWN(3000, Category.VISUAL),
+    ENDER_DRAGON_SUMMON_ROAR(3001, Category.SOUND),
+    ELECTRIC_SPARK(3002, Category.PARTICLE, Version.MC_1_17_0, Integer.MAX_VALUE),
+    WAX_ON(3003, Category.PARTICLE, Version.MC_1_17_0, Integer.MAX_VALUE),
+    WAX_OFF(3004, Category.PARTICLE, Version.MC_1_17_0, Integer.MAX_VALUE),
+    SCRAPE(3005, Category.PARTICLE, Version.MC_1_17_0, Integer.MAX_VALUE),
+    SCULK_CHARGE(3006, Category.PARTICLE, Version.MC_1_19_0, Integer.MAX_VALUE),
+    SCULK_SHRIEK(3007, Category.PARTICLE, Version.MC_1_19_0, Integer.MAX_VALUE),
+    BRUSH_BLOCK_COMPLETE(3008, Category.BLOCK_BREAK, Version.MC_1_20_0, Integer.MAX_VALUE),
+    SNIFFER_EGG_CRACK(3009, Category.PARTICLE, Version.MC_1_20_0, Integer.MAX_VALUE),
+    TRIAL_SPAWNER_SPAWN(3011, Category.PARTICLE, Version.MC_1_20_3, Integer.MAX_VALUE),
+    TRIAL_SPAWNER_SPAWN_MOB(3012, Category.PARTICLE, Version.MC_1_20_3, Integer.MAX_VALUE),
+    TRIAL_SPAWNER_DETECT_PLAYER(3013, Category.PARTICLE, Version.MC_1_20_3, Integer.MAX_VALUE),
+    TRIAL_SPAWNER_EJECT_ITEM(3014, Category.PARTICLE, Version.MC_1_20_3, Integer.MAX_VALUE),
+    VAULT_ACTIVATE(3015, Category.PARTICLE, Version.MC_1_20_5, Integer.MAX_VALUE),
+    VAULT_DEACTIVATE(3016, Category.PARTICLE, Version.MC_1_20_5, Integer.MAX_VALUE),
+    TRIAL_SPAWNER_DETECT_PLAYER_OMINOUS(3017, Category.PARTICLE, Version.MC_1_20_5, Integer.MAX_VALUE),
+    VAULT_EJECT_ITEM(3018, Category.PARTICLE, Version.MC_1_20_5, Integer.MAX_VALUE),
+    TRIAL_SPAWNER_BECOME_OMINOUS(3019, Category.PARTICLE, Version.MC_1_20_5, Integer.MAX_VALUE),
+    TRIAL_SPAWNER_SPAWN_ITEM(3020, Category.PARTICLE, Version.MC_1_20_5, Integer.MAX_VALUE);
+
+
+    WorldEvent(int id, Category category) {
+        this(id, category, 0, Integer.MAX_VALUE);
+    }
+
+    WorldEvent(int id, Category category, int firstProtocolVersion, int lastProtocolVersion) {
+        this.id = id;
+        this.category = category;
+        this.firstProtocolVersion = firstProtocolVersion;
+        this.lastProtocolVersion = lastProtocolVersion;
+    }
+
+    private final int id;
+    private final Category category;
+    private final int firstProtocolVersion, lastProtocolVersion;
+
+
+    /// The id of this event. Use {@link Protocol#getWorldEvent(int)} for looking up an event by its id, as ids may differ between protocol versions.
+    public int getID() {
+        return this.id;
+    }
+
+    public Category getCategory() {
+        return this.category;
+    }
+
+    public boolean isSupported(int protocolVersion) {
+        return this != WorldEvent.UNDEFINED && protocolVersion >= this.firstProtocolVersion && protocolVersion <= this.lastProtocolVersion;
+    }
+
+
+    /// Build the lookup table of event id -> WorldEvent for a protocol version. Unused ids are left as null.
+    static WorldEvent[] createLookupTable(int protocolVersion) {
+        int maxID = 0;
+        for (WorldEvent worldEvent : WorldEvent.values()) {
+            maxID = Math.max(maxID, worldEvent.id);
+        }
+
+        WorldEvent[] table = new WorldEvent[maxID + 1];
+        for (WorldEvent worldEvent : WorldEvent.values()) {
+            if (worldEvent.isSupported(protocolVersion)) {
+                table[worldEvent.id] = worldEvent;
+            }
+        }
+        return table;
+    }
+
+
+    /**
+     * Classification of world events, by what removing the event would take away from a replay.
+     */
+    public static enum Category {
+
+        /**
+         * Used to represent an undefined (unrecognized) world event.
+         */
+        UNDEFINED,
+
+        /**
+         * Only plays a sound.
+         */
+        SOUND,
+
+        /**
+         * Spawns particles. May play a sound along with the particles.
+         */
+        PARTICLE,
+
+        /**
+         * The particles and sound of a block being broken, destroyed, or brushed away.
+         */
+        BLOCK_BREAK,
+
+        /**
+         * A visual effect other than particles, such as the end gateway beam.
+         */
+        VISUAL,
+
+        /**
+         * Changes state the client keeps track of, beyond a one-off effect.
+         * For example the music disc playing from a jukebox, which makes nearby parrots dance and shows the "Now Playing" message.
+         */
+        GAMEPLAY
+
+    }
+
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2025 ExperimentalIdea
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+package com.experimentalidea.replaypacketcleaner.util;
+
+/// A fast non-cryptographic 64-bit hash for packet data. Good enough for telling apart packet payloads, not meant for anything security related.
+public final class Hash64 {
+
+    private Hash64() {
+    }
+
+    private static final long PRIME_1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME_2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME_3 = 0x165667B19E3779F9L;
+
+
+    /**
+     * Hash an array of bytes. (where each int holds a single byte, as returned by ReplayReader.readByteArray(int))
+     */
+    public static long hash(int[] bytes) {
+        return Hash64.hash(bytes, 0, bytes.length, 0L);
+    }
+
+    /**
+     * Hash a range of an array of bytes. (where each int holds a single byte, as returned by ReplayReader.readByteArray(int))
+     *
+     * @param from Index of the first byte. (inclusive)
+     * @param to   Index of the last byte. (exclusive)
+     * @param seed Can be used to combine the hash of another value, such as a packet type, with the hash of the bytes.
+     */
+    public static long hash(int[] bytes, int from, int to, long seed) {
+        long hash = seed ^ ((to - from) * Hash64.PRIME_1);
+
+        int i = from;
+        // 8 bytes at a time.
+        for (; i + 8 <= to; i += 8) {
+            long word = (bytes[i] & 0xFFL)
+                    | (bytes[i + 1] & 0xFFL) << 8
+                    | (bytes[i + 2] & 0xFFL) << 16
+                    | (bytes[i + 3] & 0xFFL) << 24
+                    | (bytes[i + 4] & 0xFFL) << 32
+                    | (bytes[i + 5] & 0xFFL) << 40
+                    | (bytes[i + 6] & 0xFFL) << 48
+                    | (bytes[i + 7] & 0xFFL) << 56;
+            hash = Long.rotateLeft(hash ^ (word * Hash64.PRIME_2), 31) * Hash64.PRIME_1;
+        }
+        // Remaining bytes.
+        for (; i < to; i++) {
+            hash = Long.rotateLeft(hash ^ ((bytes[i] & 0xFFL) * Hash64.PRIME_3), 11) * Hash64.PRIME_1;
+        }
+
+        return Hash64.mix(hash);
+    }
+
+    /// Final avalanche step. (from MurmurHash3's fmix64)
+    public static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2025 ExperimentalIdea
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+package com.experimentalidea.replaypacketcleaner.util;
+
+import java.util.Arrays;
+
+/// An open addressing (linear probing) hash set of primitive int values.
+/// Used on hot paths for tracking entity ids, where a HashSet<Integer> would end up boxing the id for every packet.
+public class IntHashSet {
+
+
+    /**
+     * Creates an empty set.
+     *
+     * @param expectedSize The number of values the set should be able to hold before needing to grow.
+     */
+    public IntHashSet(int expectedSize) {
+        int capacity = 16;
+        while (capacity * IntHashSet.LOAD_FACTOR < expectedSize) {
+            capacity <<= 1;
+        }
+        this.allocate(capacity);
+    }
+
+
+    private static final float LOAD_FACTOR = 0.5F;
+
+    private int[] values;
+    private boolean[] used;
+    private int mask;
+    private int resizeThreshold;
+    private int size = 0;
+
+
+    private void allocate(int capacity) {
+        this.values = new int[capacity];
+        this.used = new boolean[capacity];
+        this.mask = capacity - 1;
+        this.resizeThreshold = (int) (capacity * IntHashSet.LOAD_FACTOR);
+    }
+
+    private int slotOf(int value) {
+        int hash = value * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & this.mask;
+    }
+
+    /// Returns the slot holding the value, or the (unused) slot where the value would be placed.
+    private int findSlot(int value) {
+        int slot = this.slotOf(value);
+        while (this.used[slot] && this.values[slot] != value) {
+            slot = (slot + 1) & this.mask;
+        }
+        return slot;
+    }
+
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    public boolean contains(int value) {
+        return this.used[this.findSlot(value)];
+    }
+
+    /**
+     * Add a value to this set.
+     *
+     * @return true if the value was not already present within this set.
+     */
+    public boolean add(int value) {
+        int slot = this.findSlot(value);
+        if (this.used[slot]) {
+            return false;
+        }
+        this.used[slot] = true;
+        this.values[slot] = value;
+        if (++this.size > this.resizeThreshold) {
+            this.rehash(this.values.length << 1);
+        }
+        return true;
+    }
+
+    /**
+     * Remove a value from this set.
+     *
+     * @return true if the value was present.
+     */
+    public boolean remove(int value) {
+        int slot = this.findSlot(value);
+        if (!this.used[slot]) {
+            return false;
+        }
+        this.used[slot] = false;
+        this.size--;
+
+        // Shift back any following values of the same probe sequence, so lookups don't stop early at the now empty slot.
+        int next = (slot + 1) & this.mask;
+        while (this.used[next]) {
+            int ideal = this.slotOf(this.values[next]);
+            // Move the value if its ideal slot is not cyclically within (slot, next].
+            if (((next - ideal) & this.mask) >= ((next - slot) & this.mask)) {
+                this.values[slot] = this.values[next];
+                this.used[slot] = true;
+                this.used[next] = false;
+                slot = next;
+            }
+            next = (next + 1) & this.mask;
+        }
+        return true;
+    }
+
+    public void clear() {
+        if (this.size != 0) {
+            Arrays.fill(this.used, false);
+            this.size = 0;
+        }
+    }
+
+
+    /// Returns the number of slots within this set. Used along with {@link #isSlotUsed(int)} for iterating over the values.
+    public int capacity() {
+        return this.values.length;
+    }
+
+    public boolean isSlotUsed(int slot) {
+        return this.used[slot];
+    }
+
+    public int valueAt(int slot) {
+        return this.values[slot];
+    }
+
+
+    private void rehash(int newCapacity) {
+        int[] oldValues = this.values;
+        boolean[] oldUsed = this.used;
+
+        this.allocate(newCapacity);
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldUsed[i]) {
+                int slot = this.findSlot(oldValues[i]);
+                this.used[slot] = true;
+                this.values[slot] = oldValues[i];
+            }
+        }
+    }
+
+
+}
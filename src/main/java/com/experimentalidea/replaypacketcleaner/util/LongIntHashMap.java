@@ -0,0 +1,224 @@
+/*
+ * Copyright 2025 ExperimentalIdea
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+package com.experimentalidea.replaypacketcleaner.util;
+
+import java.util.Arrays;
+import java.util.function.LongPredicate;
+
+/// An open addressing (linear probing) hash map of primitive long keys to primitive int values.
+/// Used on hot paths where a HashMap<Long, Integer> would end up boxing a key (and possibly a value) for every packet.
+public class LongIntHashMap {
+
+
+    /**
+     * Creates an empty map.
+     *
+     * @param expectedSize The number of entries the map should be able to hold before needing to grow.
+     */
+    public LongIntHashMap(int expectedSize) {
+        int capacity = 16;
+        while (capacity * LongIntHashMap.LOAD_FACTOR < expectedSize) {
+            capacity <<= 1;
+        }
+        this.allocate(capacity);
+    }
+
+
+    private static final float LOAD_FACTOR = 0.5F;
+
+    private long[] keys;
+    private int[] values;
+    private boolean[] used;
+    private int mask;
+    private int resizeThreshold;
+    private int size = 0;
+
+
+    private void allocate(int capacity) {
+        this.keys = new long[capacity];
+        this.values = new int[capacity];
+        this.used = new boolean[capacity];
+        this.mask = capacity - 1;
+        this.resizeThreshold = (int) (capacity * LongIntHashMap.LOAD_FACTOR);
+    }
+
+    private int slotOf(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & this.mask;
+    }
+
+    /// Returns the slot holding the key, or the (unused) slot where the key would be placed.
+    private int findSlot(long key) {
+        int slot = this.slotOf(key);
+        while (this.used[slot] && this.keys[slot] != key) {
+            slot = (slot + 1) & this.mask;
+        }
+        return slot;
+    }
+
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    public boolean containsKey(long key) {
+        return this.used[this.findSlot(key)];
+    }
+
+    /**
+     * Get the value mapped to a key.
+     *
+     * @param key          The key.
+     * @param defaultValue Returned if the key isn't present within this map.
+     */
+    public int get(long key, int defaultValue) {
+        int slot = this.findSlot(key);
+        return this.used[slot] ? this.values[slot] : defaultValue;
+    }
+
+    /**
+     * Map a value to a key, replacing any existing value.
+     *
+     * @return true if the key was not already present within this map.
+     */
+    public boolean put(long key, int value) {
+        int slot = this.findSlot(key);
+        if (this.used[slot]) {
+            this.values[slot] = value;
+            return false;
+        }
+        this.used[slot] = true;
+        this.keys[slot] = key;
+        this.values[slot] = value;
+        if (++this.size > this.resizeThreshold) {
+            this.rehash(this.keys.length << 1);
+        }
+        return true;
+    }
+
+    /**
+     * Add to the value mapped to a key. If the key isn't present, it's added with a value of delta.
+     *
+     * @return The new value.
+     */
+    public int add(long key, int delta) {
+        int slot = this.findSlot(key);
+        if (this.used[slot]) {
+            return this.values[slot] += delta;
+        }
+        this.put(key, delta);
+        return delta;
+    }
+
+    /**
+     * Remove a key and its value from this map.
+     *
+     * @return true if the key was present.
+     */
+    public boolean remove(long key) {
+        int slot = this.findSlot(key);
+        if (!this.used[slot]) {
+            return false;
+        }
+        this.used[slot] = false;
+        this.size--;
+
+        // Shift back any following entries of the same probe sequence, so lookups don't stop early at the now empty slot.
+        int next = (slot + 1) & this.mask;
+        while (this.used[next]) {
+            int ideal = this.slotOf(this.keys[next]);
+            // Move the entry if its ideal slot is not cyclically within (slot, next].
+            if (((next - ideal) & this.mask) >= ((next - slot) & this.mask)) {
+                this.keys[slot] = this.keys[next];
+                this.values[slot] = this.values[next];
+                this.used[slot] = true;
+                this.used[next] = false;
+                slot = next;
+            }
+            next = (next + 1) & this.mask;
+        }
+        return true;
+    }
+
+    /**
+     * Remove every entry whose key matches the filter.
+     *
+     * @return The number of entries removed.
+     */
+    public int removeIf(LongPredicate filter) {
+        long[] oldKeys = this.keys;
+        int[] oldValues = this.values;
+        boolean[] oldUsed = this.used;
+        int oldSize = this.size;
+
+        this.allocate(oldKeys.length);
+        this.size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i] && !filter.test(oldKeys[i])) {
+                this.put(oldKeys[i], oldValues[i]);
+            }
+        }
+        return oldSize - this.size;
+    }
+
+    public void clear() {
+        if (this.size != 0) {
+            Arrays.fill(this.used, false);
+            this.size = 0;
+        }
+    }
+
+
+    /// Returns the number of slots within this map. Used along with {@link #isSlotUsed(int)} for iterating over the entries.
+    public int capacity() {
+        return this.keys.length;
+    }
+
+    public boolean isSlotUsed(int slot) {
+        return this.used[slot];
+    }
+
+    public long keyAt(int slot) {
+        return this.keys[slot];
+    }
+
+    public int valueAt(int slot) {
+        return this.values[slot];
+    }
+
+
+    private void rehash(int newCapacity) {
+        long[] oldKeys = this.keys;
+        int[] oldValues = this.values;
+        boolean[] oldUsed = this.used;
+
+        this.allocate(newCapacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                int slot = this.findSlot(oldKeys[i]);
+                this.used[slot] = true;
+                this.keys[slot] = oldKeys[i];
+                this.values[slot] = oldValues[i];
+            }
+        }
+    }
+
+
+}
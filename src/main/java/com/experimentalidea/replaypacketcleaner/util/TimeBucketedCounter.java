@@ -0,0 +1,84 @@
+/*
+ * Copyright 2025 ExperimentalIdea
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * */
+package com.experimentalidea.replaypacketcleaner.util;
+
+/// Counts occurrences of primitive long keys within a sliding window of time.
+/// Time is split into buckets the length of the window, only the current and previous buckets are kept.
+/// So an occurrence is counted for at least the length of the window, and at most twice that.
+public class TimeBucketedCounter {
+
+    /**
+     * Creates an empty counter.
+     *
+     * @param windowMilliseconds The length of the window (and of each bucket) in milliseconds.
+     * @param expectedSize       The number of keys each bucket should be able to hold before needing to grow.
+     */
+    public TimeBucketedCounter(int windowMilliseconds, int expectedSize) {
+        this.windowMilliseconds = Math.max(1, windowMilliseconds);
+        this.currentBucket = new LongIntHashMap(expectedSize);
+        this.previousBucket = new LongIntHashMap(expectedSize);
+    }
+
+    private final int windowMilliseconds;
+
+    private LongIntHashMap currentBucket;
+    private LongIntHashMap previousBucket;
+    private long currentBucketIndex = Long.MIN_VALUE;
+
+
+    /// Move to the bucket of the timestamp. Timestamps are expected to never go backwards.
+    private void advance(int timestamp) {
+        long bucketIndex = Math.floorDiv(timestamp, this.windowMilliseconds);
+        if (bucketIndex == this.currentBucketIndex) {
+            return;
+        }
+        if (bucketIndex == this.currentBucketIndex + 1) {
+            // Reuse the map of the oldest bucket for the new one.
+            LongIntHashMap oldestBucket = this.previousBucket;
+            this.previousBucket = this.currentBucket;
+            this.currentBucket = oldestBucket;
+            this.currentBucket.clear();
+        } else {
+            this.previousBucket.clear();
+            this.currentBucket.clear();
+        }
+        this.currentBucketIndex = bucketIndex;
+    }
+
+    /**
+     * Count an occurrence of a key.
+     *
+     * @return The number of occurrences of the key within the window, including this one.
+     */
+    public int add(long key, int timestamp) {
+        this.advance(timestamp);
+        return this.currentBucket.add(key, 1) + this.previousBucket.get(key, 0);
+    }
+
+    /**
+     * Get the number of occurrences of a key within the window.
+     */
+    public int get(long key, int timestamp) {
+        this.advance(timestamp);
+        return this.currentBucket.get(key, 0) + this.previousBucket.get(key, 0);
+    }
+
+    public void clear() {
+        this.currentBucket.clear();
+        this.previousBucket.clear();
+    }
+
+}